@@ -0,0 +1,148 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.ProcessBuilder.Redirect;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs each {@link Scenario} with closed and open loop load, in each
+ * {@link AgentMode}, in a forked JVM per run (see {@link ScenarioRunner}),
+ * and writes the throughput, latency percentiles and allocation rate of each
+ * run to {@code results.csv} in the directory specified by the
+ * {@code sa.benchmark.output} system property. The runs are configured with
+ * the following system properties:
+ * <ul>
+ * <li>{@code sa.benchmark.agent}: The path of the SpecialAgent JAR.</li>
+ * <li>{@code sa.benchmark.scenarios}: The comma-separated names of the
+ * scenarios ({@code jetty,netty,webflux,grpc}).</li>
+ * <li>{@code sa.benchmark.loads}: The comma-separated loads
+ * ({@code closed,open}).</li>
+ * <li>{@code sa.benchmark.threads}: The number of load generator threads
+ * ({@code 4}).</li>
+ * <li>{@code sa.benchmark.rate}: The requests per second of the open loop
+ * ({@code 1000}).</li>
+ * <li>{@code sa.benchmark.warmup}: The warmup of each run, in seconds
+ * ({@code 10}).</li>
+ * <li>{@code sa.benchmark.duration}: The measurement of each run, in seconds
+ * ({@code 30}).</li>
+ * </ul>
+ */
+public final class EndToEndBenchmarks {
+  private static final String HEADER = "scenario,load,mode,requests,errors,throughput req/s,p50 us,p99 us,p999 us,max us,alloc MB/s,alloc bytes/req\n";
+
+  public static void main(final String[] args) throws InterruptedException, IOException {
+    final String agentJar = System.getProperty("sa.benchmark.agent");
+    if (agentJar == null || !new File(agentJar).exists())
+      throw new IllegalStateException("sa.benchmark.agent=" + agentJar + " must be the path of the SpecialAgent JAR");
+
+    final String[] scenarios = System.getProperty("sa.benchmark.scenarios", "jetty,netty,webflux,grpc").split(",");
+    final String[] loads = System.getProperty("sa.benchmark.loads", "closed,open").split(",");
+    final String threads = System.getProperty("sa.benchmark.threads", "4");
+    final String rate = System.getProperty("sa.benchmark.rate", "1000");
+    final String warmup = System.getProperty("sa.benchmark.warmup", "10");
+    final String duration = System.getProperty("sa.benchmark.duration", "30");
+    final File output = new File(System.getProperty("sa.benchmark.output", "target/e2e"));
+    if (!output.isDirectory() && !output.mkdirs())
+      throw new IOException("Unable to create " + output);
+
+    final StringBuilder summary = new StringBuilder(HEADER);
+    try (final FileWriter writer = new FileWriter(new File(output, "results.csv"))) {
+      writer.write(HEADER);
+      for (final String scenario : scenarios) {
+        for (final String load : loads) {
+          for (final AgentMode mode : AgentMode.values()) {
+            final String row = scenario + "," + load + "," + mode.name().toLowerCase() + "," + fork(agentJar, mode, scenario, load, threads, rate, warmup, duration) + "\n";
+            summary.append(row);
+            writer.write(row);
+            writer.flush();
+          }
+        }
+      }
+    }
+
+    System.out.println(summary);
+    System.out.println("Results written to: " + new File(output, "results.csv").getAbsolutePath());
+  }
+
+  /**
+   * Runs the specified scenario in a forked JVM, and returns the CSV columns
+   * of its result, which are empty if the run failed.
+   */
+  private static String fork(final String agentJar, final AgentMode mode, final String scenario, final String load, final String threads, final String rate, final String warmup, final String duration) throws InterruptedException, IOException {
+    final List<String> command = new ArrayList<>();
+    command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+    command.addAll(mode.jvmArgs(agentJar));
+    command.add("-Xms1g");
+    command.add("-Xmx1g");
+    command.add("-classpath");
+    command.add(System.getProperty("java.class.path"));
+    command.add(ScenarioRunner.class.getName());
+    command.add(scenario);
+    command.add(load);
+    command.add(threads);
+    command.add(rate);
+    command.add(warmup);
+    command.add(duration);
+
+    System.out.println("# Run: " + scenario + " " + load + " " + mode.name().toLowerCase());
+    final Process process = new ProcessBuilder(command).redirectError(Redirect.INHERIT).start();
+    String result = null;
+    try (final BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+      for (String line; (line = reader.readLine()) != null;) {
+        if (line.startsWith(ScenarioRunner.RESULT))
+          result = line.substring(ScenarioRunner.RESULT.length());
+        else
+          System.out.println(line);
+      }
+    }
+
+    final int exitCode = process.waitFor();
+    if (exitCode != 0 || result == null) {
+      System.err.println("# Run failed with exit code " + exitCode + ": " + scenario + " " + load + " " + mode.name().toLowerCase());
+      return ",,,,,,,,";
+    }
+
+    return format(result.split(" "));
+  }
+
+  private static String format(final String[] values) {
+    final long requests = Long.parseLong(values[0]);
+    final long errors = Long.parseLong(values[1]);
+    final double seconds = Long.parseLong(values[2]) / 1e9;
+    final long allocatedBytes = Long.parseLong(values[7]);
+    final StringBuilder builder = new StringBuilder();
+    builder.append(requests).append(',').append(errors).append(',');
+    builder.append(String.format(Locale.ROOT, "%.1f", requests / seconds));
+    for (int i = 3; i < 7; ++i)
+      builder.append(',').append(String.format(Locale.ROOT, "%.1f", Long.parseLong(values[i]) / 1e3));
+
+    if (allocatedBytes < 0)
+      return builder.append(",,").toString();
+
+    builder.append(',').append(String.format(Locale.ROOT, "%.1f", allocatedBytes / seconds / (1 << 20)));
+    builder.append(',').append(requests == 0 ? "" : String.valueOf(allocatedBytes / requests));
+    return builder.toString();
+  }
+}
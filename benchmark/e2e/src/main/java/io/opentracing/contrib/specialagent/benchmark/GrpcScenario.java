@@ -0,0 +1,69 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * A {@link Scenario} of a unary gRPC call to an embedded gRPC server. The
+ * method is declared with a {@link ByteArrayMarshaller}, so that no generated
+ * stubs are needed.
+ */
+public class GrpcScenario extends Scenario {
+  private static final String SERVICE = "specialagent.Benchmark";
+  private static final byte[] REQUEST = "request".getBytes();
+  private static final MethodDescriptor<byte[],byte[]> method = ByteArrayMarshaller.unary(SERVICE, "Echo");
+
+  private Server server;
+  private ManagedChannel channel;
+
+  @Override
+  public void start() throws IOException {
+    server = ServerBuilder.forPort(0).addService(ServerServiceDefinition.builder(SERVICE).addMethod(method, ServerCalls.asyncUnaryCall(new ServerCalls.UnaryMethod<byte[],byte[]>() {
+      @Override
+      public void invoke(final byte[] request, final StreamObserver<byte[]> responseObserver) {
+        responseObserver.onNext(HttpScenario.BODY);
+        responseObserver.onCompleted();
+      }
+    })).build()).build().start();
+
+    channel = ManagedChannelBuilder.forAddress("127.0.0.1", server.getPort()).usePlaintext().build();
+  }
+
+  @Override
+  public void call() {
+    ClientCalls.blockingUnaryCall(channel, method, CallOptions.DEFAULT, REQUEST);
+  }
+
+  @Override
+  public void stop() throws InterruptedException {
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,57 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * A {@link Scenario} of an embedded HTTP server, with a
+ * {@link HttpURLConnection} client that reuses persistent connections.
+ */
+public abstract class HttpScenario extends Scenario {
+  static final byte[] BODY = "OK".getBytes();
+
+  private URL url;
+
+  /**
+   * Starts the server on an ephemeral port of the loopback address.
+   *
+   * @return The port of the server.
+   * @throws Exception If an exception has occurred.
+   */
+  abstract int startServer() throws Exception;
+
+  @Override
+  public final void start() throws Exception {
+    url = new URL("http://127.0.0.1:" + startServer() + "/");
+  }
+
+  @Override
+  public final void call() throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+    final int statusCode = connection.getResponseCode();
+    try (final InputStream in = connection.getInputStream()) {
+      while (in.read() != -1);
+    }
+
+    if (statusCode != 200)
+      throw new IOException("Unexpected response: " + statusCode);
+  }
+}
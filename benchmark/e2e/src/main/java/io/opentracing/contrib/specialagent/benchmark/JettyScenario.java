@@ -0,0 +1,60 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+/**
+ * A {@link Scenario} of a servlet in an embedded Jetty server.
+ */
+public class JettyScenario extends HttpScenario {
+  private Server server;
+
+  @Override
+  int startServer() throws Exception {
+    server = new Server(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    final ServletContextHandler context = new ServletContextHandler();
+    context.addServlet(new ServletHolder(new HttpServlet() {
+      private static final long serialVersionUID = -1924227396546484562L;
+
+      @Override
+      protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        response.setContentLength(BODY.length);
+        response.getOutputStream().write(BODY);
+      }
+    }), "/");
+    server.setHandler(context);
+    server.start();
+    return ((ServerConnector)server.getConnectors()[0]).getLocalPort();
+  }
+
+  @Override
+  public void stop() throws Exception {
+    server.stop();
+  }
+}
@@ -0,0 +1,158 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Drives load against a {@link Scenario} from a fixed number of threads, in
+ * one of two ways:
+ * <ul>
+ * <li><b>Closed loop</b>: Each thread issues the next request as soon as the
+ * response of the previous request is received. The recorded latency is the
+ * service time of each request.</li>
+ * <li><b>Open loop</b>: Requests are scheduled at a fixed rate, regardless of
+ * the responses. The latency of each request is recorded from its intended
+ * start time, rather than from the time it was actually issued, so that the
+ * recorded latencies are not subject to coordinated omission when the
+ * scenario falls behind the schedule.</li>
+ * </ul>
+ */
+final class LoadGenerator {
+  /**
+   * The result of a run of the {@link LoadGenerator}.
+   */
+  static final class Result {
+    final long requests;
+    final long errors;
+    final long elapsedNanos;
+    final long allocatedBytes;
+    final Histogram histogram;
+
+    private Result(final long requests, final long errors, final long elapsedNanos, final long allocatedBytes, final Histogram histogram) {
+      this.requests = requests;
+      this.errors = errors;
+      this.elapsedNanos = elapsedNanos;
+      this.allocatedBytes = allocatedBytes;
+      this.histogram = histogram;
+    }
+  }
+
+  /**
+   * Returns the number of bytes allocated by all live threads, or {@code -1}
+   * if the JVM does not support the measurement of allocated bytes.
+   *
+   * @return The number of bytes allocated by all live threads.
+   */
+  static long allocatedBytes() {
+    final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean))
+      return -1;
+
+    final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean)threads;
+    if (!sunThreads.isThreadAllocatedMemorySupported() || !sunThreads.isThreadAllocatedMemoryEnabled())
+      return -1;
+
+    long total = 0;
+    for (final long bytes : sunThreads.getThreadAllocatedBytes(sunThreads.getAllThreadIds()))
+      if (bytes > 0)
+        total += bytes;
+
+    return total;
+  }
+
+  private final Scenario scenario;
+  private final int threads;
+
+  LoadGenerator(final Scenario scenario, final int threads) {
+    if (threads <= 0)
+      throw new IllegalArgumentException("threads (" + threads + ") must be positive");
+
+    this.scenario = scenario;
+    this.threads = threads;
+  }
+
+  /**
+   * Runs the load for the specified duration.
+   *
+   * @param rate The rate of requests per second of the open loop, or
+   *          {@code 0} for the closed loop.
+   * @param durationNanos The duration, in nanoseconds.
+   * @return The {@link Result} of the run.
+   * @throws InterruptedException If the thread is interrupted.
+   */
+  Result run(final double rate, final long durationNanos) throws InterruptedException {
+    final long interval = rate > 0 ? Math.max(1, (long)(1000000000d / rate)) : 0;
+    final AtomicLong sequence = new AtomicLong();
+    final AtomicLong requests = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+    final Histogram[] histograms = new Histogram[threads];
+    final Thread[] workers = new Thread[threads];
+
+    final long allocatedBytes = allocatedBytes();
+    final long start = System.nanoTime();
+    final long end = start + durationNanos;
+    for (int i = 0; i < threads; ++i) {
+      final Histogram histogram = histograms[i] = new Histogram(3);
+      workers[i] = new Thread("LoadGenerator-" + i) {
+        @Override
+        public void run() {
+          while (true) {
+            final long intended;
+            if (interval > 0) {
+              intended = start + sequence.getAndIncrement() * interval;
+              if (intended >= end)
+                return;
+
+              for (long now; (now = System.nanoTime()) < intended;)
+                LockSupport.parkNanos(intended - now);
+            }
+            else if ((intended = System.nanoTime()) >= end) {
+              return;
+            }
+
+            try {
+              scenario.call();
+            }
+            catch (final Exception e) {
+              if (errors.getAndIncrement() == 0)
+                e.printStackTrace();
+            }
+
+            histogram.recordValue(System.nanoTime() - intended);
+            requests.incrementAndGet();
+          }
+        }
+      };
+      workers[i].start();
+    }
+
+    for (final Thread worker : workers)
+      worker.join();
+
+    final long elapsedNanos = System.nanoTime() - start;
+    final Histogram histogram = new Histogram(3);
+    for (final Histogram h : histograms)
+      histogram.add(h);
+
+    return new Result(requests.get(), errors.get(), elapsedNanos, allocatedBytes == -1 ? -1 : allocatedBytes() - allocatedBytes, histogram);
+  }
+}
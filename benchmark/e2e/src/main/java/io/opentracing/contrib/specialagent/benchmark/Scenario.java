@@ -0,0 +1,70 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+/**
+ * An embedded server and an in-process client, which issues requests to the
+ * server on the request path that is instrumented by the rules of the
+ * server and client.
+ */
+public abstract class Scenario {
+  /**
+   * Returns a new {@link Scenario} with the specified name.
+   *
+   * @param name The name of the scenario.
+   * @return A new {@link Scenario} with the specified name.
+   * @throws IllegalArgumentException If the name is not the name of a
+   *           scenario.
+   */
+  public static Scenario forName(final String name) {
+    if ("jetty".equals(name))
+      return new JettyScenario();
+
+    if ("netty".equals(name))
+      return new NettyScenario();
+
+    if ("webflux".equals(name))
+      return new WebFluxScenario();
+
+    if ("grpc".equals(name))
+      return new GrpcScenario();
+
+    throw new IllegalArgumentException("Unknown scenario: " + name);
+  }
+
+  /**
+   * Starts the server, and creates the client.
+   *
+   * @throws Exception If an exception has occurred.
+   */
+  public abstract void start() throws Exception;
+
+  /**
+   * Issues one request to the server, and waits for its response. This method
+   * is called concurrently by the threads of the load generator.
+   *
+   * @throws Exception If an exception has occurred.
+   */
+  public abstract void call() throws Exception;
+
+  /**
+   * Closes the client, and stops the server.
+   *
+   * @throws Exception If an exception has occurred.
+   */
+  public abstract void stop() throws Exception;
+}
@@ -0,0 +1,54 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Runs one {@link Scenario} with one load in this JVM, and prints its result
+ * as a single line that starts with {@value #RESULT} to standard out. This
+ * class is the main class of the JVMs forked by {@link EndToEndBenchmarks}.
+ * <p>
+ * Arguments: {@code scenario closed|open threads rate warmupSeconds durationSeconds}
+ */
+public final class ScenarioRunner {
+  static final String RESULT = "RESULT ";
+
+  public static void main(final String[] args) throws Exception {
+    if (args.length != 6)
+      throw new IllegalArgumentException("Usage: ScenarioRunner <scenario> <closed|open> <threads> <rate> <warmupSeconds> <durationSeconds>");
+
+    final Scenario scenario = Scenario.forName(args[0]);
+    final double rate = "open".equals(args[1]) ? Double.parseDouble(args[3]) : 0;
+    final LoadGenerator generator = new LoadGenerator(scenario, Integer.parseInt(args[2]));
+    scenario.start();
+    try {
+      generator.run(rate, TimeUnit.SECONDS.toNanos(Long.parseLong(args[4])));
+      final LoadGenerator.Result result = generator.run(rate, TimeUnit.SECONDS.toNanos(Long.parseLong(args[5])));
+      final Histogram histogram = result.histogram;
+      System.out.println(RESULT + result.requests + " " + result.errors + " " + result.elapsedNanos + " " + histogram.getValueAtPercentile(50) + " " + histogram.getValueAtPercentile(99) + " " + histogram.getValueAtPercentile(99.9) + " " + histogram.getMaxValue() + " " + result.allocatedBytes);
+    }
+    finally {
+      scenario.stop();
+    }
+
+    // Non-daemon threads of the servers must not keep this JVM alive
+    System.exit(0);
+  }
+}
@@ -0,0 +1,55 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.*;
+import static org.springframework.web.reactive.function.server.RouterFunctions.*;
+
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * A {@link Scenario} of a Spring WebFlux functional endpoint on an embedded
+ * Reactor Netty server.
+ */
+public class WebFluxScenario extends HttpScenario {
+  private DisposableServer server;
+
+  @Override
+  int startServer() {
+    final ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(toHttpHandler(route(GET("/"), new HandlerFunction<ServerResponse>() {
+      @Override
+      public Mono<ServerResponse> handle(final ServerRequest request) {
+        return ServerResponse.ok().syncBody("OK");
+      }
+    })));
+
+    server = HttpServer.create().host("127.0.0.1").port(0).handle(adapter).bindNow();
+    return server.port();
+  }
+
+  @Override
+  public void stop() {
+    server.disposeNow();
+  }
+}
@@ -0,0 +1,58 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The modes in which the benchmarks are run, each in forked JVMs.
+ */
+public enum AgentMode {
+  /**
+   * Without the SpecialAgent.
+   */
+  OFF,
+  /**
+   * With the SpecialAgent, and no trace exporter, so spans are created by the
+   * {@code NoopTracer}.
+   */
+  NOOP,
+  /**
+   * With the SpecialAgent, and the {@code MockTracer} as the trace exporter.
+   */
+  MOCK;
+
+  /**
+   * Returns the JVM arguments of this mode.
+   *
+   * @param agentJar The path of the SpecialAgent JAR.
+   * @return The JVM arguments of this mode.
+   */
+  public List<String> jvmArgs(final String agentJar) {
+    final List<String> args = new ArrayList<>();
+    if (this == OFF)
+      return args;
+
+    args.add("-javaagent:" + agentJar);
+    args.add("-Dsa.log.level=WARNING");
+    if (this == MOCK)
+      args.add("-Dsa.exporter=mock");
+
+    return args;
+  }
+}
@@ -0,0 +1,67 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * A {@link MethodDescriptor.Marshaller} of raw bytes, with which gRPC methods
+ * are declared without generated stubs.
+ */
+public class ByteArrayMarshaller implements MethodDescriptor.Marshaller<byte[]> {
+  /**
+   * Returns a unary {@link MethodDescriptor} of raw bytes.
+   *
+   * @param service The name of the service.
+   * @param method The name of the method.
+   * @return A unary {@link MethodDescriptor} of raw bytes.
+   */
+  public static MethodDescriptor<byte[],byte[]> unary(final String service, final String method) {
+    final ByteArrayMarshaller marshaller = new ByteArrayMarshaller();
+    return MethodDescriptor.<byte[],byte[]>newBuilder()
+      .setType(MethodDescriptor.MethodType.UNARY)
+      .setFullMethodName(MethodDescriptor.generateFullMethodName(service, method))
+      .setRequestMarshaller(marshaller)
+      .setResponseMarshaller(marshaller)
+      .build();
+  }
+
+  @Override
+  public InputStream stream(final byte[] value) {
+    return new ByteArrayInputStream(value);
+  }
+
+  @Override
+  public byte[] parse(final InputStream in) {
+    try {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[256];
+      for (int len; (len = in.read(buffer)) != -1;)
+        out.write(buffer, 0, len);
+
+      return out.toByteArray();
+    }
+    catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
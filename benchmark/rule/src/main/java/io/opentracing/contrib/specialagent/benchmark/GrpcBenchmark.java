@@ -0,0 +1,87 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Benchmark of the {@code grpc} rule: a unary call to an embedded gRPC server
+ * with a blocking call on a {@link ManagedChannel}. Both the client and the
+ * server are instrumented by the rule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrpcBenchmark {
+  private static final String SERVICE = "specialagent.Benchmark";
+  private static final MethodDescriptor<byte[],byte[]> method = ByteArrayMarshaller.unary(SERVICE, "Echo");
+  private static final byte[] REQUEST = "request".getBytes();
+
+  private Server server;
+  private ManagedChannel channel;
+
+  @Setup
+  public void setup() throws IOException {
+    server = ServerBuilder.forPort(0).addService(ServerServiceDefinition.builder(SERVICE).addMethod(method, ServerCalls.asyncUnaryCall(new ServerCalls.UnaryMethod<byte[],byte[]>() {
+      @Override
+      public void invoke(final byte[] request, final StreamObserver<byte[]> responseObserver) {
+        responseObserver.onNext(TestServer.BODY);
+        responseObserver.onCompleted();
+      }
+    })).build()).build().start();
+
+    channel = ManagedChannelBuilder.forAddress("127.0.0.1", server.getPort()).usePlaintext().build();
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public byte[] call() {
+    return ClientCalls.blockingUnaryCall(channel, method, CallOptions.DEFAULT, REQUEST);
+  }
+}
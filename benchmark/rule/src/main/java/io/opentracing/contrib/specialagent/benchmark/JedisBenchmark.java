@@ -0,0 +1,91 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.embedded.RedisServer;
+
+/**
+ * Benchmark of the {@code jedis} rule: a {@code GET} command to an embedded
+ * Redis server with {@link Jedis}, and {@value #COMMANDS} {@code SET}
+ * commands in a {@link Pipeline}. The score of the pipeline is per command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JedisBenchmark {
+  private static final int COMMANDS = 100;
+
+  private RedisServer server;
+  private Jedis jedis;
+
+  @Setup
+  public void setup() throws IOException {
+    final int port;
+    try (final ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+
+    server = new RedisServer(port);
+    server.start();
+    jedis = new Jedis("127.0.0.1", port);
+    jedis.set("key", "value");
+  }
+
+  @TearDown
+  public void tearDown() {
+    jedis.close();
+    server.stop();
+  }
+
+  @Benchmark
+  public String get() {
+    return jedis.get("key");
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COMMANDS)
+  public List<Object> pipeline() {
+    final Pipeline pipeline = jedis.pipelined();
+    for (int i = 0; i < COMMANDS; ++i)
+      pipeline.set("key", "value");
+
+    return pipeline.syncAndReturnAll();
+  }
+}
@@ -0,0 +1,99 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.DeliveryMode;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the {@code jms} rule: non-persistent messages sent to a topic
+ * without subscribers on an embedded ActiveMQ broker, with a single
+ * {@link MessageProducer} ({@link #send()}), and with a new
+ * {@link MessageProducer} for each message ({@link #sendWithNewProducer()}),
+ * as done by a {@code JmsTemplate} without a caching connection factory. The
+ * score is per message, so the messages per second are {@code 1e9} divided by
+ * the score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JmsBenchmark {
+  private Connection connection;
+  private Session session;
+  private Destination destination;
+  private MessageProducer producer;
+  private TextMessage message;
+
+  @Setup
+  public void setup() throws JMSException {
+    final ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory("vm://benchmark?broker.persistent=false&broker.useJmx=false");
+    connection = connectionFactory.createConnection();
+    connection.start();
+    session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    destination = session.createTopic("benchmark");
+    producer = session.createProducer(destination);
+    producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+    message = session.createTextMessage("Hello world");
+  }
+
+  @TearDown
+  public void tearDown() throws JMSException {
+    producer.close();
+    session.close();
+    connection.close();
+  }
+
+  @Benchmark
+  public void send() throws JMSException {
+    producer.send(message);
+  }
+
+  @Benchmark
+  public void sendWithNewProducer() throws JMSException {
+    final MessageProducer producer = session.createProducer(destination);
+    try {
+      producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+      producer.send(message);
+    }
+    finally {
+      producer.close();
+    }
+  }
+}
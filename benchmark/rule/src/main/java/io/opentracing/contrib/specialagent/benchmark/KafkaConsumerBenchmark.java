@@ -0,0 +1,119 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+/**
+ * Benchmark of the consumer of the {@code kafka:client} rule: the
+ * {@value #RECORDS} records of a topic on an {@link EmbeddedKafkaBroker},
+ * consumed from the beginning with a {@link KafkaConsumer}. The score is per
+ * record, so the records per second are {@code 1e9} divided by the score.
+ * <p>
+ * The {@link #consumer} parameter is the setting of the consumer of the rule:
+ * {@code record} for a span per record, or {@code batch;${sampleRate}} for a
+ * span per {@code poll()}, with child spans for the records sampled by
+ * {@code sampleRate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KafkaConsumerBenchmark {
+  private static final String TOPIC = "benchmark";
+  private static final int RECORDS = 1000;
+
+  @Param({"record", "batch;0", "batch;0.01", "batch;1"})
+  public String consumer;
+
+  private EmbeddedKafkaBroker broker;
+  private KafkaConsumer<byte[],byte[]> kafkaConsumer;
+  private TopicPartition partition;
+
+  @Setup
+  public void setup() {
+    // The settings are read when the intercept of the rule is loaded, which is
+    // on the first call to poll()
+    final String[] setting = consumer.split(";");
+    System.setProperty("sa.integration.kafka:client.consumer.mode", setting[0]);
+    if (setting.length > 1)
+      System.setProperty("sa.integration.kafka:client.consumer.sampleRate", setting[1]);
+
+    broker = new EmbeddedKafkaBroker(1, true, 1, TOPIC);
+    broker.afterPropertiesSet();
+
+    final Map<String,Object> producerProps = KafkaTestUtils.producerProps(broker);
+    try (final KafkaProducer<byte[],byte[]> producer = new KafkaProducer<>(producerProps, new ByteArraySerializer(), new ByteArraySerializer())) {
+      final byte[] value = new byte[100];
+      for (int i = 0; i < RECORDS; ++i)
+        producer.send(new ProducerRecord<byte[],byte[]>(TOPIC, value));
+    }
+
+    final Map<String,Object> consumerProps = KafkaTestUtils.consumerProps("benchmark", "false", broker);
+    consumerProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
+    kafkaConsumer = new KafkaConsumer<>(consumerProps, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+    partition = new TopicPartition(TOPIC, 0);
+    kafkaConsumer.assign(Collections.singletonList(partition));
+  }
+
+  @TearDown
+  public void tearDown() {
+    kafkaConsumer.close();
+    broker.destroy();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public int consume() {
+    kafkaConsumer.seekToBeginning(Collections.singletonList(partition));
+    int count = 0;
+    while (count < RECORDS) {
+      final ConsumerRecords<byte[],byte[]> records = kafkaConsumer.poll(100);
+      count += records.count();
+    }
+
+    return count;
+  }
+}
@@ -0,0 +1,94 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+/**
+ * Benchmark of the producer of the {@code kafka:client} rule: {@value #RECORDS}
+ * small records sent to a topic on an {@link EmbeddedKafkaBroker} with a
+ * {@link KafkaProducer}, followed by a flush. The score is per record, so the
+ * records per second are {@code 1e9} divided by the score.
+ * <p>
+ * The {@link #headers} parameter is the format of the span context injected
+ * into the headers of the records by the rule: {@code text} or
+ * {@code binary}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KafkaProducerBenchmark {
+  private static final String TOPIC = "benchmark";
+  private static final int RECORDS = 1000;
+
+  @Param({"text", "binary"})
+  public String headers;
+
+  private EmbeddedKafkaBroker broker;
+  private KafkaProducer<byte[],byte[]> producer;
+  private final byte[] value = new byte[100];
+
+  @Setup
+  public void setup() {
+    // The setting is read when the intercept of the rule is loaded, which is
+    // on the first call to send()
+    System.setProperty("sa.integration.kafka:client.producer.headers", headers);
+    broker = new EmbeddedKafkaBroker(1, true, 1, TOPIC);
+    broker.afterPropertiesSet();
+
+    final Map<String,Object> producerProps = KafkaTestUtils.producerProps(broker);
+    producer = new KafkaProducer<>(producerProps, new ByteArraySerializer(), new ByteArraySerializer());
+  }
+
+  @TearDown
+  public void tearDown() {
+    producer.close();
+    broker.destroy();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void send() {
+    for (int i = 0; i < RECORDS; ++i)
+      producer.send(new ProducerRecord<byte[],byte[]>(TOPIC, value));
+
+    producer.flush();
+  }
+}
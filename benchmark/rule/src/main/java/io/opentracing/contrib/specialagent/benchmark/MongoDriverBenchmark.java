@@ -0,0 +1,78 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import static com.mongodb.client.model.Filters.*;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mongodb.MongoClient;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoCollection;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * Benchmark of the {@code mongo:driver} rule: a query by {@code _id} with a
+ * {@link MongoClient} to an in-process {@link MongoServer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MongoDriverBenchmark {
+  private MongoServer server;
+  private MongoClient client;
+  private MongoCollection<Document> collection;
+
+  @Setup
+  public void setup() {
+    server = new MongoServer(new MemoryBackend());
+    final InetSocketAddress address = server.bind();
+    client = new MongoClient(new ServerAddress(address));
+    collection = client.getDatabase("benchmark").getCollection("item");
+    collection.insertOne(new Document("_id", 1).append("name", "one"));
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.close();
+    server.shutdown();
+  }
+
+  @Benchmark
+  public Document find() {
+    return collection.find(eq("_id", 1)).first();
+  }
+}
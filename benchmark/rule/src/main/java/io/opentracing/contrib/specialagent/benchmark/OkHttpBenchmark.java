@@ -0,0 +1,74 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Benchmark of the {@code okhttp} rule: a GET request to the
+ * {@link TestServer} with an {@link OkHttpClient}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OkHttpBenchmark {
+  private TestServer server;
+  private OkHttpClient client;
+  private Request request;
+
+  @Setup
+  public void setup() throws IOException {
+    server = new TestServer();
+    client = new OkHttpClient.Builder().build();
+    request = new Request.Builder().url(server.getUrl()).build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.dispatcher().executorService().shutdown();
+    client.connectionPool().evictAll();
+    server.stop();
+  }
+
+  @Benchmark
+  public int get() throws IOException {
+    try (final Response response = client.newCall(request).execute()) {
+      response.body().bytes();
+      return response.code();
+    }
+  }
+}
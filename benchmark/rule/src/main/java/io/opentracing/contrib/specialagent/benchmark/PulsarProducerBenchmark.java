@@ -0,0 +1,138 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.pulsar.broker.PulsarService;
+import org.apache.pulsar.broker.ServiceConfiguration;
+import org.apache.pulsar.broker.loadbalance.impl.SimpleLoadManagerImpl;
+import org.apache.pulsar.client.admin.PulsarAdmin;
+import org.apache.pulsar.client.api.MessageId;
+import org.apache.pulsar.client.api.Producer;
+import org.apache.pulsar.client.api.PulsarClient;
+import org.apache.pulsar.common.policies.data.ClusterData;
+import org.apache.pulsar.common.policies.data.TenantInfo;
+import org.apache.pulsar.zookeeper.LocalBookkeeperEnsemble;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the producer of the {@code pulsar:client} rule:
+ * {@value #MESSAGES} small messages sent asynchronously with a
+ * {@link Producer} to a topic on an in-process Pulsar broker, followed by a
+ * wait for the last of them to be acknowledged. The score is per message, so
+ * the messages per second are {@code 1e9} divided by the score.
+ * <p>
+ * The Pulsar broker of the supported client version runs only on JDK 1.8.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PulsarProducerBenchmark {
+  private static final String CLUSTER_NAME = "benchmark";
+  private static final String TOPIC = "benchmark";
+  private static final int MESSAGES = 1000;
+
+  private static final Supplier<Integer> portSupplier = new Supplier<Integer>() {
+    @Override
+    public Integer get() {
+      return nextFreePort();
+    }
+  };
+
+  private static int nextFreePort() {
+    try (final ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+    catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private LocalBookkeeperEnsemble bookkeeper;
+  private PulsarService pulsar;
+  private PulsarClient client;
+  private Producer<byte[]> producer;
+  private final byte[] value = new byte[100];
+
+  @Setup
+  public void setup() throws Exception {
+    final int zookeeperPort = nextFreePort();
+    bookkeeper = new LocalBookkeeperEnsemble(3, zookeeperPort, portSupplier);
+    bookkeeper.start();
+
+    final ServiceConfiguration config = new ServiceConfiguration();
+    config.setClusterName(CLUSTER_NAME);
+    config.setSuperUserRoles(Collections.singleton("superUser"));
+    config.setWebServicePort(nextFreePort());
+    config.setZookeeperServers("127.0.0.1:" + zookeeperPort);
+    config.setBrokerServicePort(nextFreePort());
+    config.setLoadManagerClassName(SimpleLoadManagerImpl.class.getName());
+    config.setAdvertisedAddress("localhost");
+
+    pulsar = new PulsarService(config);
+    pulsar.start();
+    try (final PulsarAdmin admin = pulsar.getAdminClient()) {
+      admin.clusters().createCluster(CLUSTER_NAME, new ClusterData(pulsar.getBrokerServiceUrl()));
+      final TenantInfo tenantInfo = new TenantInfo();
+      tenantInfo.getAdminRoles().add("superUser");
+      tenantInfo.setAllowedClusters(Collections.singleton(CLUSTER_NAME));
+      admin.tenants().createTenant("public", tenantInfo);
+      admin.namespaces().createNamespace("public/default", Collections.singleton(CLUSTER_NAME));
+    }
+
+    client = PulsarClient.builder().serviceUrl(pulsar.getBrokerServiceUrl()).build();
+    producer = client.newProducer().topic(TOPIC).enableBatching(false).maxPendingMessages(MESSAGES).create();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    producer.close();
+    client.close();
+    pulsar.close();
+    bookkeeper.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES)
+  public MessageId send() throws Exception {
+    CompletableFuture<MessageId> future = null;
+    for (int i = 0; i < MESSAGES; ++i)
+      future = producer.sendAsync(value);
+
+    return future.get(15, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,124 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A minimal HTTP/1.1 client that sends GET requests over a single persistent
+ * {@link Socket}. The client is not instrumented by any rule, so that the
+ * benchmarks of server rules measure the overhead of the server rules alone.
+ */
+public class RawHttpClient implements Closeable {
+  private final Socket socket;
+  private final OutputStream out;
+  private final InputStream in;
+  private final byte[] request;
+  private final StringBuilder line = new StringBuilder();
+
+  public RawHttpClient(final int port, final String path) throws IOException {
+    socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    socket.setTcpNoDelay(true);
+    out = socket.getOutputStream();
+    in = new BufferedInputStream(socket.getInputStream());
+    request = ("GET " + path + " HTTP/1.1\r\nHost: 127.0.0.1:" + port + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Sends a GET request, and reads the response, of which the body is
+   * discarded.
+   *
+   * @return The status code of the response.
+   * @throws IOException If an I/O error has occurred.
+   */
+  public int get() throws IOException {
+    out.write(request);
+    out.flush();
+
+    final String statusLine = readLine();
+    long contentLength = 0;
+    boolean chunked = false;
+    for (String header; (header = readLine()).length() > 0;) {
+      final int colon = header.indexOf(':');
+      if (colon == -1)
+        continue;
+
+      final String name = header.substring(0, colon).trim();
+      final String value = header.substring(colon + 1).trim();
+      if ("Content-Length".equalsIgnoreCase(name))
+        contentLength = Long.parseLong(value);
+      else if ("Transfer-Encoding".equalsIgnoreCase(name))
+        chunked = "chunked".equalsIgnoreCase(value);
+    }
+
+    if (chunked) {
+      for (long size; (size = Long.parseLong(readLine().trim(), 16)) > 0;) {
+        skip(size);
+        readLine();
+      }
+
+      // The trailer, which is expected to be empty
+      while (readLine().length() > 0);
+    }
+    else {
+      skip(contentLength);
+    }
+
+    return Integer.parseInt(statusLine.substring(9, 12));
+  }
+
+  private String readLine() throws IOException {
+    line.setLength(0);
+    for (int ch; (ch = in.read()) != '\n';) {
+      if (ch == -1)
+        throw new EOFException();
+
+      if (ch != '\r')
+        line.append((char)ch);
+    }
+
+    return line.toString();
+  }
+
+  private void skip(long bytes) throws IOException {
+    while (bytes > 0) {
+      final long skipped = in.skip(bytes);
+      if (skipped > 0) {
+        bytes -= skipped;
+      }
+      else {
+        if (in.read() == -1)
+          throw new EOFException();
+
+        --bytes;
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    socket.close();
+  }
+}
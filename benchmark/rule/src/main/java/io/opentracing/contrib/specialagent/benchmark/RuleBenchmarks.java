@@ -0,0 +1,147 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of this module in each {@link AgentMode}, in forked
+ * JVMs, and writes the results to the directory specified by the
+ * {@code sa.benchmark.output} system property:
+ * <ul>
+ * <li>{@code ${mode}.json}: The JMH results of each mode.</li>
+ * <li>{@code summary.csv}: The ns/op and bytes/op of each benchmark in each
+ * mode, and the difference from {@link AgentMode#OFF}.</li>
+ * </ul>
+ * The path of the SpecialAgent JAR is specified by the
+ * {@code sa.benchmark.agent} system property, and the benchmarks to run are
+ * selected by the regular expression in the {@code sa.benchmark.include}
+ * system property.
+ */
+public final class RuleBenchmarks {
+  private static final String ALLOC_RATE_NORM = "\u00b7gc.alloc.rate.norm";
+
+  public static void main(final String[] args) throws IOException, RunnerException {
+    final String agentJar = System.getProperty("sa.benchmark.agent");
+    if (agentJar == null || !new File(agentJar).exists())
+      throw new IllegalStateException("sa.benchmark.agent=" + agentJar + " must be the path of the SpecialAgent JAR");
+
+    final String include = System.getProperty("sa.benchmark.include", ".*");
+    final File output = new File(System.getProperty("sa.benchmark.output", "target/jmh"));
+    if (!output.isDirectory() && !output.mkdirs())
+      throw new IOException("Unable to create " + output);
+
+    final Map<AgentMode,Collection<RunResult>> modeToResults = new EnumMap<>(AgentMode.class);
+    for (final AgentMode mode : AgentMode.values()) {
+      final OptionsBuilder options = new OptionsBuilder();
+      options.include(RuleBenchmarks.class.getPackage().getName() + "\\." + include)
+        .jvmArgsAppend(mode.jvmArgs(agentJar).toArray(new String[0]))
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result(new File(output, mode.name().toLowerCase() + ".json").getPath());
+
+      modeToResults.put(mode, new Runner(options.build()).run());
+    }
+
+    final File summary = new File(output, "summary.csv");
+    try (final FileWriter writer = new FileWriter(summary)) {
+      writer.write(summarize(modeToResults));
+    }
+
+    System.out.println("Results written to: " + output.getAbsolutePath());
+  }
+
+  /**
+   * Returns the CSV summary of the specified results, with a row for each
+   * benchmark in each {@link AgentMode}.
+   *
+   * @param modeToResults The results of each {@link AgentMode}.
+   * @return The CSV summary of the specified results.
+   */
+  static String summarize(final Map<AgentMode,Collection<RunResult>> modeToResults) {
+    final Map<String,double[]> baseline = new HashMap<>();
+    final Collection<RunResult> off = modeToResults.get(AgentMode.OFF);
+    if (off != null)
+      for (final RunResult result : off)
+        baseline.put(label(result), scores(result));
+
+    final StringBuilder builder = new StringBuilder("benchmark,mode,ns/op,bytes/op,overhead ns/op,overhead bytes/op\n");
+    for (final Map.Entry<AgentMode,Collection<RunResult>> entry : modeToResults.entrySet()) {
+      for (final RunResult result : entry.getValue()) {
+        final String label = label(result);
+        final double[] scores = scores(result);
+        final double[] base = baseline.get(label);
+        builder.append(label).append(',');
+        builder.append(entry.getKey().name().toLowerCase()).append(',');
+        builder.append(format(scores[0])).append(',').append(format(scores[1])).append(',');
+        builder.append(base == null ? "" : format(scores[0] - base[0])).append(',');
+        builder.append(base == null ? "" : format(scores[1] - base[1])).append('\n');
+      }
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * Returns the label of the benchmark of the specified result, which is the
+   * simple name of the class and the name of the method, followed by the
+   * values of the JMH parameters (if any) in brackets.
+   *
+   * @param result The result.
+   * @return The label of the benchmark of the specified result.
+   */
+  private static String label(final RunResult result) {
+    final BenchmarkParams params = result.getParams();
+    final String benchmark = params.getBenchmark();
+    final StringBuilder builder = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+    final Collection<String> keys = params.getParamsKeys();
+    if (keys.isEmpty())
+      return builder.toString();
+
+    builder.append('[');
+    for (final String key : keys)
+      builder.append(key).append('=').append(params.getParam(key)).append(' ');
+
+    builder.setCharAt(builder.length() - 1, ']');
+    return builder.toString();
+  }
+
+  private static double[] scores(final RunResult result) {
+    final Result<?> alloc = result.getSecondaryResults().get(ALLOC_RATE_NORM);
+    return new double[] {result.getPrimaryResult().getScore(), alloc == null ? Double.NaN : alloc.getScore()};
+  }
+
+  private static String format(final double value) {
+    return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.1f", value);
+  }
+}
@@ -0,0 +1,86 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the {@code servlet} rule: a GET request to a servlet in an
+ * embedded Jetty server, sent with a {@link RawHttpClient}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServletBenchmark {
+  private Server server;
+  private RawHttpClient client;
+
+  @Setup
+  public void setup() throws Exception {
+    server = new Server(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    final ServletContextHandler context = new ServletContextHandler();
+    context.addServlet(new ServletHolder(new HttpServlet() {
+      private static final long serialVersionUID = 3917235842658150461L;
+
+      @Override
+      protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        response.setContentLength(TestServer.BODY.length);
+        response.getOutputStream().write(TestServer.BODY);
+      }
+    }), "/");
+    server.setHandler(context);
+    server.start();
+    client = new RawHttpClient(((ServerConnector)server.getConnectors()[0]).getLocalPort(), "/");
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    client.close();
+    server.stop();
+  }
+
+  @Benchmark
+  public int get() throws IOException {
+    return client.get();
+  }
+}
@@ -0,0 +1,69 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process HTTP server that responds to all requests with a small, fixed
+ * body. The server is implemented with {@code com.sun.net.httpserver}, which is
+ * not instrumented by any rule, so that the benchmarks of client rules measure
+ * the overhead of the client rules alone.
+ */
+public class TestServer {
+  static final byte[] BODY = "OK".getBytes();
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  public TestServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    executor = Executors.newFixedThreadPool(4);
+    server.setExecutor(executor);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(200, BODY.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+          out.write(BODY);
+        }
+      }
+    });
+    server.start();
+  }
+
+  /**
+   * @return The URL of this server.
+   */
+  public String getUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+  }
+
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,41 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import io.opentracing.Tracer;
+
+/**
+ * A {@link DelegateTracer} that counts the spans started by each integration
+ * in {@link AgentMetrics}.
+ */
+public class AgentMetricsTracer extends DelegateTracer {
+  /**
+   * Creates a new {@link AgentMetricsTracer} with the specified target
+   * {@link Tracer}.
+   *
+   * @param target The target {@link Tracer}.
+   * @throws NullPointerException If the target {@link Tracer} is null.
+   */
+  public AgentMetricsTracer(final Tracer target) {
+    super(target);
+  }
+
+  @Override
+  public SpanBuilder buildSpan(final String operationName) {
+    AgentMetrics.onSpanStarted(AgentRule.getCurrentPluginName());
+    return target.buildSpan(operationName);
+  }
+}
@@ -0,0 +1,282 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+
+/**
+ * A {@link DelegateTracer} that moves the work of {@link Span#finish()} off of
+ * application threads. Finished spans are recorded in a bounded, preallocated
+ * ring buffer, and are drained to the target {@link Tracer} by a dedicated
+ * thread. When the ring buffer is full, finished spans are dropped and
+ * counted, so the latency added to application threads is bounded regardless
+ * of the implementation of the target {@link Tracer}.
+ */
+public class AsyncFinishTracer extends DelegateTracer {
+  private static final Logger logger = Logger.getLogger(AsyncFinishTracer.class);
+  private static final long BASE_MICROS = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+  private static final long BASE_NANOS = System.nanoTime();
+  private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+  /**
+   * Returns the current time in microseconds since the epoch, with the
+   * precision of {@link System#nanoTime()}.
+   *
+   * @return The current time in microseconds since the epoch.
+   */
+  static long nowMicros() {
+    return BASE_MICROS + (System.nanoTime() - BASE_NANOS) / 1000;
+  }
+
+  private final int mask;
+  private final Span[] spans;
+  private final long[] finishMicros;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final Thread drainer;
+  private volatile boolean closed;
+  // Written only by the drainer thread, and read by close() for the number of
+  // abandoned spans
+  private volatile long head;
+
+  /**
+   * Creates a new {@link AsyncFinishTracer} with the specified target
+   * {@link Tracer} and ring buffer capacity.
+   *
+   * @param target The target {@link Tracer}.
+   * @param capacity The capacity of the ring buffer, which is rounded up to
+   *          the next power of 2.
+   * @throws NullPointerException If the target {@link Tracer} is null.
+   * @throws IllegalArgumentException If {@code capacity} is not positive, or
+   *           is greater than {@code 1 << 30}.
+   */
+  public AsyncFinishTracer(final Tracer target, final int capacity) {
+    super(target);
+    if (capacity <= 0 || capacity > 1 << 30)
+      throw new IllegalArgumentException("capacity (" + capacity + ") must be between 1 and " + (1 << 30));
+
+    final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.mask = size - 1;
+    this.spans = new Span[size];
+    this.finishMicros = new long[size];
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; ++i)
+      sequences.set(i, i);
+
+    this.drainer = new Thread("SpecialAgent-AsyncFinishTracer") {
+      @Override
+      public void run() {
+        AgentRule.$Access.disableInstrumentation();
+        drain();
+      }
+    };
+    drainer.setDaemon(true);
+    drainer.start();
+  }
+
+  /**
+   * Returns the capacity of the ring buffer.
+   *
+   * @return The capacity of the ring buffer.
+   */
+  public int getCapacity() {
+    return spans.length;
+  }
+
+  /**
+   * Returns the number of finished spans that were dropped because the ring
+   * buffer was full.
+   *
+   * @return The number of dropped spans.
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Records the specified finished span in the ring buffer, or drops it if the
+   * ring buffer is full.
+   *
+   * @param span The finished span.
+   * @param micros The finish timestamp, in microseconds since the epoch.
+   * @return Whether the span was recorded.
+   */
+  boolean offer(final Span span, final long micros) {
+    for (long t = tail.get();; t = tail.get()) {
+      final int i = (int)t & mask;
+      final long diff = sequences.get(i) - t;
+      if (diff < 0) {
+        if (dropped.getAndIncrement() == 0)
+          logger.warning("AsyncFinishTracer ring buffer of " + spans.length + " is full: dropping finished spans");
+
+        return false;
+      }
+
+      if (diff == 0 && tail.compareAndSet(t, t + 1)) {
+        spans[i] = span;
+        finishMicros[i] = micros;
+        sequences.lazySet(i, t + 1);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Finishes the spans that have been recorded in the ring buffer on the
+   * target {@link Tracer}.
+   *
+   * @return Whether any span was finished.
+   */
+  private boolean poll() {
+    boolean polled = false;
+    for (int i; sequences.get(i = (int)head & mask) == head + 1; ++head, polled = true) {
+      final Span span = spans[i];
+      final long micros = finishMicros[i];
+      spans[i] = null;
+      sequences.lazySet(i, head + spans.length);
+      try {
+        span.finish(micros);
+      }
+      catch (final Throwable t) {
+        logger.log(Level.WARNING, "Exception finishing span", t);
+      }
+    }
+
+    return polled;
+  }
+
+  private void drain() {
+    while (!closed)
+      if (!poll())
+        LockSupport.parkNanos(IDLE_NANOS);
+
+    poll();
+  }
+
+  @Override
+  public Span activeSpan() {
+    return target.activeSpan();
+  }
+
+  @Override
+  public SpanBuilder buildSpan(final String operationName) {
+    return new AsyncFinishSpanBuilder(target.buildSpan(operationName));
+  }
+
+  @Override
+  public void close() {
+    close(CLOSE_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Closes this tracer, waiting at most {@code timeoutMillis} for the drainer
+   * thread to finish the spans in the ring buffer, and then closes the target
+   * {@link Tracer}.
+   *
+   * @param timeoutMillis The maximum time to wait for the drainer thread, in
+   *          milliseconds.
+   * @return The number of spans that were not finished on the target
+   *         {@link Tracer} because the drainer thread did not terminate in
+   *         time.
+   */
+  long close(final long timeoutMillis) {
+    closed = true;
+    LockSupport.unpark(drainer);
+    try {
+      drainer.join(timeoutMillis);
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    final long abandoned = drainer.isAlive() ? tail.get() - head : 0;
+    if (abandoned > 0)
+      logger.warning("AsyncFinishTracer did not drain within " + timeoutMillis + "ms: abandoning " + abandoned + " finished spans");
+
+    target.close();
+    return abandoned;
+  }
+
+  /**
+   * A {@link Span} that delegates to the target {@link Span}, and records
+   * itself in the ring buffer when finished.
+   */
+  final class AsyncFinishSpan extends ForwardingSpan {
+    AsyncFinishSpan(final Span target) {
+      super(target);
+    }
+
+    @Override
+    public Span log(final Map<String,?> fields) {
+      target.log(nowMicros(), fields);
+      return this;
+    }
+
+    @Override
+    public Span log(final String event) {
+      target.log(nowMicros(), event);
+      return this;
+    }
+
+    @Override
+    public void finish() {
+      offer(target, nowMicros());
+    }
+
+    @Override
+    public void finish(final long finishMicros) {
+      offer(target, finishMicros);
+    }
+  }
+
+  /**
+   * A {@link SpanBuilder} that delegates to the target {@link SpanBuilder},
+   * and starts {@link AsyncFinishSpan}s. The start timestamp is taken from the
+   * same clock as the finish timestamp, because the target {@link Span} is
+   * finished on another thread.
+   */
+  final class AsyncFinishSpanBuilder extends ForwardingSpanBuilder {
+    private boolean hasStartTimestamp;
+
+    AsyncFinishSpanBuilder(final SpanBuilder target) {
+      super(target);
+    }
+
+    @Override
+    public SpanBuilder withStartTimestamp(final long microseconds) {
+      hasStartTimestamp = true;
+      target.withStartTimestamp(microseconds);
+      return this;
+    }
+
+    @Override
+    public Span start() {
+      if (!hasStartTimestamp)
+        target.withStartTimestamp(nowMicros());
+
+      return new AsyncFinishSpan(target.start());
+    }
+  }
+}
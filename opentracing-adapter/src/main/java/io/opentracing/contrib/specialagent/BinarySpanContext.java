@@ -0,0 +1,236 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.propagation.Binary;
+import io.opentracing.propagation.Format;
+import io.opentracing.propagation.TextMap;
+
+/**
+ * Encoding of span contexts in a single binary value, for rules that propagate
+ * the span context in one binary header of a message. The span context is
+ * encoded as a version byte followed by:
+ * <ul>
+ * <li>{@link #BINARY}: The bytes injected by the {@link Tracer} in
+ * {@link Format.Builtin#BINARY} format.</li>
+ * <li>{@link #TEXT_MAP}: The length-prefixed UTF-8 bytes of each key and value
+ * injected by the {@link Tracer} in {@link Format.Builtin#TEXT_MAP} format, if
+ * the {@link Tracer} does not support the {@link Format.Builtin#BINARY}
+ * format.</li>
+ * </ul>
+ */
+public final class BinarySpanContext {
+  private static final byte TEXT_MAP = 0;
+  private static final byte BINARY = 1;
+
+  /**
+   * The last {@link Tracer} that failed to inject in
+   * {@link Format.Builtin#BINARY} format, which is not asked to again.
+   */
+  private static volatile Tracer textMapTracer;
+
+  /**
+   * Returns the encoding of the specified span context.
+   *
+   * @param spanContext The span context.
+   * @param tracer The {@link Tracer}.
+   * @return The encoding of the specified span context.
+   */
+  public static byte[] encode(final SpanContext spanContext, final Tracer tracer) {
+    if (tracer != textMapTracer) {
+      final BinaryCarrier carrier = new BinaryCarrier(null);
+      try {
+        tracer.inject(spanContext, Format.Builtin.BINARY, carrier);
+        if (carrier.bytes != null)
+          return carrier.bytes;
+      }
+      catch (final RuntimeException e) {
+        textMapTracer = tracer;
+      }
+    }
+
+    final Encoder encoder = new Encoder();
+    tracer.inject(spanContext, Format.Builtin.TEXT_MAP, encoder);
+    return encoder.toByteArray();
+  }
+
+  /**
+   * Returns the span context decoded from the specified value, or {@code null}
+   * if the value is not a valid encoding of a span context.
+   *
+   * @param value The value returned by {@link #encode(SpanContext,Tracer)}.
+   * @param tracer The {@link Tracer}.
+   * @return The decoded span context, or {@code null} if there is none.
+   */
+  public static SpanContext decode(final byte[] value, final Tracer tracer) {
+    if (value == null || value.length == 0)
+      return null;
+
+    try {
+      if (value[0] == BINARY)
+        return tracer.extract(Format.Builtin.BINARY, new BinaryCarrier(value));
+
+      if (value[0] == TEXT_MAP)
+        return tracer.extract(Format.Builtin.TEXT_MAP, new Decoder(value));
+
+      return null;
+    }
+    catch (final RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static final class BinaryCarrier implements Binary {
+    private byte[] bytes;
+
+    private BinaryCarrier(final byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public ByteBuffer injectionBuffer(final int length) {
+      if (length < 0)
+        throw new IllegalArgumentException("length (" + length + ") < 0");
+
+      bytes = new byte[1 + length];
+      bytes[0] = BINARY;
+      return ByteBuffer.wrap(bytes, 1, length).slice();
+    }
+
+    @Override
+    public ByteBuffer extractionBuffer() {
+      return ByteBuffer.wrap(bytes, 1, bytes.length - 1).slice();
+    }
+  }
+
+  private static final class Encoder implements TextMap {
+    private byte[] bytes = new byte[64];
+    private int length;
+
+    private Encoder() {
+      bytes[length++] = TEXT_MAP;
+    }
+
+    @Override
+    public Iterator<Map.Entry<String,String>> iterator() {
+      throw new UnsupportedOperationException("Encoder should only be used with Tracer.inject()");
+    }
+
+    @Override
+    public void put(final String key, final String value) {
+      write(key.getBytes(StandardCharsets.UTF_8));
+      write(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void write(final byte[] b) {
+      ensureCapacity(length + 5 + b.length);
+      for (int n = b.length; ; n >>>= 7) {
+        if ((n & ~0x7f) == 0) {
+          bytes[length++] = (byte)n;
+          break;
+        }
+
+        bytes[length++] = (byte)((n & 0x7f) | 0x80);
+      }
+
+      System.arraycopy(b, 0, bytes, length, b.length);
+      length += b.length;
+    }
+
+    private void ensureCapacity(final int capacity) {
+      if (capacity > bytes.length)
+        bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(bytes, length);
+    }
+  }
+
+  private static final class Decoder implements TextMap {
+    private final byte[] bytes;
+
+    private Decoder(final byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public Iterator<Map.Entry<String,String>> iterator() {
+      return new Iterator<Map.Entry<String,String>>() {
+        private int offset = 1;
+
+        @Override
+        public boolean hasNext() {
+          return offset < bytes.length;
+        }
+
+        @Override
+        public Map.Entry<String,String> next() {
+          if (!hasNext())
+            throw new NoSuchElementException();
+
+          final String key = read();
+          final String value = read();
+          return new AbstractMap.SimpleImmutableEntry<>(key, value);
+        }
+
+        private String read() {
+          int n = 0;
+          for (int shift = 0; ; shift += 7) {
+            if (offset >= bytes.length || shift > 28)
+              throw new IllegalArgumentException("Malformed binary span context");
+
+            final byte b = bytes[offset++];
+            n |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+              break;
+          }
+
+          if (n < 0 || n > bytes.length - offset)
+            throw new IllegalArgumentException("Malformed binary span context");
+
+          final String string = new String(bytes, offset, n, StandardCharsets.UTF_8);
+          offset += n;
+          return string;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public void put(final String key, final String value) {
+      throw new UnsupportedOperationException("Decoder should only be used with Tracer.extract()");
+    }
+  }
+
+  private BinarySpanContext() {
+  }
+}
@@ -0,0 +1,112 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer.SpanBuilder;
+import io.opentracing.tag.Tag;
+
+/**
+ * A {@link SpanBuilder} that forwards all calls to a target
+ * {@link SpanBuilder}, and starts the {@link ForwardingSpan}s of its
+ * {@link DelegateTracer} in {@link #start()}. A parent {@link Span} is
+ * forwarded as its {@link SpanContext}, so the target {@link SpanBuilder} never
+ * sees the {@link ForwardingSpan}s of the layers above it.
+ */
+abstract class ForwardingSpanBuilder implements SpanBuilder {
+  /** The target {@link SpanBuilder}. */
+  final SpanBuilder target;
+
+  /**
+   * Creates a new {@link ForwardingSpanBuilder} with the specified target
+   * {@link SpanBuilder}.
+   *
+   * @param target The target {@link SpanBuilder}.
+   */
+  ForwardingSpanBuilder(final SpanBuilder target) {
+    this.target = target;
+  }
+
+  @Override
+  public SpanBuilder asChildOf(final SpanContext parent) {
+    target.asChildOf(parent);
+    return this;
+  }
+
+  @Override
+  public SpanBuilder asChildOf(final Span parent) {
+    if (parent != null)
+      target.asChildOf(parent.context());
+
+    return this;
+  }
+
+  @Override
+  public SpanBuilder addReference(final String referenceType, final SpanContext referencedContext) {
+    target.addReference(referenceType, referencedContext);
+    return this;
+  }
+
+  @Override
+  public SpanBuilder ignoreActiveSpan() {
+    target.ignoreActiveSpan();
+    return this;
+  }
+
+  @Override
+  public SpanBuilder withTag(final String key, final String value) {
+    target.withTag(key, value);
+    return this;
+  }
+
+  @Override
+  public SpanBuilder withTag(final String key, final boolean value) {
+    target.withTag(key, value);
+    return this;
+  }
+
+  @Override
+  public SpanBuilder withTag(final String key, final Number value) {
+    target.withTag(key, value);
+    return this;
+  }
+
+  @Override
+  public <T>SpanBuilder withTag(final Tag<T> tag, final T value) {
+    target.withTag(tag, value);
+    return this;
+  }
+
+  @Override
+  public SpanBuilder withStartTimestamp(final long microseconds) {
+    target.withStartTimestamp(microseconds);
+    return this;
+  }
+
+  @Override
+  @Deprecated
+  public Scope startActive(final boolean finishSpanOnClose) {
+    return target.startActive(finishSpanOnClose);
+  }
+
+  @Override
+  @Deprecated
+  public Span startManual() {
+    return start();
+  }
+}
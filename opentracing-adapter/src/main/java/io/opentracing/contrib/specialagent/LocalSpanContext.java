@@ -15,41 +15,166 @@
 
 package io.opentracing.contrib.specialagent;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.opentracing.Scope;
 import io.opentracing.Span;
 
 /**
- * Thread local map holder for Span, Scope and counter to control stack of
- * calls. Map is used to avoid suppressing of creation of new span when active
- * span of another component exists. Key of the map is component name.
+ * Thread local holder for Span, Scope and counter to control stack of calls.
+ * Each component is assigned a slot (via {@link #slot(String)}) when its
+ * intercept class is loaded, and the per-thread state is kept in an array that
+ * is indexed by the slot. This avoids suppressing of creation of new span when
+ * active span of another component exists, without hashing the component name
+ * on every call.
+ * <p>
+ * A component can declare the {@link SpanLayer} of its spans (via
+ * {@link #slot(String,SpanLayer)}), so that its spans can be suppressed when
+ * the span of another component of the same layer is in progress on the
+ * thread (see {@link #isSuppressed(int)}).
  */
 public class LocalSpanContext {
-  private static final ThreadLocal<Map<String,LocalSpanContext>> instance = new ThreadLocal<>();
+  private static final ConcurrentHashMap<String,Integer> nameToSlot = new ConcurrentHashMap<>();
+  private static final AtomicInteger slots = new AtomicInteger();
+  private static final ThreadLocal<LocalSpanContext[]> instance = new ThreadLocal<>();
+  private static volatile SpanLayer[] slotToLayer = new SpanLayer[0];
+  private static volatile boolean[] slotToSuppress = new boolean[0];
 
-  private final String name;
+  /**
+   * Returns the slot assigned to the component with the specified name,
+   * assigning a new slot if the name has not been seen before. This method is
+   * meant to be called once per component, when its intercept class is loaded,
+   * with the result stored in a {@code static final} field.
+   *
+   * @param name The name of the component.
+   * @return The slot assigned to the component with the specified name.
+   */
+  public static int slot(final String name) {
+    Integer slot = nameToSlot.get(name);
+    if (slot != null)
+      return slot;
+
+    // Slots are assigned under the lock, so that no slot is assigned twice
+    synchronized (nameToSlot) {
+      slot = nameToSlot.get(name);
+      if (slot == null)
+        nameToSlot.put(name, slot = slots.getAndIncrement());
+
+      return slot;
+    }
+  }
+
+  /**
+   * Returns the slot assigned to the component with the specified name, and
+   * declares the {@link SpanLayer} of the spans of the component. Whether the
+   * spans of the component are suppressed when the span of another component
+   * of the same layer is in progress is determined by the
+   * {@code sa.integration.${name}.suppressNested} system property of the
+   * integration whose rule is loading the component (or by
+   * {@code sa.integration.*.suppressNested}).
+   *
+   * @param name The name of the component.
+   * @param layer The {@link SpanLayer} of the spans of the component.
+   * @return The slot assigned to the component with the specified name.
+   */
+  public static int slot(final String name, final SpanLayer layer) {
+    final String integration = AgentRule.getCurrentPluginName();
+    final boolean suppress = AssembleUtil.isSystemProperty("sa.integration.*.suppressNested", null) || integration != null && AssembleUtil.isSystemProperty("sa.integration." + integration + ".suppressNested", null);
+    synchronized (nameToSlot) {
+      final int slot = slot(name);
+      if (slot >= slotToLayer.length) {
+        slotToSuppress = Arrays.copyOf(slotToSuppress, slot + 1);
+        slotToLayer = Arrays.copyOf(slotToLayer, slot + 1);
+      }
+
+      slotToSuppress[slot] = suppress;
+      slotToLayer[slot] = layer;
+      return slot;
+    }
+  }
+
+  /**
+   * Returns whether the span of the component of the specified slot should not
+   * be created, because suppression of nested spans is enabled for the
+   * component, and the span of another component of the same
+   * {@link SpanLayer} is in progress on this thread.
+   *
+   * @param slot The slot of the component.
+   * @return Whether the span of the component should not be created.
+   */
+  public static boolean isSuppressed(final int slot) {
+    final SpanLayer[] layers = slotToLayer;
+    if (slot >= layers.length || layers[slot] == null || !slotToSuppress[slot])
+      return false;
+
+    final LocalSpanContext[] contexts = instance.get();
+    if (contexts == null)
+      return false;
+
+    for (int i = 0, len = Math.min(contexts.length, layers.length); i < len; ++i)
+      if (i != slot && contexts[i] != null && layers[i] == layers[slot])
+        return true;
+
+    return false;
+  }
+
+  private final int slot;
   private final Span span;
   private final Scope scope;
   private int counter = 1;
 
-  private LocalSpanContext(final String name, final Span span, final Scope scope) {
-    this.name = name;
+  private LocalSpanContext(final int slot, final Span span, final Scope scope) {
+    this.slot = slot;
     this.span = span;
     this.scope = scope;
   }
 
+  public static LocalSpanContext get(final int slot) {
+    final LocalSpanContext[] contexts = instance.get();
+    return contexts == null || slot >= contexts.length ? null : contexts[slot];
+  }
+
+  public static void set(final int slot, final Span span, final Scope scope) {
+    LocalSpanContext[] contexts = instance.get();
+    if (contexts == null || slot >= contexts.length) {
+      final LocalSpanContext[] resized = new LocalSpanContext[Math.max(slot + 1, slots.get())];
+      if (contexts != null)
+        System.arraycopy(contexts, 0, resized, 0, contexts.length);
+
+      instance.set(contexts = resized);
+    }
+
+    contexts[slot] = new LocalSpanContext(slot, span, scope);
+  }
+
+  /**
+   * Returns the context for the component with the specified name. Prefer
+   * {@link #get(int)} with a slot obtained from {@link #slot(String)}, which
+   * avoids the lookup of the slot on every call. No slot is assigned to a name
+   * that has not been seen before.
+   *
+   * @param name The name of the component.
+   * @return The context for the component with the specified name, or
+   *         {@code null} if there is none.
+   */
   public static LocalSpanContext get(final String name) {
-    final Map<String,LocalSpanContext> map = instance.get();
-    return map == null ? null : map.get(name);
+    final Integer slot = nameToSlot.get(name);
+    return slot == null ? null : get(slot);
   }
 
+  /**
+   * Sets the context for the component with the specified name. Prefer
+   * {@link #set(int,Span,Scope)} with a slot obtained from
+   * {@link #slot(String)}, which avoids the lookup of the slot on every call.
+   *
+   * @param name The name of the component.
+   * @param span The span.
+   * @param scope The scope.
+   */
   public static void set(final String name, final Span span, final Scope scope) {
-    if (instance.get() == null)
-      instance.set(new HashMap<String,LocalSpanContext>());
-
-    instance.get().put(name, new LocalSpanContext(name, span, scope));
+    set(slot(name), span, scope);
   }
 
   public Span getSpan() {
@@ -57,11 +182,12 @@ public class LocalSpanContext {
   }
 
   public void increment() {
-    ++counter;
+    if (counter < Integer.MAX_VALUE)
+      ++counter;
   }
 
   public int decrementAndGet() {
-    return --counter;
+    return counter > 0 ? --counter : 0;
   }
 
   public void closeAndFinish() {
@@ -71,14 +197,11 @@ public class LocalSpanContext {
   }
 
   public void closeScope() {
-    final Map<String,LocalSpanContext> map = instance.get();
-    if (map != null) {
-      map.remove(name);
-      if (map.isEmpty())
-        instance.remove();
-    }
+    final LocalSpanContext[] contexts = instance.get();
+    if (contexts != null && slot < contexts.length && contexts[slot] == this)
+      contexts[slot] = null;
 
     if (scope != null)
       scope.close();
   }
-}
\ No newline at end of file
+}
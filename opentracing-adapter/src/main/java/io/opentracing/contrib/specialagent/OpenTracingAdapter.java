@@ -214,7 +214,10 @@ public class OpenTracingAdapter extends Adapter {
         return null;
       }
 
-      tracer = initRewritableTracer(tracer, isoClassLoader);
+      tracer = initRedMetricsTracer(initSamplingTracer(initResourceUsageTracer(initRewritableTracer(initTailSamplingTracer(initAsyncFinishTracer(tracer)), isoClassLoader))));
+      if (AgentMetrics.isEnabled())
+        tracer = new AgentMetricsTracer(tracer);
+
       if (!isAgentRunner() && !GlobalTracer.registerIfAbsent(tracer))
         throw new IllegalStateException("There is already a registered global Tracer.");
 
@@ -229,6 +232,101 @@ public class OpenTracingAdapter extends Adapter {
     }
   }
 
+  private static Tracer initAsyncFinishTracer(final Tracer tracer) {
+    final String capacityProperty = System.getProperty(ASYNC_FINISH_CAPACITY_PROPERTY);
+    if (capacityProperty == null)
+      return tracer;
+
+    final int capacity;
+    try {
+      capacity = Integer.parseInt(capacityProperty);
+    }
+    catch (final NumberFormatException e) {
+      throw new IllegalArgumentException(ASYNC_FINISH_CAPACITY_PROPERTY + "=" + capacityProperty + ": Must be a positive integer", e);
+    }
+
+    final AsyncFinishTracer asyncFinishTracer = new AsyncFinishTracer(tracer, capacity);
+    if (logger.isLoggable(Level.FINE))
+      logger.fine("Asynchronous span finish enabled with capacity of " + asyncFinishTracer.getCapacity());
+
+    return asyncFinishTracer;
+  }
+
+  private static Tracer initTailSamplingTracer(final Tracer tracer) {
+    final String maxBytesProperty = System.getProperty(TAIL_SAMPLING_MAX_BYTES_PROPERTY);
+    if (maxBytesProperty == null)
+      return tracer;
+
+    final long maxBytes;
+    final long latency;
+    try {
+      maxBytes = Long.parseLong(maxBytesProperty);
+      final String latencyProperty = System.getProperty(TAIL_SAMPLING_LATENCY_PROPERTY);
+      latency = latencyProperty == null ? Long.MAX_VALUE : Long.parseLong(latencyProperty);
+    }
+    catch (final NumberFormatException e) {
+      throw new IllegalArgumentException(TAIL_SAMPLING_MAX_BYTES_PROPERTY + " and " + TAIL_SAMPLING_LATENCY_PROPERTY + ": Must be positive integers", e);
+    }
+
+    final double rate = SamplingTracer.parseRate(TAIL_SAMPLING_RATE_PROPERTY, System.getProperty(TAIL_SAMPLING_RATE_PROPERTY), 0);
+    if (logger.isLoggable(Level.FINE))
+      logger.fine("Tail sampling enabled with " + TAIL_SAMPLING_MAX_BYTES_PROPERTY + "=" + maxBytes + ", " + TAIL_SAMPLING_LATENCY_PROPERTY + "=" + latency + ", " + TAIL_SAMPLING_RATE_PROPERTY + "=" + rate);
+
+    return new TailSamplingTracer(tracer, maxBytes, latency, rate);
+  }
+
+  private static int parseNonNegativeInt(final String key, final String value, final int defaultValue) {
+    if (value == null)
+      return defaultValue;
+
+    try {
+      final int result = Integer.parseInt(value);
+      if (result >= 0)
+        return result;
+    }
+    catch (final NumberFormatException e) {
+    }
+
+    throw new IllegalArgumentException(key + "=" + value + ": Must be a non-negative integer");
+  }
+
+  private static Tracer initRedMetricsTracer(final Tracer tracer) throws IOException {
+    if (!AssembleUtil.isSystemProperty(RED_METRICS_PROPERTY, null))
+      return tracer;
+
+    final RedMetrics metrics = new RedMetrics(parseNonNegativeInt(RED_METRICS_MAX_SERIES_PROPERTY, System.getProperty(RED_METRICS_MAX_SERIES_PROPERTY), 1000));
+    metrics.register();
+    final String portProperty = System.getProperty(RED_METRICS_PORT_PROPERTY);
+    if (portProperty != null) {
+      final int port = metrics.serve(parseNonNegativeInt(RED_METRICS_PORT_PROPERTY, portProperty, 0)).getAddress().getPort();
+      if (logger.isLoggable(Level.FINE))
+        logger.fine("RED metrics are served at http://localhost:" + port + RedMetrics.PATH);
+    }
+
+    return new RedMetricsTracer(tracer, metrics);
+  }
+
+  private static Tracer initResourceUsageTracer(final Tracer tracer) {
+    if (!ResourceUsageTracer.isConfigured())
+      return tracer;
+
+    if (logger.isLoggable(Level.FINE))
+      logger.fine("Resource usage of spans enabled");
+
+    return new ResourceUsageTracer(tracer);
+  }
+
+  private static Tracer initSamplingTracer(final Tracer tracer) {
+    if (!SamplingTracer.isConfigured())
+      return tracer;
+
+    final double rate = SamplingTracer.parseRate(SAMPLING_RATE_PROPERTY, System.getProperty(SAMPLING_RATE_PROPERTY), 1);
+    if (logger.isLoggable(Level.FINE))
+      logger.fine("Head sampling enabled with " + SAMPLING_RATE_PROPERTY + "=" + rate);
+
+    return new SamplingTracer(tracer, rate);
+  }
+
   @SuppressWarnings("unchecked")
   private static Tracer initRewritableTracer(final Tracer tracer, final ClassLoader isoClassLoader) throws IOException {
     final String rewriteProperty = System.getProperty(REWRITE_ARG);
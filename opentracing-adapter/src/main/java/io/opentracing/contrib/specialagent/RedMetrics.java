@@ -0,0 +1,306 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Rate, errors and duration of finished spans, aggregated by operation name,
+ * {@code span.kind}, {@code component} and {@code error} tags into series of
+ * lock-free {@link LatencyHistogram}s. The number of series is bounded: once
+ * the maximum number of series is reached, spans of new series are aggregated
+ * into series with the operation name {@value #OVERFLOW}. The series are
+ * exposed via JMX as {@value #OBJECT_NAME}, and can also be served in the
+ * Prometheus text format from a local HTTP endpoint.
+ */
+public class RedMetrics implements RedMetricsMXBean {
+  private static final Logger logger = Logger.getLogger(RedMetrics.class);
+  static final String OBJECT_NAME = "io.opentracing.contrib.specialagent:type=RedMetrics";
+  static final String OVERFLOW = "_other_";
+  static final String PATH = "/metrics";
+  private static final String METRIC = "sa_span_duration_seconds";
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+  private static final long REGISTRATION_DELAY = 1000;
+
+  /**
+   * The key of a series.
+   */
+  static final class Series {
+    final String operationName;
+    final String kind;
+    final String component;
+    final boolean error;
+    private final int hashCode;
+
+    Series(final String operationName, final String kind, final String component, final boolean error) {
+      this.operationName = operationName;
+      this.kind = kind;
+      this.component = component;
+      this.error = error;
+      int hashCode = operationName == null ? 0 : operationName.hashCode();
+      hashCode = 31 * hashCode + (kind == null ? 0 : kind.hashCode());
+      hashCode = 31 * hashCode + (component == null ? 0 : component.hashCode());
+      this.hashCode = 31 * hashCode + (error ? 1 : 0);
+    }
+
+    private static boolean equals(final String a, final String b) {
+      return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (obj == this)
+        return true;
+
+      if (!(obj instanceof Series))
+        return false;
+
+      final Series that = (Series)obj;
+      return error == that.error && hashCode == that.hashCode && equals(operationName, that.operationName) && equals(kind, that.kind) && equals(component, that.component);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return operationName + "{span.kind=" + (kind == null ? "" : kind) + ", component=" + (component == null ? "" : component) + ", error=" + error + "}";
+    }
+  }
+
+  /**
+   * The statistics of a series.
+   */
+  static final class Stats {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final StripedCounter sum = new StripedCounter();
+
+    void record(final long nanos) {
+      histogram.record(nanos);
+      sum.add(nanos);
+    }
+  }
+
+  private static StringBuilder appendLabel(final StringBuilder builder, final String name, final String value) {
+    builder.append(name).append("=\"");
+    if (value != null) {
+      for (int i = 0, len = value.length(); i < len; ++i) {
+        final char ch = value.charAt(i);
+        if (ch == '\\' || ch == '"')
+          builder.append('\\').append(ch);
+        else if (ch == '\n')
+          builder.append("\\n");
+        else
+          builder.append(ch);
+      }
+    }
+
+    return builder.append('"');
+  }
+
+  private static StringBuilder appendLabels(final StringBuilder builder, final Series series) {
+    appendLabel(builder, "operation", series.operationName);
+    appendLabel(builder.append(','), "kind", series.kind);
+    appendLabel(builder.append(','), "component", series.component);
+    return appendLabel(builder.append(','), "error", String.valueOf(series.error));
+  }
+
+  private static double toSeconds(final long nanos) {
+    return nanos / 1e9;
+  }
+
+  private final ConcurrentHashMap<Series,Stats> seriesToStats = new ConcurrentHashMap<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final int maxSeries;
+
+  /**
+   * Creates a new {@link RedMetrics} with the specified maximum number of
+   * series.
+   *
+   * @param maxSeries The maximum number of series.
+   * @throws IllegalArgumentException If {@code maxSeries} is not positive.
+   */
+  public RedMetrics(final int maxSeries) {
+    if (maxSeries <= 0)
+      throw new IllegalArgumentException("maxSeries (" + maxSeries + ") must be positive");
+
+    this.maxSeries = maxSeries;
+  }
+
+  /**
+   * Records the duration of a finished span.
+   *
+   * @param operationName The operation name of the span.
+   * @param kind The {@code span.kind} tag of the span.
+   * @param component The {@code component} tag of the span.
+   * @param error The {@code error} tag of the span.
+   * @param nanos The duration of the span in nanoseconds.
+   */
+  public void record(final String operationName, final String kind, final String component, final boolean error, final long nanos) {
+    Series series = new Series(operationName, kind, component, error);
+    Stats stats = seriesToStats.get(series);
+    if (stats == null) {
+      final boolean reserved = size.getAndIncrement() < maxSeries;
+      if (!reserved) {
+        size.decrementAndGet();
+        series = new Series(OVERFLOW, null, null, error);
+      }
+
+      final Stats existing = seriesToStats.putIfAbsent(series, stats = new Stats());
+      if (existing != null) {
+        stats = existing;
+        if (reserved)
+          size.decrementAndGet();
+      }
+    }
+
+    stats.record(nanos);
+  }
+
+  /**
+   * Returns the {@link Stats} of the specified series.
+   *
+   * @param series The series.
+   * @return The {@link Stats} of the specified series, or {@code null} if no
+   *         span of the series has been recorded.
+   */
+  Stats getStats(final Series series) {
+    return seriesToStats.get(series);
+  }
+
+  @Override
+  public int getSeriesCount() {
+    return seriesToStats.size();
+  }
+
+  @Override
+  public Map<String,String> getSeries() {
+    final TreeMap<String,String> values = new TreeMap<>();
+    for (final Map.Entry<Series,Stats> entry : seriesToStats.entrySet())
+      values.put(entry.getKey().toString(), entry.getValue().histogram.toString());
+
+    return values;
+  }
+
+  /**
+   * Returns the series in the Prometheus text format, as a summary of the
+   * duration of spans in seconds.
+   *
+   * @return The series in the Prometheus text format.
+   */
+  public String toText() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("# HELP ").append(METRIC).append(" Duration of spans.\n");
+    builder.append("# TYPE ").append(METRIC).append(" summary\n");
+    for (final Map.Entry<Series,Stats> entry : seriesToStats.entrySet()) {
+      final Series series = entry.getKey();
+      final Stats stats = entry.getValue();
+      for (final double quantile : QUANTILES)
+        appendLabels(builder.append(METRIC).append('{'), series).append(",quantile=\"").append(quantile).append("\"} ").append(toSeconds(stats.histogram.getPercentile(quantile * 100))).append('\n');
+
+      appendLabels(builder.append(METRIC).append("_sum{"), series).append("} ").append(toSeconds(stats.sum.get())).append('\n');
+      appendLabels(builder.append(METRIC).append("_count{"), series).append("} ").append(stats.histogram.getCount()).append('\n');
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * Registers this {@link RedMetrics} with the platform MBeanServer as
+   * {@value #OBJECT_NAME}. The registration is deferred to a daemon thread,
+   * so as to not initialize the platform MBeanServer before the application
+   * does.
+   */
+  public void register() {
+    final Thread thread = new Thread("SpecialAgent-RedMetrics") {
+      @Override
+      public void run() {
+        AgentRule.$Access.disableInstrumentation();
+        try {
+          Thread.sleep(REGISTRATION_DELAY);
+          ManagementFactory.getPlatformMBeanServer().registerMBean(RedMetrics.this, new ObjectName(OBJECT_NAME));
+        }
+        catch (final InterruptedException e) {
+        }
+        catch (final Exception e) {
+          logger.log(Level.WARNING, "Unable to register " + OBJECT_NAME, e);
+        }
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Serves the series in the Prometheus text format at {@value #PATH} on the
+   * specified port of the loopback address. The server is started on a
+   * daemon thread, so that its dispatcher thread is a daemon thread as well,
+   * and does not prevent the JVM from exiting.
+   *
+   * @param port The port, or {@code 0} for an ephemeral port.
+   * @return The {@link HttpServer}.
+   * @throws IOException If an I/O error has occurred.
+   */
+  public HttpServer serve(final int port) throws IOException {
+    final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.createContext(PATH, new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        AgentRule.$Access.disableInstrumentation();
+        final byte[] body = toText().getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    });
+
+    final Thread thread = new Thread("SpecialAgent-RedMetrics-Server") {
+      @Override
+      public void run() {
+        AgentRule.$Access.disableInstrumentation();
+        server.start();
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+    try {
+      thread.join();
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    return server;
+  }
+}
@@ -0,0 +1,36 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link RedMetrics}.
+ */
+public interface RedMetricsMXBean {
+  /**
+   * @return The number of series, which is bounded by the maximum number of
+   *         series.
+   */
+  int getSeriesCount();
+
+  /**
+   * @return The rate, errors and duration of each series, keyed by the
+   *         operation name, {@code span.kind}, {@code component} and
+   *         {@code error} tags of the spans of the series.
+   */
+  Map<String,String> getSeries();
+}
@@ -0,0 +1,198 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.tag.Tag;
+import io.opentracing.tag.Tags;
+
+/**
+ * A {@link DelegateTracer} that records the rate, errors and duration of
+ * finished spans in {@link RedMetrics}. When installed outside of the
+ * {@link SamplingTracer}, spans that are not sampled are recorded as well, so
+ * that the metrics remain accurate at low sampling rates.
+ */
+public class RedMetricsTracer extends DelegateTracer {
+  private final RedMetrics metrics;
+
+  /**
+   * Creates a new {@link RedMetricsTracer} with the specified target
+   * {@link Tracer} and {@link RedMetrics}.
+   *
+   * @param target The target {@link Tracer}.
+   * @param metrics The {@link RedMetrics}.
+   * @throws NullPointerException If the target {@link Tracer} or
+   *           {@link RedMetrics} is null.
+   */
+  public RedMetricsTracer(final Tracer target, final RedMetrics metrics) {
+    super(target);
+    if (metrics == null)
+      throw new NullPointerException("metrics == null");
+
+    this.metrics = metrics;
+  }
+
+  /**
+   * @return The {@link RedMetrics}.
+   */
+  public RedMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public SpanBuilder buildSpan(final String operationName) {
+    return new RedSpanBuilder(target.buildSpan(operationName), operationName);
+  }
+
+  /**
+   * The tags of a span that identify its series in {@link RedMetrics}.
+   */
+  static final class RedTags {
+    String operationName;
+    String kind;
+    String component;
+    boolean error;
+
+    RedTags(final String operationName) {
+      this.operationName = operationName;
+    }
+
+    RedTags(final RedTags copy) {
+      this.operationName = copy.operationName;
+      this.kind = copy.kind;
+      this.component = copy.component;
+      this.error = copy.error;
+    }
+
+    void tag(final String key, final Object value) {
+      if (Tags.SPAN_KIND.getKey().equals(key))
+        kind = value == null ? null : value.toString();
+      else if (Tags.COMPONENT.getKey().equals(key))
+        component = value == null ? null : value.toString();
+      else if (Tags.ERROR.getKey().equals(key))
+        error = value instanceof Boolean ? (Boolean)value : value != null && Boolean.parseBoolean(value.toString());
+    }
+  }
+
+  /**
+   * A {@link Span} that delegates to the target {@link Span}, and records its
+   * duration in {@link RedMetrics} when finished.
+   */
+  final class RedSpan extends ForwardingSpan {
+    private final RedTags tags;
+    private final long startNanos;
+    private final long startMicros;
+
+    RedSpan(final Span target, final RedTags tags, final long startMicros) {
+      super(target);
+      this.tags = tags;
+      this.startNanos = System.nanoTime();
+      this.startMicros = startMicros;
+    }
+
+    private void record(final long nanos) {
+      metrics.record(tags.operationName, tags.kind, tags.component, tags.error, nanos);
+    }
+
+    @Override
+    public Span setTag(final String key, final String value) {
+      tags.tag(key, value);
+      target.setTag(key, value);
+      return this;
+    }
+
+    @Override
+    public Span setTag(final String key, final boolean value) {
+      tags.tag(key, value);
+      target.setTag(key, value);
+      return this;
+    }
+
+    @Override
+    public <T>Span setTag(final Tag<T> tag, final T value) {
+      tags.tag(tag.getKey(), value);
+      target.setTag(tag, value);
+      return this;
+    }
+
+    @Override
+    public Span setOperationName(final String operationName) {
+      tags.operationName = operationName;
+      target.setOperationName(operationName);
+      return this;
+    }
+
+    @Override
+    public void finish() {
+      record(startMicros < 0 ? System.nanoTime() - startNanos : (AsyncFinishTracer.nowMicros() - startMicros) * 1000);
+      target.finish();
+    }
+
+    @Override
+    public void finish(final long finishMicros) {
+      record(startMicros < 0 ? (finishMicros - AsyncFinishTracer.nowMicros()) * 1000 + System.nanoTime() - startNanos : (finishMicros - startMicros) * 1000);
+      target.finish(finishMicros);
+    }
+  }
+
+  /**
+   * A {@link SpanBuilder} that delegates to the target {@link SpanBuilder},
+   * and starts {@link RedSpan}s.
+   */
+  final class RedSpanBuilder extends ForwardingSpanBuilder {
+    private final RedTags tags;
+    private long startMicros = -1;
+
+    RedSpanBuilder(final SpanBuilder target, final String operationName) {
+      super(target);
+      this.tags = new RedTags(operationName);
+    }
+
+    @Override
+    public SpanBuilder withTag(final String key, final String value) {
+      tags.tag(key, value);
+      target.withTag(key, value);
+      return this;
+    }
+
+    @Override
+    public SpanBuilder withTag(final String key, final boolean value) {
+      tags.tag(key, value);
+      target.withTag(key, value);
+      return this;
+    }
+
+    @Override
+    public <T>SpanBuilder withTag(final Tag<T> tag, final T value) {
+      tags.tag(tag.getKey(), value);
+      target.withTag(tag, value);
+      return this;
+    }
+
+    @Override
+    public SpanBuilder withStartTimestamp(final long microseconds) {
+      startMicros = microseconds;
+      target.withStartTimestamp(microseconds);
+      return this;
+    }
+
+    @Override
+    public Span start() {
+      return new RedSpan(target.start(), new RedTags(tags), startMicros);
+    }
+  }
+}
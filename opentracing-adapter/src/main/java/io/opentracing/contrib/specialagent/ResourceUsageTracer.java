@@ -0,0 +1,193 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+
+/**
+ * A {@link DelegateTracer} that tags the spans of integrations for which the
+ * {@code sa.integration.${name}.resourceUsage} system property is set (or all
+ * integrations, with {@code sa.integration.*.resourceUsage}) with the CPU time
+ * and the bytes allocated by the thread between the start and the finish of
+ * the span. Spans that are finished on a different thread than the one on
+ * which they were started are not tagged, because the usage of neither thread
+ * is attributable to the span. If the JVM does not support the measurement of
+ * the CPU time or the allocated bytes of threads, the respective tag is
+ * omitted.
+ */
+public class ResourceUsageTracer extends DelegateTracer {
+  private static final Logger logger = Logger.getLogger(ResourceUsageTracer.class);
+  static final String RESOURCE_USAGE = ".resourceUsage";
+  static final String CPU_TIME_TAG = "thread.cpu.time";
+  static final String ALLOCATED_BYTES_TAG = "thread.allocated.bytes";
+
+  private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+  private static final boolean cpuTimeSupported = isCpuTimeSupported();
+  private static final com.sun.management.ThreadMXBean allocatedBytesMXBean = getAllocatedBytesMXBean();
+
+  private static boolean isCpuTimeSupported() {
+    try {
+      return threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+    }
+    catch (final UnsupportedOperationException e) {
+      return false;
+    }
+  }
+
+  private static com.sun.management.ThreadMXBean getAllocatedBytesMXBean() {
+    try {
+      if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+        final com.sun.management.ThreadMXBean mxBean = (com.sun.management.ThreadMXBean)threadMXBean;
+        if (mxBean.isThreadAllocatedMemorySupported() && mxBean.isThreadAllocatedMemoryEnabled())
+          return mxBean;
+      }
+    }
+    catch (final LinkageError | UnsupportedOperationException e) {
+    }
+
+    return null;
+  }
+
+  private static long getAllocatedBytes(final long threadId) {
+    return allocatedBytesMXBean == null ? -1 : allocatedBytesMXBean.getThreadAllocatedBytes(threadId);
+  }
+
+  private static long getCpuTime() {
+    return cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : -1;
+  }
+
+  /**
+   * Returns whether the resource usage of spans is enabled with system
+   * properties for any integration.
+   *
+   * @return Whether the resource usage of spans is enabled for any
+   *         integration.
+   */
+  static boolean isConfigured() {
+    for (final String key : System.getProperties().stringPropertyNames())
+      if (key.startsWith("sa.integration.") && key.endsWith(RESOURCE_USAGE) && AssembleUtil.isSystemProperty(key, null))
+        return true;
+
+    return false;
+  }
+
+  private final boolean all = AssembleUtil.isSystemProperty("sa.integration.*" + RESOURCE_USAGE, null);
+  private final ConcurrentHashMap<String,Boolean> integrationToEnabled = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new {@link ResourceUsageTracer} with the specified target
+   * {@link Tracer}.
+   *
+   * @param target The target {@link Tracer}.
+   * @throws NullPointerException If the target {@link Tracer} is null.
+   */
+  public ResourceUsageTracer(final Tracer target) {
+    super(target);
+    if (!cpuTimeSupported)
+      logger.warning("CPU time of threads is not supported by the JVM: " + CPU_TIME_TAG + " will not be tagged");
+
+    if (allocatedBytesMXBean == null)
+      logger.warning("Allocated bytes of threads are not supported by the JVM: " + ALLOCATED_BYTES_TAG + " will not be tagged");
+  }
+
+  /**
+   * Returns whether the resource usage of spans is enabled for the integration
+   * that is creating the span on the current thread.
+   *
+   * @return Whether the resource usage of spans is enabled for the current
+   *         integration.
+   */
+  boolean isEnabled() {
+    if (all)
+      return true;
+
+    final String name = AgentRule.getCurrentPluginName();
+    if (name == null)
+      return false;
+
+    Boolean enabled = integrationToEnabled.get(name);
+    if (enabled == null)
+      integrationToEnabled.putIfAbsent(name, enabled = AssembleUtil.isSystemProperty("sa.integration." + name + RESOURCE_USAGE, null));
+
+    return enabled;
+  }
+
+  @Override
+  public SpanBuilder buildSpan(final String operationName) {
+    final SpanBuilder builder = target.buildSpan(operationName);
+    return isEnabled() ? new ResourceUsageSpanBuilder(builder) : builder;
+  }
+
+  /**
+   * A {@link Span} that delegates to the target {@link Span}, and tags it with
+   * the resource usage of its thread when finished.
+   */
+  static final class ResourceUsageSpan extends ForwardingSpan {
+    private final long threadId;
+    private final long startCpuTime;
+    private final long startAllocatedBytes;
+
+    ResourceUsageSpan(final Span target) {
+      super(target);
+      this.threadId = Thread.currentThread().getId();
+      this.startCpuTime = getCpuTime();
+      this.startAllocatedBytes = getAllocatedBytes(threadId);
+    }
+
+    private void tag() {
+      if (Thread.currentThread().getId() != threadId)
+        return;
+
+      if (startCpuTime >= 0)
+        target.setTag(CPU_TIME_TAG, getCpuTime() - startCpuTime);
+
+      if (startAllocatedBytes >= 0)
+        target.setTag(ALLOCATED_BYTES_TAG, getAllocatedBytes(threadId) - startAllocatedBytes);
+    }
+
+    @Override
+    public void finish() {
+      tag();
+      target.finish();
+    }
+
+    @Override
+    public void finish(final long finishMicros) {
+      tag();
+      target.finish(finishMicros);
+    }
+  }
+
+  /**
+   * A {@link SpanBuilder} that delegates to the target {@link SpanBuilder},
+   * and starts {@link ResourceUsageSpan}s.
+   */
+  static final class ResourceUsageSpanBuilder extends ForwardingSpanBuilder {
+    ResourceUsageSpanBuilder(final SpanBuilder target) {
+      super(target);
+    }
+
+    @Override
+    public Span start() {
+      return new ResourceUsageSpan(target.start());
+    }
+  }
+}
@@ -0,0 +1,678 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static io.opentracing.contrib.specialagent.Constants.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.opentracing.References;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.propagation.Format;
+import io.opentracing.propagation.TextMapExtract;
+import io.opentracing.propagation.TextMapInject;
+import io.opentracing.tag.Tag;
+
+/**
+ * A {@link DelegateTracer} that makes a head sampling decision when a root
+ * span is started, before any work is done by the target {@link Tracer}. Root
+ * spans that are not sampled, and all of their descendants, are represented by
+ * the shared {@link #NOT_SAMPLED} span, which is never passed to the target
+ * {@link Tracer}. The decision is propagated across process boundaries with the
+ * {@value #SAMPLED_HEADER} header. Integrations can use
+ * {@link #isSampled(Span)} to skip the computation of tags of spans that are
+ * not sampled.
+ * <p>
+ * When the {@link OverheadGovernor} sheds an integration, the rate of the
+ * integration reduces the sampling rate of root spans, and child spans of
+ * sampled spans are skipped at the same rate. A skipped child span is a
+ * {@link SkippedSpan}, which is not reported, and whose context is the context
+ * of its parent, so the rest of the trace remains sampled.
+ * <p>
+ * The sampling rate is specified with the {@value Constants#SAMPLING_RATE_PROPERTY}
+ * system property, and can be overridden for each integration with the
+ * {@code sa.integration.${name}.sampling.rate} system property.
+ * <p>
+ * The number of spans that are created by an integration can also be limited
+ * with the {@code sa.integration.${name}.maxSpansPerSecond} system property.
+ * The limit is enforced by a {@link TokenBucket} when the span is started,
+ * before the span is built by the target {@link Tracer}. Root spans that exceed
+ * the limit are not sampled, and child spans of sampled spans that exceed the
+ * limit are skipped, like the child spans that are shed by the
+ * {@link OverheadGovernor}.
+ */
+public class SamplingTracer extends DelegateTracer {
+  private static final Logger logger = Logger.getLogger(SamplingTracer.class);
+
+  private static final String MAX_SPANS_PER_SECOND = ".maxSpansPerSecond";
+  private static final Object UNLIMITED = new Object();
+
+  /** The header with which a negative sampling decision is propagated. */
+  public static final String SAMPLED_HEADER = "sa-sampled";
+
+  /** The {@link SpanContext} of spans that are not sampled. */
+  public static final SpanContext NOT_SAMPLED_CONTEXT = new SpanContext() {
+    @Override
+    public String toTraceId() {
+      return "";
+    }
+
+    @Override
+    public String toSpanId() {
+      return "";
+    }
+
+    @Override
+    public Iterable<Map.Entry<String,String>> baggageItems() {
+      return Collections.<String,String>emptyMap().entrySet();
+    }
+  };
+
+  /** The {@link Span} that represents all spans that are not sampled. */
+  public static final Span NOT_SAMPLED = new SkippedSpan(NOT_SAMPLED_CONTEXT);
+
+  /**
+   * A {@link Span} that stands in for a child span of a sampled span that was
+   * skipped. The span is not reported, and its context is the context of its
+   * parent, so the spans that are started as its children, and the spans that
+   * are started from its propagated context, continue the trace of its parent.
+   * The {@link #NOT_SAMPLED} span is the {@link SkippedSpan} of the
+   * {@link #NOT_SAMPLED_CONTEXT}.
+   */
+  static final class SkippedSpan implements Span {
+    private final SpanContext context;
+
+    SkippedSpan(final SpanContext context) {
+      this.context = context;
+    }
+
+    @Override
+    public SpanContext context() {
+      return context;
+    }
+
+    @Override
+    public Span setTag(final String key, final String value) {
+      return this;
+    }
+
+    @Override
+    public Span setTag(final String key, final boolean value) {
+      return this;
+    }
+
+    @Override
+    public Span setTag(final String key, final Number value) {
+      return this;
+    }
+
+    @Override
+    public <T>Span setTag(final Tag<T> tag, final T value) {
+      return this;
+    }
+
+    @Override
+    public Span log(final Map<String,?> fields) {
+      return this;
+    }
+
+    @Override
+    public Span log(final long timestampMicroseconds, final Map<String,?> fields) {
+      return this;
+    }
+
+    @Override
+    public Span log(final String event) {
+      return this;
+    }
+
+    @Override
+    public Span log(final long timestampMicroseconds, final String event) {
+      return this;
+    }
+
+    @Override
+    public Span setBaggageItem(final String key, final String value) {
+      return this;
+    }
+
+    @Override
+    public String getBaggageItem(final String key) {
+      return null;
+    }
+
+    @Override
+    public Span setOperationName(final String operationName) {
+      return this;
+    }
+
+    @Override
+    public void finish() {
+    }
+
+    @Override
+    public void finish(final long finishMicros) {
+    }
+
+    @Override
+    public String toString() {
+      return context == NOT_SAMPLED_CONTEXT ? "NotSampledSpan" : "SkippedSpan";
+    }
+  }
+
+  /**
+   * Returns whether the specified span is sampled. Integrations call this
+   * method after a span is started, so as to skip the computation of tags that
+   * are discarded if the span is not sampled, or is a {@link SkippedSpan}.
+   *
+   * @param span The span.
+   * @return Whether the specified span is sampled.
+   */
+  public static boolean isSampled(Span span) {
+    if (span == null)
+      return true;
+
+    if (span.context() == NOT_SAMPLED_CONTEXT)
+      return false;
+
+    // The spans of the tracers that are installed outside of this tracer, such
+    // as the RedMetricsTracer, forward to the span of this tracer
+    while (span instanceof ForwardingSpan)
+      span = ((ForwardingSpan)span).target;
+
+    return !(span instanceof SkippedSpan);
+  }
+
+  /**
+   * Parses the specified sampling rate.
+   *
+   * @param key The name of the property from which the value was read.
+   * @param value The value.
+   * @param defaultRate The rate to return if {@code value} is null or invalid.
+   * @return The sampling rate, between {@code 0} and {@code 1}.
+   */
+  static double parseRate(final String key, final String value, final double defaultRate) {
+    if (value == null)
+      return defaultRate;
+
+    try {
+      final double rate = Double.parseDouble(value);
+      if (rate >= 0 && rate <= 1)
+        return rate;
+    }
+    catch (final NumberFormatException e) {
+    }
+
+    logger.warning("Invalid value \"" + key + "=" + value + "\": must be a number between 0 and 1");
+    return defaultRate;
+  }
+
+  /**
+   * Returns whether a sampling rate is configured with system properties,
+   * either globally or for any integration, or whether the
+   * {@link OverheadGovernor} is enabled.
+   *
+   * @return Whether a sampling rate is configured with system properties.
+   */
+  static boolean isConfigured() {
+    if (System.getProperty(SAMPLING_RATE_PROPERTY) != null || System.getProperty(GOVERNOR_CPU_PROPERTY) != null)
+      return true;
+
+    for (final String key : System.getProperties().stringPropertyNames())
+      if (key.startsWith("sa.integration.") && (key.endsWith(".sampling.rate") || key.endsWith(MAX_SPANS_PER_SECOND)))
+        return true;
+
+    return false;
+  }
+
+  private static boolean isLimited() {
+    for (final String key : System.getProperties().stringPropertyNames())
+      if (key.startsWith("sa.integration.") && key.endsWith(MAX_SPANS_PER_SECOND))
+        return true;
+
+    return false;
+  }
+
+  private final double rate;
+  private final ConcurrentHashMap<String,Double> integrationToRate = new ConcurrentHashMap<>();
+  private final boolean limited = isLimited();
+  private final ConcurrentHashMap<String,Object> integrationToBucket = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new {@link SamplingTracer} with the specified target
+   * {@link Tracer} and default sampling rate.
+   *
+   * @param target The target {@link Tracer}.
+   * @param rate The default sampling rate, between {@code 0} and {@code 1}.
+   * @throws NullPointerException If the target {@link Tracer} is null.
+   * @throws IllegalArgumentException If {@code rate} is not between {@code 0}
+   *           and {@code 1}.
+   */
+  public SamplingTracer(final Tracer target, final double rate) {
+    super(target);
+    if (!(rate >= 0 && rate <= 1))
+      throw new IllegalArgumentException("rate (" + rate + ") must be between 0 and 1");
+
+    this.rate = rate;
+  }
+
+  /**
+   * Returns the sampling rate of the integration that is creating the span on
+   * the current thread, reduced by the {@link OverheadGovernor} if the
+   * integration is being shed.
+   *
+   * @return The sampling rate of the current integration.
+   */
+  double getRate() {
+    final String name = AgentRule.getCurrentPluginName();
+    if (name == null)
+      return rate;
+
+    return getRate(name) * OverheadGovernor.getRate(name);
+  }
+
+  private double getRate(final String name) {
+    Double rate = integrationToRate.get(name);
+    if (rate == null) {
+      final String key = "sa.integration." + name + ".sampling.rate";
+      integrationToRate.putIfAbsent(name, rate = parseRate(key, System.getProperty(key), this.rate));
+    }
+
+    return rate;
+  }
+
+  private TokenBucket getBucket(final String name) {
+    Object bucket = integrationToBucket.get(name);
+    if (bucket == null) {
+      final String key = "sa.integration." + name + MAX_SPANS_PER_SECOND;
+      final String value = System.getProperty(key);
+      bucket = UNLIMITED;
+      if (value != null) {
+        try {
+          bucket = new TokenBucket(Double.parseDouble(value), System.nanoTime());
+        }
+        catch (final IllegalArgumentException e) {
+          logger.warning("Invalid value \"" + key + "=" + value + "\": must be a positive number");
+        }
+      }
+
+      final Object existing = integrationToBucket.putIfAbsent(name, bucket);
+      if (existing != null)
+        bucket = existing;
+    }
+
+    return bucket == UNLIMITED ? null : (TokenBucket)bucket;
+  }
+
+  /**
+   * Returns the {@link TokenBucket} that enforces the
+   * {@code sa.integration.${name}.maxSpansPerSecond} limit of the integration
+   * that is creating the span on the current thread.
+   *
+   * @return The {@link TokenBucket} of the current integration, or
+   *         {@code null} if the integration is not limited.
+   */
+  private TokenBucket getBucket() {
+    if (!limited)
+      return null;
+
+    final String name = AgentRule.getCurrentPluginName();
+    return name == null ? null : getBucket(name);
+  }
+
+  /**
+   * Returns the number of spans of the integration with the specified name
+   * that were not created because of its
+   * {@code sa.integration.${name}.maxSpansPerSecond} limit.
+   *
+   * @param name The name of the integration.
+   * @return The number of spans that were dropped by the rate limit.
+   */
+  public long getDroppedCount(final String name) {
+    final Object bucket = integrationToBucket.get(name);
+    return bucket instanceof TokenBucket ? ((TokenBucket)bucket).getDroppedCount() : 0;
+  }
+
+  boolean sample() {
+    final double rate = getRate();
+    return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  /**
+   * Returns whether a child span of a sampled span may be created by the
+   * integration that is creating the span on the current thread, according to
+   * the rate of the integration in the {@link OverheadGovernor}. A child span
+   * that is not admitted is replaced with a {@link SkippedSpan}.
+   *
+   * @return Whether a child span may be created by the current integration.
+   */
+  boolean admitChild() {
+    final double rate = getChildRate();
+    return rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  /**
+   * Returns the rate at which child spans of sampled spans are created by the
+   * integration that is creating the span on the current thread, which is the
+   * rate of the integration in the {@link OverheadGovernor}.
+   *
+   * @return The rate at which child spans are created by the current
+   *         integration.
+   */
+  double getChildRate() {
+    return OverheadGovernor.isEnabled() ? OverheadGovernor.getRate(AgentRule.getCurrentPluginName()) : 1;
+  }
+
+  @Override
+  public Span activeSpan() {
+    // The target may wrap the active span, so check the raw span first
+    final Span span = target.scopeManager().activeSpan();
+    return isSampled(span) ? target.activeSpan() : span;
+  }
+
+  @Override
+  public SpanBuilder buildSpan(final String operationName) {
+    // A SkippedSpan of a sampled trace is an active span whose trace is sampled,
+    // so only the NOT_SAMPLED_CONTEXT makes the active span not sampled
+    final Span activeSpan = target.scopeManager().activeSpan();
+    final boolean activeSampled = activeSpan == null || activeSpan.context() != NOT_SAMPLED_CONTEXT;
+    final SpanContext skippedContext = activeSampled && !isSampled(activeSpan) ? activeSpan.context() : null;
+    return new SamplingSpanBuilder(this, operationName, activeSampled, skippedContext, getBucket());
+  }
+
+  @Override
+  public <C>void inject(final SpanContext spanContext, final Format<C> format, final C carrier) {
+    if (spanContext != NOT_SAMPLED_CONTEXT)
+      target.inject(spanContext, format, carrier);
+    else if (carrier instanceof TextMapInject)
+      ((TextMapInject)carrier).put(SAMPLED_HEADER, "0");
+  }
+
+  @Override
+  public <C>SpanContext extract(final Format<C> format, final C carrier) {
+    final SpanContext spanContext = target.extract(format, carrier);
+    if (spanContext != null || !(carrier instanceof TextMapExtract))
+      return spanContext;
+
+    for (final Map.Entry<String,String> entry : (TextMapExtract)carrier)
+      if (SAMPLED_HEADER.equalsIgnoreCase(entry.getKey()) && "0".equals(entry.getValue()))
+        return NOT_SAMPLED_CONTEXT;
+
+    return null;
+  }
+
+  /**
+   * A {@link SpanBuilder} that delegates to the target {@link SpanBuilder},
+   * and makes the sampling decision in {@link #start()}. If the active span is
+   * not sampled (or is a {@link SkippedSpan}) when the builder is created, or if
+   * the integration is limited by a {@link TokenBucket}, the calls to the builder are deferred until the
+   * decision is made, and the target {@link SpanBuilder} is created only if
+   * the span is sampled.
+   */
+  static final class SamplingSpanBuilder implements SpanBuilder {
+    private final SamplingTracer tracer;
+    private final String operationName;
+    private final boolean activeSampled;
+    private final SpanContext skippedContext;
+    private final TokenBucket bucket;
+    private SpanBuilder target;
+    private List<Deferred> deferred;
+    private long startMicros = -1;
+    private boolean hasParent;
+    private SpanContext sampledParent;
+    private boolean ignoreActiveSpan;
+
+    /**
+     * Creates a new {@link SamplingSpanBuilder}.
+     *
+     * @param tracer The {@link SamplingTracer}.
+     * @param operationName The operation name of the span.
+     * @param activeSampled Whether the trace of the active span is sampled (or
+     *          there is no active span).
+     * @param skippedContext The context of the active span if it is a
+     *          {@link SkippedSpan} of a sampled trace, or {@code null}.
+     * @param bucket The {@link TokenBucket} of the integration, or
+     *          {@code null} if the integration is not limited.
+     */
+    SamplingSpanBuilder(final SamplingTracer tracer, final String operationName, final boolean activeSampled, final SpanContext skippedContext, final TokenBucket bucket) {
+      this.tracer = tracer;
+      this.operationName = operationName;
+      this.activeSampled = activeSampled;
+      this.skippedContext = skippedContext;
+      this.bucket = bucket;
+      if (activeSampled && skippedContext == null && bucket == null)
+        target = tracer.target.buildSpan(operationName);
+    }
+
+    private void defer(final boolean reference, final Object key, final Object value) {
+      if (deferred == null)
+        deferred = new ArrayList<>(4);
+
+      deferred.add(new Deferred(reference, key, value));
+    }
+
+    @Override
+    public SpanBuilder asChildOf(final SpanContext parent) {
+      return addReference(References.CHILD_OF, parent);
+    }
+
+    @Override
+    public SpanBuilder asChildOf(final Span parent) {
+      return parent == null ? this : addReference(References.CHILD_OF, parent.context());
+    }
+
+    @Override
+    public SpanBuilder addReference(final String referenceType, final SpanContext referencedContext) {
+      if (referencedContext == null)
+        return this;
+
+      hasParent = true;
+      if (referencedContext != NOT_SAMPLED_CONTEXT) {
+        if (sampledParent == null)
+          sampledParent = referencedContext;
+
+        if (target != null)
+          target.addReference(referenceType, referencedContext);
+        else
+          defer(true, referenceType, referencedContext);
+      }
+
+      return this;
+    }
+
+    @Override
+    public SpanBuilder ignoreActiveSpan() {
+      ignoreActiveSpan = true;
+      if (target != null)
+        target.ignoreActiveSpan();
+
+      return this;
+    }
+
+    @Override
+    public SpanBuilder withTag(final String key, final String value) {
+      if (target != null)
+        target.withTag(key, value);
+      else
+        defer(false, key, value);
+
+      return this;
+    }
+
+    @Override
+    public SpanBuilder withTag(final String key, final boolean value) {
+      if (target != null)
+        target.withTag(key, value);
+      else
+        defer(false, key, value);
+
+      return this;
+    }
+
+    @Override
+    public SpanBuilder withTag(final String key, final Number value) {
+      if (target != null)
+        target.withTag(key, value);
+      else
+        defer(false, key, value);
+
+      return this;
+    }
+
+    @Override
+    public <T>SpanBuilder withTag(final Tag<T> tag, final T value) {
+      if (target != null)
+        target.withTag(tag, value);
+      else
+        defer(false, tag, value);
+
+      return this;
+    }
+
+    @Override
+    public SpanBuilder withStartTimestamp(final long microseconds) {
+      if (target != null)
+        target.withStartTimestamp(microseconds);
+      else
+        startMicros = microseconds;
+
+      return this;
+    }
+
+    @Override
+    @Deprecated
+    public Scope startActive(final boolean finishSpanOnClose) {
+      final Span span = decide();
+      return span != null ? tracer.activateSpan(span) : target().startActive(finishSpanOnClose);
+    }
+
+    @Override
+    @Deprecated
+    public Span startManual() {
+      final Span span = decide();
+      return span != null ? span : target().startManual();
+    }
+
+    /**
+     * Makes the sampling decision of the span.
+     *
+     * @return {@code null} if the span is to be started by the target
+     *         {@link SpanBuilder}, or otherwise the span that stands in for the
+     *         span that is not started: {@link SamplingTracer#NOT_SAMPLED} if
+     *         the span is not sampled, or a {@link SkippedSpan} if the span is
+     *         a child of a sampled span that is skipped.
+     */
+    private Span decide() {
+      // A span with references is sampled if any of its parents is sampled
+      if (hasParent)
+        return sampledParent == null ? NOT_SAMPLED : decideChild(sampledParent);
+
+      // A span without references is a child of the active span, if any
+      if (!ignoreActiveSpan) {
+        if (!activeSampled)
+          return NOT_SAMPLED;
+
+        final Span activeSpan = tracer.target.scopeManager().activeSpan();
+        if (activeSpan != null)
+          return decideChild(activeSpan.context());
+      }
+
+      // The rate limit of a root span is a sampling decision for its trace
+      return tracer.sample() && acquire() ? null : NOT_SAMPLED;
+    }
+
+    private Span decideChild(final SpanContext parent) {
+      // The rate limit of a child span skips the span, but not its trace
+      return tracer.admitChild() && acquire() ? null : new SkippedSpan(parent);
+    }
+
+    private boolean acquire() {
+      return bucket == null || bucket.tryAcquire();
+    }
+
+    /**
+     * Returns the target {@link SpanBuilder}, creating it and replaying the
+     * deferred calls if it was deferred.
+     *
+     * @return The target {@link SpanBuilder}.
+     */
+    @SuppressWarnings("unchecked")
+    private SpanBuilder target() {
+      if (target != null)
+        return target;
+
+      target = tracer.target.buildSpan(operationName);
+      // An active span that is not sampled must not be referenced, and the
+      // context of an active SkippedSpan, which the target did not start, is
+      // referenced explicitly
+      if (ignoreActiveSpan || !activeSampled || skippedContext != null)
+        target.ignoreActiveSpan();
+
+      if (!ignoreActiveSpan && !hasParent && skippedContext != null)
+        target.addReference(References.CHILD_OF, skippedContext);
+
+      if (startMicros != -1)
+        target.withStartTimestamp(startMicros);
+
+      if (deferred != null) {
+        for (final Deferred call : deferred) {
+          if (call.reference)
+            target.addReference((String)call.key, (SpanContext)call.value);
+          else if (call.key instanceof Tag)
+            target.withTag((Tag<Object>)call.key, call.value);
+          else if (call.value instanceof Boolean)
+            target.withTag((String)call.key, (Boolean)call.value);
+          else if (call.value instanceof Number)
+            target.withTag((String)call.key, (Number)call.value);
+          else
+            target.withTag((String)call.key, (String)call.value);
+        }
+      }
+
+      return target;
+    }
+
+    @Override
+    public Span start() {
+      final Span span = decide();
+      return span != null ? span : target().start();
+    }
+  }
+
+  /**
+   * A call to a {@link SamplingSpanBuilder} that is deferred until the
+   * sampling decision is made.
+   */
+  private static final class Deferred {
+    final boolean reference;
+    final Object key;
+    final Object value;
+
+    Deferred(final boolean reference, final Object key, final Object value) {
+      this.reference = reference;
+      this.key = key;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+/**
+ * The layer of the spans that are created by a component, which is declared
+ * with {@link LocalSpanContext#slot(String,SpanLayer)}. Components of the same
+ * layer are often stacked on top of each other for a single operation (for
+ * instance, a Feign client over OkHttp). With
+ * {@code -Dsa.integration.${name}.suppressNested}, the span of an inner
+ * component is not created when the span of an outer component of the same
+ * layer is active on the thread (see
+ * {@link LocalSpanContext#isSuppressed(int)}).
+ */
+public enum SpanLayer {
+  /** Clients of HTTP servers. */
+  HTTP_CLIENT,
+  /**
+   * Producers of messages (for instance, a Spring Integration channel that is
+   * bound to a Kafka producer).
+   */
+  MESSAGING_PRODUCER
+}
@@ -0,0 +1,561 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.tag.Tag;
+import io.opentracing.tag.Tags;
+
+/**
+ * A {@link DelegateTracer} that defers the finishing of spans on the target
+ * {@link Tracer} until the local root span of their trace is finished. The
+ * first span of a trace ID that is started in this process is the local root
+ * span. When the local root span is finished, the trace is kept if any of its
+ * spans has the {@code error} tag, if the duration of the local root span is
+ * at least the latency threshold, or with the specified probability;
+ * otherwise, the trace is dropped. Only the spans of kept traces are finished
+ * on the target {@link Tracer}.
+ * <p>
+ * The finished spans of undecided traces are buffered in memory that is
+ * bounded by an estimate of their size in bytes. Decided traces are retained
+ * without their spans for a grace period, so that spans that finish after the
+ * decision follow it. When the buffer is full, decided traces are evicted to
+ * make room, and then the oldest undecided traces (which are dropped), so the
+ * buffer never exceeds its capacity regardless of the rate of spans.
+ * <p>
+ * Traces are identified with {@link SpanContext#toTraceId()}; spans of target
+ * {@link Tracer}s that do not support it are finished immediately.
+ */
+public class TailSamplingTracer extends DelegateTracer {
+  /** The estimated size of a buffered trace, excluding its spans. */
+  static final int TRACE_BYTES = 160;
+  /** The estimated size of a buffered span, excluding its strings. */
+  static final int SPAN_BYTES = 256;
+  /** The period, in milliseconds, for which decided traces are retained. */
+  static final long GRACE = 30000;
+
+  private static boolean isError(final Object value) {
+    return Boolean.TRUE.equals(value) || "true".equals(value);
+  }
+
+  private static int sizeOfValue(final Object obj) {
+    return obj instanceof String ? 2 * ((String)obj).length() + 40 : 16;
+  }
+
+  private static long sizeOf(final String traceId) {
+    return TRACE_BYTES + 2 * traceId.length();
+  }
+
+  private enum State {
+    OPEN, KEPT, DROPPED
+  }
+
+  /**
+   * The buffered finished spans of a trace.
+   */
+  static final class Trace {
+    final String traceId;
+    final List<TailSpan> spans = new ArrayList<>();
+    volatile State state = State.OPEN;
+    volatile long decidedNanos;
+    long bytes;
+    boolean error;
+
+    Trace(final String traceId, final long bytes) {
+      this.traceId = traceId;
+      this.bytes = bytes;
+    }
+  }
+
+  /** The sentinel of the traces of target spans without a trace ID. */
+  private static final Trace NO_TRACE_ID = new Trace(null, 0);
+
+  /** The sentinel of traces that could not be buffered. */
+  private static final Trace UNBUFFERED = new Trace(null, 0);
+
+  private final long maxBytes;
+  private final long latencyMicros;
+  private final double rate;
+  private final long graceNanos;
+  private final ConcurrentHashMap<String,Trace> traceIdToTrace = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<Trace> traces = new ConcurrentLinkedQueue<>();
+  private final AtomicLong bytes = new AtomicLong();
+  /** The number of decided traces in {@link #traces}. */
+  private final AtomicInteger decidedTraces = new AtomicInteger();
+  private final AtomicLong keptCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private final AtomicLong evictedCount = new AtomicLong();
+
+  /**
+   * Creates a new {@link TailSamplingTracer} with the specified target
+   * {@link Tracer}, buffer capacity, latency threshold and sampling rate.
+   *
+   * @param target The target {@link Tracer}.
+   * @param maxBytes The capacity of the buffer of finished spans, in bytes.
+   * @param latency The latency threshold, in milliseconds, at or above which
+   *          traces are kept.
+   * @param rate The probability that traces without errors, and below the
+   *          latency threshold, are kept.
+   * @throws NullPointerException If the target {@link Tracer} is null.
+   * @throws IllegalArgumentException If {@code maxBytes} is less than
+   *           {@link #TRACE_BYTES} + {@link #SPAN_BYTES}, if {@code latency}
+   *           is negative, or if {@code rate} is not between 0 and 1.
+   */
+  public TailSamplingTracer(final Tracer target, final long maxBytes, final long latency, final double rate) {
+    this(target, maxBytes, latency, rate, GRACE);
+  }
+
+  TailSamplingTracer(final Tracer target, final long maxBytes, final long latency, final double rate, final long grace) {
+    super(target);
+    if (maxBytes < TRACE_BYTES + SPAN_BYTES)
+      throw new IllegalArgumentException("maxBytes (" + maxBytes + ") must be at least " + (TRACE_BYTES + SPAN_BYTES));
+
+    if (latency < 0)
+      throw new IllegalArgumentException("latency (" + latency + ") must be non-negative");
+
+    if (rate < 0 || rate > 1)
+      throw new IllegalArgumentException("rate (" + rate + ") must be between 0 and 1");
+
+    this.maxBytes = maxBytes;
+    this.latencyMicros = latency == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toMicros(latency);
+    this.rate = rate;
+    this.graceNanos = TimeUnit.MILLISECONDS.toNanos(grace);
+  }
+
+  /**
+   * @return The capacity of the buffer of finished spans, in bytes.
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * @return The estimated size of the buffered traces, in bytes.
+   */
+  public long getBufferedBytes() {
+    return bytes.get();
+  }
+
+  /**
+   * @return The number of buffered traces, including decided traces that are
+   *         retained (without their spans) for a grace period, so that spans
+   *         that finish after the decision follow it.
+   */
+  public int getTraceCount() {
+    return traceIdToTrace.size();
+  }
+
+  /**
+   * @return The number of traces that were kept.
+   */
+  public long getKeptCount() {
+    return keptCount.get();
+  }
+
+  /**
+   * @return The number of traces that were dropped by the sampling decision.
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * @return The number of traces that were evicted from the buffer before
+   *         their local root span was finished.
+   */
+  public long getEvictedCount() {
+    return evictedCount.get();
+  }
+
+  /**
+   * Reserves the specified number of bytes in the buffer, evicting the oldest
+   * traces if necessary.
+   *
+   * @param size The number of bytes.
+   * @return Whether the bytes were reserved.
+   */
+  private boolean reserve(final long size) {
+    for (long used = bytes.get();; used = bytes.get()) {
+      if (used + size <= maxBytes) {
+        if (bytes.compareAndSet(used, used + size))
+          return true;
+      }
+      else if (!evict()) {
+        return false;
+      }
+    }
+  }
+
+  private void release(final long size) {
+    bytes.addAndGet(-size);
+  }
+
+  /**
+   * Removes the specified decided trace from the buffer.
+   *
+   * @param trace The decided trace.
+   * @return Whether the trace was removed, which is {@code false} if it was
+   *         removed by another thread.
+   */
+  private boolean remove(final Trace trace) {
+    if (!traces.remove(trace))
+      return false;
+
+    decidedTraces.decrementAndGet();
+    traceIdToTrace.remove(trace.traceId, trace);
+    release(trace.bytes);
+    return true;
+  }
+
+  /**
+   * Removes a trace from the buffer. The oldest decided trace is removed if
+   * there is one, whether or not its grace period has elapsed. Otherwise, the
+   * oldest trace is removed, and dropped if it is undecided.
+   *
+   * @return Whether a trace was removed.
+   */
+  private boolean evict() {
+    if (decidedTraces.get() > 0)
+      for (final Trace trace : traces)
+        if (trace.state != State.OPEN && remove(trace))
+          return true;
+
+    final Trace trace = traces.poll();
+    if (trace == null)
+      return false;
+
+    final long size;
+    synchronized (trace) {
+      size = trace.bytes;
+      if (trace.state == State.OPEN) {
+        trace.state = State.DROPPED;
+        trace.spans.clear();
+        evictedCount.incrementAndGet();
+      }
+      else {
+        decidedTraces.decrementAndGet();
+      }
+    }
+
+    traceIdToTrace.remove(trace.traceId, trace);
+    release(size);
+    return true;
+  }
+
+  /**
+   * Returns the trace of the specified trace ID, creating it if it does not
+   * exist.
+   *
+   * @param traceId The trace ID.
+   * @param root Whether the trace is created.
+   * @return The trace of the specified trace ID.
+   */
+  private Trace getTrace(final String traceId, final boolean[] root) {
+    Trace trace = traceIdToTrace.get(traceId);
+    if (trace != null)
+      return trace;
+
+    // Opportunistically remove decided traces from the head of the queue, once
+    // their grace period has elapsed
+    final long now = System.nanoTime();
+    for (Trace head; (head = traces.peek()) != null && head.state != State.OPEN && now - head.decidedNanos >= graceNanos && remove(head););
+
+    final long size = sizeOf(traceId);
+    if (!reserve(size))
+      return UNBUFFERED;
+
+    final Trace existing = traceIdToTrace.putIfAbsent(traceId, trace = new Trace(traceId, size));
+    if (existing != null) {
+      release(size);
+      return existing;
+    }
+
+    traces.offer(trace);
+    root[0] = true;
+    return trace;
+  }
+
+  /**
+   * Buffers the specified finished span, or finishes it on the target
+   * {@link Tracer} if its trace has been kept.
+   *
+   * @param span The finished span.
+   */
+  private void onFinish(final TailSpan span) {
+    final Trace trace = span.trace;
+    if (trace.state == State.OPEN && reserve(span.bytes)) {
+      synchronized (trace) {
+        if (trace.state == State.OPEN) {
+          trace.spans.add(span);
+          trace.bytes += span.bytes;
+          trace.error |= span.error;
+          return;
+        }
+      }
+
+      release(span.bytes);
+    }
+
+    if (trace.state == State.KEPT)
+      span.target.finish(span.finishMicros);
+  }
+
+  /**
+   * Decides whether to keep the trace of the specified finished local root
+   * span, and finishes the buffered spans of the trace on the target
+   * {@link Tracer} if it is kept.
+   *
+   * @param root The finished local root span.
+   */
+  private void onFinishRoot(final TailSpan root) {
+    final Trace trace = root.trace;
+    final List<TailSpan> spans;
+    final long size;
+    synchronized (trace) {
+      if (trace.state != State.OPEN)
+        return;
+
+      final boolean keep = trace.error || root.error || root.finishMicros - root.startMicros >= latencyMicros || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+      spans = keep ? new ArrayList<>(trace.spans) : null;
+      trace.spans.clear();
+      size = trace.bytes - sizeOf(trace.traceId);
+      trace.bytes -= size;
+      trace.decidedNanos = System.nanoTime();
+      trace.state = keep ? State.KEPT : State.DROPPED;
+      decidedTraces.incrementAndGet();
+    }
+
+    release(size);
+    if (spans == null) {
+      droppedCount.incrementAndGet();
+      return;
+    }
+
+    keptCount.incrementAndGet();
+    for (final TailSpan span : spans)
+      span.target.finish(span.finishMicros);
+
+    root.target.finish(root.finishMicros);
+  }
+
+  @Override
+  public SpanBuilder buildSpan(final String operationName) {
+    return new TailSpanBuilder(target.buildSpan(operationName), operationName);
+  }
+
+  /**
+   * A {@link Span} that delegates to the target {@link Span}, and defers its
+   * finishing until the sampling decision of its trace.
+   */
+  final class TailSpan extends ForwardingSpan {
+    final Trace trace;
+    final boolean root;
+    final long startMicros;
+    long finishMicros;
+    long bytes;
+    boolean error;
+
+    TailSpan(final Span target, final Trace trace, final boolean root, final long startMicros, final long bytes, final boolean error) {
+      super(target);
+      this.trace = trace;
+      this.root = root;
+      this.startMicros = startMicros;
+      this.bytes = bytes;
+      this.error = error;
+    }
+
+    private void tag(final String key, final Object value) {
+      bytes += sizeOfValue(key) + sizeOfValue(value);
+      if (Tags.ERROR.getKey().equals(key))
+        error = isError(value);
+    }
+
+    @Override
+    public Span setTag(final String key, final String value) {
+      tag(key, value);
+      target.setTag(key, value);
+      return this;
+    }
+
+    @Override
+    public Span setTag(final String key, final boolean value) {
+      tag(key, value);
+      target.setTag(key, value);
+      return this;
+    }
+
+    @Override
+    public Span setTag(final String key, final Number value) {
+      tag(key, value);
+      target.setTag(key, value);
+      return this;
+    }
+
+    @Override
+    public <T>Span setTag(final Tag<T> tag, final T value) {
+      tag(tag.getKey(), value);
+      target.setTag(tag, value);
+      return this;
+    }
+
+    private void addFields(final Map<String,?> fields) {
+      for (final Map.Entry<String,?> entry : fields.entrySet())
+        bytes += sizeOfValue(entry.getKey()) + sizeOfValue(entry.getValue());
+    }
+
+    @Override
+    public Span log(final Map<String,?> fields) {
+      addFields(fields);
+      target.log(AsyncFinishTracer.nowMicros(), fields);
+      return this;
+    }
+
+    @Override
+    public Span log(final long timestampMicroseconds, final Map<String,?> fields) {
+      addFields(fields);
+      target.log(timestampMicroseconds, fields);
+      return this;
+    }
+
+    @Override
+    public Span log(final String event) {
+      bytes += sizeOfValue(event);
+      target.log(AsyncFinishTracer.nowMicros(), event);
+      return this;
+    }
+
+    @Override
+    public Span log(final long timestampMicroseconds, final String event) {
+      bytes += sizeOfValue(event);
+      target.log(timestampMicroseconds, event);
+      return this;
+    }
+
+    @Override
+    public Span setBaggageItem(final String key, final String value) {
+      bytes += sizeOfValue(key) + sizeOfValue(value);
+      target.setBaggageItem(key, value);
+      return this;
+    }
+
+    @Override
+    public Span setOperationName(final String operationName) {
+      bytes += sizeOfValue(operationName);
+      target.setOperationName(operationName);
+      return this;
+    }
+
+    @Override
+    public void finish() {
+      finish(AsyncFinishTracer.nowMicros());
+    }
+
+    @Override
+    public void finish(final long finishMicros) {
+      this.finishMicros = finishMicros;
+      if (trace == NO_TRACE_ID)
+        target.finish(finishMicros);
+      else if (root)
+        onFinishRoot(this);
+      else if (trace != UNBUFFERED)
+        onFinish(this);
+    }
+  }
+
+  /**
+   * A {@link SpanBuilder} that delegates to the target {@link SpanBuilder},
+   * and starts {@link TailSpan}s. The start timestamp is taken from the same
+   * clock as the finish timestamp, because the target {@link Span} may be
+   * finished on another thread.
+   */
+  final class TailSpanBuilder extends ForwardingSpanBuilder {
+    private long bytes;
+    private long startMicros = -1;
+    private boolean error;
+
+    TailSpanBuilder(final SpanBuilder target, final String operationName) {
+      super(target);
+      this.bytes = SPAN_BYTES + sizeOfValue(operationName);
+    }
+
+    private void tag(final String key, final Object value) {
+      bytes += sizeOfValue(key) + sizeOfValue(value);
+      if (Tags.ERROR.getKey().equals(key))
+        error = isError(value);
+    }
+
+    @Override
+    public SpanBuilder withTag(final String key, final String value) {
+      tag(key, value);
+      target.withTag(key, value);
+      return this;
+    }
+
+    @Override
+    public SpanBuilder withTag(final String key, final boolean value) {
+      tag(key, value);
+      target.withTag(key, value);
+      return this;
+    }
+
+    @Override
+    public SpanBuilder withTag(final String key, final Number value) {
+      tag(key, value);
+      target.withTag(key, value);
+      return this;
+    }
+
+    @Override
+    public <T>SpanBuilder withTag(final Tag<T> tag, final T value) {
+      tag(tag.getKey(), value);
+      target.withTag(tag, value);
+      return this;
+    }
+
+    @Override
+    public SpanBuilder withStartTimestamp(final long microseconds) {
+      startMicros = microseconds;
+      target.withStartTimestamp(microseconds);
+      return this;
+    }
+
+    @Override
+    public Span start() {
+      if (startMicros < 0)
+        target.withStartTimestamp(startMicros = AsyncFinishTracer.nowMicros());
+
+      final Span span = target.start();
+      final String traceId = span.context().toTraceId();
+      if (traceId == null || traceId.isEmpty())
+        return new TailSpan(span, NO_TRACE_ID, false, startMicros, bytes, error);
+
+      final boolean[] root = new boolean[1];
+      return new TailSpan(span, getTrace(traceId, root), root[0], startMicros, bytes, error);
+    }
+  }
+}
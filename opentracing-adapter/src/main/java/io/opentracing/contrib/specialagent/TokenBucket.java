@@ -0,0 +1,88 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket, implemented as a generic cell rate algorithm: the
+ * state of the bucket is a single theoretical arrival time, which is advanced
+ * by one interval for each permit that is acquired. The bucket allows bursts
+ * of up to one second worth of permits.
+ */
+final class TokenBucket {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final long interval;
+  private final long tolerance;
+  private final AtomicLong arrival;
+  private final AtomicLong dropped = new AtomicLong();
+
+  /**
+   * Creates a new {@link TokenBucket} with the specified rate.
+   *
+   * @param permitsPerSecond The number of permits per second.
+   * @param nanoTime The current value of {@link System#nanoTime()}.
+   * @throws IllegalArgumentException If {@code permitsPerSecond} is not
+   *           positive.
+   */
+  TokenBucket(final double permitsPerSecond, final long nanoTime) {
+    if (!(permitsPerSecond > 0))
+      throw new IllegalArgumentException("permitsPerSecond (" + permitsPerSecond + ") must be positive");
+
+    this.interval = Math.max(1, (long)(SECOND / permitsPerSecond));
+    this.tolerance = Math.max(interval, SECOND);
+    this.arrival = new AtomicLong(nanoTime);
+  }
+
+  /**
+   * Acquires a permit, if one is available at the specified time.
+   *
+   * @param nanoTime The current value of {@link System#nanoTime()}.
+   * @return Whether a permit was acquired.
+   */
+  boolean tryAcquire(final long nanoTime) {
+    for (long tat = arrival.get();; tat = arrival.get()) {
+      final long next = (tat - nanoTime > 0 ? tat : nanoTime) + interval;
+      if (next - nanoTime > tolerance) {
+        dropped.incrementAndGet();
+        return false;
+      }
+
+      if (arrival.compareAndSet(tat, next))
+        return true;
+    }
+  }
+
+  /**
+   * Acquires a permit, if one is available.
+   *
+   * @return Whether a permit was acquired.
+   */
+  boolean tryAcquire() {
+    return tryAcquire(System.nanoTime());
+  }
+
+  /**
+   * Returns the number of permits that were not acquired.
+   *
+   * @return The number of permits that were not acquired.
+   */
+  long getDroppedCount() {
+    return dropped.get();
+  }
+}
@@ -0,0 +1,353 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.opentracing.contrib.common.Classes;
+import io.opentracing.contrib.common.WrapperProxy;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.modifier.FieldManifestation;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.loading.MultipleParentClassLoader;
+import net.bytebuddy.dynamic.scaffold.InstrumentedType;
+import net.bytebuddy.dynamic.scaffold.TypeValidation;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.implementation.bytecode.assign.TypeCasting;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.implementation.bytecode.member.MethodReturn;
+import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
+import net.bytebuddy.jar.asm.MethodVisitor;
+
+/**
+ * Non-reflective replacement of {@link WrapperProxy}. For each pair of the set
+ * of interfaces of the class of a wrapped object and the class of its wrapper,
+ * a concrete class is generated (and cached) that implements all of the
+ * interfaces, and calls the methods of the wrapper or the wrapped
+ * object directly, according to the same rules as {@link WrapperProxy}:
+ * <ol>
+ * <li>A method of an interface (or of {@link Object}) that is implemented by
+ * the wrapper is called on the wrapper.</li>
+ * <li>A method for which the wrapper declares (or inherits) a method with the
+ * same name and parameter types is called on the wrapper.</li>
+ * <li>Any other method is called on the wrapped object.</li>
+ * </ol>
+ * Like {@link java.lang.reflect.Proxy}, the generated class is shared by all
+ * classes of wrapped objects that implement the same set of interfaces (for
+ * instance, all lambdas of {@link Runnable} submitted to an executor).
+ * <p>
+ * If a class cannot be generated for a pair (for instance, because an
+ * interface is not public), {@link WrapperProxy} is used for the pair
+ * instead.
+ */
+public final class WrapperClass {
+  private static final Logger logger = Logger.getLogger(WrapperClass.class);
+  private static final AtomicInteger counter = new AtomicInteger();
+  private static final Factory PROXY = new Factory(null);
+
+  /**
+   * Interface implemented by the generated wrapper classes.
+   */
+  public interface Wrapper {
+    /**
+     * @return The wrapped object.
+     */
+    Object $object();
+
+    /**
+     * @return The wrapper.
+     */
+    Object $wrapper();
+  }
+
+  private static final ClassValue<Interfaces> objClassToInterfaces = new ClassValue<Interfaces>() {
+    @Override
+    protected Interfaces computeValue(final Class<?> type) {
+      return new Interfaces(Classes.getAllInterfaces(type));
+    }
+  };
+
+  private static final ClassValue<ConcurrentMap<Interfaces,Factory>> wrapperClassToFactories = new ClassValue<ConcurrentMap<Interfaces,Factory>>() {
+    @Override
+    protected ConcurrentMap<Interfaces,Factory> computeValue(final Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  /**
+   * The set of all interfaces of a class, which is the key of the generated
+   * classes, irrespective of the order of the interfaces.
+   */
+  private static final class Interfaces {
+    private final Class<?>[] classes;
+    private final Set<Class<?>> set;
+    private final int hashCode;
+
+    private Interfaces(final Class<?>[] classes) {
+      this.classes = classes;
+      this.set = new HashSet<>(Arrays.asList(classes));
+      this.hashCode = set.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj == this || obj instanceof Interfaces && set.equals(((Interfaces)obj).set);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private static final class Factory {
+    private final Constructor<?> constructor;
+
+    private Factory(final Constructor<?> constructor) {
+      this.constructor = constructor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T>T newInstance(final T obj, final T wrapper) {
+      if (constructor == null)
+        return WrapperProxy.wrap(obj, wrapper);
+
+      try {
+        return (T)constructor.newInstance(obj, wrapper);
+      }
+      catch (final InstantiationException | IllegalAccessException | InvocationTargetException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Returns an instance of the generated class for the interfaces of the class
+   * of the specified object and the class of the wrapper, which implements all
+   * of the interfaces of the class of {@code obj}.
+   *
+   * @param <T> The type of the object and wrapper.
+   * @param obj The object to wrap.
+   * @param wrapper The wrapper.
+   * @return An instance of the generated class for the interfaces of the
+   *         class of the specified object and the class of the wrapper, or {@code wrapper} if {@code obj}
+   *         or {@code wrapper} is null, or if they are the same object.
+   */
+  public static <T>T wrap(final T obj, final T wrapper) {
+    if (obj == null || wrapper == null || obj == wrapper)
+      return wrapper;
+
+    return getFactory(obj.getClass(), wrapper.getClass()).newInstance(obj, wrapper);
+  }
+
+  /**
+   * Returns whether the specified object is a wrapper created by
+   * {@link #wrap(Object,Object)} (or by {@link WrapperProxy}).
+   *
+   * @param obj The object.
+   * @return Whether the specified object is a wrapper.
+   */
+  public static boolean isWrapper(final Object obj) {
+    return obj instanceof Wrapper || obj != null && WrapperProxy.isWrapper(obj);
+  }
+
+  /**
+   * Returns whether the specified object is a wrapper created by
+   * {@link #wrap(Object,Object)} (or by {@link WrapperProxy}) with a wrapper
+   * that is an instance of the specified class.
+   *
+   * @param <T> The type of the object.
+   * @param obj The object.
+   * @param wrapperClass The class of the wrapper.
+   * @return Whether the specified object is a wrapper with a wrapper that is
+   *         an instance of the specified class.
+   */
+  public static <T>boolean isWrapper(final T obj, final Class<? extends T> wrapperClass) {
+    if (obj instanceof Wrapper)
+      return wrapperClass.isInstance(((Wrapper)obj).$wrapper());
+
+    return obj != null && WrapperProxy.isWrapper(obj, wrapperClass);
+  }
+
+  private static Factory getFactory(final Class<?> objClass, final Class<?> wrapperClass) {
+    final Interfaces interfaces = objClassToInterfaces.get(objClass);
+    final ConcurrentMap<Interfaces,Factory> factories = wrapperClassToFactories.get(wrapperClass);
+    Factory factory = factories.get(interfaces);
+    if (factory != null)
+      return factory;
+
+    try {
+      final Class<?> cls = generate(interfaces.classes, wrapperClass);
+      factory = cls == null ? PROXY : new Factory(cls.getConstructor(Object.class, Object.class));
+    }
+    catch (final Exception | LinkageError e) {
+      if (logger.isLoggable(Level.FINE))
+        logger.log(Level.FINE, "Unable to generate wrapper class for " + objClass.getName() + " and " + wrapperClass.getName() + ": using " + WrapperProxy.class.getSimpleName(), e);
+
+      factory = PROXY;
+    }
+
+    final Factory existing = factories.putIfAbsent(interfaces, factory);
+    return existing != null ? existing : factory;
+  }
+
+  /**
+   * Returns the method that is called by the generated class for the specified
+   * method, according to the rules of {@link WrapperProxy}, or {@code null} if
+   * the method is to be called on the wrapped object.
+   */
+  private static Method getWrapperMethod(final Class<?> wrapperClass, final Method method) {
+    if (method.getDeclaringClass().isAssignableFrom(wrapperClass))
+      return method;
+
+    return Classes.getDeclaredMethodDeep(wrapperClass, method.getName(), method.getParameterTypes());
+  }
+
+  private static Class<?> generate(final Class<?>[] interfaces, final Class<?> wrapperClass) throws NoSuchMethodException {
+    for (final Class<?> iface : interfaces)
+      if (!Modifier.isPublic(iface.getModifiers()))
+        return null;
+
+    // Methods with the same signature in more than one interface are
+    // implemented once, and are called on the wrapper if any of them is
+    final Map<String,Method> signatureToMethod = new LinkedHashMap<>();
+    final Map<String,Boolean> signatureToWrapper = new LinkedHashMap<>();
+    final MultipleParentClassLoader.Builder classLoader = new MultipleParentClassLoader.Builder().appendMostSpecific(interfaces).appendMostSpecific(Wrapper.class);
+    for (final Method method : new Method[] {Object.class.getMethod("equals", Object.class), Object.class.getMethod("hashCode"), Object.class.getMethod("toString")}) {
+      final String signature = method.getName() + Arrays.toString(method.getParameterTypes());
+      signatureToMethod.put(signature, method);
+      signatureToWrapper.put(signature, Boolean.TRUE);
+    }
+
+    for (final Class<?> iface : interfaces) {
+      for (final Method method : iface.getMethods()) {
+        if (Modifier.isStatic(method.getModifiers()))
+          continue;
+
+        final Method wrapperMethod = getWrapperMethod(wrapperClass, method);
+        final String signature = method.getName() + Arrays.toString(method.getParameterTypes());
+        if (wrapperMethod == null) {
+          if (!signatureToWrapper.containsKey(signature)) {
+            signatureToMethod.put(signature, method);
+            signatureToWrapper.put(signature, Boolean.FALSE);
+          }
+        }
+        else if (!Boolean.TRUE.equals(signatureToWrapper.get(signature))) {
+          if (wrapperMethod != method) {
+            if (!Modifier.isPublic(wrapperMethod.getModifiers()) || !Modifier.isPublic(wrapperMethod.getDeclaringClass().getModifiers()))
+              return null;
+
+            classLoader.appendMostSpecific(wrapperMethod.getDeclaringClass());
+          }
+
+          signatureToMethod.put(signature, wrapperMethod);
+          signatureToWrapper.put(signature, Boolean.TRUE);
+        }
+      }
+    }
+
+    DynamicType.Builder<?> builder = new ByteBuddy()
+      .with(TypeValidation.DISABLED)
+      .subclass(Object.class, ConstructorStrategy.Default.NO_CONSTRUCTORS)
+      .name(WrapperClass.class.getName() + "$$" + counter.incrementAndGet())
+      .implement(interfaces)
+      .implement(Wrapper.class)
+      .defineField("object", Object.class, Visibility.PRIVATE, FieldManifestation.FINAL)
+      .defineField("wrapper", Object.class, Visibility.PRIVATE, FieldManifestation.FINAL)
+      .defineConstructor(Visibility.PUBLIC).withParameters(Object.class, Object.class)
+      .intercept(MethodCall.invoke(Object.class.getConstructor()).andThen(FieldAccessor.ofField("object").setsArgumentAt(0)).andThen(FieldAccessor.ofField("wrapper").setsArgumentAt(1)))
+      .method(named("$object").and(takesArguments(0))).intercept(FieldAccessor.ofField("object"))
+      .method(named("$wrapper").and(takesArguments(0))).intercept(FieldAccessor.ofField("wrapper"));
+
+    for (final Map.Entry<String,Method> entry : signatureToMethod.entrySet()) {
+      final Method method = entry.getValue();
+      final String field = signatureToWrapper.get(entry.getKey()) ? "wrapper" : "object";
+      builder = builder
+        .method(named(method.getName()).and(takesArguments(method.getParameterTypes())).and(not(isDeclaredBy(Wrapper.class))))
+        .intercept(new Dispatch(field, new MethodDescription.ForLoadedMethod(method)));
+    }
+
+    return builder.make().load(classLoader.build(), ClassLoadingStrategy.Default.WRAPPER).getLoaded();
+  }
+
+  /**
+   * Implementation of a method of the generated class that calls the
+   * specified method on the value of the specified field, cast to the type
+   * that declares the method.
+   */
+  private static final class Dispatch implements Implementation {
+    private final String fieldName;
+    private final MethodDescription method;
+
+    private Dispatch(final String fieldName, final MethodDescription method) {
+      this.fieldName = fieldName;
+      this.method = method;
+    }
+
+    @Override
+    public InstrumentedType prepare(final InstrumentedType instrumentedType) {
+      return instrumentedType;
+    }
+
+    @Override
+    public ByteCodeAppender appender(final Target implementationTarget) {
+      final FieldDescription field = implementationTarget.getInstrumentedType().getDeclaredFields().filter(named(fieldName)).getOnly();
+      return new ByteCodeAppender() {
+        @Override
+        public Size apply(final MethodVisitor methodVisitor, final Context implementationContext, final MethodDescription instrumentedMethod) {
+          final StackManipulation.Size size = new StackManipulation.Compound(
+            MethodVariableAccess.loadThis(),
+            FieldAccess.forField(field).read(),
+            TypeCasting.to(method.getDeclaringType().asErasure()),
+            MethodVariableAccess.allArgumentsOf(instrumentedMethod),
+            MethodInvocation.invoke(method),
+            Assigner.DEFAULT.assign(method.getReturnType(), instrumentedMethod.getReturnType(), Assigner.Typing.DYNAMIC),
+            MethodReturn.of(instrumentedMethod.getReturnType())
+          ).apply(methodVisitor, implementationContext);
+          return new Size(size.getMaximalSize(), instrumentedMethod.getStackSize());
+        }
+      };
+    }
+  }
+
+  private WrapperClass() {
+  }
+}
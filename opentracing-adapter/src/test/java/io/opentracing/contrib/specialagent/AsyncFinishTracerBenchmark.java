@@ -0,0 +1,98 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.opentracing.Tracer;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+
+/**
+ * Benchmark of the latency distribution of a "request" that starts and
+ * finishes a span, with a deliberately slow tracer that reports finished spans
+ * under a lock, with and without {@link AsyncFinishTracer}.
+ * <p>
+ * Run with {@link #main(String[])} on the test classpath of this module, and
+ * compare the {@code p0.99} percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class AsyncFinishTracerBenchmark {
+  private static final long REPORT_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+  /**
+   * A {@link MockTracer} that spends {@link #REPORT_NANOS} under a lock to
+   * report each finished span, and does not retain finished spans.
+   */
+  static class SlowTracer extends MockTracer {
+    @Override
+    protected synchronized void onSpanFinished(final MockSpan mockSpan) {
+      final long end = System.nanoTime() + REPORT_NANOS;
+      while (System.nanoTime() < end);
+    }
+  }
+
+  private Tracer direct;
+  private AsyncFinishTracer async;
+
+  @Setup
+  public void setup() {
+    direct = new SlowTracer();
+    async = new AsyncFinishTracer(new SlowTracer(), 1 << 14);
+  }
+
+  @TearDown
+  public void tearDown() {
+    System.out.println("\nDropped spans: " + async.getDroppedCount());
+    async.close();
+  }
+
+  @Benchmark
+  public void direct() {
+    direct.buildSpan("request").withTag("key", "value").start().finish();
+  }
+
+  @Benchmark
+  public void async() {
+    async.buildSpan("request").withTag("key", "value").start().finish();
+  }
+
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(AsyncFinishTracerBenchmark.class.getSimpleName()).build()).run();
+  }
+}
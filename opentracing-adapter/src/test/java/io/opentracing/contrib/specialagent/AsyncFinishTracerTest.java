@@ -0,0 +1,167 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+
+public class AsyncFinishTracerTest {
+  private static List<MockSpan> awaitFinishedSpans(final MockTracer tracer, final int count) throws InterruptedException {
+    for (int i = 0; i < 500 && tracer.finishedSpans().size() < count; ++i)
+      Thread.sleep(10);
+
+    return tracer.finishedSpans();
+  }
+
+  @Test
+  public void testCapacity() {
+    final MockTracer mockTracer = new MockTracer();
+    try {
+      new AsyncFinishTracer(mockTracer, 0);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (final IllegalArgumentException e) {
+    }
+
+    final AsyncFinishTracer tracer = new AsyncFinishTracer(mockTracer, 5);
+    assertEquals(8, tracer.getCapacity());
+    tracer.close();
+  }
+
+  @Test
+  public void testFinish() throws InterruptedException {
+    final MockTracer mockTracer = new MockTracer();
+    final AsyncFinishTracer tracer = new AsyncFinishTracer(mockTracer, 16);
+    final Span parent = tracer.buildSpan("parent").withTag("key", "value").start();
+    try (final Scope scope = tracer.activateSpan(parent)) {
+      assertSame(parent, tracer.activeSpan());
+      tracer.buildSpan("child").start().finish();
+    }
+
+    parent.finish();
+    final List<MockSpan> spans = awaitFinishedSpans(mockTracer, 2);
+    assertEquals(2, spans.size());
+    assertEquals("child", spans.get(0).operationName());
+    assertEquals("parent", spans.get(1).operationName());
+    assertEquals(spans.get(1).context().spanId(), spans.get(0).parentId());
+    assertEquals("value", spans.get(1).tags().get("key"));
+    assertTrue(spans.get(1).finishMicros() >= spans.get(1).startMicros());
+    assertEquals(0, tracer.getDroppedCount());
+    tracer.close();
+  }
+
+  @Test
+  public void testOverflow() throws InterruptedException {
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger finished = new AtomicInteger();
+    final MockTracer mockTracer = new MockTracer() {
+      @Override
+      protected void onSpanFinished(final MockSpan mockSpan) {
+        entered.countDown();
+        try {
+          release.await();
+        }
+        catch (final InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+
+        finished.incrementAndGet();
+      }
+    };
+
+    final AsyncFinishTracer tracer = new AsyncFinishTracer(mockTracer, 4);
+
+    // The first span blocks the drainer thread in the target tracer
+    tracer.buildSpan("blocking").start().finish();
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+    for (int i = 0; i < 7; ++i)
+      tracer.buildSpan("span" + i).start().finish();
+
+    assertEquals(3, tracer.getDroppedCount());
+
+    release.countDown();
+    tracer.close();
+    assertEquals(5, finished.get());
+  }
+
+  @Test
+  public void testThrowable() throws InterruptedException {
+    final MockTracer mockTracer = new MockTracer() {
+      @Override
+      protected void onSpanFinished(final MockSpan mockSpan) {
+        if ("error".equals(mockSpan.operationName()))
+          throw new AssertionError();
+      }
+    };
+
+    final AsyncFinishTracer tracer = new AsyncFinishTracer(mockTracer, 4);
+    tracer.buildSpan("error").start().finish();
+    tracer.buildSpan("span").start().finish();
+
+    // The drainer thread survives the Error thrown by the target tracer
+    final List<MockSpan> spans = awaitFinishedSpans(mockTracer, 2);
+    assertEquals(2, spans.size());
+    assertEquals("span", spans.get(1).operationName());
+    tracer.close();
+  }
+
+  @Test
+  public void testCloseTimeout() throws InterruptedException {
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final MockTracer mockTracer = new MockTracer() {
+      @Override
+      protected void onSpanFinished(final MockSpan mockSpan) {
+        entered.countDown();
+        try {
+          release.await();
+        }
+        catch (final InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+
+      // MockTracer.close() would wait for the monitor that is held by the
+      // blocked drainer thread
+      @Override
+      public void close() {
+      }
+    };
+
+    final AsyncFinishTracer tracer = new AsyncFinishTracer(mockTracer, 4);
+    tracer.buildSpan("blocking").start().finish();
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+    for (int i = 0; i < 2; ++i)
+      tracer.buildSpan("span" + i).start().finish();
+
+    // The blocking span, and the 2 spans behind it, are abandoned
+    assertEquals(3, tracer.close(100));
+    release.countDown();
+  }
+}
@@ -0,0 +1,70 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import io.opentracing.SpanContext;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+
+public class BinarySpanContextTest {
+  private final MockTracer tracer = new MockTracer();
+
+  @Test
+  public void testRoundTrip() {
+    final MockSpan span = tracer.buildSpan("test").start();
+    span.setBaggageItem("key", "välue");
+    final byte[] value = BinarySpanContext.encode(span.context(), tracer);
+
+    final SpanContext context = BinarySpanContext.decode(value, tracer);
+    assertEquals(span.context().toTraceId(), context.toTraceId());
+    assertEquals(span.context().toSpanId(), context.toSpanId());
+    assertEquals("välue", ((MockSpan.MockContext)context).getBaggageItem("key"));
+  }
+
+  @Test
+  public void testBinary() {
+    final MockTracer tracer = new MockTracer(MockTracer.Propagator.BINARY);
+    final MockSpan span = tracer.buildSpan("test").start();
+    final byte[] value = BinarySpanContext.encode(span.context(), tracer);
+
+    final SpanContext context = BinarySpanContext.decode(value, tracer);
+    assertEquals(span.context().toTraceId(), context.toTraceId());
+    assertEquals(span.context().toSpanId(), context.toSpanId());
+
+    // A tracer without support for BINARY falls back to TEXT_MAP, and cannot decode BINARY
+    final byte[] textMap = BinarySpanContext.encode(span.context(), this.tracer);
+    assertNotEquals(value[0], textMap[0]);
+    assertEquals(span.context().toSpanId(), BinarySpanContext.decode(textMap, this.tracer).toSpanId());
+    assertNull(BinarySpanContext.decode(value, this.tracer));
+  }
+
+  @Test
+  public void testMalformed() {
+    assertNull(BinarySpanContext.decode(null, tracer));
+    assertNull(BinarySpanContext.decode(new byte[0], tracer));
+    assertNull(BinarySpanContext.decode(new byte[] {0, 5, 'a'}, tracer));
+    assertNull(BinarySpanContext.decode(new byte[] {0, (byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff}, tracer));
+    assertNull(BinarySpanContext.decode(new byte[] {1, 5, 'a'}, tracer));
+    assertNull(BinarySpanContext.decode("unknown".getBytes(StandardCharsets.UTF_8), tracer));
+  }
+}
@@ -0,0 +1,102 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.opentracing.Span;
+import io.opentracing.noop.NoopTracerFactory;
+
+/**
+ * Benchmark of the enter/exit pair of {@link LocalSpanContext} as used by the
+ * intercepts of rules, i.e. {@code get}, {@code set} and
+ * {@code closeAndFinish}.
+ * <p>
+ * Run with {@link #main(String[])} on the test classpath of this module.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalSpanContextBenchmark {
+  private static final String NAME = "benchmark";
+  private static final int SLOT = LocalSpanContext.slot(NAME);
+
+  private Span span;
+
+  @Setup
+  public void setup() {
+    span = NoopTracerFactory.create().buildSpan(NAME).start();
+    // Register other components, so the slot is not the only one
+    for (int i = 0; i < 32; ++i)
+      LocalSpanContext.slot(NAME + i);
+  }
+
+  @Benchmark
+  public LocalSpanContext getAbsent() {
+    return LocalSpanContext.get(SLOT);
+  }
+
+  @Benchmark
+  public LocalSpanContext setGetCloseAndFinish() {
+    LocalSpanContext.set(SLOT, span, null);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
+    context.closeAndFinish();
+    return context;
+  }
+
+  @Benchmark
+  public LocalSpanContext setGetCloseAndFinishByName() {
+    LocalSpanContext.set(NAME, span, null);
+    final LocalSpanContext context = LocalSpanContext.get(NAME);
+    context.closeAndFinish();
+    return context;
+  }
+
+  @Benchmark
+  public LocalSpanContext nestedIncrementDecrement() {
+    LocalSpanContext.set(SLOT, span, null);
+    LocalSpanContext context = LocalSpanContext.get(SLOT);
+    context.increment();
+    context = LocalSpanContext.get(SLOT);
+    context.decrementAndGet();
+    context = LocalSpanContext.get(SLOT);
+    if (context.decrementAndGet() == 0)
+      context.closeAndFinish();
+
+    return context;
+  }
+
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(LocalSpanContextBenchmark.class.getSimpleName()).build()).run();
+  }
+}
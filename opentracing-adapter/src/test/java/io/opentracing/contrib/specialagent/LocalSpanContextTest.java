@@ -0,0 +1,110 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import io.opentracing.Span;
+import io.opentracing.mock.MockTracer;
+
+public class LocalSpanContextTest {
+  private static final int SLOT_A = LocalSpanContext.slot("test-a");
+  private static final int SLOT_B = LocalSpanContext.slot("test-b");
+
+  @Test
+  public void testSlot() {
+    assertNotEquals(SLOT_A, SLOT_B);
+    assertEquals(SLOT_A, LocalSpanContext.slot("test-a"));
+    assertEquals(SLOT_B, LocalSpanContext.slot("test-b"));
+  }
+
+  @Test
+  public void testGetOfUnknownName() {
+    final int slot = LocalSpanContext.slot("test-first");
+    assertNull(LocalSpanContext.get("test-unknown"));
+
+    // No slot was assigned to the unknown name
+    assertEquals(slot + 1, LocalSpanContext.slot("test-second"));
+  }
+
+  @Test
+  public void testGetSetClose() {
+    final MockTracer tracer = new MockTracer();
+    assertNull(LocalSpanContext.get(SLOT_A));
+    assertNull(LocalSpanContext.get(Integer.MAX_VALUE));
+
+    final Span span = tracer.buildSpan("a").start();
+    LocalSpanContext.set(SLOT_A, span, tracer.activateSpan(span));
+    assertNull(LocalSpanContext.get(SLOT_B));
+
+    final LocalSpanContext context = LocalSpanContext.get(SLOT_A);
+    assertSame(context, LocalSpanContext.get("test-a"));
+    assertSame(span, context.getSpan());
+    assertSame(span, tracer.activeSpan());
+
+    context.increment();
+    assertEquals(1, context.decrementAndGet());
+    assertEquals(0, context.decrementAndGet());
+    assertEquals(0, context.decrementAndGet());
+
+    context.closeAndFinish();
+    assertNull(LocalSpanContext.get(SLOT_A));
+    assertNull(tracer.activeSpan());
+    assertEquals(1, tracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testCloseOfReplacedContext() {
+    LocalSpanContext.set(SLOT_B, null, null);
+    final LocalSpanContext outer = LocalSpanContext.get(SLOT_B);
+    LocalSpanContext.set(SLOT_B, null, null);
+    final LocalSpanContext inner = LocalSpanContext.get(SLOT_B);
+    assertNotSame(outer, inner);
+
+    outer.closeScope();
+    assertSame(inner, LocalSpanContext.get(SLOT_B));
+
+    inner.closeScope();
+    assertNull(LocalSpanContext.get(SLOT_B));
+  }
+
+  @Test
+  public void testSuppressed() {
+    final int outer = LocalSpanContext.slot("test-outer", SpanLayer.HTTP_CLIENT);
+    final int other = LocalSpanContext.slot("test-other", null);
+    System.setProperty("sa.integration.*.suppressNested", "true");
+    try {
+      final int inner = LocalSpanContext.slot("test-inner", SpanLayer.HTTP_CLIENT);
+      assertFalse(LocalSpanContext.isSuppressed(inner));
+
+      LocalSpanContext.set(other, null, null);
+      assertFalse(LocalSpanContext.isSuppressed(inner));
+
+      LocalSpanContext.set(outer, null, null);
+      assertTrue(LocalSpanContext.isSuppressed(inner));
+      assertFalse(LocalSpanContext.isSuppressed(outer));
+
+      LocalSpanContext.get(outer).closeScope();
+      LocalSpanContext.get(other).closeScope();
+      assertFalse(LocalSpanContext.isSuppressed(inner));
+    }
+    finally {
+      System.clearProperty("sa.integration.*.suppressNested");
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+
+public class RedMetricsTracerTest {
+  private static RedMetrics.Series series(final String operationName, final String kind, final String component, final boolean error) {
+    return new RedMetrics.Series(operationName, kind, component, error);
+  }
+
+  @Test
+  public void testRecord() {
+    final MockTracer mockTracer = new MockTracer();
+    final RedMetricsTracer tracer = new RedMetricsTracer(mockTracer, new RedMetrics(100));
+    final Span parent = tracer.buildSpan("get").withTag(Tags.SPAN_KIND, Tags.SPAN_KIND_SERVER).withTag(Tags.COMPONENT, "http").start();
+    try (final Scope scope = tracer.activateSpan(parent)) {
+      assertSame(parent, tracer.activeSpan());
+      tracer.buildSpan("query").withTag(Tags.COMPONENT.getKey(), "jdbc").start().setTag(Tags.ERROR, true).finish();
+      tracer.buildSpan("query").withTag(Tags.COMPONENT.getKey(), "jdbc").start().finish();
+    }
+
+    parent.setOperationName("GET /");
+    parent.finish();
+
+    assertEquals(3, mockTracer.finishedSpans().size());
+    assertEquals(mockTracer.finishedSpans().get(2).context().spanId(), mockTracer.finishedSpans().get(0).parentId());
+
+    final RedMetrics metrics = tracer.getMetrics();
+    assertEquals(3, metrics.getSeriesCount());
+    assertEquals(1, metrics.getStats(series("query", null, "jdbc", true)).histogram.getCount());
+    assertEquals(1, metrics.getStats(series("query", null, "jdbc", false)).histogram.getCount());
+    assertEquals(1, metrics.getStats(series("GET /", Tags.SPAN_KIND_SERVER, "http", false)).histogram.getCount());
+    assertNull(metrics.getStats(series("get", Tags.SPAN_KIND_SERVER, "http", false)));
+  }
+
+  @Test
+  public void testExplicitTimestamps() {
+    final RedMetricsTracer tracer = new RedMetricsTracer(new MockTracer(), new RedMetrics(100));
+    tracer.buildSpan("op").withStartTimestamp(1000).start().finish(3000);
+    final RedMetrics.Stats stats = tracer.getMetrics().getStats(series("op", null, null, false));
+    assertEquals(1, stats.histogram.getCount());
+    assertEquals(2000000, stats.sum.get());
+  }
+
+  @Test
+  public void testNotSampled() {
+    AgentRule.$Access.configure(null, Collections.<String,String>emptyMap());
+    final RedMetricsTracer tracer = new RedMetricsTracer(new SamplingTracer(new MockTracer(), 0), new RedMetrics(100));
+    final Span parent = tracer.buildSpan("parent").start();
+    try (final Scope scope = tracer.activateSpan(parent)) {
+      final Span child = tracer.buildSpan("child").start();
+      assertFalse(SamplingTracer.isSampled(child));
+      child.finish();
+    }
+
+    parent.finish();
+    assertFalse(SamplingTracer.isSampled(parent));
+    assertEquals(1, tracer.getMetrics().getStats(series("parent", null, null, false)).histogram.getCount());
+    assertEquals(1, tracer.getMetrics().getStats(series("child", null, null, false)).histogram.getCount());
+  }
+
+  @Test
+  public void testMaxSeries() {
+    final RedMetricsTracer tracer = new RedMetricsTracer(new MockTracer(), new RedMetrics(2));
+    for (int i = 0; i < 10; ++i)
+      tracer.buildSpan("op" + i).start().finish();
+
+    final RedMetrics metrics = tracer.getMetrics();
+    assertEquals(3, metrics.getSeriesCount());
+    assertEquals(1, metrics.getStats(series("op0", null, null, false)).histogram.getCount());
+    assertEquals(1, metrics.getStats(series("op1", null, null, false)).histogram.getCount());
+    assertEquals(8, metrics.getStats(series(RedMetrics.OVERFLOW, null, null, false)).histogram.getCount());
+  }
+
+  @Test
+  public void testServe() throws IOException {
+    final RedMetrics metrics = new RedMetrics(100);
+    metrics.record("say \"hi\"", Tags.SPAN_KIND_CLIENT, "http", false, 2000000);
+    final HttpServer server = metrics.serve(0);
+    try {
+      final HttpURLConnection connection = (HttpURLConnection)new URL("http://localhost:" + server.getAddress().getPort() + RedMetrics.PATH).openConnection();
+      assertEquals(200, connection.getResponseCode());
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (final InputStream in = connection.getInputStream()) {
+        final byte[] buffer = new byte[1024];
+        for (int len; (len = in.read(buffer)) != -1;)
+          out.write(buffer, 0, len);
+      }
+
+      final String text = out.toString("UTF-8");
+      assertTrue(text, text.contains("# TYPE sa_span_duration_seconds summary\n"));
+      assertTrue(text, text.contains("sa_span_duration_seconds_count{operation=\"say \\\"hi\\\"\",kind=\"client\",component=\"http\",error=\"false\"} 1\n"));
+      assertTrue(text, text.contains("sa_span_duration_seconds_sum{operation=\"say \\\"hi\\\"\",kind=\"client\",component=\"http\",error=\"false\"} 0.002\n"));
+      assertTrue(text, text.contains(",quantile=\"0.99\"} "));
+    }
+    finally {
+      server.stop(0);
+    }
+  }
+}
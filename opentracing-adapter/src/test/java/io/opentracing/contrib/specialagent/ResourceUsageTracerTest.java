@@ -0,0 +1,107 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.opentracing.Span;
+import io.opentracing.mock.MockTracer;
+
+public class ResourceUsageTracerTest {
+  private final MockTracer mockTracer = new MockTracer();
+
+  @Before
+  public void before() {
+    AgentRule.$Access.configure(null, Collections.<String,String>singletonMap(null, "test"));
+  }
+
+  @After
+  public void after() {
+    System.clearProperty("sa.integration.test.resourceUsage");
+    System.clearProperty("sa.integration.*.resourceUsage");
+    AgentRule.$Access.configure(null, Collections.<String,String>emptyMap());
+  }
+
+  @Test
+  public void testIsConfigured() {
+    assertFalse(ResourceUsageTracer.isConfigured());
+    System.setProperty("sa.integration.test.resourceUsage", "false");
+    assertFalse(ResourceUsageTracer.isConfigured());
+    System.setProperty("sa.integration.test.resourceUsage", "");
+    assertTrue(ResourceUsageTracer.isConfigured());
+  }
+
+  @Test
+  public void testDisabled() {
+    System.setProperty("sa.integration.other.resourceUsage", "");
+    try {
+      final ResourceUsageTracer tracer = new ResourceUsageTracer(mockTracer);
+      assertFalse(tracer.isEnabled());
+      tracer.buildSpan("span").start().finish();
+      assertFalse(mockTracer.finishedSpans().get(0).tags().containsKey(ResourceUsageTracer.CPU_TIME_TAG));
+    }
+    finally {
+      System.clearProperty("sa.integration.other.resourceUsage");
+    }
+  }
+
+  @Test
+  public void testSameThread() {
+    System.setProperty("sa.integration.test.resourceUsage", "true");
+    final ResourceUsageTracer tracer = new ResourceUsageTracer(mockTracer);
+    assertTrue(tracer.isEnabled());
+    final Span span = tracer.buildSpan("span").start();
+    final byte[][] garbage = new byte[64][];
+    for (int i = 0; i < garbage.length; ++i)
+      garbage[i] = new byte[1024];
+
+    span.finish();
+    final Map<String,Object> tags = mockTracer.finishedSpans().get(0).tags();
+    final Number cpuTime = (Number)tags.get(ResourceUsageTracer.CPU_TIME_TAG);
+    if (cpuTime != null)
+      assertTrue(cpuTime.longValue() >= 0);
+
+    final Number allocatedBytes = (Number)tags.get(ResourceUsageTracer.ALLOCATED_BYTES_TAG);
+    if (allocatedBytes != null)
+      assertTrue(String.valueOf(allocatedBytes), allocatedBytes.longValue() >= garbage.length * 1024);
+  }
+
+  @Test
+  public void testOtherThread() throws InterruptedException {
+    System.setProperty("sa.integration.*.resourceUsage", "true");
+    final ResourceUsageTracer tracer = new ResourceUsageTracer(mockTracer);
+    final Span span = tracer.buildSpan("span").start();
+    final Thread thread = new Thread() {
+      @Override
+      public void run() {
+        span.finish();
+      }
+    };
+    thread.start();
+    thread.join();
+
+    final Map<String,Object> tags = mockTracer.finishedSpans().get(0).tags();
+    assertFalse(tags.containsKey(ResourceUsageTracer.CPU_TIME_TAG));
+    assertFalse(tags.containsKey(ResourceUsageTracer.ALLOCATED_BYTES_TAG));
+  }
+}
@@ -0,0 +1,300 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.propagation.Format;
+import io.opentracing.propagation.TextMapAdapter;
+
+public class SamplingTracerTest {
+  private final MockTracer mockTracer = new MockTracer();
+
+  @Before
+  public void before() {
+    AgentRule.$Access.configure(null, Collections.<String,String>emptyMap());
+  }
+
+  @After
+  public void after() {
+    System.clearProperty("sa.integration.test.sampling.rate");
+    System.clearProperty("sa.integration.test.maxSpansPerSecond");
+  }
+
+  @Test
+  public void testInvalidRate() {
+    try {
+      new SamplingTracer(mockTracer, 2);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (final IllegalArgumentException e) {
+    }
+
+    assertEquals(0.5, SamplingTracer.parseRate("key", "0.5", 1), 0);
+    assertEquals(1, SamplingTracer.parseRate("key", "-1", 1), 0);
+    assertEquals(1, SamplingTracer.parseRate("key", "foo", 1), 0);
+    assertEquals(1, SamplingTracer.parseRate("key", null, 1), 0);
+  }
+
+  @Test
+  public void testSampled() {
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 1);
+    final Span span = tracer.buildSpan("root").withTag("key", "value").start();
+    assertTrue(SamplingTracer.isSampled(span));
+    try (final Scope scope = tracer.activateSpan(span)) {
+      tracer.buildSpan("child").start().finish();
+    }
+
+    span.finish();
+    assertEquals(2, mockTracer.finishedSpans().size());
+    assertEquals("value", mockTracer.finishedSpans().get(1).tags().get("key"));
+  }
+
+  @Test
+  public void testNotSampled() {
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 0);
+    final Span span = tracer.buildSpan("root").withTag("key", "value").start();
+    assertSame(SamplingTracer.NOT_SAMPLED, span);
+    try (final Scope scope = tracer.activateSpan(span)) {
+      assertSame(SamplingTracer.NOT_SAMPLED, tracer.activeSpan());
+      assertSame(SamplingTracer.NOT_SAMPLED, tracer.buildSpan("child").start());
+      assertSame(SamplingTracer.NOT_SAMPLED, tracer.buildSpan("child").ignoreActiveSpan().asChildOf(span).start());
+    }
+
+    span.finish();
+    assertEquals(0, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testChildOfSampledParent() {
+    final Span parent = new SamplingTracer(mockTracer, 1).buildSpan("parent").start();
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 0);
+    final Span span = tracer.buildSpan("child").asChildOf(parent).start();
+    assertTrue(SamplingTracer.isSampled(span));
+    span.finish();
+    parent.finish();
+    assertEquals(2, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testSampledParentOfNotSampledActiveSpan() {
+    final Span upstream = new SamplingTracer(mockTracer, 1).buildSpan("upstream").start();
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 0);
+    final Span span = tracer.buildSpan("root").start();
+    try (final Scope scope = tracer.activateSpan(span)) {
+      final Span server = tracer.buildSpan("server").withTag("key", "value").withTag("flag", true).withTag("number", 1).asChildOf(upstream.context()).start();
+      assertTrue(SamplingTracer.isSampled(server));
+      server.finish();
+      assertSame(SamplingTracer.NOT_SAMPLED, tracer.buildSpan("child").withTag("key", "value").start());
+      assertSame(SamplingTracer.NOT_SAMPLED, tracer.buildSpan("child").ignoreActiveSpan().start());
+    }
+
+    upstream.finish();
+    assertEquals(2, mockTracer.finishedSpans().size());
+    final MockSpan server = mockTracer.finishedSpans().get(0);
+    assertEquals("server", server.operationName());
+    assertEquals(((MockSpan)upstream).context().spanId(), server.parentId());
+    assertEquals("value", server.tags().get("key"));
+    assertEquals(Boolean.TRUE, server.tags().get("flag"));
+    assertEquals(1, server.tags().get("number"));
+  }
+
+  @Test
+  public void testIgnoreNotSampledActiveSpan() {
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 1);
+    try (final Scope scope = tracer.activateSpan(SamplingTracer.NOT_SAMPLED)) {
+      final Span span = tracer.buildSpan("root").ignoreActiveSpan().withStartTimestamp(1).start();
+      assertTrue(SamplingTracer.isSampled(span));
+      span.finish();
+    }
+
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertEquals(0, mockTracer.finishedSpans().get(0).parentId());
+    assertEquals(1, mockTracer.finishedSpans().get(0).startMicros());
+  }
+
+  @Test
+  public void testShedChild() {
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 1) {
+      @Override
+      double getChildRate() {
+        return 0;
+      }
+    };
+
+    final Span root = tracer.buildSpan("root").start();
+    try (final Scope scope = tracer.activateSpan(root)) {
+      final Span child = tracer.buildSpan("child").withTag("key", "value").start();
+      assertFalse(SamplingTracer.isSampled(child));
+      assertSame(root.context(), child.context());
+      try (final Scope childScope = tracer.activateSpan(child)) {
+        final Map<String,String> carrier = new HashMap<>();
+        tracer.inject(tracer.activeSpan().context(), Format.Builtin.TEXT_MAP, new TextMapAdapter(carrier));
+        assertNull(carrier.get(SamplingTracer.SAMPLED_HEADER));
+        assertEquals(String.valueOf(((MockSpan)root).context().spanId()), carrier.get("spanid"));
+      }
+
+      child.finish();
+      assertSame(root.context(), tracer.buildSpan("child").asChildOf(root).start().context());
+    }
+
+    root.finish();
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertEquals("root", mockTracer.finishedSpans().get(0).operationName());
+  }
+
+  @Test
+  public void testGrandchildOfShedChild() {
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 1) {
+      private int children;
+
+      @Override
+      double getChildRate() {
+        // Shed only the first child span
+        return children++ == 0 ? 0 : 1;
+      }
+    };
+
+    final Span root = tracer.buildSpan("root").start();
+    try (final Scope scope = tracer.activateSpan(root)) {
+      final Span child = tracer.buildSpan("child").start();
+      assertFalse(SamplingTracer.isSampled(child));
+      try (final Scope childScope = tracer.activateSpan(child)) {
+        final Span grandchild = tracer.buildSpan("grandchild").withTag("key", "value").start();
+        assertTrue(SamplingTracer.isSampled(grandchild));
+        try (final Scope grandchildScope = tracer.activateSpan(grandchild)) {
+          final Map<String,String> carrier = new HashMap<>();
+          tracer.inject(tracer.activeSpan().context(), Format.Builtin.TEXT_MAP, new TextMapAdapter(carrier));
+          assertNull(carrier.get(SamplingTracer.SAMPLED_HEADER));
+          assertEquals(String.valueOf(((MockSpan)grandchild).context().spanId()), carrier.get("spanid"));
+        }
+
+        grandchild.finish();
+      }
+
+      child.finish();
+    }
+
+    root.finish();
+    assertEquals(2, mockTracer.finishedSpans().size());
+    final MockSpan grandchild = mockTracer.finishedSpans().get(0);
+    assertEquals("grandchild", grandchild.operationName());
+    assertEquals(((MockSpan)root).context().spanId(), grandchild.parentId());
+    assertEquals("value", grandchild.tags().get("key"));
+  }
+
+  @Test
+  public void testPropagation() {
+    final Map<String,String> carrier = new HashMap<>();
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 0);
+    tracer.inject(tracer.buildSpan("client").start().context(), Format.Builtin.HTTP_HEADERS, new TextMapAdapter(carrier));
+    assertEquals("0", carrier.get(SamplingTracer.SAMPLED_HEADER));
+
+    final SamplingTracer downstream = new SamplingTracer(mockTracer, 1);
+    final SpanContext context = downstream.extract(Format.Builtin.HTTP_HEADERS, new TextMapAdapter(carrier));
+    assertSame(SamplingTracer.NOT_SAMPLED_CONTEXT, context);
+    assertSame(SamplingTracer.NOT_SAMPLED, downstream.buildSpan("server").asChildOf(context).start());
+    assertNull(downstream.extract(Format.Builtin.HTTP_HEADERS, new TextMapAdapter(new HashMap<String,String>())));
+    assertEquals(0, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testIntegrationRate() {
+    AgentRule.$Access.configure(null, Collections.<String,String>singletonMap(null, "test"));
+    System.setProperty("sa.integration.test.sampling.rate", "0");
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 1);
+    assertEquals(0, tracer.getRate(), 0);
+    assertSame(SamplingTracer.NOT_SAMPLED, tracer.buildSpan("span").start());
+  }
+
+  @Test
+  public void testMaxSpansPerSecond() {
+    AgentRule.$Access.configure(null, Collections.<String,String>singletonMap(null, "test"));
+    System.setProperty("sa.integration.test.maxSpansPerSecond", "2");
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 1);
+    assertTrue(SamplingTracer.isSampled(tracer.buildSpan("span").start()));
+    final Span root = tracer.buildSpan("span").withTag("key", "value").start();
+    assertTrue(SamplingTracer.isSampled(root));
+    assertSame(SamplingTracer.NOT_SAMPLED, tracer.buildSpan("span").start());
+    assertEquals(1, tracer.getDroppedCount("test"));
+    assertEquals(0, tracer.getDroppedCount("other"));
+
+    // A child span that exceeds the limit is skipped, without affecting the
+    // sampling of its trace
+    try (final Scope scope = tracer.activateSpan(root)) {
+      final Span child = tracer.buildSpan("child").start();
+      assertFalse(SamplingTracer.isSampled(child));
+      assertSame(root.context(), child.context());
+      try (final Scope childScope = tracer.activateSpan(child)) {
+        final Map<String,String> carrier = new HashMap<>();
+        tracer.inject(child.context(), Format.Builtin.TEXT_MAP, new TextMapAdapter(carrier));
+        assertNull(carrier.get(SamplingTracer.SAMPLED_HEADER));
+        assertFalse(carrier.isEmpty());
+      }
+
+      final Span sibling = tracer.buildSpan("child").asChildOf(root).start();
+      assertFalse(SamplingTracer.isSampled(sibling));
+      assertSame(root.context(), sibling.context());
+    }
+
+    assertEquals(3, tracer.getDroppedCount("test"));
+    root.finish();
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertEquals("value", mockTracer.finishedSpans().get(0).tags().get("key"));
+  }
+
+  @Test
+  public void testGrandchildOfRateLimitedChild() {
+    AgentRule.$Access.configure(null, Collections.<String,String>singletonMap(null, "test"));
+    System.setProperty("sa.integration.test.maxSpansPerSecond", "1");
+    final SamplingTracer tracer = new SamplingTracer(mockTracer, 1);
+    final Span root = tracer.buildSpan("root").start();
+    assertTrue(SamplingTracer.isSampled(root));
+    try (final Scope scope = tracer.activateSpan(root)) {
+      final Span child = tracer.buildSpan("child").start();
+      assertFalse(SamplingTracer.isSampled(child));
+      try (final Scope childScope = tracer.activateSpan(child)) {
+        // The grandchild exceeds the limit as well, but remains in the trace
+        final Span grandchild = tracer.buildSpan("grandchild").start();
+        assertNotSame(SamplingTracer.NOT_SAMPLED, grandchild);
+        assertSame(root.context(), grandchild.context());
+        try (final Scope grandchildScope = tracer.activateSpan(grandchild)) {
+          final Map<String,String> carrier = new HashMap<>();
+          tracer.inject(tracer.activeSpan().context(), Format.Builtin.TEXT_MAP, new TextMapAdapter(carrier));
+          assertNull(carrier.get(SamplingTracer.SAMPLED_HEADER));
+          assertEquals(String.valueOf(((MockSpan)root).context().spanId()), carrier.get("spanid"));
+        }
+      }
+    }
+
+    assertEquals(2, tracer.getDroppedCount("test"));
+    root.finish();
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
+}
@@ -0,0 +1,260 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+
+public class TailSamplingTracerTest {
+  private static final long MAX_BYTES = 1 << 20;
+
+  private static long usedMemory() {
+    for (int i = 0; i < 3; ++i)
+      System.gc();
+
+    final Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  @Test
+  public void testArguments() {
+    final MockTracer mockTracer = new MockTracer();
+    try {
+      new TailSamplingTracer(mockTracer, TailSamplingTracer.TRACE_BYTES, Long.MAX_VALUE, 0);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (final IllegalArgumentException e) {
+    }
+
+    try {
+      new TailSamplingTracer(mockTracer, MAX_BYTES, Long.MAX_VALUE, 2);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (final IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public void testDropped() {
+    final MockTracer mockTracer = new MockTracer();
+    final TailSamplingTracer tracer = new TailSamplingTracer(mockTracer, MAX_BYTES, Long.MAX_VALUE, 0);
+    final Span root = tracer.buildSpan("root").start();
+    try (final Scope scope = tracer.activateSpan(root)) {
+      tracer.buildSpan("child").start().finish();
+      assertEquals(0, mockTracer.finishedSpans().size());
+      assertEquals(1, tracer.getTraceCount());
+      assertTrue(tracer.getBufferedBytes() > TailSamplingTracer.TRACE_BYTES);
+    }
+
+    final long bytes = tracer.getBufferedBytes();
+    root.finish();
+    assertEquals(0, mockTracer.finishedSpans().size());
+    assertEquals(1, tracer.getTraceCount());
+    assertTrue(tracer.getBufferedBytes() < bytes);
+    assertEquals(1, tracer.getDroppedCount());
+    assertEquals(0, tracer.getKeptCount());
+  }
+
+  @Test
+  public void testKeptByError() {
+    final MockTracer mockTracer = new MockTracer();
+    final TailSamplingTracer tracer = new TailSamplingTracer(mockTracer, MAX_BYTES, Long.MAX_VALUE, 0);
+    final Span root = tracer.buildSpan("root").start();
+    try (final Scope scope = tracer.activateSpan(root)) {
+      tracer.buildSpan("child").start().setTag(Tags.ERROR, true).finish();
+    }
+
+    root.finish();
+    final List<MockSpan> spans = mockTracer.finishedSpans();
+    assertEquals(2, spans.size());
+    assertEquals("child", spans.get(0).operationName());
+    assertEquals("root", spans.get(1).operationName());
+    assertEquals(spans.get(1).context().spanId(), spans.get(0).parentId());
+    assertEquals(1, tracer.getKeptCount());
+
+    // Spans that finish after the decision follow it
+    final Span late = tracer.buildSpan("late").asChildOf(root).start();
+    late.finish();
+    assertEquals(3, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testKeptByBuilderError() {
+    final MockTracer mockTracer = new MockTracer();
+    final TailSamplingTracer tracer = new TailSamplingTracer(mockTracer, MAX_BYTES, Long.MAX_VALUE, 0);
+    final Span root = tracer.buildSpan("root").start();
+    tracer.buildSpan("child").asChildOf(root).withTag(Tags.ERROR, true).start().finish();
+    root.finish();
+    assertEquals(2, mockTracer.finishedSpans().size());
+
+    tracer.buildSpan("root").withTag(Tags.ERROR.getKey(), "true").start().finish();
+    tracer.buildSpan("root").withTag(Tags.ERROR.getKey(), true).start().finish();
+    assertEquals(4, mockTracer.finishedSpans().size());
+    assertEquals(3, tracer.getKeptCount());
+  }
+
+  @Test
+  public void testGrace() {
+    final MockTracer mockTracer = new MockTracer();
+    final TailSamplingTracer tracer = new TailSamplingTracer(mockTracer, MAX_BYTES, Long.MAX_VALUE, 1);
+    final Span root = tracer.buildSpan("root").start();
+    root.finish();
+    tracer.buildSpan("next").start().finish();
+
+    // The decided trace is retained within its grace period
+    assertEquals(2, tracer.getTraceCount());
+    tracer.buildSpan("late").asChildOf(root).start().finish();
+    assertEquals(3, mockTracer.finishedSpans().size());
+
+    final TailSamplingTracer noGrace = new TailSamplingTracer(mockTracer, MAX_BYTES, Long.MAX_VALUE, 1, 0);
+    noGrace.buildSpan("root").start().finish();
+    noGrace.buildSpan("next").start().finish();
+    assertEquals(1, noGrace.getTraceCount());
+  }
+
+  @Test
+  public void testKeptByLatency() {
+    final MockTracer mockTracer = new MockTracer();
+    final TailSamplingTracer tracer = new TailSamplingTracer(mockTracer, MAX_BYTES, 10, 0);
+    tracer.buildSpan("fast").withStartTimestamp(1000).start().finish(2000);
+    assertEquals(0, mockTracer.finishedSpans().size());
+    tracer.buildSpan("slow").withStartTimestamp(1000).start().finish(11000);
+    assertEquals(1, mockTracer.finishedSpans().size());
+    assertEquals("slow", mockTracer.finishedSpans().get(0).operationName());
+  }
+
+  @Test
+  public void testKeptByRate() {
+    final MockTracer mockTracer = new MockTracer();
+    final TailSamplingTracer tracer = new TailSamplingTracer(mockTracer, MAX_BYTES, Long.MAX_VALUE, 1);
+    tracer.buildSpan("root").start().finish();
+    assertEquals(1, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testEviction() {
+    final MockTracer mockTracer = new MockTracer();
+    final long maxBytes = 10 * (TailSamplingTracer.TRACE_BYTES + 2 * TailSamplingTracer.SPAN_BYTES);
+    final TailSamplingTracer tracer = new TailSamplingTracer(mockTracer, maxBytes, Long.MAX_VALUE, 1);
+    final Span first = tracer.buildSpan("first").start();
+    tracer.buildSpan("child").asChildOf(first).start().finish();
+    for (int i = 0; i < 100; ++i) {
+      tracer.buildSpan("open").start();
+      assertTrue(tracer.getBufferedBytes() <= maxBytes);
+    }
+
+    // The trace of the first span was evicted, so it is dropped
+    first.finish();
+    assertEquals(0, mockTracer.finishedSpans().size());
+    assertTrue(tracer.getEvictedCount() > 0);
+    assertTrue(tracer.getTraceCount() <= maxBytes / TailSamplingTracer.TRACE_BYTES);
+  }
+
+  @Test
+  public void testEvictionOfDecidedTraces() {
+    final MockTracer mockTracer = new MockTracer();
+    final long maxBytes = 10 * (TailSamplingTracer.TRACE_BYTES + 2 * TailSamplingTracer.SPAN_BYTES);
+    final TailSamplingTracer tracer = new TailSamplingTracer(mockTracer, maxBytes, Long.MAX_VALUE, 0);
+    final Span error = tracer.buildSpan("error").start();
+    tracer.buildSpan("child").asChildOf(error).withTag(Tags.ERROR, true).start().finish();
+
+    // The dropped traces are retained within their grace period, and fill the
+    // buffer
+    for (int i = 0; i < 100; ++i) {
+      tracer.buildSpan("dropped").start().finish();
+      assertTrue(tracer.getBufferedBytes() <= maxBytes);
+    }
+
+    assertEquals(100, tracer.getDroppedCount());
+
+    // The decided traces were evicted instead of the undecided trace
+    error.finish();
+    assertEquals(0, tracer.getEvictedCount());
+    assertEquals(1, tracer.getKeptCount());
+    assertEquals(2, mockTracer.finishedSpans().size());
+  }
+
+  @Test
+  public void testStress() throws InterruptedException {
+    final AtomicLong finished = new AtomicLong();
+    final MockTracer mockTracer = new MockTracer() {
+      @Override
+      protected void onSpanFinished(final MockSpan mockSpan) {
+        finished.incrementAndGet();
+        reset();
+      }
+    };
+
+    final TailSamplingTracer tracer = new TailSamplingTracer(mockTracer, MAX_BYTES, Long.MAX_VALUE, 0.01);
+    final AtomicLong maxBuffered = new AtomicLong();
+    final int threads = 4;
+    final int tracesPerPhase = 50000;
+    long baseline = 0;
+    for (int phase = 0; phase < 3; ++phase) {
+      final Thread[] workers = new Thread[threads];
+      for (int t = 0; t < threads; ++t) {
+        workers[t] = new Thread() {
+          @Override
+          public void run() {
+            for (int i = 0; i < tracesPerPhase / threads; ++i) {
+              final Span root = tracer.buildSpan("root").withTag("http.url", "http://localhost:8080/" + i).start();
+              try (final Scope scope = tracer.activateSpan(root)) {
+                tracer.buildSpan("child").withTag("db.statement", "SELECT * FROM table WHERE id = " + i).start().finish();
+                final Span error = tracer.buildSpan("error").start();
+                if (i % 100 == 0)
+                  error.setTag(Tags.ERROR, true);
+
+                error.finish();
+              }
+
+              // A quarter of the traces never complete, and are only evicted
+              if (i % 4 != 0)
+                root.finish();
+
+              final long buffered = tracer.getBufferedBytes();
+              for (long max; buffered > (max = maxBuffered.get()) && !maxBuffered.compareAndSet(max, buffered););
+            }
+          }
+        };
+        workers[t].start();
+      }
+
+      for (final Thread worker : workers)
+        worker.join();
+
+      if (phase == 0)
+        baseline = usedMemory();
+    }
+
+    final long growth = usedMemory() - baseline;
+    assertTrue("max buffered bytes: " + maxBuffered.get(), maxBuffered.get() <= MAX_BYTES);
+    assertTrue(tracer.getTraceCount() <= MAX_BYTES / TailSamplingTracer.TRACE_BYTES);
+    assertTrue(tracer.getEvictedCount() > 0);
+    assertTrue(tracer.getKeptCount() > 0);
+    assertTrue(finished.get() >= tracer.getKeptCount());
+    assertTrue("memory grew by " + growth + " bytes", growth < 32 * MAX_BYTES);
+  }
+}
@@ -0,0 +1,67 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  public void testInvalid() {
+    try {
+      new TokenBucket(0, 0);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (final IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public void testBurstAndRefill() {
+    final long start = Long.MAX_VALUE - SECOND; // nanoTime may overflow
+    final TokenBucket bucket = new TokenBucket(10, start);
+    for (int i = 0; i < 10; ++i)
+      assertTrue(bucket.tryAcquire(start));
+
+    assertFalse(bucket.tryAcquire(start));
+    assertFalse(bucket.tryAcquire(start + SECOND / 20));
+    assertEquals(2, bucket.getDroppedCount());
+
+    assertTrue(bucket.tryAcquire(start + SECOND / 10));
+    assertFalse(bucket.tryAcquire(start + SECOND / 10));
+
+    // After a long pause, the bucket refills to at most one second of permits
+    final long later = start + 10 * SECOND;
+    for (int i = 0; i < 10; ++i)
+      assertTrue(bucket.tryAcquire(later));
+
+    assertFalse(bucket.tryAcquire(later));
+    assertEquals(4, bucket.getDroppedCount());
+  }
+
+  @Test
+  public void testSlowRate() {
+    final TokenBucket bucket = new TokenBucket(0.5, 0);
+    assertTrue(bucket.tryAcquire(0));
+    assertFalse(bucket.tryAcquire(SECOND));
+    assertTrue(bucket.tryAcquire(2 * SECOND));
+  }
+}
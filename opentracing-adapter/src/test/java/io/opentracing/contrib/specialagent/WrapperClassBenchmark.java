@@ -0,0 +1,124 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.opentracing.contrib.common.WrapperProxy;
+
+/**
+ * Benchmark of the creation of wrappers, and of calls through wrappers, with
+ * {@link WrapperProxy} and {@link WrapperClass}.
+ * <p>
+ * Run with {@link #main(String[])} on the test classpath of this module.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WrapperClassBenchmark {
+  public static class Target implements Callable<Integer>, Comparable<Integer> {
+    private int count;
+
+    @Override
+    public Integer call() {
+      return ++count;
+    }
+
+    @Override
+    public int compareTo(final Integer o) {
+      return count - o;
+    }
+  }
+
+  public static class Wrapper implements Callable<Integer> {
+    private final Callable<Integer> target;
+
+    public Wrapper(final Callable<Integer> target) {
+      this.target = target;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+      return target.call();
+    }
+  }
+
+  private Target target;
+  private Callable<Integer> proxy;
+  private Callable<Integer> generated;
+
+  @Setup
+  public void setup() {
+    target = new Target();
+    proxy = WrapperProxy.wrap(target, new Wrapper(target));
+    generated = WrapperClass.wrap(target, new Wrapper(target));
+  }
+
+  @Benchmark
+  public Object wrapProxy() {
+    return WrapperProxy.wrap(target, new Wrapper(target));
+  }
+
+  @Benchmark
+  public Object wrapGenerated() {
+    return WrapperClass.wrap(target, new Wrapper(target));
+  }
+
+  @Benchmark
+  public Integer callProxy() throws Exception {
+    return proxy.call();
+  }
+
+  @Benchmark
+  public Integer callGenerated() throws Exception {
+    return generated.call();
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public int callObjectProxy() {
+    return ((Comparable<Integer>)proxy).compareTo(0);
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public int callObjectGenerated() {
+    return ((Comparable<Integer>)generated).compareTo(0);
+  }
+
+  public static void main(final String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(WrapperClassBenchmark.class.getSimpleName()).build()).run();
+  }
+}
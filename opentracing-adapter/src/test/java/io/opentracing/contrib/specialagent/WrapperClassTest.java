@@ -0,0 +1,172 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import io.opentracing.contrib.common.WrapperProxy;
+
+public class WrapperClassTest {
+  public interface Greeter {
+    String greet(String name);
+  }
+
+  public static class Target implements Greeter, Callable<String>, Closeable {
+    boolean closed;
+
+    @Override
+    public String greet(final String name) {
+      return "Hello " + name;
+    }
+
+    @Override
+    public String call() {
+      return "target";
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public String toString() {
+      return "target";
+    }
+  }
+
+  public static class TracingGreeter implements Greeter {
+    private final Greeter greeter;
+
+    public TracingGreeter(final Greeter greeter) {
+      this.greeter = greeter;
+    }
+
+    @Override
+    public String greet(final String name) {
+      return "[" + greeter.greet(name) + "]";
+    }
+
+    // Not declared by an interface of the wrapper, but by Callable
+    public String call() {
+      return "wrapper";
+    }
+
+    @Override
+    public String toString() {
+      return "wrapper";
+    }
+  }
+
+  public static class OtherTarget implements Closeable, Greeter, Callable<String> {
+    @Override
+    public String greet(final String name) {
+      return "Hi " + name;
+    }
+
+    @Override
+    public String call() {
+      return "other";
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  interface Hidden {
+    void run();
+  }
+
+  public static class HiddenTarget implements Greeter, Hidden {
+    @Override
+    public String greet(final String name) {
+      return name;
+    }
+
+    @Override
+    public void run() {
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testWrap() throws Exception {
+    final Target target = new Target();
+    final Greeter wrapped = WrapperClass.wrap(target, new TracingGreeter(target));
+    assertFalse(java.lang.reflect.Proxy.isProxyClass(wrapped.getClass()));
+    assertEquals("[Hello world]", wrapped.greet("world"));
+    assertEquals("wrapper", ((Callable<String>)wrapped).call());
+    assertEquals("wrapper", wrapped.toString());
+
+    ((Closeable)wrapped).close();
+    assertTrue(target.closed);
+
+    assertTrue(WrapperClass.isWrapper(wrapped));
+    assertTrue(WrapperClass.isWrapper(wrapped, TracingGreeter.class));
+    assertFalse(WrapperClass.isWrapper(target));
+    assertFalse(WrapperClass.isWrapper(null));
+    assertSame(target, ((WrapperClass.Wrapper)wrapped).$object());
+  }
+
+  @Test
+  public void testCached() {
+    final Target target = new Target();
+    final Greeter wrapped1 = WrapperClass.wrap(target, new TracingGreeter(target));
+    final Greeter wrapped2 = WrapperClass.wrap(new Target(), new TracingGreeter(target));
+    assertSame(wrapped1.getClass(), wrapped2.getClass());
+  }
+
+  @Test
+  public void testCachedByInterfaces() {
+    final Target target = new Target();
+    final OtherTarget other = new OtherTarget();
+    final Greeter wrapped1 = WrapperClass.wrap(target, new TracingGreeter(target));
+    final Greeter wrapped2 = WrapperClass.wrap(other, new TracingGreeter(other));
+    assertSame(wrapped1.getClass(), wrapped2.getClass());
+    assertEquals("[Hello world]", wrapped1.greet("world"));
+    assertEquals("[Hi world]", wrapped2.greet("world"));
+    assertSame(other, ((WrapperClass.Wrapper)wrapped2).$object());
+
+    final Greeter wrapped3 = WrapperClass.wrap(new HiddenTarget(), new TracingGreeter(other));
+    assertNotSame(wrapped1.getClass(), wrapped3.getClass());
+  }
+
+  @Test
+  public void testNull() {
+    final Target target = new Target();
+    final TracingGreeter wrapper = new TracingGreeter(target);
+    assertSame(wrapper, WrapperClass.wrap(null, wrapper));
+    assertNull(WrapperClass.wrap(target, null));
+    assertSame(target, WrapperClass.wrap(target, target));
+  }
+
+  @Test
+  public void testNonPublicInterface() {
+    final HiddenTarget target = new HiddenTarget();
+    final Greeter wrapped = WrapperClass.wrap(target, new TracingGreeter(target));
+    assertTrue(WrapperProxy.isWrapper(wrapped));
+    assertTrue(wrapped instanceof Hidden);
+    assertEquals("[world]", wrapped.greet("world"));
+    assertTrue(WrapperClass.isWrapper(wrapped, TracingGreeter.class));
+  }
+}
@@ -37,24 +37,30 @@ abstract class Action {
     if (isInput && value instanceof String)
       value = Pattern.compile((String)value);
 
+    final Transform transform = Transform.parse(object, subject);
+    if (isInput && transform != null)
+      throw new IllegalStateException(subject + ": Transform is only allowed for output");
+
     if ("log".equals(type))
-      return new Log(key, value);
+      return new Log(key, value, transform);
 
     if ("tag".equals(type))
-      return new Tag(key, value);
+      return new Tag(key, value, transform);
 
     if ("operationName".equals(type))
-      return new OperationName(key, value);
+      return new OperationName(key, value, transform);
 
     throw new IllegalStateException(subject + ": Invalid type");
   }
 
   private final String key;
   private final Object value;
+  private final Transform transform;
 
-  private Action(final String key, final Object value) {
+  private Action(final String key, final Object value, final Transform transform) {
     this.key = key;
     this.value = value;
+    this.transform = transform;
   }
 
   String getKey() {
@@ -65,6 +71,10 @@ abstract class Action {
     return this.value;
   }
 
+  Transform getTransform() {
+    return this.transform;
+  }
+
   abstract void rewrite(Rewriter rewriter, long timestampMicroseconds, String key, Object value);
   abstract void validateOutput(Action input, String subject);
   abstract void validateInput(RewriteRule rule, String subject);
@@ -80,8 +90,8 @@ abstract class Action {
   }
 
   static class OperationName extends Action {
-    private OperationName(final String key, final Object value) {
-      super(key, value);
+    private OperationName(final String key, final Object value, final Transform transform) {
+      super(key, value, transform);
     }
 
     @Override
@@ -103,8 +113,8 @@ abstract class Action {
   }
 
   static class Log extends Action {
-    private Log(final String key, final Object value) {
-      super(key, value);
+    private Log(final String key, final Object value, final Transform transform) {
+      super(key, value, transform);
     }
 
     @Override
@@ -124,8 +134,8 @@ abstract class Action {
   }
 
   static class Tag extends Action {
-    private Tag(final String key, final Object value) {
-      super(key, value);
+    private Tag(final String key, final Object value, final Transform transform) {
+      super(key, value, transform);
     }
 
     @Override
@@ -83,7 +83,10 @@ class RewriteRule {
     if (outputs != null) {
       for (final Action output : outputs) {
         final String outputKey = output.getKey() != null ? output.getKey() : this.input.getKey();
-        final Object outputValue = rewriteValue(match, input, output.getValue());
+        Object outputValue = rewriteValue(match, input, output.getValue());
+        if (output.getTransform() != null)
+          outputValue = output.getTransform().apply(outputValue);
+
         output.rewrite(rewriter, timestampMicroseconds, outputKey, outputValue);
       }
     }
@@ -0,0 +1,288 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.grack.nanojson.JsonObject;
+
+/**
+ * A value transformation that is applied to the value of an output
+ * {@link Action}, after the input has been matched and rewritten. Transforms
+ * are used to reduce the cardinality of high-cardinality tag and log values,
+ * such as {@code http.url} and {@code db.statement}.
+ */
+abstract class Transform {
+  static final String DEFAULT_OVERFLOW = "_other_";
+
+  static Transform parse(final JsonObject object, final String subject) {
+    final Object type = object.get("transform");
+    if (type == null)
+      return null;
+
+    if (!(type instanceof String))
+      throw new IllegalStateException(subject + ".transform: Is not a string");
+
+    if ("urlTemplate".equals(type))
+      return new UrlTemplate();
+
+    if ("sqlLiterals".equals(type))
+      return new SqlLiterals();
+
+    if ("cardinality".equals(type)) {
+      final Object limit = object.get("limit");
+      if (!(limit instanceof Number) || ((Number)limit).intValue() <= 0)
+        throw new IllegalStateException(subject + ".limit: Must be a positive number");
+
+      final Object overflow = object.get("overflow");
+      return new Cardinality(((Number)limit).intValue(), overflow != null ? overflow : DEFAULT_OVERFLOW);
+    }
+
+    throw new IllegalStateException(subject + ".transform: Invalid transform");
+  }
+
+  abstract Object apply(Object value);
+
+  /**
+   * Replaces numeric, UUID and hex segments of the path of a URL with
+   * {@code {id}}, {@code {uuid}} and {@code {hex}} placeholders. The scheme,
+   * authority, query and fragment are left untouched.
+   */
+  static class UrlTemplate extends Transform {
+    static final String ID = "{id}";
+    static final String UUID = "{uuid}";
+    static final String HEX = "{hex}";
+
+    private static boolean isHex(final char ch) {
+      return ch >= '0' && ch <= '9' || ch >= 'a' && ch <= 'f' || ch >= 'A' && ch <= 'F';
+    }
+
+    private static boolean isUuid(final String str, final int start, final int end) {
+      if (end - start != 36)
+        return false;
+
+      for (int i = start; i < end; ++i) {
+        final int offset = i - start;
+        final char ch = str.charAt(i);
+        if (offset == 8 || offset == 13 || offset == 18 || offset == 23 ? ch != '-' : !isHex(ch))
+          return false;
+      }
+
+      return true;
+    }
+
+    static String placeholder(final String str, final int start, final int end) {
+      if (start == end)
+        return null;
+
+      if (isUuid(str, start, end))
+        return UUID;
+
+      boolean numeric = true;
+      for (int i = start; i < end; ++i) {
+        final char ch = str.charAt(i);
+        if (ch < '0' || ch > '9') {
+          numeric = false;
+          if (!isHex(ch))
+            return null;
+        }
+      }
+
+      if (numeric)
+        return ID;
+
+      // Hex segments must be long enough, and contain a digit, to not be mistaken for words
+      if (end - start < 8)
+        return null;
+
+      for (int i = start; i < end; ++i) {
+        final char ch = str.charAt(i);
+        if (ch >= '0' && ch <= '9')
+          return HEX;
+      }
+
+      return null;
+    }
+
+    static String template(final String url) {
+      final int scheme = url.indexOf("://");
+      final int from = scheme < 0 ? 0 : scheme + 3;
+      int end = url.length();
+      for (int i = from; i < end; ++i) {
+        final char ch = url.charAt(i);
+        if (ch == '?' || ch == '#') {
+          end = i;
+          break;
+        }
+      }
+
+      int start = scheme < 0 ? -1 : url.indexOf('/', from);
+      if (scheme >= 0 && (start < 0 || start > end))
+        return url;
+
+      StringBuilder builder = null;
+      int last = 0;
+      for (int i = ++start; i <= end; ++i) {
+        if (i < end && url.charAt(i) != '/')
+          continue;
+
+        final String placeholder = placeholder(url, start, i);
+        if (placeholder != null) {
+          if (builder == null)
+            builder = new StringBuilder(url.length());
+
+          builder.append(url, last, start).append(placeholder);
+          last = i;
+        }
+
+        start = i + 1;
+      }
+
+      return builder == null ? url : builder.append(url, last, url.length()).toString();
+    }
+
+    @Override
+    Object apply(final Object value) {
+      return value instanceof String ? template((String)value) : value;
+    }
+  }
+
+  /**
+   * Replaces string and numeric literals in a SQL statement with {@code ?}.
+   * Quoted identifiers are left untouched.
+   */
+  static class SqlLiterals extends Transform {
+    private static boolean isIdentifierPart(final char ch) {
+      return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$' || ch == '.' || ch == ':' || ch == '@';
+    }
+
+    private static int skipQuoted(final String sql, int i, final char quote) {
+      for (final int len = sql.length(); ++i < len;) {
+        if (sql.charAt(i) == quote) {
+          if (i + 1 < len && sql.charAt(i + 1) == quote)
+            ++i;
+          else
+            return i + 1;
+        }
+      }
+
+      return sql.length();
+    }
+
+    static String strip(final String sql) {
+      StringBuilder builder = null;
+      int last = 0;
+      for (int i = 0, len = sql.length(); i < len;) {
+        final char ch = sql.charAt(i);
+        final int end;
+        if (ch == '\'') {
+          end = skipQuoted(sql, i, ch);
+        }
+        else if (ch == '"' || ch == '`') {
+          i = skipQuoted(sql, i, ch);
+          continue;
+        }
+        else if (ch >= '0' && ch <= '9' && (i == 0 || !isIdentifierPart(sql.charAt(i - 1)))) {
+          int j = i;
+          while (++j < len && (Character.isLetterOrDigit(sql.charAt(j)) || sql.charAt(j) == '.'));
+          end = j;
+        }
+        else {
+          ++i;
+          continue;
+        }
+
+        if (builder == null)
+          builder = new StringBuilder(sql.length());
+
+        builder.append(sql, last, i).append('?');
+        last = i = end;
+      }
+
+      return builder == null ? sql : builder.append(sql, last, sql.length()).toString();
+    }
+
+    @Override
+    Object apply(final Object value) {
+      return value instanceof String ? strip((String)value) : value;
+    }
+  }
+
+  /**
+   * Limits the number of distinct values that pass through to {@code limit}.
+   * Once {@code limit} distinct values have been seen, values that have not
+   * been seen before are replaced with the {@code overflow} sentinel. Distinct
+   * values are tracked as 64-bit fingerprints in a fixed-size, lock-free
+   * open-addressed table, so memory is bounded by {@code limit} regardless of
+   * the number of values observed.
+   */
+  static class Cardinality extends Transform {
+    private static long fingerprint(final String str) {
+      // 64-bit FNV-1a
+      long hash = 0xcbf29ce484222325L;
+      for (int i = 0, len = str.length(); i < len; ++i) {
+        hash ^= str.charAt(i);
+        hash *= 0x100000001b3L;
+      }
+
+      return hash != 0 ? hash : 1;
+    }
+
+    private final int limit;
+    private final Object overflow;
+    private final AtomicLongArray fingerprints;
+    private final AtomicInteger size = new AtomicInteger();
+
+    Cardinality(final int limit, final Object overflow) {
+      this.limit = limit;
+      this.overflow = overflow;
+      this.fingerprints = new AtomicLongArray(Integer.highestOneBit(limit * 2 - 1) << 1);
+    }
+
+    @Override
+    Object apply(final Object value) {
+      if (value == null)
+        return null;
+
+      final long fingerprint = fingerprint(value.toString());
+      final int mask = fingerprints.length() - 1;
+      for (int i = (int)(fingerprint ^ (fingerprint >>> 32)) & mask, probes = 0; probes <= mask; i = (i + 1) & mask) {
+        final long slot = fingerprints.get(i);
+        if (slot == fingerprint)
+          return value;
+
+        if (slot != 0) {
+          ++probes;
+          continue;
+        }
+
+        if (size.getAndIncrement() >= limit) {
+          size.decrementAndGet();
+          return overflow;
+        }
+
+        if (fingerprints.compareAndSet(i, 0, fingerprint))
+          return value;
+
+        // Lost the race for this slot: release the reservation and re-examine it
+        size.decrementAndGet();
+      }
+
+      return overflow;
+    }
+  }
+}
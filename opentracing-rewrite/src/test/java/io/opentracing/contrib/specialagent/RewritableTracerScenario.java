@@ -75,6 +75,12 @@ public enum RewritableTracerScenario {
       logFieldsSpan(tracer, logOrTagMap());
     }
   },
+  LOG_FIELDS_DB_STATEMENT("logFieldsDbStatement") {
+    @Override
+    void play(final Tracer tracer) {
+      logFieldsSpan(tracer, Collections.singletonMap(Tags.DB_STATEMENT.getKey(), "SELECT * FROM \"t1\" WHERE id = 42 AND name = 'O''Brien' AND t1.c2 = 1.5"));
+    }
+  },
   LOG_FIELDS_NUMBER("logFieldsNumber") {
     @Override
     void play(final Tracer tracer) {
@@ -139,6 +145,22 @@ public enum RewritableTracerScenario {
       span.finish();
     }
   },
+  TAG_HTTP_URL_IDS("tagHttpUrlIds") {
+    @Override
+    void play(final Tracer tracer) {
+      tracer.buildSpan("operation").withTag(Tags.HTTP_URL, "http://example.com/users/123/orders/550e8400-e29b-41d4-a716-446655440000?id=1").start().finish();
+      tracer.buildSpan("operation").withTag(Tags.HTTP_URL, "http://example.com:8080/v2/blobs/5f3e2a1b9c0d").start().finish();
+      tracer.buildSpan("operation").withTag(Tags.HTTP_URL, "/api/v2/decade/42/").start().finish();
+      tracer.buildSpan("operation").withTag(Tags.HTTP_URL, "http://example.com").start().finish();
+    }
+  },
+  TAG_VALUES("tagValues") {
+    @Override
+    void play(final Tracer tracer) {
+      for (final String value : new String[] {"v1", "v2", "v3", "v1", "v4", "v2"})
+        tracer.buildSpan("operation").withTag("key", value).start().finish();
+    }
+  },
   TAG_NUMBER("tagNumber") {
     @Override
     void play(final Tracer tracer) {
@@ -0,0 +1,363 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opentracing.contrib.specialagent;
+
+import static io.opentracing.contrib.specialagent.Constants.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+/**
+ * Self-metrics of the agent, which are enabled with the
+ * {@value Constants#METRICS_PROPERTY} system property, and exposed via JMX as
+ * {@value #OBJECT_NAME}. When disabled, the recording methods return
+ * immediately. Counters that are incremented on the paths of intercepts and
+ * spans are {@link StripedCounter}s, and no locks are taken on these paths.
+ * <p>
+ * The latency of the enter and exit advice of each integration is recorded by
+ * the {@link TimedAdvice} that is woven around the advice of its rules.
+ */
+public final class AgentMetrics implements AgentMetricsMXBean {
+  private static final Logger logger = Logger.getLogger(AgentMetrics.class);
+  static final String OBJECT_NAME = "io.opentracing.contrib.specialagent:type=AgentMetrics";
+  private static final long REGISTRATION_DELAY = 1000;
+
+  private static final AgentMetrics instance = AssembleUtil.isSystemProperty(METRICS_PROPERTY, null) ? new AgentMetrics() : null;
+
+  static {
+    if (instance != null) {
+      final Thread thread = new Thread("SpecialAgent-AgentMetrics") {
+        @Override
+        public void run() {
+          AgentRule.$Access.disableInstrumentation();
+          try {
+            // The MBean is registered lazily, so as to not initialize the
+            // platform MBeanServer before the application does
+            Thread.sleep(REGISTRATION_DELAY);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+          }
+          catch (final InterruptedException e) {
+          }
+          catch (final Exception e) {
+            logger.log(Level.WARNING, "Unable to register " + OBJECT_NAME, e);
+          }
+        }
+      };
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * @return Whether the agent metrics are enabled.
+   */
+  public static boolean isEnabled() {
+    return instance != null;
+  }
+
+  /**
+   * @return The {@link AgentMetrics} instance, or {@code null} if the agent
+   *         metrics are not enabled.
+   */
+  public static AgentMetrics get() {
+    return instance;
+  }
+
+  private static <K>StripedCounter counter(final ConcurrentHashMap<K,StripedCounter> map, final K key) {
+    StripedCounter counter = map.get(key);
+    if (counter == null) {
+      final StripedCounter existing = map.putIfAbsent(key, counter = new StripedCounter());
+      if (existing != null)
+        counter = existing;
+    }
+
+    return counter;
+  }
+
+  private static LatencyHistogram histogram(final ConcurrentHashMap<String,LatencyHistogram> map, final String key) {
+    LatencyHistogram histogram = map.get(key);
+    if (histogram == null) {
+      final LatencyHistogram existing = map.putIfAbsent(key, histogram = new LatencyHistogram());
+      if (existing != null)
+        histogram = existing;
+    }
+
+    return histogram;
+  }
+
+  private static void increment(final Map<ClassLoader,Long> map, final ClassLoader classLoader) {
+    synchronized (map) {
+      final Long count = map.get(classLoader);
+      map.put(classLoader, count == null ? 1 : count + 1);
+    }
+  }
+
+  private static Map<String,Long> toNameIdMap(final Map<ClassLoader,Long> map) {
+    final TreeMap<String,Long> values = new TreeMap<>();
+    synchronized (map) {
+      for (final Map.Entry<ClassLoader,Long> entry : map.entrySet())
+        values.put(AssembleUtil.getNameId(entry.getKey()), entry.getValue());
+    }
+
+    return values;
+  }
+
+  private static Map<String,String> toStringMap(final ConcurrentHashMap<String,LatencyHistogram> map) {
+    final TreeMap<String,String> values = new TreeMap<>();
+    for (final Map.Entry<String,LatencyHistogram> entry : map.entrySet())
+      values.put(entry.getKey(), entry.getValue().toString());
+
+    return values;
+  }
+
+  private static Map<String,Long> toMap(final ConcurrentHashMap<String,StripedCounter> map) {
+    final TreeMap<String,Long> values = new TreeMap<>();
+    for (final Map.Entry<String,StripedCounter> entry : map.entrySet())
+      values.put(entry.getKey(), entry.getValue().get());
+
+    return values;
+  }
+
+  /**
+   * Records that an {@link AgentRule} was loaded.
+   */
+  public static void onRuleLoaded() {
+    if (instance != null)
+      instance.rulesLoaded.incrementAndGet();
+  }
+
+  /**
+   * Records the result of the linking of a rule to a class loader.
+   *
+   * @param classLoader The class loader.
+   * @param compatible Whether the rule was compatible with the class loader.
+   */
+  public static void onRuleLinked(final ClassLoader classLoader, final boolean compatible) {
+    if (instance != null)
+      increment(compatible ? instance.rulesLinked : instance.rulesIncompatible, classLoader);
+  }
+
+  /**
+   * A stack of start times in nanoseconds of a thread, which is reused so that
+   * no objects are allocated when times are pushed. Starts that are not
+   * matched by an end, such as when an exception escapes a constructor, can
+   * overflow the stack, in which case the stack is cleared.
+   */
+  static final class StartTimes {
+    private final long[] times = new long[32];
+    private int depth;
+
+    void push(final long nanoTime) {
+      if (depth == times.length)
+        depth = 0;
+
+      times[depth++] = nanoTime;
+    }
+
+    long pop() {
+      return depth == 0 ? -1 : times[--depth];
+    }
+  }
+
+  private static final ThreadLocal<StartTimes> discoveries = new ThreadLocal<StartTimes>() {
+    @Override
+    protected StartTimes initialValue() {
+      return new StartTimes();
+    }
+  };
+
+  private static final ThreadLocal<StartTimes> adviceStarts = new ThreadLocal<StartTimes>() {
+    @Override
+    protected StartTimes initialValue() {
+      return new StartTimes();
+    }
+  };
+
+  private static final ThreadLocal<String> transformedIntegration = new ThreadLocal<>();
+
+  /**
+   * Records the start of the discovery of a type for transformation. Types can
+   * be discovered recursively on the same thread, if the transformation of a
+   * type loads other types.
+   */
+  public static void onDiscovery() {
+    if (instance != null)
+      discoveries.get().push(System.nanoTime());
+  }
+
+  /**
+   * Records the transformation of a type by the specified integration.
+   *
+   * @param integration The name of the integration.
+   */
+  public static void onTransformation(final String integration) {
+    if (instance != null) {
+      instance.transformations.increment();
+      transformedIntegration.set(integration);
+    }
+  }
+
+  /**
+   * Records an error in the transformation of a type.
+   */
+  public static void onError() {
+    if (instance != null)
+      instance.transformationErrors.increment();
+  }
+
+  /**
+   * Records the completion of the transformation of a type, recording the
+   * latency since its discovery if it was transformed by an integration.
+   */
+  public static void onComplete() {
+    if (instance == null)
+      return;
+
+    final long start = discoveries.get().pop();
+    final String integration = transformedIntegration.get();
+    if (start == -1 || integration == null)
+      return;
+
+    transformedIntegration.set(null);
+    histogram(instance.transformationLatency, integration).record(System.nanoTime() - start);
+  }
+
+  /**
+   * Records the start of the enter or exit advice of a rule. This method is
+   * called by the {@link TimedAdvice}.
+   */
+  public static void onAdviceStart() {
+    if (instance != null)
+      adviceStarts.get().push(System.nanoTime());
+  }
+
+  /**
+   * Records the end of the enter or exit advice of a rule of the specified
+   * integration, recording the latency since the matching call to
+   * {@link #onAdviceStart()}. This method is called by the
+   * {@link TimedAdvice}.
+   *
+   * @param integration The name of the integration.
+   * @param exit Whether the advice is the exit advice.
+   */
+  public static void onAdviceEnd(final String integration, final boolean exit) {
+    if (instance == null)
+      return;
+
+    final long start = adviceStarts.get().pop();
+    if (start != -1)
+      histogram(exit ? instance.adviceExitLatency : instance.adviceEnterLatency, integration).record(System.nanoTime() - start);
+  }
+
+  /**
+   * Records an intercept of the rule with the specified class name.
+   *
+   * @param className The class name of the {@link AgentRule}.
+   */
+  public static void onIntercept(final String className) {
+    if (instance != null)
+      counter(instance.intercepts, className).increment();
+  }
+
+  /**
+   * Records a span started by the specified integration.
+   *
+   * @param integration The name of the integration.
+   */
+  public static void onSpanStarted(final String integration) {
+    if (instance != null)
+      counter(instance.spansStarted, integration == null ? "" : integration).increment();
+  }
+
+  private final AtomicInteger rulesLoaded = new AtomicInteger();
+  private final Map<ClassLoader,Long> rulesLinked = new WeakHashMap<>();
+  private final Map<ClassLoader,Long> rulesIncompatible = new WeakHashMap<>();
+  private final StripedCounter transformations = new StripedCounter();
+  private final StripedCounter transformationErrors = new StripedCounter();
+  private final ConcurrentHashMap<String,LatencyHistogram> transformationLatency = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String,LatencyHistogram> adviceEnterLatency = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String,LatencyHistogram> adviceExitLatency = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String,StripedCounter> intercepts = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String,StripedCounter> spansStarted = new ConcurrentHashMap<>();
+
+  AgentMetrics() {
+  }
+
+  @Override
+  public int getRulesLoaded() {
+    return rulesLoaded.get();
+  }
+
+  @Override
+  public Map<String,Long> getRulesLinked() {
+    return toNameIdMap(rulesLinked);
+  }
+
+  @Override
+  public Map<String,Long> getRulesIncompatible() {
+    return toNameIdMap(rulesIncompatible);
+  }
+
+  @Override
+  public long getTransformations() {
+    return transformations.get();
+  }
+
+  @Override
+  public long getTransformationErrors() {
+    return transformationErrors.get();
+  }
+
+  @Override
+  public Map<String,String> getTransformationLatency() {
+    return toStringMap(transformationLatency);
+  }
+
+  @Override
+  public Map<String,String> getAdviceEnterLatency() {
+    return toStringMap(adviceEnterLatency);
+  }
+
+  @Override
+  public Map<String,String> getAdviceExitLatency() {
+    return toStringMap(adviceExitLatency);
+  }
+
+  @Override
+  public Map<String,Long> getIntercepts() {
+    final TreeMap<String,Long> values = new TreeMap<>();
+    for (final Map.Entry<String,StripedCounter> entry : intercepts.entrySet()) {
+      String integration = AgentRule.getIntegrationName(entry.getKey());
+      if (integration == null)
+        integration = entry.getKey();
+
+      final Long value = values.get(integration);
+      values.put(integration, (value == null ? 0 : value) + entry.getValue().get());
+    }
+
+    return values;
+  }
+
+  @Override
+  public Map<String,Long> getSpansStarted() {
+    return toMap(spansStarted);
+  }
+}
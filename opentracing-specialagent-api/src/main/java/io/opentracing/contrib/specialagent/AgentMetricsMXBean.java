@@ -0,0 +1,78 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opentracing.contrib.specialagent;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link AgentMetrics}.
+ */
+public interface AgentMetricsMXBean {
+  /**
+   * @return The number of {@link AgentRule}s that have been loaded.
+   */
+  int getRulesLoaded();
+
+  /**
+   * @return The number of rules that were linked to each class loader, because
+   *         they were compatible with it. Class loaders that are garbage
+   *         collected are removed.
+   */
+  Map<String,Long> getRulesLinked();
+
+  /**
+   * @return The number of rules that were not linked to each class loader,
+   *         because they were incompatible with it.
+   */
+  Map<String,Long> getRulesIncompatible();
+
+  /**
+   * @return The number of classes that have been transformed.
+   */
+  long getTransformations();
+
+  /**
+   * @return The number of errors that occurred while transforming classes.
+   */
+  long getTransformationErrors();
+
+  /**
+   * @return The latency of the transformation of classes for each integration.
+   */
+  Map<String,String> getTransformationLatency();
+
+  /**
+   * @return The latency of the enter advice of the rules of each integration,
+   *         excluding the latency of the instrumented methods.
+   */
+  Map<String,String> getAdviceEnterLatency();
+
+  /**
+   * @return The latency of the exit advice of the rules of each integration,
+   *         excluding the latency of the instrumented methods.
+   */
+  Map<String,String> getAdviceExitLatency();
+
+  /**
+   * @return The number of intercepts for each integration.
+   */
+  Map<String,Long> getIntercepts();
+
+  /**
+   * @return The number of spans started by each integration, before sampling
+   *         and rate limiting.
+   */
+  Map<String,Long> getSpansStarted();
+}
@@ -23,7 +23,12 @@ import java.util.Map;
 
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.method.MethodDescription;
 import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.constant.TextConstant;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
 
 /**
  * Base abstract class for SpecialAgent Integration Rules.
@@ -81,6 +86,16 @@ public abstract class AgentRule {
       return true;
     }
 
+    /**
+     * Disables instrumentation of the current thread, and of threads started
+     * by it. This method is meant to be called by threads of the agent that
+     * invoke the tracer, so that spans are not created for the tracer's own
+     * work.
+     */
+    public static void disableInstrumentation() {
+      isThreadInstrumentable.set(Boolean.FALSE);
+    }
+
     /**
      * @return The {@link ThreadLocalCounter} instance from {@link AgentRule}.
      */
@@ -136,7 +151,11 @@ public abstract class AgentRule {
   private static Map<String,String> classNameToName;
 
   public static String getCurrentPluginName() {
-    return classNameToName.get(currentAgentRuleClass.get());
+    return classNameToName == null ? null : classNameToName.get(currentAgentRuleClass.get());
+  }
+
+  static String getIntegrationName(final String className) {
+    return classNameToName == null ? null : classNameToName.get(className);
   }
 
   public static boolean isVerbose(final String className) {
@@ -165,16 +184,96 @@ public abstract class AgentRule {
     else
       typeDescriptionToPluginManifest.put(typeDescription, this.pluginManifest);
 
-    return Advice.withCustomMapping().bind(ClassName.class, className);
+    final String integration = AgentMetrics.isEnabled() ? this.pluginManifest != null ? this.pluginManifest.name : className : null;
+    return new ExceptionHandlingMapping(Advice.withCustomMapping().bind(ClassName.class, className), new StackManipulation.Compound(new TextConstant(className), MethodInvocation.invoke(ON_ADVICE_EXCEPTION)), className, integration);
+  }
+
+  private static final MethodDescription ON_ADVICE_EXCEPTION;
+
+  static {
+    try {
+      ON_ADVICE_EXCEPTION = new MethodDescription.ForLoadedMethod(RuleCircuitBreaker.class.getMethod("onAdviceException", Throwable.class, String.class));
+    }
+    catch (final NoSuchMethodException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * An {@link Advice.WithCustomMapping} that installs an exception handler on
+   * the {@link Advice} it creates, which reports exceptions thrown by advice
+   * methods that declare {@code suppress = Throwable.class} to the
+   * {@link RuleCircuitBreaker}. If the {@link RuleCircuitBreaker} is enabled,
+   * the {@link Advice} is gated by a {@link GatedAdvice}, so that the circuit
+   * of the rule is consulted once for both the enter and exit advice. If
+   * {@link AgentMetrics} are enabled, the {@link Advice} is timed by the
+   * {@link TimedAdvice}, which records the latency of the enter and exit
+   * advice of the rule.
+   */
+  private static final class ExceptionHandlingMapping extends Advice.WithCustomMapping {
+    private final Advice.WithCustomMapping target;
+    private final StackManipulation exceptionHandler;
+    private final String className;
+    private final String integration;
+
+    private ExceptionHandlingMapping(final Advice.WithCustomMapping target, final StackManipulation exceptionHandler, final String className, final String integration) {
+      this.target = target;
+      this.exceptionHandler = exceptionHandler;
+      this.className = className;
+      this.integration = integration;
+    }
+
+    private Advice advice(final Advice advice, final TypeDescription type, final TypeDescription exitType) {
+      final Advice handled = advice.withExceptionHandler(exceptionHandler);
+      final Advice timed = integration == null ? handled : TimedAdvice.of(handled, type, exitType, integration);
+      return RuleCircuitBreaker.isEnabled() ? GatedAdvice.of(timed, className) : timed;
+    }
+
+    @Override
+    public Advice to(final Class<?> advice) {
+      return advice(target.to(advice), TypeDescription.ForLoadedType.of(advice), null);
+    }
+
+    @Override
+    public Advice to(final Class<?> advice, final ClassFileLocator classFileLocator) {
+      return advice(target.to(advice, classFileLocator), TypeDescription.ForLoadedType.of(advice), null);
+    }
+
+    @Override
+    public Advice to(final TypeDescription advice, final ClassFileLocator classFileLocator) {
+      return advice(target.to(advice, classFileLocator), advice, null);
+    }
+
+    @Override
+    public Advice to(final Class<?> enterAdvice, final Class<?> exitAdvice) {
+      return advice(target.to(enterAdvice, exitAdvice), TypeDescription.ForLoadedType.of(enterAdvice), TypeDescription.ForLoadedType.of(exitAdvice));
+    }
+
+    @Override
+    public Advice to(final Class<?> enterAdvice, final Class<?> exitAdvice, final ClassFileLocator classFileLocator) {
+      return advice(target.to(enterAdvice, exitAdvice, classFileLocator), TypeDescription.ForLoadedType.of(enterAdvice), TypeDescription.ForLoadedType.of(exitAdvice));
+    }
+
+    @Override
+    public Advice to(final TypeDescription enterAdvice, final TypeDescription exitAdvice) {
+      return advice(target.to(enterAdvice, exitAdvice), enterAdvice, exitAdvice);
+    }
+
+    @Override
+    public Advice to(final TypeDescription enterAdvice, final TypeDescription exitAdvice, final ClassFileLocator classFileLocator) {
+      return advice(target.to(enterAdvice, exitAdvice, classFileLocator), enterAdvice, exitAdvice);
+    }
   }
 
   public static boolean isAllowed(final String className, final String origin) {
-    final boolean allowed = initialized && entryCounter.get() == 0 && isThreadInstrumentable.get();
+    final boolean allowed = initialized && entryCounter.get() == 0 && isThreadInstrumentable.get() && RuleCircuitBreaker.isGateOpen(className);
     if (allowed) {
       if (logger.isLoggable(Level.FINER))
         logger.finer("-------> Intercept [" + className.substring(className.lastIndexOf('.') + 1) + "@" + Thread.currentThread().getName() + "]: " + origin);
 
       currentAgentRuleClass.set(className);
+      OverheadGovernor.onIntercept(className);
+      AgentMetrics.onIntercept(className);
     }
     else if (logger.isLoggable(Level.FINEST)) {
       logger.finest("-------> Intercept [" + className.substring(className.lastIndexOf('.') + 1) + "@" + Thread.currentThread().getName() + "] DROP: " + origin);
@@ -0,0 +1,95 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import net.bytebuddy.asm.Advice;
+
+/**
+ * The gating advice that consults the {@link RuleCircuitBreaker} once for each
+ * invocation of a method that is instrumented by a rule. The advice of the
+ * rule is woven in a {@link NestedAdvice} between an outer and an inner gating
+ * advice: the outer enter advice makes the decision before the enter advice of
+ * the rule, and the inner exit advice restores it before the exit advice of
+ * the rule, so that {@link AgentRule#isAllowed(String,String)} returns the
+ * same decision to both. The gating advice is only woven if
+ * {@link RuleCircuitBreaker#isEnabled()}.
+ */
+final class GatedAdvice {
+  public static class OuterGate {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static int enter(final @AgentRule.ClassName String className) {
+      return RuleCircuitBreaker.onEnter(className);
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(final @Advice.Enter int depth) {
+      RuleCircuitBreaker.onExitEnd(depth);
+    }
+  }
+
+  public static class InnerGate {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static int enter() {
+      return RuleCircuitBreaker.getDepth();
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(final @Advice.Enter int depth) {
+      RuleCircuitBreaker.onExit(depth);
+    }
+  }
+
+  // Exceptions thrown by constructors cannot be caught by advice
+  public static class OuterGateConstructor {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static int enter(final @AgentRule.ClassName String className) {
+      return RuleCircuitBreaker.onEnter(className);
+    }
+
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void exit(final @Advice.Enter int depth) {
+      RuleCircuitBreaker.onExitEnd(depth);
+    }
+  }
+
+  public static class InnerGateConstructor {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static int enter() {
+      return RuleCircuitBreaker.getDepth();
+    }
+
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void exit(final @Advice.Enter int depth) {
+      RuleCircuitBreaker.onExit(depth);
+    }
+  }
+
+  /**
+   * Returns the {@link NestedAdvice} that gates the specified {@link Advice} of
+   * a rule.
+   *
+   * @param target The {@link Advice} of the rule.
+   * @param className The class name of the rule.
+   * @return The {@link NestedAdvice} that gates the specified {@link Advice}.
+   */
+  static Advice of(final Advice target, final String className) {
+    final Advice.WithCustomMapping mapping = Advice.withCustomMapping().bind(AgentRule.ClassName.class, className);
+    return new NestedAdvice(target, mapping.to(OuterGate.class), mapping.to(InnerGate.class), mapping.to(OuterGateConstructor.class), mapping.to(InnerGateConstructor.class));
+  }
+
+  private GatedAdvice() {
+  }
+}
@@ -0,0 +1,108 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opentracing.contrib.specialagent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds, with fixed log-linear
+ * buckets in the manner of HdrHistogram: each power of 2 is divided into
+ * {@code 2^}{@value #SUB_BUCKET_BITS} linear sub-buckets, so the relative error
+ * of the reported percentiles is bounded by {@code 1/2^}{@value #SUB_BUCKET_BITS}.
+ * Values greater than {@code 2^}{@value #MAX_EXPONENT} nanoseconds are
+ * recorded in the last bucket.
+ */
+public final class LatencyHistogram {
+  static final int SUB_BUCKET_BITS = 3;
+  static final int MAX_EXPONENT = 40;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  static int index(final long value) {
+    if (value < SUB_BUCKETS)
+      return value < 0 ? 0 : (int)value;
+
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT)
+      return BUCKETS - 1;
+
+    final int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the highest value that is recorded in the bucket at the specified
+   * index.
+   */
+  static long highestValue(final int index) {
+    if (index < SUB_BUCKETS)
+      return index;
+
+    final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    final long subBucket = index & (SUB_BUCKETS - 1);
+    return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final StripedCounter count = new StripedCounter();
+
+  /**
+   * Records the specified latency.
+   *
+   * @param nanos The latency in nanoseconds.
+   */
+  public void record(final long nanos) {
+    counts.getAndIncrement(index(nanos));
+    count.increment();
+  }
+
+  /**
+   * @return The number of recorded latencies.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Returns the latency at the specified percentile, as the highest value of
+   * the bucket in which the percentile falls.
+   *
+   * @param percentile The percentile, between {@code 0} and {@code 100}.
+   * @return The latency at the specified percentile in nanoseconds, or
+   *         {@code 0} if no latencies have been recorded.
+   */
+  public long getPercentile(final double percentile) {
+    final long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; ++i)
+      total += snapshot[i] = counts.get(i);
+
+    if (total == 0)
+      return 0;
+
+    final long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; ++i)
+      if ((seen += snapshot[i]) >= rank)
+        return highestValue(i);
+
+    return highestValue(BUCKETS - 1);
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + getCount() + ", p50=" + getPercentile(50) + "ns, p99=" + getPercentile(99) + "ns, p99.9=" + getPercentile(99.9) + "ns, max=" + getPercentile(100) + "ns";
+  }
+}
@@ -0,0 +1,133 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.Objects;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.scaffold.InstrumentedType;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.pool.TypePool;
+
+/**
+ * An {@link Advice} that weaves a target {@link Advice} between an outer and
+ * an inner {@link Advice}:
+ *
+ * <pre>
+ * outer enter, target enter, inner enter, method, inner exit, target exit, outer exit
+ * </pre>
+ *
+ * Constructors are woven with separate outer and inner {@link Advice}s,
+ * because the exit advice of constructors cannot handle exceptions.
+ */
+final class NestedAdvice extends Advice {
+  private final Advice target;
+  private final Advice outer;
+  private final Advice inner;
+  private final Advice outerConstructor;
+  private final Advice innerConstructor;
+
+  /**
+   * Creates a new {@link NestedAdvice}.
+   *
+   * @param target The target {@link Advice}.
+   * @param outer The outer {@link Advice} of methods, or {@code null} if the
+   *          target {@link Advice} is not nested.
+   * @param inner The inner {@link Advice} of methods.
+   * @param outerConstructor The outer {@link Advice} of constructors.
+   * @param innerConstructor The inner {@link Advice} of constructors.
+   */
+  NestedAdvice(final Advice target, final Advice outer, final Advice inner, final Advice outerConstructor, final Advice innerConstructor) {
+    super(null, null);
+    this.target = target;
+    this.outer = outer;
+    this.inner = inner;
+    this.outerConstructor = outerConstructor;
+    this.innerConstructor = innerConstructor;
+  }
+
+  @Override
+  public MethodVisitor wrap(final TypeDescription instrumentedType, final MethodDescription instrumentedMethod, MethodVisitor methodVisitor, final Implementation.Context implementationContext, final TypePool typePool, final int writerFlags, final int readerFlags) {
+    final Advice outer = instrumentedMethod.isConstructor() ? outerConstructor : this.outer;
+    final Advice inner = instrumentedMethod.isConstructor() ? innerConstructor : this.inner;
+    if (outer == null)
+      return target.wrap(instrumentedType, instrumentedMethod, methodVisitor, implementationContext, typePool, writerFlags, readerFlags);
+
+    // The visitor that is returned last receives the code of the method first,
+    // so its advice is woven innermost
+    methodVisitor = outer.wrap(instrumentedType, instrumentedMethod, methodVisitor, implementationContext, typePool, writerFlags, readerFlags);
+    methodVisitor = target.wrap(instrumentedType, instrumentedMethod, methodVisitor, implementationContext, typePool, writerFlags, readerFlags);
+    return inner.wrap(instrumentedType, instrumentedMethod, methodVisitor, implementationContext, typePool, writerFlags, readerFlags);
+  }
+
+  @Override
+  public Advice withAssigner(final Assigner assigner) {
+    return new NestedAdvice(target.withAssigner(assigner), outer, inner, outerConstructor, innerConstructor);
+  }
+
+  @Override
+  public Advice withExceptionPrinting() {
+    return new NestedAdvice(target.withExceptionPrinting(), outer, inner, outerConstructor, innerConstructor);
+  }
+
+  @Override
+  public Advice withExceptionHandler(final StackManipulation exceptionHandler) {
+    return new NestedAdvice(target.withExceptionHandler(exceptionHandler), outer, inner, outerConstructor, innerConstructor);
+  }
+
+  @Override
+  public Advice withExceptionHandler(final Advice.ExceptionHandler exceptionHandler) {
+    return new NestedAdvice(target.withExceptionHandler(exceptionHandler), outer, inner, outerConstructor, innerConstructor);
+  }
+
+  @Override
+  public InstrumentedType prepare(final InstrumentedType instrumentedType) {
+    return target.prepare(instrumentedType);
+  }
+
+  @Override
+  public ByteCodeAppender appender(final Implementation.Target implementationTarget) {
+    return target.appender(implementationTarget);
+  }
+
+  @Override
+  public Implementation wrap(final Implementation implementation) {
+    return target.wrap(implementation);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (obj == this)
+      return true;
+
+    if (!(obj instanceof NestedAdvice))
+      return false;
+
+    final NestedAdvice that = (NestedAdvice)obj;
+    return target.equals(that.target) && Objects.equals(outer, that.outer) && Objects.equals(inner, that.inner);
+  }
+
+  @Override
+  public int hashCode() {
+    return target.hashCode() * 31 + Objects.hashCode(outer);
+  }
+}
@@ -0,0 +1,342 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static io.opentracing.contrib.specialagent.Constants.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+/**
+ * Sheds span creation of integrations when the CPU load of the process exceeds
+ * a configured budget. The governor is enabled with the
+ * {@value Constants#GOVERNOR_CPU_PROPERTY} system property, which specifies the
+ * budget as a fraction of all available processors.
+ * <p>
+ * {@link AgentRule#isAllowed(String,String)} counts the intercepts of each
+ * rule. On each evaluation, if the CPU load is over the budget, the span
+ * creation rate of the integration with the most intercepts is halved; if the
+ * CPU load is under {@value #RESTORE_RATIO} of the budget, the rate of the
+ * integration that is shed the most is doubled, until all rates are restored.
+ * The rates are applied by the tracer to the spans of the integration: root
+ * spans are sampled at the rate, and child spans of sampled spans are skipped
+ * at the same rate, without affecting the sampling of the rest of their trace.
+ * The decisions are logged and exposed via JMX as {@value #OBJECT_NAME}.
+ */
+public final class OverheadGovernor implements OverheadGovernorMXBean {
+  private static final Logger logger = Logger.getLogger(OverheadGovernor.class);
+  static final String OBJECT_NAME = "io.opentracing.contrib.specialagent:type=OverheadGovernor";
+  static final double MIN_RATE = 1d / 64;
+  static final double RESTORE_RATIO = 0.8;
+  private static final long DEFAULT_INTERVAL = 1000;
+
+  interface Clock {
+    long nanoTime();
+  }
+
+  interface CpuProbe {
+    /**
+     * @return The CPU time used by the process, in nanoseconds.
+     */
+    long processCpuTime();
+  }
+
+  static final Clock SYSTEM_CLOCK = new Clock() {
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+
+  /**
+   * Returns a {@link CpuProbe} that reads the CPU time of the process from the
+   * {@link OperatingSystemMXBean} if supported by the JVM, and otherwise sums
+   * the CPU time of all live threads from the {@link ThreadMXBean}.
+   *
+   * @return A {@link CpuProbe} of the CPU time of the process.
+   */
+  static CpuProbe newSystemCpuProbe() {
+    final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.OperatingSystemMXBean && ((com.sun.management.OperatingSystemMXBean)os).getProcessCpuTime() >= 0) {
+      return new CpuProbe() {
+        @Override
+        public long processCpuTime() {
+          return ((com.sun.management.OperatingSystemMXBean)os).getProcessCpuTime();
+        }
+      };
+    }
+
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    return new CpuProbe() {
+      @Override
+      public long processCpuTime() {
+        long total = 0;
+        for (final long id : threads.getAllThreadIds()) {
+          final long time = threads.getThreadCpuTime(id);
+          if (time > 0)
+            total += time;
+        }
+
+        return total;
+      }
+    };
+  }
+
+  private static final OverheadGovernor instance = create();
+
+  private static OverheadGovernor create() {
+    final String budgetProperty = System.getProperty(GOVERNOR_CPU_PROPERTY);
+    if (budgetProperty == null)
+      return null;
+
+    final double budget;
+    final long interval;
+    try {
+      budget = Double.parseDouble(budgetProperty);
+      final String intervalProperty = System.getProperty(GOVERNOR_INTERVAL_PROPERTY);
+      interval = intervalProperty == null ? DEFAULT_INTERVAL : Long.parseLong(intervalProperty);
+    }
+    catch (final NumberFormatException e) {
+      logger.severe("Overhead governor is disabled: " + e.getMessage());
+      return null;
+    }
+
+    if (!(budget > 0 && budget <= 1) || interval <= 0) {
+      logger.severe("Overhead governor is disabled: " + GOVERNOR_CPU_PROPERTY + " must be between 0 and 1, and " + GOVERNOR_INTERVAL_PROPERTY + " must be positive");
+      return null;
+    }
+
+    final OverheadGovernor governor = new OverheadGovernor(budget, SYSTEM_CLOCK, newSystemCpuProbe(), Runtime.getRuntime().availableProcessors());
+    final Thread thread = new Thread("SpecialAgent-OverheadGovernor") {
+      @Override
+      public void run() {
+        AgentRule.$Access.disableInstrumentation();
+        try {
+          // The MBean is registered lazily, so as to not initialize the
+          // platform MBeanServer before the application does
+          Thread.sleep(interval);
+          ManagementFactory.getPlatformMBeanServer().registerMBean(governor, new ObjectName(OBJECT_NAME));
+        }
+        catch (final InterruptedException e) {
+          return;
+        }
+        catch (final Exception e) {
+          logger.log(Level.WARNING, "Unable to register " + OBJECT_NAME, e);
+        }
+
+        try {
+          while (true) {
+            governor.evaluate();
+            Thread.sleep(interval);
+          }
+        }
+        catch (final InterruptedException e) {
+        }
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+    if (logger.isLoggable(Level.FINE))
+      logger.fine("Overhead governor enabled with CPU budget of " + budget);
+
+    return governor;
+  }
+
+  /**
+   * Records an intercept of the rule with the specified class name, if the
+   * governor is enabled.
+   *
+   * @param className The class name of the {@link AgentRule}.
+   */
+  static void onIntercept(final String className) {
+    if (instance != null)
+      instance.count(className);
+  }
+
+  /**
+   * Returns the span creation rate of the integration with the specified name.
+   *
+   * @param integration The name of the integration.
+   * @return The span creation rate of the integration with the specified name,
+   *         which is {@code 1} if the integration is not being shed, or if the
+   *         governor is not enabled.
+   */
+  public static double getRate(final String integration) {
+    if (instance == null || integration == null)
+      return 1;
+
+    return instance.rate(integration);
+  }
+
+  /**
+   * @return Whether the governor is enabled.
+   */
+  public static boolean isEnabled() {
+    return instance != null;
+  }
+
+  private final Clock clock;
+  private final CpuProbe cpuProbe;
+  private final int processors;
+  private final ConcurrentHashMap<String,AtomicLong> classNameToIntercepts = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String,Double> integrationToRate = new ConcurrentHashMap<>();
+  private volatile double cpuBudget;
+  private volatile double cpuLoad;
+  private volatile String lastDecision;
+  private long lastNanoTime = -1;
+  private long lastCpuTime;
+
+  OverheadGovernor(final double cpuBudget, final Clock clock, final CpuProbe cpuProbe, final int processors) {
+    this.cpuBudget = cpuBudget;
+    this.clock = clock;
+    this.cpuProbe = cpuProbe;
+    this.processors = processors;
+  }
+
+  void count(final String className) {
+    AtomicLong intercepts = classNameToIntercepts.get(className);
+    if (intercepts == null) {
+      final AtomicLong existing = classNameToIntercepts.putIfAbsent(className, intercepts = new AtomicLong());
+      if (existing != null)
+        intercepts = existing;
+    }
+
+    intercepts.incrementAndGet();
+  }
+
+  private Map<String,Long> drainIntercepts() {
+    final Map<String,Long> integrationToIntercepts = new HashMap<>();
+    for (final Map.Entry<String,AtomicLong> entry : classNameToIntercepts.entrySet()) {
+      String integration = AgentRule.getIntegrationName(entry.getKey());
+      if (integration == null)
+        integration = entry.getKey();
+
+      final Long intercepts = integrationToIntercepts.get(integration);
+      final long count = entry.getValue().getAndSet(0);
+      integrationToIntercepts.put(integration, intercepts == null ? count : intercepts + count);
+    }
+
+    return integrationToIntercepts;
+  }
+
+  /**
+   * Measures the CPU load since the last evaluation, and sheds or restores
+   * the span creation rate of one integration. This method is called
+   * periodically by a single thread.
+   */
+  synchronized void evaluate() {
+    final long nanoTime = clock.nanoTime();
+    final long cpuTime = cpuProbe.processCpuTime();
+    final Map<String,Long> integrationToIntercepts = drainIntercepts();
+    if (lastNanoTime == -1 || nanoTime <= lastNanoTime) {
+      lastNanoTime = nanoTime;
+      lastCpuTime = cpuTime;
+      return;
+    }
+
+    final double cpuLoad = this.cpuLoad = (double)(cpuTime - lastCpuTime) / ((nanoTime - lastNanoTime) * processors);
+    lastNanoTime = nanoTime;
+    lastCpuTime = cpuTime;
+
+    final double cpuBudget = this.cpuBudget;
+    if (cpuLoad > cpuBudget) {
+      String shed = null;
+      long max = 0;
+      for (final Map.Entry<String,Long> entry : integrationToIntercepts.entrySet()) {
+        if (entry.getValue() > max && rate(entry.getKey()) > MIN_RATE) {
+          max = entry.getValue();
+          shed = entry.getKey();
+        }
+      }
+
+      if (shed != null) {
+        final double rate = Math.max(MIN_RATE, rate(shed) / 2);
+        integrationToRate.put(shed, rate);
+        decide(String.format("CPU load %.2f > budget %.2f: shedding %s (%d intercepts) to rate %s", cpuLoad, cpuBudget, shed, max, rate));
+      }
+    }
+    else if (cpuLoad < cpuBudget * RESTORE_RATIO && integrationToRate.size() > 0) {
+      String restore = null;
+      double min = 1;
+      for (final Map.Entry<String,Double> entry : integrationToRate.entrySet()) {
+        if (entry.getValue() < min) {
+          min = entry.getValue();
+          restore = entry.getKey();
+        }
+      }
+
+      final double rate = min * 2;
+      if (rate >= 1)
+        integrationToRate.remove(restore);
+      else
+        integrationToRate.put(restore, rate);
+
+      decide(String.format("CPU load %.2f < budget %.2f: restoring %s to rate %s", cpuLoad, cpuBudget, restore, Math.min(1, rate)));
+    }
+  }
+
+  private void decide(final String decision) {
+    lastDecision = decision;
+    logger.info("Overhead governor: " + decision);
+  }
+
+  @Override
+  public double getCpuBudget() {
+    return cpuBudget;
+  }
+
+  @Override
+  public void setCpuBudget(final double cpuBudget) {
+    if (!(cpuBudget > 0 && cpuBudget <= 1))
+      throw new IllegalArgumentException("cpuBudget (" + cpuBudget + ") must be between 0 and 1");
+
+    this.cpuBudget = cpuBudget;
+  }
+
+  @Override
+  public double getCpuLoad() {
+    return cpuLoad;
+  }
+
+  @Override
+  public Map<String,Double> getRates() {
+    return new HashMap<>(integrationToRate);
+  }
+
+  @Override
+  public String getLastDecision() {
+    return lastDecision;
+  }
+
+  /**
+   * Returns the span creation rate of the integration with the specified name
+   * in this governor.
+   *
+   * @param integration The name of the integration.
+   * @return The span creation rate of the integration.
+   */
+  double rate(final String integration) {
+    final Double rate = integrationToRate.get(integration);
+    return rate == null ? 1 : rate;
+  }
+}
@@ -0,0 +1,51 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link OverheadGovernor}.
+ */
+public interface OverheadGovernorMXBean {
+  /**
+   * @return The process CPU budget, as a fraction of all available processors.
+   */
+  double getCpuBudget();
+
+  /**
+   * @param cpuBudget The process CPU budget, as a fraction of all available
+   *          processors.
+   */
+  void setCpuBudget(double cpuBudget);
+
+  /**
+   * @return The process CPU load measured by the last evaluation, as a
+   *         fraction of all available processors.
+   */
+  double getCpuLoad();
+
+  /**
+   * @return The span creation rates of integrations that are being shed.
+   */
+  Map<String,Double> getRates();
+
+  /**
+   * @return The last decision of the {@link OverheadGovernor}, or {@code null}
+   *         if no decision has been made.
+   */
+  String getLastDecision();
+}
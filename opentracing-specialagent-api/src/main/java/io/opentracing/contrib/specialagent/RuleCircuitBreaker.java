@@ -0,0 +1,452 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent;
+
+import static io.opentracing.contrib.specialagent.Constants.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+/**
+ * Quarantines {@link AgentRule}s whose advice repeatedly throws exceptions.
+ * The advice of all rules is installed with an exception handler (see
+ * {@link AgentRule#advice(net.bytebuddy.description.type.TypeDescription)})
+ * that suppresses the exception, and reports it to
+ * {@link #onAdviceException(Throwable,String)}.
+ * <p>
+ * Each rule has a circuit that is initially {@code CLOSED}. When the advice
+ * of a rule throws {@value #DEFAULT_FAILURES} exceptions (or
+ * {@value Constants#BREAKER_FAILURES_PROPERTY}) within
+ * {@value #DEFAULT_WINDOW} milliseconds (or
+ * {@value Constants#BREAKER_WINDOW_PROPERTY}), its circuit is {@code OPEN}, and
+ * {@link AgentRule#isAllowed(String,String)} rejects all intercepts of the
+ * rule. After a cool-down of {@value #DEFAULT_COOLDOWN} milliseconds (or
+ * {@value Constants#BREAKER_COOLDOWN_PROPERTY}), the circuit is
+ * {@code HALF_OPEN}, and intercepts of the rule are allowed again: an
+ * exception re-opens the circuit, and {@value #HALF_OPEN_PROBES} intercepts
+ * without an exception close it. State changes are logged, and are exposed
+ * via JMX as {@value #OBJECT_NAME}.
+ * <p>
+ * The circuit is consulted once for each invocation of an instrumented method,
+ * before the enter advice of the rule (see {@link GatedAdvice}). The decision
+ * is kept on a stack of the thread, and is reused by the exit advice of the
+ * rule, so the exit advice runs if, and only if, the enter advice ran, even if
+ * the circuit changes state in between.
+ */
+public final class RuleCircuitBreaker implements RuleCircuitBreakerMXBean {
+  private static final Logger logger = Logger.getLogger(RuleCircuitBreaker.class);
+  static final String OBJECT_NAME = "io.opentracing.contrib.specialagent:type=RuleCircuitBreaker";
+  static final int DEFAULT_FAILURES = 10;
+  static final long DEFAULT_WINDOW = 60000;
+  static final long DEFAULT_COOLDOWN = 60000;
+  static final int HALF_OPEN_PROBES = 10;
+  private static final long REGISTER_DELAY = 1000;
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private static final RuleCircuitBreaker instance = create();
+
+  private static RuleCircuitBreaker create() {
+    final int failures;
+    final long window;
+    final long cooldown;
+    try {
+      final String failuresProperty = System.getProperty(BREAKER_FAILURES_PROPERTY);
+      final String windowProperty = System.getProperty(BREAKER_WINDOW_PROPERTY);
+      final String cooldownProperty = System.getProperty(BREAKER_COOLDOWN_PROPERTY);
+      failures = failuresProperty == null ? DEFAULT_FAILURES : Integer.parseInt(failuresProperty);
+      window = windowProperty == null ? DEFAULT_WINDOW : Long.parseLong(windowProperty);
+      cooldown = cooldownProperty == null ? DEFAULT_COOLDOWN : Long.parseLong(cooldownProperty);
+    }
+    catch (final NumberFormatException e) {
+      logger.severe("Rule circuit breaker is disabled: " + e.getMessage());
+      return null;
+    }
+
+    if (failures < 0 || window <= 0 || cooldown <= 0) {
+      logger.severe("Rule circuit breaker is disabled: " + BREAKER_FAILURES_PROPERTY + " must not be negative, and " + BREAKER_WINDOW_PROPERTY + " and " + BREAKER_COOLDOWN_PROPERTY + " must be positive");
+      return null;
+    }
+
+    return new RuleCircuitBreaker(failures, window, cooldown, OverheadGovernor.SYSTEM_CLOCK);
+  }
+
+  /**
+   * Reports an exception thrown by the advice of the rule with the specified
+   * class name. This method is invoked by the exception handler of the advice,
+   * and must not throw.
+   *
+   * @param t The exception thrown by the advice.
+   * @param className The class name of the {@link AgentRule}.
+   */
+  public static void onAdviceException(final Throwable t, final String className) {
+    try {
+      if (instance != null)
+        instance.fail(className, t);
+      else
+        logger.log(Level.WARNING, "Exception in advice of " + className, t);
+    }
+    catch (final Throwable e) {
+    }
+  }
+
+  /**
+   * @return Whether the circuit breaker is enabled, and may open circuits.
+   */
+  static boolean isEnabled() {
+    return instance != null && instance.threshold > 0;
+  }
+
+  /**
+   * The decisions of the circuits for the invocations of instrumented methods
+   * that are in progress on a thread.
+   */
+  private static final class Gate {
+    private static final int MAX_DEPTH = 1024;
+    private boolean[] decisions = new boolean[16];
+    private int depth;
+    private boolean current = true;
+
+    private int push(final boolean decision) {
+      // Constructors that throw do not pop their decision, so the stack is
+      // cleared if it grows unreasonably deep
+      if (depth == decisions.length) {
+        if (depth == MAX_DEPTH)
+          depth = 0;
+        else
+          decisions = Arrays.copyOf(decisions, depth * 2);
+      }
+
+      decisions[depth++] = current = decision;
+      return depth;
+    }
+
+    private void restore(final int depth) {
+      if (depth <= 0 || depth > decisions.length)
+        return;
+
+      this.depth = depth;
+      current = decisions[depth - 1];
+    }
+  }
+
+  private static final ThreadLocal<Gate> gates = new ThreadLocal<Gate>() {
+    @Override
+    protected Gate initialValue() {
+      return new Gate();
+    }
+  };
+
+  /**
+   * Consults the circuit of the rule with the specified class name for an
+   * invocation of an instrumented method, before the enter advice of the rule.
+   * This method is called by the {@link GatedAdvice}.
+   *
+   * @param className The class name of the {@link AgentRule}.
+   * @return The depth of the decision on the stack of the thread.
+   */
+  public static int onEnter(final String className) {
+    return gates.get().push(isAllowed(className));
+  }
+
+  /**
+   * @return The depth of the stack of decisions of the thread. This method is
+   *         called by the {@link GatedAdvice} after the enter advice of the
+   *         rule.
+   */
+  public static int getDepth() {
+    return gates.get().depth;
+  }
+
+  /**
+   * Restores the decision at the specified depth of the stack of the thread,
+   * before the exit advice of the rule. This method is called by the
+   * {@link GatedAdvice}.
+   *
+   * @param depth The depth of the decision.
+   */
+  public static void onExit(final int depth) {
+    gates.get().restore(depth);
+  }
+
+  /**
+   * Pops the decision at the specified depth of the stack of the thread, after
+   * the exit advice of the rule. This method is called by the
+   * {@link GatedAdvice}.
+   *
+   * @param depth The depth of the decision.
+   */
+  public static void onExitEnd(final int depth) {
+    final Gate gate = gates.get();
+    if (depth > 1)
+      gate.restore(depth - 1);
+    else if (depth == 1) {
+      gate.depth = 0;
+      gate.current = true;
+    }
+  }
+
+  /**
+   * Returns whether the intercept of the rule with the specified class name
+   * is allowed by the decision of the invocation of the instrumented method
+   * that is in progress on the thread, or by the circuit of the rule if the
+   * advice of the rule is not gated.
+   *
+   * @param className The class name of the {@link AgentRule}.
+   * @return Whether the intercept of the rule is allowed.
+   */
+  static boolean isGateOpen(final String className) {
+    if (!isEnabled())
+      return true;
+
+    final Gate gate = gates.get();
+    return gate.depth > 0 ? gate.current : isAllowed(className);
+  }
+
+  /**
+   * Returns whether intercepts of the rule with the specified class name are
+   * allowed, which is {@code false} if the circuit of the rule is open.
+   *
+   * @param className The class name of the {@link AgentRule}.
+   * @return Whether intercepts of the rule with the specified class name are
+   *         allowed.
+   */
+  static boolean isAllowed(final String className) {
+    return instance == null || instance.allow(className);
+  }
+
+  private final class Circuit {
+    private final String className;
+    private volatile State state = State.CLOSED;
+    private long windowStart;
+    private int windowFailures;
+    private long openTime;
+    private final AtomicInteger probes = new AtomicInteger();
+    private volatile long failures;
+
+    private Circuit(final String className) {
+      this.className = className;
+    }
+
+    private boolean allow() {
+      final State state = this.state;
+      if (state == State.CLOSED)
+        return true;
+
+      if (state == State.HALF_OPEN) {
+        if (probes.incrementAndGet() > HALF_OPEN_PROBES)
+          transition(State.HALF_OPEN, State.CLOSED, HALF_OPEN_PROBES + " intercepts without exception");
+
+        return true;
+      }
+
+      return clock.nanoTime() - openTime >= cooldown && transition(State.OPEN, State.HALF_OPEN, "cool-down of " + TimeUnit.NANOSECONDS.toMillis(cooldown) + "ms elapsed");
+    }
+
+    private synchronized long fail() {
+      final long failures = ++this.failures;
+      if (threshold == 0)
+        return failures;
+
+      final long now = clock.nanoTime();
+      if (state == State.HALF_OPEN) {
+        transition(State.HALF_OPEN, State.OPEN, "exception while half-open");
+      }
+      else if (state == State.CLOSED) {
+        if (windowFailures == 0 || now - windowStart >= window) {
+          windowStart = now;
+          windowFailures = 0;
+        }
+
+        if (++windowFailures >= threshold)
+          transition(State.CLOSED, State.OPEN, windowFailures + " exceptions within " + TimeUnit.NANOSECONDS.toMillis(window) + "ms");
+      }
+
+      return failures;
+    }
+
+    private synchronized boolean transition(final State from, final State to, final String reason) {
+      if (state != from)
+        return false;
+
+      if (to == State.OPEN)
+        openTime = clock.nanoTime();
+      else if (to == State.HALF_OPEN)
+        probes.set(0);
+      else
+        windowFailures = 0;
+
+      if (from == State.CLOSED)
+        open.incrementAndGet();
+      else if (to == State.CLOSED)
+        open.decrementAndGet();
+
+      state = to;
+      final String change = className + ": " + from + " -> " + to + " (" + reason + ")";
+      lastStateChange = change;
+      if (to == State.OPEN)
+        logger.warning("Rule circuit breaker: " + change);
+      else
+        logger.info("Rule circuit breaker: " + change);
+
+      return true;
+    }
+  }
+
+  private final int threshold;
+  private final long window;
+  private final long cooldown;
+  private final OverheadGovernor.Clock clock;
+  private final ConcurrentHashMap<String,Circuit> classNameToCircuit = new ConcurrentHashMap<>();
+  private final AtomicInteger open = new AtomicInteger();
+  private final AtomicBoolean registered = new AtomicBoolean();
+  private volatile String lastStateChange;
+
+  /**
+   * Creates a new {@link RuleCircuitBreaker}.
+   *
+   * @param threshold The number of exceptions within the window that open the
+   *          circuit of a rule, or {@code 0} to never open circuits.
+   * @param window The window, in milliseconds.
+   * @param cooldown The cool-down after which an open circuit is half-open, in
+   *          milliseconds.
+   * @param clock The {@link OverheadGovernor.Clock}.
+   */
+  RuleCircuitBreaker(final int threshold, final long window, final long cooldown, final OverheadGovernor.Clock clock) {
+    this.threshold = threshold;
+    this.window = TimeUnit.MILLISECONDS.toNanos(window);
+    this.cooldown = TimeUnit.MILLISECONDS.toNanos(cooldown);
+    this.clock = clock;
+  }
+
+  /**
+   * Returns whether intercepts of the rule with the specified class name are
+   * allowed by this breaker. If no circuit is open, this method does not look
+   * up the circuit of the rule.
+   *
+   * @param className The class name of the {@link AgentRule}.
+   * @return Whether intercepts of the rule are allowed.
+   */
+  boolean allow(final String className) {
+    if (open.get() == 0)
+      return true;
+
+    final Circuit circuit = classNameToCircuit.get(className);
+    return circuit == null || circuit.allow();
+  }
+
+  /**
+   * Records an exception thrown by the advice of the rule with the specified
+   * class name. The first exception of each rule is logged with its stack
+   * trace at {@link Level#WARNING}, and subsequent exceptions at
+   * {@link Level#FINE}.
+   *
+   * @param className The class name of the {@link AgentRule}.
+   * @param t The exception thrown by the advice.
+   */
+  void fail(final String className, final Throwable t) {
+    Circuit circuit = classNameToCircuit.get(className);
+    if (circuit == null) {
+      final Circuit existing = classNameToCircuit.putIfAbsent(className, circuit = new Circuit(className));
+      if (existing != null)
+        circuit = existing;
+    }
+
+    if (circuit.fail() == 1)
+      logger.log(Level.WARNING, "Exception in advice of " + className, t);
+    else if (logger.isLoggable(Level.FINE))
+      logger.log(Level.FINE, "Exception in advice of " + className, t);
+
+    if (this == instance && registered.compareAndSet(false, true))
+      register();
+  }
+
+  State state(final String className) {
+    final Circuit circuit = classNameToCircuit.get(className);
+    return circuit == null ? State.CLOSED : circuit.state;
+  }
+
+  private void register() {
+    final Thread thread = new Thread("SpecialAgent-RuleCircuitBreaker") {
+      @Override
+      public void run() {
+        AgentRule.$Access.disableInstrumentation();
+        try {
+          // The MBean is registered lazily, so as to not initialize the
+          // platform MBeanServer on the application thread
+          Thread.sleep(REGISTER_DELAY);
+          ManagementFactory.getPlatformMBeanServer().registerMBean(RuleCircuitBreaker.this, new ObjectName(OBJECT_NAME));
+        }
+        catch (final InterruptedException e) {
+        }
+        catch (final Exception e) {
+          logger.log(Level.WARNING, "Unable to register " + OBJECT_NAME, e);
+        }
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public Map<String,String> getStates() {
+    final Map<String,String> states = new HashMap<>();
+    for (final Map.Entry<String,Circuit> entry : classNameToCircuit.entrySet())
+      states.put(entry.getKey(), entry.getValue().state.name());
+
+    return states;
+  }
+
+  @Override
+  public Map<String,Long> getFailures() {
+    final Map<String,Long> failures = new HashMap<>();
+    for (final Map.Entry<String,Circuit> entry : classNameToCircuit.entrySet())
+      failures.put(entry.getKey(), entry.getValue().failures);
+
+    return failures;
+  }
+
+  @Override
+  public String getLastStateChange() {
+    return lastStateChange;
+  }
+
+  @Override
+  public void reset(final String className) {
+    final Circuit circuit = classNameToCircuit.get(className);
+    if (circuit == null)
+      return;
+
+    synchronized (circuit) {
+      circuit.transition(State.OPEN, State.CLOSED, "reset");
+      circuit.transition(State.HALF_OPEN, State.CLOSED, "reset");
+      circuit.failures = 0;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link RuleCircuitBreaker}.
+ */
+public interface RuleCircuitBreakerMXBean {
+  /**
+   * @return The states ({@code CLOSED}, {@code OPEN} or {@code HALF_OPEN}) of
+   *         the rules that have thrown exceptions, by class name.
+   */
+  Map<String,String> getStates();
+
+  /**
+   * @return The total number of exceptions thrown by the advice of each rule,
+   *         by class name.
+   */
+  Map<String,Long> getFailures();
+
+  /**
+   * @return The last state change of the {@link RuleCircuitBreaker}, or
+   *         {@code null} if no state has changed.
+   */
+  String getLastStateChange();
+
+  /**
+   * Closes the circuit of the rule with the specified class name, and resets
+   * its failure count.
+   *
+   * @param className The class name of the {@link AgentRule}.
+   */
+  void reset(String className);
+}
@@ -0,0 +1,66 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opentracing.contrib.specialagent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that is striped across a fixed number of cells, each on its own
+ * cache line, so that threads that increment the counter concurrently rarely
+ * contend on the same cell. Reads sum all cells, and are therefore slower than
+ * increments.
+ */
+public final class StripedCounter {
+  private static final int STRIPES = Math.max(2, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+  // 8 longs = 64 bytes, so each cell is on its own cache line
+  private static final int PADDING = 8;
+
+  private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+  private static int cell() {
+    final long id = Thread.currentThread().getId();
+    return (int)((id ^ (id >>> 16)) & (STRIPES - 1)) * PADDING;
+  }
+
+  /**
+   * Increments the counter by one.
+   */
+  public void increment() {
+    cells.getAndIncrement(cell());
+  }
+
+  /**
+   * Adds the specified value to the counter.
+   *
+   * @param value The value to add.
+   */
+  public void add(final long value) {
+    cells.getAndAdd(cell(), value);
+  }
+
+  /**
+   * Returns the sum of all cells of the counter. The value is not an atomic
+   * snapshot if the counter is incremented concurrently.
+   *
+   * @return The value of the counter.
+   */
+  public long get() {
+    long sum = 0;
+    for (int i = 0; i < cells.length(); i += PADDING)
+      sum += cells.get(i);
+
+    return sum;
+  }
+}
@@ -0,0 +1,110 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.type.TypeDescription;
+
+/**
+ * The timing advice that records the latency of the enter and exit advice of a
+ * rule in {@link AgentMetrics}. The advice of the rule is woven in a
+ * {@link NestedAdvice} between an outer and an inner timing advice, so the
+ * latencies of the enter and exit advice of the rule are measured without the
+ * latency of the instrumented method. The timing advice is only woven if
+ * {@link AgentMetrics#isEnabled()}.
+ */
+final class TimedAdvice {
+  /**
+   * Binds the name of the integration of the timed advice.
+   */
+  @Retention(RetentionPolicy.RUNTIME)
+  public @interface Integration {
+  }
+
+  public static class StartEnter {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void enter() {
+      AgentMetrics.onAdviceStart();
+    }
+  }
+
+  public static class EndEnter {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void enter(final @Integration String integration) {
+      AgentMetrics.onAdviceEnd(integration, false);
+    }
+  }
+
+  public static class StartExit {
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit() {
+      AgentMetrics.onAdviceStart();
+    }
+  }
+
+  public static class EndExit {
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(final @Integration String integration) {
+      AgentMetrics.onAdviceEnd(integration, true);
+    }
+  }
+
+  // Exceptions thrown by constructors cannot be caught by advice
+  public static class StartExitConstructor {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void exit() {
+      AgentMetrics.onAdviceStart();
+    }
+  }
+
+  public static class EndExitConstructor {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void exit(final @Integration String integration) {
+      AgentMetrics.onAdviceEnd(integration, true);
+    }
+  }
+
+  /**
+   * Returns the {@link NestedAdvice} that times the specified {@link Advice} of
+   * a rule.
+   *
+   * @param target The {@link Advice} of the rule.
+   * @param advice The advice class (or the enter advice class, if
+   *          {@code exitAdvice} is not null) of the {@link Advice}.
+   * @param exitAdvice The exit advice class of the {@link Advice}, or
+   *          {@code null} if {@code advice} declares both.
+   * @param integration The name of the integration of the rule.
+   * @return The {@link NestedAdvice} that times the specified {@link Advice}.
+   */
+  static Advice of(final Advice target, final TypeDescription advice, final TypeDescription exitAdvice, final String integration) {
+    final boolean enter = !advice.getDeclaredMethods().filter(isAnnotatedWith(Advice.OnMethodEnter.class)).isEmpty();
+    final boolean exit = !(exitAdvice != null ? exitAdvice : advice).getDeclaredMethods().filter(isAnnotatedWith(Advice.OnMethodExit.class)).isEmpty();
+    final Advice.WithCustomMapping mapping = Advice.withCustomMapping().bind(Integration.class, integration);
+    return new NestedAdvice(target, timing(mapping, enter ? StartEnter.class : null, exit ? EndExit.class : null), timing(mapping, enter ? EndEnter.class : null, exit ? StartExit.class : null), timing(mapping, enter ? StartEnter.class : null, exit ? EndExitConstructor.class : null), timing(mapping, enter ? EndEnter.class : null, exit ? StartExitConstructor.class : null));
+  }
+
+  private static Advice timing(final Advice.WithCustomMapping mapping, final Class<?> enter, final Class<?> exit) {
+    return enter == null ? exit == null ? null : mapping.to(exit) : exit == null ? mapping.to(enter) : mapping.to(enter, exit);
+  }
+
+  private TimedAdvice() {
+  }
+}
@@ -0,0 +1,87 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+
+public class GatedAdviceTest {
+  private static final String CLASS_NAME = GatedAdviceTest.class.getName() + "$Rule";
+  public static final List<String> calls = new ArrayList<>();
+
+  public static void record(final String advice) {
+    calls.add(advice + " " + RuleCircuitBreaker.isGateOpen(CLASS_NAME));
+  }
+
+  public static void openCircuit() {
+    for (int i = 0; i < RuleCircuitBreaker.DEFAULT_FAILURES; ++i)
+      RuleCircuitBreaker.onAdviceException(new IllegalStateException(), CLASS_NAME);
+  }
+
+  public static class Target {
+    public void run(final boolean open) {
+      if (open)
+        openCircuit();
+    }
+  }
+
+  public static class Rule {
+    @Advice.OnMethodEnter
+    public static void enter() {
+      GatedAdviceTest.record("enter");
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    public static void exit() {
+      GatedAdviceTest.record("exit");
+    }
+  }
+
+  @Test
+  public void testCircuitOpensBetweenEnterAndExit() throws Exception {
+    assertTrue(RuleCircuitBreaker.isEnabled());
+    final Class<?> cls = new ByteBuddy()
+      .redefine(Target.class)
+      .name(Target.class.getName() + "$Gated")
+      .visit(GatedAdvice.of(Advice.to(Rule.class), CLASS_NAME).on(named("run")))
+      .make()
+      .load(Target.class.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+      .getLoaded();
+
+    final Object target = cls.getConstructor().newInstance();
+
+    // The exit advice follows the decision of the enter advice, even though
+    // the circuit opens in between
+    cls.getMethod("run", boolean.class).invoke(target, true);
+    assertEquals(Arrays.asList("enter true", "exit true"), calls);
+    assertEquals(0, RuleCircuitBreaker.getDepth());
+
+    calls.clear();
+    cls.getMethod("run", boolean.class).invoke(target, false);
+    assertEquals(Arrays.asList("enter false", "exit false"), calls);
+    assertEquals(0, RuleCircuitBreaker.getDepth());
+  }
+}
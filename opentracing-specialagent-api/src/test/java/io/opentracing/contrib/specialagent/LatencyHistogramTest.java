@@ -0,0 +1,52 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+  @Test
+  public void testIndex() {
+    for (long value = 0; value < 1 << 20; ++value) {
+      final int index = LatencyHistogram.index(value);
+      assertTrue(value + " <= " + LatencyHistogram.highestValue(index), value <= LatencyHistogram.highestValue(index));
+      if (index > 0)
+        assertTrue(value + " > " + LatencyHistogram.highestValue(index - 1), value > LatencyHistogram.highestValue(index - 1));
+    }
+
+    assertEquals(0, LatencyHistogram.index(-1));
+    assertEquals(LatencyHistogram.index(Long.MAX_VALUE), LatencyHistogram.index(1L << (LatencyHistogram.MAX_EXPONENT + 1)));
+  }
+
+  @Test
+  public void testPercentiles() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentile(99));
+    for (int i = 1; i <= 1000; ++i)
+      histogram.record(i * 1000);
+
+    assertEquals(1000, histogram.getCount());
+    assertRelative(500_000, histogram.getPercentile(50));
+    assertRelative(990_000, histogram.getPercentile(99));
+    assertRelative(1_000_000, histogram.getPercentile(100));
+  }
+
+  private static void assertRelative(final long expected, final long actual) {
+    assertTrue(expected + " <= " + actual, expected <= actual);
+    assertTrue(expected + " ~ " + actual, actual - expected <= expected >> LatencyHistogram.SUB_BUCKET_BITS);
+  }
+}
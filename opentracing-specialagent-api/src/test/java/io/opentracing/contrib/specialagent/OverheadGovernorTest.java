@@ -0,0 +1,135 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class OverheadGovernorTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * A synthetic clock and CPU load: each {@link #tick(double,long,long)}
+   * advances the clock by one second, with the specified CPU load, and records
+   * the specified number of intercepts for the integrations "a" and "b".
+   */
+  private static class Load implements OverheadGovernor.Clock, OverheadGovernor.CpuProbe {
+    private long nanoTime;
+    private long cpuTime;
+    private OverheadGovernor governor;
+
+    @Override
+    public long nanoTime() {
+      return nanoTime;
+    }
+
+    @Override
+    public long processCpuTime() {
+      return cpuTime;
+    }
+
+    void tick(final double cpuLoad, final long a, final long b) {
+      for (int i = 0; i < a; ++i)
+        governor.count("a");
+
+      for (int i = 0; i < b; ++i)
+        governor.count("b");
+
+      nanoTime += SECOND;
+      cpuTime += (long)(cpuLoad * SECOND * 2);
+      governor.evaluate();
+    }
+  }
+
+  @Test
+  public void testShedAndRestore() {
+    final Load load = new Load();
+    final OverheadGovernor governor = load.governor = new OverheadGovernor(0.5, load, load, 2);
+    governor.evaluate();
+    assertNull(governor.getLastDecision());
+
+    // Under budget: nothing is shed
+    load.tick(0.3, 100, 10);
+    assertEquals(0.3, governor.getCpuLoad(), 0.0001);
+    assertTrue(governor.getRates().isEmpty());
+    assertNull(governor.getLastDecision());
+
+    // Over budget: the integration with the most intercepts is shed first
+    load.tick(0.9, 100, 10);
+    assertEquals(0.5, governor.rate("a"), 0);
+    assertEquals(1, governor.rate("b"), 0);
+    assertNotNull(governor.getLastDecision());
+
+    // Progressively, until it reaches the minimum rate
+    for (int i = 0; i < 5; ++i)
+      load.tick(0.9, 100, 10);
+
+    assertEquals(OverheadGovernor.MIN_RATE, governor.rate("a"), 0);
+    assertEquals(1, governor.rate("b"), 0);
+
+    // Then the integration with the next most intercepts is shed
+    load.tick(0.9, 100, 10);
+    assertEquals(OverheadGovernor.MIN_RATE, governor.rate("a"), 0);
+    assertEquals(0.5, governor.rate("b"), 0);
+
+    // Within the hysteresis band: nothing changes
+    load.tick(0.45, 100, 10);
+    assertEquals(OverheadGovernor.MIN_RATE, governor.rate("a"), 0);
+    assertEquals(0.5, governor.rate("b"), 0);
+
+    // Under budget: the integration that is shed the most is restored first
+    load.tick(0.2, 100, 10);
+    assertEquals(OverheadGovernor.MIN_RATE * 2, governor.rate("a"), 0);
+    assertEquals(0.5, governor.rate("b"), 0);
+
+    for (int i = 0; i < 20; ++i)
+      load.tick(0.2, 100, 10);
+
+    assertTrue(governor.getRates().isEmpty());
+    assertEquals(1, governor.rate("a"), 0);
+    assertEquals(1, governor.rate("b"), 0);
+  }
+
+  @Test
+  public void testNoIntercepts() {
+    final Load load = new Load();
+    final OverheadGovernor governor = load.governor = new OverheadGovernor(0.5, load, load, 2);
+    governor.evaluate();
+    load.tick(1, 0, 0);
+    assertTrue(governor.getRates().isEmpty());
+    assertNull(governor.getLastDecision());
+  }
+
+  @Test
+  public void testCpuBudget() {
+    final Load load = new Load();
+    final OverheadGovernor governor = new OverheadGovernor(0.5, load, load, 1);
+    try {
+      governor.setCpuBudget(0);
+      fail("Expected IllegalArgumentException");
+    }
+    catch (final IllegalArgumentException e) {
+    }
+
+    governor.setCpuBudget(0.75);
+    assertEquals(0.75, governor.getCpuBudget(), 0);
+    assertEquals(1, OverheadGovernor.getRate("a"), 0);
+    assertTrue(OverheadGovernor.newSystemCpuProbe().processCpuTime() > 0);
+  }
+}
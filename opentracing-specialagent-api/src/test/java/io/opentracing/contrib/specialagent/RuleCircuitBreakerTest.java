@@ -0,0 +1,177 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.opentracing.contrib.specialagent.RuleCircuitBreaker.State;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+
+public class RuleCircuitBreakerTest {
+  private static final String RULE = "a";
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private static class Clock implements OverheadGovernor.Clock {
+    private long nanoTime;
+
+    @Override
+    public long nanoTime() {
+      return nanoTime;
+    }
+  }
+
+  /**
+   * An {@link AgentRule} whose advice always throws.
+   */
+  public static class FailingRule extends AgentRule {
+    public static class OnEnter {
+      @Advice.OnMethodEnter(suppress = Throwable.class)
+      public static void enter(final @ClassName String className, final @Advice.Origin String origin) {
+        if (isAllowed(className, origin))
+          throw new IllegalStateException("deliberate");
+      }
+    }
+  }
+
+  public static class Target implements Callable<String> {
+    @Override
+    public String call() {
+      return "called";
+    }
+  }
+
+  private static void fail(final RuleCircuitBreaker breaker, final int times) {
+    for (int i = 0; i < times; ++i)
+      breaker.fail(RULE, new IllegalStateException());
+  }
+
+  @Test
+  public void testOpenAfterFailuresInWindow() {
+    final Clock clock = new Clock();
+    final RuleCircuitBreaker breaker = new RuleCircuitBreaker(3, 10000, 60000, clock);
+    assertTrue(breaker.allow(RULE));
+
+    fail(breaker, 2);
+    assertEquals(State.CLOSED, breaker.state(RULE));
+    assertTrue(breaker.allow(RULE));
+
+    // The window restarts, so the earlier failures are not counted
+    clock.nanoTime += 11 * SECOND;
+    fail(breaker, 2);
+    assertEquals(State.CLOSED, breaker.state(RULE));
+
+    fail(breaker, 1);
+    assertEquals(State.OPEN, breaker.state(RULE));
+    assertFalse(breaker.allow(RULE));
+    assertTrue(breaker.allow("b"));
+    assertEquals(Long.valueOf(5), breaker.getFailures().get(RULE));
+    assertEquals("OPEN", breaker.getStates().get(RULE));
+    assertNotNull(breaker.getLastStateChange());
+  }
+
+  @Test
+  public void testHalfOpen() {
+    final Clock clock = new Clock();
+    final RuleCircuitBreaker breaker = new RuleCircuitBreaker(1, 10000, 60000, clock);
+    fail(breaker, 1);
+    assertFalse(breaker.allow(RULE));
+
+    clock.nanoTime += 59 * SECOND;
+    assertFalse(breaker.allow(RULE));
+
+    // After the cool-down, a failure re-opens the circuit
+    clock.nanoTime += SECOND;
+    assertTrue(breaker.allow(RULE));
+    assertEquals(State.HALF_OPEN, breaker.state(RULE));
+    fail(breaker, 1);
+    assertEquals(State.OPEN, breaker.state(RULE));
+    assertFalse(breaker.allow(RULE));
+
+    // After the next cool-down, intercepts without failure close the circuit
+    clock.nanoTime += 60 * SECOND;
+    assertTrue(breaker.allow(RULE));
+    for (int i = 0; i <= RuleCircuitBreaker.HALF_OPEN_PROBES; ++i) {
+      assertEquals(State.HALF_OPEN, breaker.state(RULE));
+      assertTrue(breaker.allow(RULE));
+    }
+
+    assertEquals(State.CLOSED, breaker.state(RULE));
+    assertTrue(breaker.allow(RULE));
+  }
+
+  @Test
+  public void testReset() {
+    final RuleCircuitBreaker breaker = new RuleCircuitBreaker(1, 10000, 60000, new Clock());
+    fail(breaker, 1);
+    assertFalse(breaker.allow(RULE));
+
+    breaker.reset(RULE);
+    assertEquals(State.CLOSED, breaker.state(RULE));
+    assertEquals(Long.valueOf(0), breaker.getFailures().get(RULE));
+    assertTrue(breaker.allow(RULE));
+  }
+
+  @Test
+  public void testDisabled() {
+    final RuleCircuitBreaker breaker = new RuleCircuitBreaker(0, 10000, 60000, new Clock());
+    fail(breaker, 100);
+    assertEquals(State.CLOSED, breaker.state(RULE));
+    assertTrue(breaker.allow(RULE));
+    assertEquals(Long.valueOf(100), breaker.getFailures().get(RULE));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testFailingRule() throws Exception {
+    final String className = FailingRule.class.getName();
+    AgentRule.$Access.configure(null, Collections.singletonMap(className, "failing"));
+    AgentRule.$Access.init();
+
+    final FailingRule rule = new FailingRule();
+    final TypeDescription typeDescription = new TypeDescription.ForLoadedType(Target.class);
+    final Class<?> type = new ByteBuddy()
+      .redefine(Target.class)
+      .name(Target.class.getName() + "$Instrumented")
+      .visit(rule.advice(typeDescription).to(FailingRule.OnEnter.class).on(named("call")))
+      .make()
+      .load(getClass().getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+      .getLoaded();
+
+    final Callable<String> target = (Callable<String>)type.getConstructor().newInstance();
+
+    // The exceptions of the advice do not reach the caller, and the rule is
+    // quarantined after the default number of failures
+    for (int i = 0; i < RuleCircuitBreaker.DEFAULT_FAILURES; ++i) {
+      assertTrue(RuleCircuitBreaker.isAllowed(className));
+      assertEquals("called", target.call());
+    }
+
+    assertFalse(RuleCircuitBreaker.isAllowed(className));
+    assertFalse(AgentRule.isAllowed(className, "test"));
+    assertEquals("called", target.call());
+  }
+}
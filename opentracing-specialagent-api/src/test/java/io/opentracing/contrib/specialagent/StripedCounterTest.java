@@ -0,0 +1,43 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class StripedCounterTest {
+  @Test
+  public void testConcurrentIncrement() throws InterruptedException {
+    final StripedCounter counter = new StripedCounter();
+    final Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 10000; ++j)
+            counter.increment();
+        }
+      };
+      threads[i].start();
+    }
+
+    for (final Thread thread : threads)
+      thread.join();
+
+    counter.add(5);
+    assertEquals(threads.length * 10000 + 5, counter.get());
+  }
+}
@@ -0,0 +1,112 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+
+public class TimedAdviceTest {
+  public static final List<String> calls = new ArrayList<>();
+
+  public static class Target {
+    public String run(final boolean fail) {
+      calls.add("method");
+      if (fail)
+        throw new IllegalStateException();
+
+      return "result";
+    }
+  }
+
+  public static class Rule {
+    @Advice.OnMethodEnter
+    public static void enter() {
+      TimedAdviceTest.calls.add("enter");
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    public static void exit(@Advice.Return(readOnly = false) String returned) {
+      TimedAdviceTest.calls.add("exit " + returned);
+      returned = "advised";
+    }
+  }
+
+  private static Class<?> weave() {
+    final Advice advice = TimedAdvice.of(Advice.to(Rule.class), TypeDescription.ForLoadedType.of(Rule.class), null, "test");
+    return new ByteBuddy()
+      .redefine(Target.class)
+      .name(Target.class.getName() + "$Timed")
+      .visit(advice.on(named("run")))
+      .make()
+      .load(Target.class.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+      .getLoaded();
+  }
+
+  @Test
+  public void testAdviceOrder() throws Exception {
+    final Class<?> cls = weave();
+    final Object target = cls.getConstructor().newInstance();
+    calls.clear();
+    assertEquals("advised", cls.getMethod("run", boolean.class).invoke(target, false));
+    assertEquals(Arrays.asList("enter", "method", "exit result"), calls);
+  }
+
+  @Test
+  public void testExitOnThrowable() throws Exception {
+    final Class<?> cls = weave();
+    final Object target = cls.getConstructor().newInstance();
+    calls.clear();
+    try {
+      cls.getMethod("run", boolean.class).invoke(target, true);
+      fail("Expected IllegalStateException");
+    }
+    catch (final InvocationTargetException e) {
+      assertEquals(IllegalStateException.class, e.getCause().getClass());
+    }
+
+    assertEquals(Arrays.asList("enter", "method", "exit null"), calls);
+  }
+
+  @Test
+  public void testStartTimes() {
+    final AgentMetrics.StartTimes startTimes = new AgentMetrics.StartTimes();
+    assertEquals(-1, startTimes.pop());
+    startTimes.push(1);
+    startTimes.push(2);
+    assertEquals(2, startTimes.pop());
+    assertEquals(1, startTimes.pop());
+    assertEquals(-1, startTimes.pop());
+
+    // Unmatched starts overflow the stack, which is then cleared
+    for (int i = 0; i < 33; ++i)
+      startTimes.push(i);
+
+    assertEquals(32, startTimes.pop());
+    assertEquals(-1, startTimes.pop());
+  }
+}
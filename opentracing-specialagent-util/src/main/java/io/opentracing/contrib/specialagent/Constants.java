@@ -21,6 +21,20 @@ public final class Constants {
   public static final String INIT_DEFER = "sa.init.defer";
   public static final String REWRITE_ARG = "sa.rewrite";
   public static final String EXPORTER_PROPERTY = "sa.exporter";
+  public static final String SAMPLING_RATE_PROPERTY = "sa.sampling.rate";
+  public static final String TAIL_SAMPLING_MAX_BYTES_PROPERTY = "sa.sampling.tail.maxBytes";
+  public static final String TAIL_SAMPLING_LATENCY_PROPERTY = "sa.sampling.tail.latency";
+  public static final String TAIL_SAMPLING_RATE_PROPERTY = "sa.sampling.tail.rate";
+  public static final String ASYNC_FINISH_CAPACITY_PROPERTY = "sa.finish.async.capacity";
+  public static final String GOVERNOR_CPU_PROPERTY = "sa.governor.cpu";
+  public static final String GOVERNOR_INTERVAL_PROPERTY = "sa.governor.interval";
+  public static final String BREAKER_FAILURES_PROPERTY = "sa.breaker.failures";
+  public static final String BREAKER_WINDOW_PROPERTY = "sa.breaker.window";
+  public static final String BREAKER_COOLDOWN_PROPERTY = "sa.breaker.cooldown";
+  public static final String METRICS_PROPERTY = "sa.metrics";
+  public static final String RED_METRICS_PROPERTY = "sa.metrics.red";
+  public static final String RED_METRICS_PORT_PROPERTY = "sa.metrics.red.port";
+  public static final String RED_METRICS_MAX_SERIES_PROPERTY = "sa.metrics.red.maxSeries";
   public static final String LOG_EVENTS_PROPERTY = "sa.log.events";
   public static final String DEPENDENCIES_TGF = "dependencies.tgf";
 
@@ -228,7 +228,9 @@ public class ByteBuddyManager extends Manager {
           AgentBuilder chainedLocalBuilder1 = newBuilder(inst, null, events);
           AgentBuilder chainedLocalBuilder2 = newBuilder(inst, null, events);
           for (final AgentRule agentRule : agentRules) {
-            loadedRules.add(agentRule.getClass().getName());
+            if (loadedRules.add(agentRule.getClass().getName()))
+              AgentMetrics.onRuleLoaded();
+
             try {
               final AgentBuilder[] unchainedBuilders = agentRule.buildAgentUnchained(newBuilder(inst, integrationRule.getPluginManifest(), events));
               if (unchainedBuilders != null)
@@ -293,6 +295,7 @@ public class ByteBuddyManager extends Manager {
 
     @Override
     public void onDiscovery(final String typeName, final ClassLoader classLoader, final JavaModule module, final boolean loaded) {
+      AgentMetrics.onDiscovery();
       if (events[Event.DISCOVERY.ordinal()] != null)
         log(Level.SEVERE, "Event::onDiscovery(" + typeName + ", " + AssembleUtil.getNameId(classLoader) + ", " + module + ", " + loaded + ")");
     }
@@ -308,6 +311,8 @@ public class ByteBuddyManager extends Manager {
       if (pluginManifest != null && !SpecialAgent.linkRule(pluginManifest, classLoader))
         throw new IncompatiblePluginException(typeDescription.getName());
 
+      AgentMetrics.onTransformation(pluginManifest != null ? pluginManifest.name : null);
+
       if (classLoader != null) {
         try {
           final JavaModule unnamedModule = JavaModule.of(ClassLoader.class.getMethod("getUnnamedModule").invoke(classLoader));
@@ -333,12 +338,14 @@ public class ByteBuddyManager extends Manager {
 
     @Override
     public void onError(final String typeName, final ClassLoader classLoader, final JavaModule module, final boolean loaded, final Throwable throwable) {
+      AgentMetrics.onError();
       if (events[Event.ERROR.ordinal()] != null)
         log(Level.SEVERE, "Event::onError(" + typeName + ", " + AssembleUtil.getNameId(classLoader) + ", " + module + ", " + loaded + ")", throwable);
     }
 
     @Override
     public void onComplete(final String typeName, final ClassLoader classLoader, final JavaModule module, final boolean loaded) {
+      AgentMetrics.onComplete();
       if (events[Event.COMPLETE.ordinal()] != null)
         log(Level.SEVERE, "Event::onComplete(" + typeName + ", " + AssembleUtil.getNameId(classLoader) + ", " + module + ", " + loaded + ")");
     }
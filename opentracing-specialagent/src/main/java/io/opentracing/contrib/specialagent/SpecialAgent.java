@@ -559,6 +559,7 @@ public class SpecialAgent {
     final RuleClassLoader ruleClassLoader = new RuleClassLoader(pluginManifest, isoClassLoader, classLoader, pluginDependencyFiles);
     compatible = ruleClassLoader.isCompatible(classLoader);
     classLoaderToCompatibility.put(classLoader, compatible);
+    AgentMetrics.onRuleLinked(classLoader, compatible);
     if (!compatible) {
       try {
         ruleClassLoader.close();
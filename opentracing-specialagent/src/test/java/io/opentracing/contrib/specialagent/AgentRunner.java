@@ -68,6 +68,12 @@ import org.junit.runners.model.TestClass;
  * <p>
  * The {@link AgentRunner} also has a facility to aide in debugging of the
  * runner's runtime Please refer to {@link Config}.
+ * <p>
+ * The SpecialAgent and the isolated class loader graph are installed once per
+ * JVM. When test classes are run in a reused fork (i.e. Surefire's
+ * {@code reuseForks=true}), subsequent test classes with an equal
+ * {@link Config} reuse them, and the {@code MockTracer} is reset before each
+ * test class.
  *
  * @author Seva Safris
  */
@@ -151,10 +157,17 @@ public class AgentRunner extends BlockJUnit4ClassRunner {
    */
   private static Class<?> loadClassInIsolatedClassLoader(final Class<?> testClass) throws InitializationError, InterruptedException {
     try {
+      // The class loader graph depends only on the rule dependencies and the
+      // location of the test classes, so it is reused for all test classes
+      // that are run in this JVM from the same location
+      final String testClassesPath = testClass.getProtectionDomain().getCodeSource().getLocation().getPath();
+      if (agentRunnerClassLoader != null && testClassesPath.equals(agentRunnerClassesPath))
+        return loadClass(testClass);
+
       final File[] ruleDependencies = MavenUtil.filterRuleURLs(classpath, dependenciesTgf, true, "compile");
       final Set<String> ruleClasses = AgentUtil.getClassFiles(ruleDependencies);
 
-      final Set<String> testAppClasses = AgentUtil.getClassFiles(new File(testClass.getProtectionDomain().getCodeSource().getLocation().getPath()));
+      final Set<String> testAppClasses = AgentUtil.getClassFiles(new File(testClassesPath));
       final File[] libTestDependencies = MavenUtil.filterRuleURLs(classpath, dependenciesTgf, true, "test");
       if (libTestDependencies != null)
         testAppClasses.addAll(AgentUtil.getClassFiles(libTestDependencies));
@@ -211,18 +224,22 @@ public class AgentRunner extends BlockJUnit4ClassRunner {
         }
       };
 
-      final Class<?> classInClassLoader = agentRunnerClassLoader.loadClass(testClass.getName());
-      Assert.assertNotNull("Test class is not resolvable in URLClassLoader: " + testClass.getName(), classInClassLoader);
-      Assert.assertNotNull("Test class must not be resolvable in bootstrap class loader: " + testClass.getName(), classInClassLoader.getClassLoader());
-      Assert.assertEquals("Class " + testClass.getName() + " should have been loaded by the system class loader", appClassLoader, classInClassLoader.getClassLoader());
-
-      return classInClassLoader;
+      agentRunnerClassesPath = testClassesPath;
+      return loadClass(testClass);
     }
     catch (final ClassNotFoundException | IllegalAccessException | InvocationTargetException | IOException | NoSuchMethodException e) {
       throw new InitializationError(e);
     }
   }
 
+  private static Class<?> loadClass(final Class<?> testClass) throws ClassNotFoundException {
+    final Class<?> classInClassLoader = agentRunnerClassLoader.loadClass(testClass.getName());
+    Assert.assertNotNull("Test class is not resolvable in URLClassLoader: " + testClass.getName(), classInClassLoader);
+    Assert.assertNotNull("Test class must not be resolvable in bootstrap class loader: " + testClass.getName(), classInClassLoader.getClassLoader());
+    Assert.assertEquals("Class " + testClass.getName() + " should have been loaded by the system class loader", ClassLoader.getSystemClassLoader(), classInClassLoader.getClassLoader());
+    return classInClassLoader;
+  }
+
   private static File getPath(final String localRepositoryPath, final MavenDependency dependency) {
     final File ideFile;
     if (!inSurefireTest && CWD.getParentFile().getName().equals("rule") && (ideFile = new File(CWD.getParentFile().getParentFile(), dependency.getArtifactId() + "/target/classes")).exists())
@@ -309,10 +326,14 @@ public class AgentRunner extends BlockJUnit4ClassRunner {
   }
 
   private static AgentRunnerClassLoader agentRunnerClassLoader;
+  private static String agentRunnerClassesPath;
+  private static String installedClassesPath;
+  private static Config installedConfig;
 
   private final Adapter adapter;
   private final Config config;
   private final PluginManifest ruleManifest;
+  private final boolean reused;
 
   private void setVerbose(final boolean verbose) {
     System.setProperty("sa.integration." + ruleManifest.name + ".verbose", String.valueOf(verbose));
@@ -342,6 +363,25 @@ public class AgentRunner extends BlockJUnit4ClassRunner {
       path = path.substring(0, path.length() - 13) + "classes/";
 
     this.ruleManifest = Objects.requireNonNull(PluginManifest.getPluginManifest(new File(path)));
+
+    // The SpecialAgent cannot be uninstalled, so it is installed only once per
+    // JVM, and reused by subsequent test classes with an equal configuration
+    // (i.e. when Surefire is configured with reuseForks=true)
+    this.reused = installedClassesPath != null;
+    if (reused) {
+      if (!installedClassesPath.equals(agentRunnerClassesPath) || !Objects.equals(installedConfig, config))
+        throw new InitializationError("@" + AgentRunner.class.getSimpleName() + "." + Config.class.getSimpleName() + " or location of " + testClass.getName() + " differs from that of a test class that was run before it in this JVM: the test class must be run in its own fork (reuseForks=false)");
+    }
+    else {
+      install(testClass);
+      installedConfig = config;
+      installedClassesPath = agentRunnerClassesPath;
+    }
+
+    this.adapter = ServiceLoader.load(Adapter.class).iterator().next();
+  }
+
+  private void install(final Class<?> testClass) {
     final Event[] events;
     final boolean isStaticDeferredAttach;
     if (config == null) {
@@ -408,7 +448,6 @@ public class AgentRunner extends BlockJUnit4ClassRunner {
       throw new IllegalStateException(e.getMessage(), e.getCause());
     }
 
-    this.adapter = ServiceLoader.load(Adapter.class).iterator().next();
   }
 
   private int delta = Integer.MAX_VALUE;
@@ -417,8 +456,26 @@ public class AgentRunner extends BlockJUnit4ClassRunner {
     return new File(new File(CWD, "target/classes"), UtilConstants.META_INF_TEST_MANIFEST);
   }
 
+  /**
+   * Resets the {@code MockTracer} of the reused SpecialAgent, so that spans
+   * finished by test classes that were run before in this JVM are not visible
+   * to this test class.
+   */
+  private void resetTracer() {
+    final Object tracer = adapter.getAgentRunnerTracer();
+    try {
+      tracer.getClass().getMethod("reset").invoke(tracer);
+    }
+    catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   @Override
   public void run(final RunNotifier notifier) {
+    if (reused)
+      resetTracer();
+
     super.run(notifier);
     if (delta != 0)
       return;
@@ -51,13 +51,13 @@ public class AkkaAgentRule extends AgentRule {
   }
 
   public static class Receive {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, @Advice.Argument(value = 1, readOnly = false, typing = Typing.DYNAMIC) Object message) {
       if (isAllowed(className, origin))
        message = AkkaAgentIntercept.aroundReceiveStart(thiz, message);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
         AkkaAgentIntercept.aroundReceiveEnd(thrown);
@@ -65,13 +65,13 @@ public class AkkaAgentRule extends AgentRule {
   }
 
   public static class Tell {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object message, final @Advice.Argument(value = 1) Object sender) {
       if (isAllowed(className, origin))
         message = AkkaAgentIntercept.askStart(thiz, message, "tell", sender);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object message, final @Advice.Argument(value = 1) Object sender, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
         AkkaAgentIntercept.askEnd(thiz, message, thrown, sender);
@@ -79,13 +79,13 @@ public class AkkaAgentRule extends AgentRule {
   }
 
   public static class Ask {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object actorRef, @Advice.Argument(value = 1, readOnly = false, typing = Typing.DYNAMIC) Object message) {
       if (isAllowed(className, origin))
         message = AkkaAgentIntercept.askStart(actorRef, message, "ask", null);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object actorRef, final @Advice.Argument(value = 1) Object message, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
         AkkaAgentIntercept.askEnd(actorRef, message, thrown, null);
@@ -31,11 +31,12 @@ import io.opentracing.util.GlobalTracer;
 
 public class AkkaAgentIntercept {
   static final String COMPONENT_NAME_CLIENT = "akka-http-client";
+  static final int SLOT_CLIENT = LocalSpanContext.slot(COMPONENT_NAME_CLIENT);
   static final String COMPONENT_NAME_SERVER = "akka-http-server";
 
   public static Object requestStart(final Object arg0) {
-    if (LocalSpanContext.get(COMPONENT_NAME_CLIENT) != null) {
-      LocalSpanContext.get(COMPONENT_NAME_CLIENT).increment();
+    if (LocalSpanContext.get(SLOT_CLIENT) != null) {
+      LocalSpanContext.get(SLOT_CLIENT).increment();
       return arg0;
     }
 
@@ -54,14 +55,14 @@ public class AkkaAgentIntercept {
     final HttpHeadersInjectAdapter injectAdapter = new HttpHeadersInjectAdapter(request);
     tracer.inject(span.context(), Builtin.HTTP_HEADERS, injectAdapter);
 
-    LocalSpanContext.set(COMPONENT_NAME_CLIENT, span, tracer.activateSpan(span));
+    LocalSpanContext.set(SLOT_CLIENT, span, tracer.activateSpan(span));
 
     return injectAdapter.getHttpRequest();
   }
 
   @SuppressWarnings("unchecked")
   public static Object requestEnd(final Object returned, final Throwable thrown) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME_CLIENT);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT_CLIENT);
     if (context == null || context.decrementAndGet() != 0)
       return returned;
 
@@ -38,13 +38,13 @@ public class AkkaHttpClientAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object request) {
     if (isAllowed(className, origin))
      request = AkkaAgentIntercept.requestStart(request);
   }
 
-  @Advice.OnMethodExit(onThrowable = Throwable.class)
+  @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned, final @Advice.Thrown Throwable thrown) {
     if (isAllowed(className, origin))
       returned = AkkaAgentIntercept.requestEnd(returned, thrown);
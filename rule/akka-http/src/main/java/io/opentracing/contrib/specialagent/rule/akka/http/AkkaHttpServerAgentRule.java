@@ -44,7 +44,7 @@ public class AkkaHttpServerAgentRule extends AgentRule {
   }
 
   public static class SyncHandler {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object arg0) {
       if (isAllowed(className, origin))
         arg0 = AkkaAgentIntercept.bindAndHandleSync(arg0);
@@ -52,7 +52,7 @@ public class AkkaHttpServerAgentRule extends AgentRule {
   }
 
   public static class AsyncHandler {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object arg0) {
       if (isAllowed(className, origin))
         arg0 = AkkaAgentIntercept.bindAndHandleAsync(arg0);
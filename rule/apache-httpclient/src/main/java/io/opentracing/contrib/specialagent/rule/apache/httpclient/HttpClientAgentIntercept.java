@@ -22,14 +22,16 @@ import org.apache.http.client.ResponseHandler;
 
 import io.opentracing.Span;
 import io.opentracing.Tracer;
-import io.opentracing.contrib.common.WrapperProxy;
 import io.opentracing.contrib.specialagent.LocalSpanContext;
+import io.opentracing.contrib.specialagent.SpanLayer;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import io.opentracing.propagation.Format.Builtin;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 
 public class HttpClientAgentIntercept {
   static final String COMPONENT_NAME = "java-httpclient";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME, SpanLayer.HTTP_CLIENT);
 
   public static Object[] enter(final Object arg0, final Object arg1, final Object arg2) {
     final HttpRequest request = arg0 instanceof HttpRequest ? (HttpRequest)arg0 : arg1 instanceof HttpRequest ? (HttpRequest)arg1 : null;
@@ -42,12 +44,15 @@ public class HttpClientAgentIntercept {
       return null;
     }
 
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context != null) {
       context.increment();
       return null;
     }
 
+    if (LocalSpanContext.isSuppressed(SLOT))
+      return null;
+
     final Tracer tracer = GlobalTracer.get();
     final Span span = tracer
       .buildSpan(request.getRequestLine().getMethod())
@@ -59,20 +64,20 @@ public class HttpClientAgentIntercept {
     for (final ApacheClientSpanDecorator decorator : Configuration.spanDecorators)
       decorator.onRequest(request, arg0 instanceof HttpHost ? (HttpHost)arg0 : null, span);
 
-    LocalSpanContext.set(COMPONENT_NAME, span, null);
+    LocalSpanContext.set(SLOT, span, null);
 
     tracer.inject(span.context(), Builtin.HTTP_HEADERS, new HttpHeadersInjectAdapter(request));
     if (arg1 instanceof ResponseHandler)
-      return new Object[] {WrapperProxy.wrap(arg1, new TracingResponseHandler<>((ResponseHandler<?>)arg1, span))};
+      return new Object[] {WrapperClass.wrap(arg1, new TracingResponseHandler<>((ResponseHandler<?>)arg1, span))};
 
     if (arg2 instanceof ResponseHandler)
-      return new Object[] {null, WrapperProxy.wrap(arg2, new TracingResponseHandler<>((ResponseHandler<?>)arg2, span))};
+      return new Object[] {null, WrapperClass.wrap(arg2, new TracingResponseHandler<>((ResponseHandler<?>)arg2, span))};
 
     return null;
   }
 
   public static void exit(final Object returned) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null || context.decrementAndGet() != 0)
       return;
 
@@ -86,7 +91,7 @@ public class HttpClientAgentIntercept {
   }
 
   public static void onError(final Throwable thrown) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null || context.decrementAndGet() != 0)
       return;
 
@@ -40,7 +40,7 @@ public class HttpClientAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object arg0, @Advice.Argument(value = 1, optional = true, readOnly = false, typing = Typing.DYNAMIC) Object arg1, @Advice.Argument(value = 2, optional = true, readOnly = false, typing = Typing.DYNAMIC) Object arg2) {
     if (!isAllowed(className, origin))
       return;
@@ -55,14 +55,14 @@ public class HttpClientAgentRule extends AgentRule {
       arg2 = objects[1];
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Return Object returned) {
     if (isAllowed(className, origin))
       HttpClientAgentIntercept.exit(returned);
   }
 
   public static class OnException {
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown) {
       if (thrown != null)
         HttpClientAgentIntercept.onError(thrown);
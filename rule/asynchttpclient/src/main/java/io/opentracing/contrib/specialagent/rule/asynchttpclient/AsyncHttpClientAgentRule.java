@@ -38,7 +38,7 @@ public class AsyncHttpClientAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object request, @Advice.Argument(value = 1, readOnly = false, typing = Typing.DYNAMIC) Object handler) {
     if (isAllowed(className, origin))
       handler = AsyncHttpClientAgentIntercept.enter(request, handler);
@@ -37,7 +37,7 @@ public class AwsAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
     if (isAllowed(className, origin))
       AwsAgentIntercept.enter(thiz);
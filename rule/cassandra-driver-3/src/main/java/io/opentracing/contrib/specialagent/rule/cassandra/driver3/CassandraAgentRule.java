@@ -38,7 +38,7 @@ public class CassandraAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
     if (isAllowed(className, origin))
       returned = CassandraAgentIntercept.exit(returned);
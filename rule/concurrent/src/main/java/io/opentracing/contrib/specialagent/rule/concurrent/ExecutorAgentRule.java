@@ -21,8 +21,8 @@ import java.util.concurrent.Executor;
 
 import io.opentracing.Span;
 import io.opentracing.Tracer;
-import io.opentracing.contrib.common.WrapperProxy;
 import io.opentracing.contrib.specialagent.AgentRule;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 import net.bytebuddy.agent.builder.AgentBuilder;
@@ -47,7 +47,7 @@ public class ExecutorAgentRule extends AgentRule {
       .transform(transformer);
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Runnable arg) throws Exception {
     if (!isAllowed(className, origin))
       return;
@@ -58,11 +58,11 @@ public class ExecutorAgentRule extends AgentRule {
         .buildSpan("execute")
         .withTag(Tags.COMPONENT, "java-concurrent")
         .start();
-      arg = WrapperProxy.wrap(arg, new TracedRunnable(arg, span, true));
+      arg = WrapperClass.wrap(arg, new TracedRunnable(arg, span, true));
       span.finish();
     }
     else if (tracer.activeSpan() != null) {
-      arg = WrapperProxy.wrap(arg, new TracedRunnable(arg, tracer.activeSpan(), false));
+      arg = WrapperClass.wrap(arg, new TracedRunnable(arg, tracer.activeSpan(), false));
     }
   }
 }
\ No newline at end of file
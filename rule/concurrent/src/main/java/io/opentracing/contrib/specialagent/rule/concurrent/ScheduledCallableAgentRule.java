@@ -48,7 +48,7 @@ public class ScheduledCallableAgentRule extends AgentRule {
       .transform(transformer);
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Callable<?> arg) throws Exception {
     if (!isAllowed(className, origin))
       return;
@@ -37,7 +37,7 @@ public class CxfRsClientAgentRule extends AgentRule {
   }
 
   public static class CxfRsClientAdvice {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
       if (isAllowed(className, origin))
         CxfAgentIntercept.addClientTracingFeature(thiz);
@@ -37,7 +37,7 @@ public class CxfWsClientAgentRule extends AgentRule {
   }
 
   public static class CxfWsClientAdvice {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
       if (isAllowed(className, origin))
         CxfAgentIntercept.addClientTracingFeature(thiz);
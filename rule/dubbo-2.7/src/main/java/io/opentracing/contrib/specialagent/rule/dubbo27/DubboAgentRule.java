@@ -35,7 +35,7 @@ public class DubboAgentRule extends AgentRule {
       }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 1) Object key, @Advice.Return(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object returned) {
     if (key instanceof String && ("service.filter".equals(key) || "reference.filter".equals(key)) && isAllowed(className, origin))
       returned = DubboAgentIntercept.exit(returned);
@@ -70,13 +70,13 @@ public class DynamicAgentRule extends AgentRule {
     return builders.toArray(new AgentBuilder[builders.size()]);
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin) {
     if (isAllowed(className, origin))
       DynamicAgentIntercept.enter(origin);
   }
 
-  @Advice.OnMethodExit(onThrowable = Throwable.class)
+  @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
     if (isAllowed(className, origin))
       DynamicAgentIntercept.exit(thrown);
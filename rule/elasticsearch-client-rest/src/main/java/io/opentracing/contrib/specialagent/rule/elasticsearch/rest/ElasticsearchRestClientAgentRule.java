@@ -38,7 +38,7 @@ public class ElasticsearchRestClientAgentRule extends AgentRule {
   }
 
   public static class Rest {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.FieldValue(value = "httpClientConfigCallback") Object httpClientConfigCallback) {
       if (isAllowed(className, origin))
         ElasticsearchRestClientAgentIntercept.rest(thiz, httpClientConfigCallback);
@@ -39,7 +39,7 @@ public class ElasticsearchTransportClientAgentRule extends AgentRule {
   }
 
   public static class Transport {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 1) Object request, @Advice.Argument(value = 2, readOnly = false, typing = Typing.DYNAMIC) Object listener) {
       if (isAllowed(className, origin))
         listener = ElasticsearchTransportClientAgentIntercept.transport(request, listener);
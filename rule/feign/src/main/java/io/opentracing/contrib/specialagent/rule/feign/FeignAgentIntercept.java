@@ -27,15 +27,20 @@ import io.opentracing.Span;
 import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
 import io.opentracing.contrib.specialagent.LocalSpanContext;
+import io.opentracing.contrib.specialagent.SpanLayer;
 import io.opentracing.propagation.Format;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 
 public class FeignAgentIntercept {
   static final String COMPONENT_NAME = "java-feign";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME, SpanLayer.HTTP_CLIENT);
 
   public static Object onRequest(final Object arg1, final Object arg2) {
     final Request request = (Request)arg1;
+    if (LocalSpanContext.isSuppressed(SLOT))
+      return request;
+
     final Tracer tracer = GlobalTracer.get();
     final Span span = tracer
       .buildSpan(request.method())
@@ -47,7 +52,7 @@ public class FeignAgentIntercept {
       decorator.onRequest(request, (Options)arg2, span);
 
     final Scope scope = tracer.activateSpan(span);
-    LocalSpanContext.set(COMPONENT_NAME, span, scope);
+    LocalSpanContext.set(SLOT, span, scope);
 
     return inject(tracer, span.context(), request);
   }
@@ -59,6 +64,9 @@ public class FeignAgentIntercept {
   }
 
   public static void onResponse(final Object arg1, final Object arg2, final Object arg3, final Exception e) {
+    if (LocalSpanContext.get(SLOT) == null)
+      return;
+
     final Response response = (Response)arg1;
     final Request request = (Request)arg2;
     final Options options = (Options)arg3;
@@ -75,7 +83,7 @@ public class FeignAgentIntercept {
   }
 
   private static void finish() {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context != null)
       context.closeAndFinish();
   }
@@ -49,13 +49,13 @@ public class FeignAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object request, final @Advice.Argument(value = 1) Object options) {
     if (isAllowed(className, origin))
       request = FeignAgentIntercept.onRequest(request, options);
   }
 
-  @Advice.OnMethodExit(onThrowable = Exception.class)
+  @Advice.OnMethodExit(onThrowable = Exception.class, suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Exception thrown, @Advice.Return Object response, final @Advice.Argument(value = 0) Object request, final @Advice.Argument(value = 1) Object options) {
     if (isAllowed(className, origin))
       FeignAgentIntercept.onResponse(response, request, options, thrown);
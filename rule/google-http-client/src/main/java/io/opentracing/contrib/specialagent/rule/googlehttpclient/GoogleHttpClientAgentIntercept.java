@@ -23,19 +23,24 @@ import io.opentracing.Span;
 import io.opentracing.Tracer;
 import io.opentracing.contrib.specialagent.LocalSpanContext;
 import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.contrib.specialagent.SpanLayer;
 import io.opentracing.propagation.Format.Builtin;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 
 public class GoogleHttpClientAgentIntercept {
   static final String COMPONENT_NAME = "google-http-client";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME, SpanLayer.HTTP_CLIENT);
 
   public static void enter(final Object thiz) {
-    if (LocalSpanContext.get(COMPONENT_NAME) != null) {
-      LocalSpanContext.get(COMPONENT_NAME).increment();
+    if (LocalSpanContext.get(SLOT) != null) {
+      LocalSpanContext.get(SLOT).increment();
       return;
     }
 
+    if (LocalSpanContext.isSuppressed(SLOT))
+      return;
+
     final Tracer tracer = GlobalTracer.get();
     HttpRequest request = (HttpRequest)thiz;
 
@@ -50,11 +55,11 @@ public class GoogleHttpClientAgentIntercept {
     final Scope scope = tracer.activateSpan(span);
     tracer.inject(span.context(), Builtin.HTTP_HEADERS, new HttpHeadersInjectAdapter(request.getHeaders()));
 
-    LocalSpanContext.set(COMPONENT_NAME, span, scope);
+    LocalSpanContext.set(SLOT, span, scope);
   }
 
   public static void exit(Throwable thrown, Object returned) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null)
       return;
 
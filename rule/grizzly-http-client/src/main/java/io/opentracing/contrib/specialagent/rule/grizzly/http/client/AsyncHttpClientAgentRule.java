@@ -36,7 +36,7 @@ public class AsyncHttpClientAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
     if (isAllowed(className, origin))
       AsyncHttpClientAgentIntercept.exit(thiz);
@@ -59,7 +59,7 @@ public class HttpServerFilterRule extends AgentRule {
     }
 
     public static class HandleReadAdvice {
-        @Advice.OnMethodExit
+        @Advice.OnMethodExit(suppress = Throwable.class)
         public static void onExit(
                 final @ClassName String className,
                 final @Advice.Origin String origin,
@@ -71,7 +71,7 @@ public class HttpServerFilterRule extends AgentRule {
     }
 
     public static class WorkerHandleReadAdvice {
-        @Advice.OnMethodEnter
+        @Advice.OnMethodEnter(suppress = Throwable.class)
         public static void onEnter(
                 final @ClassName String className,
                 final @Advice.Origin String origin,
@@ -86,7 +86,7 @@ public class HttpServerFilterRule extends AgentRule {
                 scope = WorkerFilterIntercept.onHandleReadEnter(ctx);
         }
 
-        @Advice.OnMethodExit
+        @Advice.OnMethodExit(suppress = Throwable.class)
         public static void onExit(
                 final @ClassName String className,
                 final @Advice.Origin String origin,
@@ -102,7 +102,7 @@ public class HttpServerFilterRule extends AgentRule {
     }
 
     public static class PrepareResponseAdvice {
-        @Advice.OnMethodExit
+        @Advice.OnMethodExit(suppress = Throwable.class)
         public static void onExit(
                 final @ClassName String className,
                 final @Advice.Origin String origin,
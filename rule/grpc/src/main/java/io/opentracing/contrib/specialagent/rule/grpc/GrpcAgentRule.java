@@ -51,7 +51,7 @@ public class GrpcAgentRule extends AgentRule {
   }
 
   public static class Registry {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object service) {
       if (isAllowed(className, origin))
         service = GrpcAgentIntercept.addService(service);
@@ -59,7 +59,7 @@ public class GrpcAgentRule extends AgentRule {
   }
 
   public static class Stub {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
       if (isAllowed(className, origin))
         returned = GrpcAgentIntercept.build(returned);
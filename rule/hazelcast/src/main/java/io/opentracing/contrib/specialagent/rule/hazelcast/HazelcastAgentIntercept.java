@@ -20,12 +20,12 @@ import java.util.Set;
 
 import com.hazelcast.core.HazelcastInstance;
 
-import io.opentracing.contrib.common.WrapperProxy;
 import io.opentracing.contrib.hazelcast.TracingHazelcastInstance;
+import io.opentracing.contrib.specialagent.WrapperClass;
 
 public class HazelcastAgentIntercept {
   public static Object getOneInstance(final Object returned) {
-    return returned == null ? null : WrapperProxy.wrap(returned, new TracingHazelcastInstance((HazelcastInstance)returned, false));
+    return returned == null ? null : WrapperClass.wrap(returned, new TracingHazelcastInstance((HazelcastInstance)returned, false));
   }
 
   @SuppressWarnings("unchecked")
@@ -75,7 +75,7 @@ public class HazelcastAgentRule extends AgentRule {
   }
 
   public static class OneInstance {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
       if (isAllowed(className, origin))
         returned = HazelcastAgentIntercept.getOneInstance(returned);
@@ -83,7 +83,7 @@ public class HazelcastAgentRule extends AgentRule {
   }
 
   public static class AllInstances {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
       if (isAllowed(className, origin))
         returned = HazelcastAgentIntercept.getAllInstances(returned);
@@ -25,20 +25,23 @@ import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
 import io.opentracing.contrib.specialagent.LocalSpanContext;
 import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.contrib.specialagent.SamplingTracer;
+import io.opentracing.contrib.specialagent.SpanLayer;
 import io.opentracing.propagation.Format.Builtin;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 
 public class HttpURLConnectionAgentIntercept {
   static final String COMPONENT_NAME = "http-url-connection";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME, SpanLayer.HTTP_CLIENT);
 
   public static void enter(final Object thiz, final boolean connected) {
-    if (LocalSpanContext.get(COMPONENT_NAME) != null) {
-      LocalSpanContext.get(COMPONENT_NAME).increment();
+    if (LocalSpanContext.get(SLOT) != null) {
+      LocalSpanContext.get(SLOT).increment();
       return;
     }
 
-    if (connected)
+    if (connected || LocalSpanContext.isSuppressed(SLOT))
       return;
 
     final HttpURLConnection connection = (HttpURLConnection)thiz;
@@ -50,19 +53,22 @@ public class HttpURLConnectionAgentIntercept {
 
     final Span span = tracer.buildSpan(connection.getRequestMethod())
       .withTag(Tags.COMPONENT, COMPONENT_NAME)
-      .withTag(Tags.HTTP_METHOD, connection.getRequestMethod())
-      .withTag(Tags.HTTP_URL, connection.getURL().toString())
-      .withTag(Tags.PEER_PORT, getPort(connection))
-      .withTag(Tags.PEER_HOSTNAME, connection.getURL().getHost()).start();
+      .withTag(Tags.HTTP_METHOD, connection.getRequestMethod()).start();
+
+    if (SamplingTracer.isSampled(span)) {
+      span.setTag(Tags.HTTP_URL, connection.getURL().toString());
+      span.setTag(Tags.PEER_PORT, getPort(connection));
+      span.setTag(Tags.PEER_HOSTNAME, connection.getURL().getHost());
+    }
 
     final Scope scope = tracer.activateSpan(span);
     tracer.inject(span.context(), Builtin.HTTP_HEADERS, new HttpURLConnectionInjectAdapter(connection));
 
-    LocalSpanContext.set(COMPONENT_NAME, span, scope);
+    LocalSpanContext.set(SLOT, span, scope);
   }
 
   public static void exit(final Throwable thrown, int responseCode) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null)
       return;
 
@@ -20,9 +20,9 @@ import static net.bytebuddy.matcher.ElementMatchers.*;
 import java.sql.Connection;
 import java.util.Properties;
 
-import io.opentracing.contrib.common.WrapperProxy;
 import io.opentracing.contrib.specialagent.AgentRule;
 import io.opentracing.contrib.specialagent.EarlyReturnException;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.agent.builder.AgentBuilder.Transformer;
 import net.bytebuddy.asm.Advice;
@@ -100,7 +100,7 @@ public class JdbcAgentRule extends AgentRule {
     @Advice.OnMethodExit(onThrowable = Throwable.class)
     public static void exit(@Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned, @Advice.Thrown(readOnly = false, typing = Typing.DYNAMIC) Throwable thrown) throws Exception {
       if (thrown instanceof EarlyReturnException) {
-        returned = WrapperProxy.wrap(returned, ((EarlyReturnException)thrown).getReturnValue());
+        returned = WrapperClass.wrap(returned, ((EarlyReturnException)thrown).getReturnValue());
         thrown = null;
       }
     }
@@ -15,69 +15,386 @@
 
 package io.opentracing.contrib.specialagent.rule.jedis;
 
+import java.lang.ref.WeakReference;
 import java.nio.charset.StandardCharsets;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import io.opentracing.Span;
 import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.contrib.specialagent.SamplingTracer;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.exceptions.JedisDataException;
 
+/**
+ * Creates a span for each command sent with a Jedis {@code Connection}, which
+ * is finished when its reply is read. Commands that are sent before the reply
+ * of the previous command is read, as with {@code Pipeline} and
+ * {@code Transaction}, are reported as a single aggregate span (named
+ * {@code "transaction"} if the commands include {@code MULTI} or {@code EXEC},
+ * and {@code "pipeline"} otherwise), which is finished when the replies of all
+ * of its commands are read. The state of the span is kept per
+ * {@code Connection}, so that commands sent on other connections by the same
+ * thread are not aggregated in it.
+ */
 public class JedisAgentIntercept {
-  private static final ThreadLocal<Queue<Span>> spanHolder = new ThreadLocal<Queue<Span>>() {
-    @Override
-    protected Queue<Span> initialValue() {
-      return new LinkedList<>();
+  public static final String STATEMENT_MAX_BYTES = "sa.integration.jedis.statement.maxBytes";
+  public static final String STATEMENT_REDACT = "sa.integration.jedis.statement.redact";
+  static final String PIPELINE_OPERATION_NAME = "pipeline";
+  static final String TRANSACTION_OPERATION_NAME = "transaction";
+  static final String COMMANDS_TAG = "redis.commands";
+  static final String COMMAND_COUNTS_TAG = "redis.command.counts";
+
+  private static final int maxBytes = parseMaxBytes(System.getProperty(STATEMENT_MAX_BYTES));
+  private static final boolean redact = !"false".equals(System.getProperty(STATEMENT_REDACT));
+
+  private static final byte NO_KEYS = 0;
+  private static final byte FIRST_KEY = 1;
+  private static final byte ALL_KEYS = 2;
+  private static final byte ALTERNATE_KEYS = 3;
+  private static final Command[] commands = Command.values();
+  private static final byte[] commandToKeys = new byte[commands.length];
+
+  static {
+    for (final Command command : commands)
+      commandToKeys[command.ordinal()] = keys(command.name());
+  }
+
+  private static int parseMaxBytes(final String value) {
+    if (value == null)
+      return 256;
+
+    try {
+      return Math.max(0, Integer.parseInt(value));
     }
-  };
+    catch (final NumberFormatException e) {
+      return 256;
+    }
+  }
+
+  /**
+   * Returns the positions of the keys in the arguments of the command with the
+   * specified name. Commands whose arguments are not keys, or may contain
+   * credentials, are {@link #NO_KEYS}. Unlisted commands are assumed to take
+   * a key as the first argument.
+   *
+   * @param name The name of the command.
+   * @return The positions of the keys in the arguments of the command.
+   */
+  private static byte keys(final String name) {
+    switch (name) {
+      case "AUTH":
+      case "BGREWRITEAOF":
+      case "BGSAVE":
+      case "CLIENT":
+      case "CLUSTER":
+      case "CONFIG":
+      case "DBSIZE":
+      case "DEBUG":
+      case "DISCARD":
+      case "ECHO":
+      case "EVAL":
+      case "EVALSHA":
+      case "EXEC":
+      case "FLUSHALL":
+      case "FLUSHDB":
+      case "INFO":
+      case "LASTSAVE":
+      case "MIGRATE":
+      case "MONITOR":
+      case "MULTI":
+      case "PING":
+      case "QUIT":
+      case "RANDOMKEY":
+      case "SAVE":
+      case "SCAN":
+      case "SCRIPT":
+      case "SELECT":
+      case "SENTINEL":
+      case "SHUTDOWN":
+      case "SLAVEOF":
+      case "SLOWLOG":
+      case "SYNC":
+      case "TIME":
+      case "UNWATCH":
+        return NO_KEYS;
+      case "DEL":
+      case "EXISTS":
+      case "MGET":
+      case "PFCOUNT":
+      case "PSUBSCRIBE":
+      case "PUNSUBSCRIBE":
+      case "SDIFF":
+      case "SINTER":
+      case "SUBSCRIBE":
+      case "SUNION":
+      case "TOUCH":
+      case "UNLINK":
+      case "UNSUBSCRIBE":
+      case "WATCH":
+        return ALL_KEYS;
+      case "MSET":
+      case "MSETNX":
+        return ALTERNATE_KEYS;
+      default:
+        return FIRST_KEY;
+    }
+  }
+
+  /**
+   * Returns the name of the specified command. Commands other than
+   * {@link Command}, which are sent with a custom {@link ProtocolCommand}, are
+   * named by their raw bytes.
+   *
+   * @param command The command.
+   * @return The name of the specified command.
+   */
+  static String name(final ProtocolCommand command) {
+    return command instanceof Command ? ((Command)command).name() : new String(command.getRaw(), StandardCharsets.UTF_8);
+  }
+
+  private static final class State {
+    private Span span;
+    private ProtocolCommand command;
+    private String statement;
+    private int pending;
+    private int count;
+    private int[] counts;
+    private Map<String,Integer> customCounts;
+
+    private void finish() {
+      if (count > 1) {
+        span.setOperationName(counts[Command.MULTI.ordinal()] > 0 || counts[Command.EXEC.ordinal()] > 0 ? TRANSACTION_OPERATION_NAME : PIPELINE_OPERATION_NAME);
+        span.setTag(COMMANDS_TAG, count);
+        span.setTag(COMMAND_COUNTS_TAG, commandCounts());
+      }
+      else if (statement != null) {
+        span.setTag(Tags.DB_STATEMENT, statement);
+      }
+
+      span.finish();
+      span = null;
+      command = null;
+      statement = null;
+      pending = 0;
+      count = 0;
+    }
+
+    private void add(final ProtocolCommand command) {
+      if (counts == null)
+        counts = new int[commands.length];
+
+      if (count == 1)
+        increment(this.command);
+
+      increment(command);
+      ++count;
+    }
+
+    private void increment(final ProtocolCommand command) {
+      if (command instanceof Command) {
+        ++counts[((Command)command).ordinal()];
+        return;
+      }
+
+      if (customCounts == null)
+        customCounts = new LinkedHashMap<>();
+
+      final String name = name(command);
+      final Integer count = customCounts.get(name);
+      customCounts.put(name, count == null ? 1 : count + 1);
+    }
+
+    private String commandCounts() {
+      final StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < counts.length; ++i) {
+        if (counts[i] == 0)
+          continue;
+
+        if (builder.length() > 0)
+          builder.append(',');
+
+        builder.append(commands[i].name()).append(':').append(counts[i]);
+        counts[i] = 0;
+      }
+
+      if (customCounts != null) {
+        for (final Map.Entry<String,Integer> entry : customCounts.entrySet()) {
+          if (builder.length() > 0)
+            builder.append(',');
+
+          builder.append(entry.getKey()).append(':').append(entry.getValue());
+        }
+
+        customCounts.clear();
+      }
 
-  public static void sendCommand(final Object command, final byte[][] args) {
-    final Command cmd = (Command)command;
-    final Span span = GlobalTracer.get()
-      .buildSpan(cmd.name())
+      return builder.toString();
+    }
+  }
+
+  private static final Map<Object,State> connectionToState = Collections.synchronizedMap(new WeakHashMap<Object,State>());
+
+  /**
+   * The connection of the last call to {@link #getState(Object)} on a thread,
+   * and its {@link State}. A connection is used by a single thread at a time,
+   * so this spares most calls the lock of {@link #connectionToState}.
+   */
+  private static final ThreadLocal<LastConnection> lastConnection = new ThreadLocal<>();
+
+  private static final class LastConnection {
+    private final WeakReference<Object> connection;
+    private final State state;
+
+    private LastConnection(final Object connection, final State state) {
+      this.connection = new WeakReference<>(connection);
+      this.state = state;
+    }
+  }
+
+  private static State getState(final Object connection) {
+    final LastConnection last = lastConnection.get();
+    if (last != null && last.connection.get() == connection)
+      return last.state;
+
+    State state;
+    synchronized (connectionToState) {
+      state = connectionToState.get(connection);
+      if (state == null)
+        connectionToState.put(connection, state = new State());
+    }
+
+    lastConnection.set(new LastConnection(connection, state));
+    return state;
+  }
+
+  public static void sendCommand(final Object connection, final Object command, final byte[][] args) {
+    if (!(command instanceof ProtocolCommand))
+      return;
+
+    final ProtocolCommand cmd = (ProtocolCommand)command;
+    final State state = getState(connection);
+    ++state.pending;
+    if (state.span != null) {
+      state.add(cmd);
+      return;
+    }
+
+    state.span = GlobalTracer.get()
+      .buildSpan(name(cmd))
       .withTag(Tags.COMPONENT.getKey(), "java-redis")
       .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT)
       .withTag(Tags.DB_TYPE.getKey(), "redis")
       .start();
-
-    final String redisCommand = convert(args);
-    if (redisCommand != null)
-      span.setTag(Tags.DB_STATEMENT, redisCommand);
-
-    spanHolder.get().add(span);
+    state.command = cmd;
+    if (SamplingTracer.isSampled(state.span))
+      state.statement = statement(cmd, args);
+    state.count = 1;
   }
 
-  private static String convert(final byte[][] args) {
+  /**
+   * Returns the statement of the specified command, which is the name of the
+   * command followed by its arguments. If {@link #STATEMENT_REDACT} is not
+   * {@code false}, the arguments that are not keys are replaced with
+   * {@code ?}. At most {@link #STATEMENT_MAX_BYTES} bytes of the arguments are
+   * decoded, and the remaining arguments are replaced with {@code ...}.
+   *
+   * @param command The command.
+   * @param args The arguments of the command.
+   * @return The statement of the specified command.
+   */
+  static String statement(final ProtocolCommand command, final byte[][] args) {
+    final String name = name(command);
     if (args == null || args.length == 0)
-      return null;
+      return name;
 
-    final StringBuilder builder = new StringBuilder();
+    final byte keys = command instanceof Command ? commandToKeys[((Command)command).ordinal()] : keys(name.toUpperCase(Locale.ROOT));
+    final StringBuilder builder = new StringBuilder(name);
+    int remaining = maxBytes;
     for (int i = 0; i < args.length; ++i) {
-      if (i > 0)
-        builder.append(' ');
+      builder.append(' ');
+      if (redact && !isKey(keys, i)) {
+        builder.append('?');
+        continue;
+      }
+
+      final byte[] arg = args[i];
+      if (remaining <= 0 && arg.length > 0) {
+        builder.append("...");
+        break;
+      }
 
-      builder.append(new String(args[i], StandardCharsets.UTF_8));
+      final int length = utf8Length(arg, remaining);
+      builder.append(new String(arg, 0, length, StandardCharsets.UTF_8));
+      remaining -= length;
+      if (length < arg.length) {
+        builder.append("...");
+        break;
+      }
     }
 
     return builder.toString();
   }
 
-  public static void readCommandOutput() {
-    final Span span = spanHolder.get().poll();
-    if (span != null)
-      span.finish();
+  private static boolean isKey(final byte keys, final int index) {
+    return keys == ALL_KEYS || keys == FIRST_KEY && index == 0 || keys == ALTERNATE_KEYS && index % 2 == 0;
+  }
+
+  /**
+   * Returns the length of the longest prefix of the specified bytes that is at
+   * most {@code max} bytes long, and does not end within a UTF-8 sequence.
+   */
+  private static int utf8Length(final byte[] bytes, final int max) {
+    if (bytes.length <= max)
+      return bytes.length;
+
+    int length = max;
+    while (length > 0 && (bytes[length] & 0xc0) == 0x80)
+      --length;
+
+    return length;
+  }
+
+  /**
+   * Called when sending a command, or flushing the commands that were sent,
+   * fails. The connection is then broken, and the replies of the commands
+   * that were sent on it will not be read, so the span is finished with the
+   * error, and the count of its pending replies is discarded.
+   *
+   * @param connection The connection.
+   * @param thrown The {@link Throwable} thrown by the connection.
+   */
+  public static void sendCommandFailed(final Object connection, final Throwable thrown) {
+    final State state = getState(connection);
+    if (state.span == null)
+      return;
+
+    OpenTracingApiUtil.setErrorTag(state.span, thrown);
+    state.finish();
   }
 
-  public static void onError(final Throwable throwable) {
-    final Span span = spanHolder.get().poll();
-    if (span == null)
+  public static void readCommandOutput(final Object connection, final Throwable thrown) {
+    final State state = getState(connection);
+    if (state.span == null)
       return;
 
-    if (throwable != null)
-      OpenTracingApiUtil.setErrorTag(span, throwable);
+    if (thrown != null) {
+      OpenTracingApiUtil.setErrorTag(state.span, thrown);
+      // An error reply leaves the connection in sync with the replies of the
+      // remaining commands, any other error does not
+      if (!(thrown instanceof JedisDataException)) {
+        state.finish();
+        return;
+      }
+    }
 
-    span.finish();
+    if (--state.pending <= 0)
+      state.finish();
   }
-}
\ No newline at end of file
+}
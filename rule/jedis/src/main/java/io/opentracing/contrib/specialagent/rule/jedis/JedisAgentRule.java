@@ -44,31 +44,37 @@ public class JedisAgentRule extends AgentRule {
       .transform(new Transformer() {
         @Override
         public Builder<?> transform(final Builder<?> builder, final TypeDescription typeDescription, final ClassLoader classLoader, final JavaModule module) {
-          return builder.visit(advice(typeDescription).to(OnError.class).on(named("readProtocolWithCheckingBroken")));
+          return builder.visit(advice(typeDescription).to(Flush.class).on(named("flush").and(takesArguments(0))));
         }});
   }
 
   public static class SendCommand {
-    @Advice.OnMethodEnter
-    public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object command, final @Advice.Argument(value = 1, readOnly = false, typing = Typing.DYNAMIC) byte[][] args) {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object command, final @Advice.Argument(value = 1, readOnly = false, typing = Typing.DYNAMIC) byte[][] args) {
       if (isAllowed(className, origin))
-        JedisAgentIntercept.sendCommand(command, args);
+        JedisAgentIntercept.sendCommand(thiz, command, args);
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Thrown Throwable thrown) {
+      if (thrown != null && isAllowed(className, origin))
+        JedisAgentIntercept.sendCommandFailed(thiz, thrown);
     }
   }
 
-  public static class ReadCommandOutput {
-    @Advice.OnMethodExit
-    public static void exit(final @ClassName String className, final @Advice.Origin String origin) {
-      if (isAllowed(className, origin))
-        JedisAgentIntercept.readCommandOutput();
+  public static class Flush {
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Thrown Throwable thrown) {
+      if (thrown != null && isAllowed(className, origin))
+        JedisAgentIntercept.sendCommandFailed(thiz, thrown);
     }
   }
 
-  public static class OnError {
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
-    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
+  public static class ReadCommandOutput {
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
-        JedisAgentIntercept.onError(thrown);
+        JedisAgentIntercept.readCommandOutput(thiz, thrown);
     }
   }
 }
\ No newline at end of file
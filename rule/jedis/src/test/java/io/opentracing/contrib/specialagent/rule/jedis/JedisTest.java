@@ -17,6 +17,9 @@ package io.opentracing.contrib.specialagent.rule.jedis;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -32,12 +35,30 @@ import io.opentracing.contrib.specialagent.TestUtil;
 import io.opentracing.mock.MockSpan;
 import io.opentracing.mock.MockTracer;
 import io.opentracing.tag.Tags;
+import redis.clients.jedis.Connection;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol.Command;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.exceptions.JedisConnectionException;
 import redis.embedded.RedisServer;
 
 @RunWith(AgentRunner.class)
 public class JedisTest {
+  private static final ProtocolCommand ECHO = new ProtocolCommand() {
+    @Override
+    public byte[] getRaw() {
+      return "ECHO".getBytes();
+    }
+  };
+
+  private static class CustomConnection extends Connection {
+    private void send(final ProtocolCommand command, final byte[] ... args) {
+      sendCommand(command, args);
+    }
+  }
+
   private static RedisServer redisServer;
   private Jedis jedis;
 
@@ -106,10 +127,141 @@ public class JedisTest {
     for (int i = 0; i < 5; ++i)
       pipeline.set("key-" + i, "value-" + i);
 
+    pipeline.get("key-0");
     pipeline.sync();
     final List<MockSpan> spans = tracer.finishedSpans();
-    assertEquals(5, spans.size());
+    assertEquals(1, spans.size());
+    checkSpans(spans);
+
+    final MockSpan span = spans.get(0);
+    assertEquals(JedisAgentIntercept.PIPELINE_OPERATION_NAME, span.operationName());
+    assertEquals(6, span.tags().get(JedisAgentIntercept.COMMANDS_TAG));
+    assertEquals("SET:5,GET:1", span.tags().get(JedisAgentIntercept.COMMAND_COUNTS_TAG));
+    assertNull(span.tags().get(Tags.DB_STATEMENT.getKey()));
+  }
+
+  @Test
+  public void pipelineWithCustomCommand(final MockTracer tracer) {
+    final CustomConnection connection = new CustomConnection();
+    try {
+      connection.send(ECHO, "message".getBytes());
+      connection.send(Command.SET, "key".getBytes(), "value".getBytes());
+      connection.send(ECHO, "message".getBytes());
+      assertEquals(3, connection.getAll().size());
+
+      connection.send(ECHO, "message".getBytes());
+      assertEquals(1, connection.getAll().size());
+    }
+    finally {
+      connection.disconnect();
+    }
+
+    final List<MockSpan> spans = tracer.finishedSpans();
+    assertEquals(2, spans.size());
     checkSpans(spans);
+
+    final MockSpan pipeline = spans.get(0);
+    assertEquals(JedisAgentIntercept.PIPELINE_OPERATION_NAME, pipeline.operationName());
+    assertEquals(3, pipeline.tags().get(JedisAgentIntercept.COMMANDS_TAG));
+    assertEquals("SET:1,ECHO:2", pipeline.tags().get(JedisAgentIntercept.COMMAND_COUNTS_TAG));
+
+    final MockSpan echo = spans.get(1);
+    assertEquals("ECHO", echo.operationName());
+    assertEquals("ECHO ?", echo.tags().get(Tags.DB_STATEMENT.getKey()));
+  }
+
+  @Test
+  public void transaction(final MockTracer tracer) {
+    final Transaction transaction = jedis.multi();
+    transaction.set("key", "value");
+    transaction.get("key");
+    transaction.exec();
+
+    final List<MockSpan> spans = tracer.finishedSpans();
+    checkSpans(spans);
+    final MockSpan span = spans.get(spans.size() - 1);
+    assertEquals(JedisAgentIntercept.TRANSACTION_OPERATION_NAME, span.operationName());
+    assertNull(span.tags().get(Tags.ERROR.getKey()));
+
+    // A single span follows the transaction
+    assertEquals("value", jedis.get("key"));
+    assertEquals(spans.size() + 1, tracer.finishedSpans().size());
+  }
+
+  @Test
+  public void statement(final MockTracer tracer) {
+    jedis.set("key", "secret");
+    jedis.mset("key1", "secret1", "key2", "secret2");
+    jedis.del("key1", "key2");
+
+    final List<MockSpan> spans = tracer.finishedSpans();
+    assertEquals(3, spans.size());
+    assertEquals("SET key ?", spans.get(0).tags().get(Tags.DB_STATEMENT.getKey()));
+    assertEquals("MSET key1 ? key2 ?", spans.get(1).tags().get(Tags.DB_STATEMENT.getKey()));
+    assertEquals("DEL key1 key2", spans.get(2).tags().get(Tags.DB_STATEMENT.getKey()));
+  }
+
+  @Test
+  public void connectionRefused(final MockTracer tracer) throws IOException {
+    final int port;
+    try (final ServerSocket serverSocket = new ServerSocket(0)) {
+      port = serverSocket.getLocalPort();
+    }
+
+    // The connection fails while the command is sent
+    try (final Jedis refused = new Jedis("localhost", port)) {
+      refused.get("key");
+      fail("Expected JedisConnectionException");
+    }
+    catch (final JedisConnectionException ignore) {
+    }
+
+    checkFailed(tracer);
+  }
+
+  @Test
+  public void connectionClosed(final MockTracer tracer) throws Exception {
+    try (final ServerSocket serverSocket = new ServerSocket(0)) {
+      final Thread server = new Thread() {
+        @Override
+        public void run() {
+          try (final Socket socket = serverSocket.accept()) {
+            socket.getInputStream().read();
+          }
+          catch (final IOException ignore) {
+          }
+        }
+      };
+      server.start();
+
+      // The connection is closed by the server before the reply is read
+      try (final Jedis closed = new Jedis("localhost", serverSocket.getLocalPort())) {
+        closed.get("key");
+        fail("Expected JedisConnectionException");
+      }
+      catch (final JedisConnectionException ignore) {
+      }
+
+      server.join();
+    }
+
+    checkFailed(tracer);
+  }
+
+  private void checkFailed(final MockTracer tracer) {
+    List<MockSpan> spans = tracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals("GET", spans.get(0).operationName());
+    assertEquals(Boolean.TRUE, spans.get(0).tags().get(Tags.ERROR.getKey()));
+    checkSpans(spans);
+
+    // The next command of the thread is not aggregated with the failed one
+    tracer.reset();
+    assertEquals("OK", jedis.set("key", "value"));
+    spans = tracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals("SET", spans.get(0).operationName());
+    assertNull(spans.get(0).tags().get(Tags.ERROR.getKey()));
   }
 
   private static void checkSpans(final List<MockSpan> spans) {
@@ -15,6 +15,13 @@
 
 package io.opentracing.contrib.specialagent.rule.jms;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.jms.JMSConsumer;
+import javax.jms.JMSContext;
+import javax.jms.JMSProducer;
 import javax.jms.MessageConsumer;
 import javax.jms.MessageProducer;
 
@@ -22,17 +29,52 @@ import io.opentracing.contrib.jms.common.TracingMessageConsumer;
 import io.opentracing.util.GlobalTracer;
 
 public class JmsAgentIntercept {
-  public static Object createProducer(final Object thiz) {
+  private static final Map<ClassLoader,Boolean> classLoaderToJms2 = Collections.synchronizedMap(new WeakHashMap<ClassLoader,Boolean>());
+
+  /**
+   * Returns whether JMS 2 is available to the specified class loader. The
+   * result is cached per class loader, so that the lookup of
+   * {@code javax.jms.JMSContext} (and the {@link ClassNotFoundException} with
+   * JMS 1) is paid once per class loader, instead of on every call to
+   * {@code Session.createProducer()}.
+   *
+   * @param classLoader The class loader.
+   * @return Whether JMS 2 is available to the specified class loader.
+   */
+  private static boolean isJms2(final ClassLoader classLoader) {
+    final Boolean cached = classLoaderToJms2.get(classLoader);
+    if (cached != null)
+      return cached;
+
+    boolean jms2;
     try {
-      Class.forName("javax.jms.JMSContext", false, thiz.getClass().getClassLoader());
-      return new io.opentracing.contrib.jms2.TracingMessageProducer((MessageProducer)thiz, GlobalTracer.get());
+      Class.forName("javax.jms.JMSContext", false, classLoader);
+      jms2 = true;
     }
     catch (final ClassNotFoundException e) {
-      return new io.opentracing.contrib.jms.TracingMessageProducer((MessageProducer)thiz, GlobalTracer.get());
+      jms2 = false;
     }
+
+    classLoaderToJms2.put(classLoader, jms2);
+    return jms2;
+  }
+
+  public static Object createProducer(final Object thiz) {
+    if (isJms2(thiz.getClass().getClassLoader()))
+      return new io.opentracing.contrib.jms2.TracingMessageProducer((MessageProducer)thiz, GlobalTracer.get());
+
+    return new io.opentracing.contrib.jms.TracingMessageProducer((MessageProducer)thiz, GlobalTracer.get());
   }
 
   public static Object createConsumer(final Object thiz) {
     return new TracingMessageConsumer((MessageConsumer)thiz, GlobalTracer.get(), true);
   }
-}
\ No newline at end of file
+
+  public static Object createJMSProducer(final Object thiz, final Object returned) {
+    return returned instanceof TracingJMSProducer ? returned : new TracingJMSProducer((JMSProducer)returned, (JMSContext)thiz, GlobalTracer.get());
+  }
+
+  public static Object createJMSConsumer(final Object returned) {
+    return returned instanceof TracingJMSConsumer ? returned : new TracingJMSConsumer((JMSConsumer)returned, GlobalTracer.get());
+  }
+}
@@ -17,8 +17,8 @@ package io.opentracing.contrib.specialagent.rule.jms;
 
 import static net.bytebuddy.matcher.ElementMatchers.*;
 
-import io.opentracing.contrib.common.WrapperProxy;
 import io.opentracing.contrib.specialagent.AgentRule;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.agent.builder.AgentBuilder.Transformer;
 import net.bytebuddy.asm.Advice;
@@ -41,22 +41,49 @@ public class JmsAgentRule extends AgentRule {
         @Override
         public Builder<?> transform(final Builder<?> builder, final TypeDescription typeDescription, final ClassLoader classLoader, final JavaModule module) {
           return builder.visit(advice(typeDescription).to(Consumer.class).on(named("createConsumer").and(returns(named("javax.jms.MessageConsumer")))));
+        }})
+      .type(not(isInterface()).and(hasSuperType(named("javax.jms.JMSContext")).and(not(nameStartsWith("io.opentracing.contrib.")))))
+      .transform(new Transformer() {
+        @Override
+        public Builder<?> transform(final Builder<?> builder, final TypeDescription typeDescription, final ClassLoader classLoader, final JavaModule module) {
+          return builder.visit(advice(typeDescription).to(ContextProducer.class).on(named("createProducer").and(returns(named("javax.jms.JMSProducer")))));
+        }})
+      .transform(new Transformer() {
+        @Override
+        public Builder<?> transform(final Builder<?> builder, final TypeDescription typeDescription, final ClassLoader classLoader, final JavaModule module) {
+          return builder.visit(advice(typeDescription).to(ContextConsumer.class).on(nameStartsWith("create").and(returns(named("javax.jms.JMSConsumer")))));
         }});
   }
 
   public static class Producer {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
-      if (isAllowed(className, origin) && !WrapperProxy.isWrapper(returned))
-        returned = WrapperProxy.wrap(returned, JmsAgentIntercept.createProducer(returned));
+      if (isAllowed(className, origin) && !WrapperClass.isWrapper(returned))
+        returned = WrapperClass.wrap(returned, JmsAgentIntercept.createProducer(returned));
     }
   }
 
   public static class Consumer {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
-      if (isAllowed(className, origin) && !WrapperProxy.isWrapper(returned))
-        returned = WrapperProxy.wrap(returned, JmsAgentIntercept.createConsumer(returned));
+      if (isAllowed(className, origin) && !WrapperClass.isWrapper(returned))
+        returned = WrapperClass.wrap(returned, JmsAgentIntercept.createConsumer(returned));
+    }
+  }
+
+  public static class ContextProducer {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
+      if (isAllowed(className, origin))
+        returned = JmsAgentIntercept.createJMSProducer(thiz, returned);
+    }
+  }
+
+  public static class ContextConsumer {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
+      if (isAllowed(className, origin))
+        returned = JmsAgentIntercept.createJMSConsumer(returned);
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.rule.jms;
+
+import javax.jms.JMSConsumer;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+
+import io.opentracing.Tracer;
+import io.opentracing.contrib.jms.common.TracingMessageListener;
+import io.opentracing.contrib.jms.common.TracingMessageUtils;
+
+/**
+ * A {@link JMSConsumer} that creates a span for each message received by the
+ * target {@link JMSConsumer}, and for each message delivered to its
+ * {@link MessageListener}. The {@code receiveBody} methods are not traced,
+ * because they do not expose the received {@link Message}.
+ */
+final class TracingJMSConsumer implements JMSConsumer {
+  private final JMSConsumer consumer;
+  private final Tracer tracer;
+  private MessageListener listener;
+
+  TracingJMSConsumer(final JMSConsumer consumer, final Tracer tracer) {
+    this.consumer = consumer;
+    this.tracer = tracer;
+  }
+
+  private Message finishReceive(final Message message) {
+    if (message != null)
+      TracingMessageUtils.buildAndFinishChildSpan(message, tracer);
+
+    return message;
+  }
+
+  @Override
+  public String getMessageSelector() {
+    return consumer.getMessageSelector();
+  }
+
+  @Override
+  public MessageListener getMessageListener() {
+    final MessageListener listener = consumer.getMessageListener();
+    return listener instanceof TracingMessageListener && this.listener != null ? this.listener : listener;
+  }
+
+  @Override
+  public void setMessageListener(final MessageListener listener) {
+    consumer.setMessageListener(listener == null ? null : new TracingMessageListener(listener, tracer));
+    this.listener = listener;
+  }
+
+  @Override
+  public Message receive() {
+    return finishReceive(consumer.receive());
+  }
+
+  @Override
+  public Message receive(final long timeout) {
+    return finishReceive(consumer.receive(timeout));
+  }
+
+  @Override
+  public Message receiveNoWait() {
+    return finishReceive(consumer.receiveNoWait());
+  }
+
+  @Override
+  public void close() {
+    consumer.close();
+  }
+
+  @Override
+  public <T> T receiveBody(final Class<T> c) {
+    return consumer.receiveBody(c);
+  }
+
+  @Override
+  public <T> T receiveBody(final Class<T> c, final long timeout) {
+    return consumer.receiveBody(c, timeout);
+  }
+
+  @Override
+  public <T> T receiveBodyNoWait(final Class<T> c) {
+    return consumer.receiveBodyNoWait(c);
+  }
+}
@@ -0,0 +1,359 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.rule.jms;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jms.BytesMessage;
+import javax.jms.CompletionListener;
+import javax.jms.Destination;
+import javax.jms.JMSContext;
+import javax.jms.JMSException;
+import javax.jms.JMSProducer;
+import javax.jms.JMSRuntimeException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageFormatException;
+import javax.jms.MessageFormatRuntimeException;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.contrib.jms.common.TracingMessageUtils;
+import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+
+/**
+ * A {@link JMSProducer} that creates a span for each message sent by the
+ * target {@link JMSProducer}, and injects its context into the message. The
+ * bodies sent with the {@code send} methods that do not take a
+ * {@link Message} are sent in a {@link Message} created with the
+ * {@link JMSContext} of the producer, so that the span context can be
+ * injected into its properties.
+ */
+final class TracingJMSProducer implements JMSProducer {
+  private final JMSProducer producer;
+  private final JMSContext context;
+  private final Tracer tracer;
+
+  TracingJMSProducer(final JMSProducer producer, final JMSContext context, final Tracer tracer) {
+    this.producer = producer;
+    this.context = context;
+    this.tracer = tracer;
+  }
+
+  private static JMSRuntimeException toRuntimeException(final JMSException e) {
+    if (e instanceof MessageFormatException)
+      return new MessageFormatRuntimeException(e.getMessage(), e.getErrorCode(), e);
+
+    return new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e);
+  }
+
+  @Override
+  public JMSProducer send(final Destination destination, final Message message) {
+    final Span span = TracingMessageUtils.buildAndInjectSpan(destination, message, tracer);
+    try (final Scope scope = tracer.activateSpan(span)) {
+      producer.send(destination, message);
+      return this;
+    }
+    catch (final RuntimeException e) {
+      OpenTracingApiUtil.setErrorTag(span, e);
+      throw e;
+    }
+    finally {
+      span.finish();
+    }
+  }
+
+  @Override
+  public JMSProducer send(final Destination destination, final String body) {
+    return send(destination, context.createTextMessage(body));
+  }
+
+  @Override
+  public JMSProducer send(final Destination destination, final Map<String,Object> body) {
+    final MapMessage message = context.createMapMessage();
+    if (body != null) {
+      try {
+        for (final Map.Entry<String,Object> entry : body.entrySet())
+          message.setObject(entry.getKey(), entry.getValue());
+      }
+      catch (final JMSException e) {
+        throw toRuntimeException(e);
+      }
+    }
+
+    return send(destination, message);
+  }
+
+  @Override
+  public JMSProducer send(final Destination destination, final byte[] body) {
+    final BytesMessage message = context.createBytesMessage();
+    if (body != null) {
+      try {
+        message.writeBytes(body);
+      }
+      catch (final JMSException e) {
+        throw toRuntimeException(e);
+      }
+    }
+
+    return send(destination, message);
+  }
+
+  @Override
+  public JMSProducer send(final Destination destination, final Serializable body) {
+    return send(destination, context.createObjectMessage(body));
+  }
+
+  @Override
+  public JMSProducer setDisableMessageID(final boolean value) {
+    producer.setDisableMessageID(value);
+    return this;
+  }
+
+  @Override
+  public boolean getDisableMessageID() {
+    return producer.getDisableMessageID();
+  }
+
+  @Override
+  public JMSProducer setDisableMessageTimestamp(final boolean value) {
+    producer.setDisableMessageTimestamp(value);
+    return this;
+  }
+
+  @Override
+  public boolean getDisableMessageTimestamp() {
+    return producer.getDisableMessageTimestamp();
+  }
+
+  @Override
+  public JMSProducer setDeliveryMode(final int deliveryMode) {
+    producer.setDeliveryMode(deliveryMode);
+    return this;
+  }
+
+  @Override
+  public int getDeliveryMode() {
+    return producer.getDeliveryMode();
+  }
+
+  @Override
+  public JMSProducer setPriority(final int priority) {
+    producer.setPriority(priority);
+    return this;
+  }
+
+  @Override
+  public int getPriority() {
+    return producer.getPriority();
+  }
+
+  @Override
+  public JMSProducer setTimeToLive(final long timeToLive) {
+    producer.setTimeToLive(timeToLive);
+    return this;
+  }
+
+  @Override
+  public long getTimeToLive() {
+    return producer.getTimeToLive();
+  }
+
+  @Override
+  public JMSProducer setDeliveryDelay(final long deliveryDelay) {
+    producer.setDeliveryDelay(deliveryDelay);
+    return this;
+  }
+
+  @Override
+  public long getDeliveryDelay() {
+    return producer.getDeliveryDelay();
+  }
+
+  @Override
+  public JMSProducer setAsync(final CompletionListener completionListener) {
+    producer.setAsync(completionListener);
+    return this;
+  }
+
+  @Override
+  public CompletionListener getAsync() {
+    return producer.getAsync();
+  }
+
+  @Override
+  public JMSProducer setProperty(final String name, final boolean value) {
+    producer.setProperty(name, value);
+    return this;
+  }
+
+  @Override
+  public JMSProducer setProperty(final String name, final byte value) {
+    producer.setProperty(name, value);
+    return this;
+  }
+
+  @Override
+  public JMSProducer setProperty(final String name, final short value) {
+    producer.setProperty(name, value);
+    return this;
+  }
+
+  @Override
+  public JMSProducer setProperty(final String name, final int value) {
+    producer.setProperty(name, value);
+    return this;
+  }
+
+  @Override
+  public JMSProducer setProperty(final String name, final long value) {
+    producer.setProperty(name, value);
+    return this;
+  }
+
+  @Override
+  public JMSProducer setProperty(final String name, final float value) {
+    producer.setProperty(name, value);
+    return this;
+  }
+
+  @Override
+  public JMSProducer setProperty(final String name, final double value) {
+    producer.setProperty(name, value);
+    return this;
+  }
+
+  @Override
+  public JMSProducer setProperty(final String name, final String value) {
+    producer.setProperty(name, value);
+    return this;
+  }
+
+  @Override
+  public JMSProducer setProperty(final String name, final Object value) {
+    producer.setProperty(name, value);
+    return this;
+  }
+
+  @Override
+  public JMSProducer clearProperties() {
+    producer.clearProperties();
+    return this;
+  }
+
+  @Override
+  public boolean propertyExists(final String name) {
+    return producer.propertyExists(name);
+  }
+
+  @Override
+  public boolean getBooleanProperty(final String name) {
+    return producer.getBooleanProperty(name);
+  }
+
+  @Override
+  public byte getByteProperty(final String name) {
+    return producer.getByteProperty(name);
+  }
+
+  @Override
+  public short getShortProperty(final String name) {
+    return producer.getShortProperty(name);
+  }
+
+  @Override
+  public int getIntProperty(final String name) {
+    return producer.getIntProperty(name);
+  }
+
+  @Override
+  public long getLongProperty(final String name) {
+    return producer.getLongProperty(name);
+  }
+
+  @Override
+  public float getFloatProperty(final String name) {
+    return producer.getFloatProperty(name);
+  }
+
+  @Override
+  public double getDoubleProperty(final String name) {
+    return producer.getDoubleProperty(name);
+  }
+
+  @Override
+  public String getStringProperty(final String name) {
+    return producer.getStringProperty(name);
+  }
+
+  @Override
+  public Object getObjectProperty(final String name) {
+    return producer.getObjectProperty(name);
+  }
+
+  @Override
+  public Set<String> getPropertyNames() {
+    return producer.getPropertyNames();
+  }
+
+  @Override
+  public JMSProducer setJMSCorrelationIDAsBytes(final byte[] correlationID) {
+    producer.setJMSCorrelationIDAsBytes(correlationID);
+    return this;
+  }
+
+  @Override
+  public byte[] getJMSCorrelationIDAsBytes() {
+    return producer.getJMSCorrelationIDAsBytes();
+  }
+
+  @Override
+  public JMSProducer setJMSCorrelationID(final String correlationID) {
+    producer.setJMSCorrelationID(correlationID);
+    return this;
+  }
+
+  @Override
+  public String getJMSCorrelationID() {
+    return producer.getJMSCorrelationID();
+  }
+
+  @Override
+  public JMSProducer setJMSType(final String type) {
+    producer.setJMSType(type);
+    return this;
+  }
+
+  @Override
+  public String getJMSType() {
+    return producer.getJMSType();
+  }
+
+  @Override
+  public JMSProducer setJMSReplyTo(final Destination replyTo) {
+    producer.setJMSReplyTo(replyTo);
+    return this;
+  }
+
+  @Override
+  public Destination getJMSReplyTo() {
+    return producer.getJMSReplyTo();
+  }
+}
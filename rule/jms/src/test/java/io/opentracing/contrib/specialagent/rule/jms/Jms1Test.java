@@ -40,12 +40,12 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
-import io.opentracing.contrib.common.WrapperProxy;
 import io.opentracing.contrib.jms.TracingMessageProducer;
 import io.opentracing.contrib.jms.common.TracingMessageConsumer;
 import io.opentracing.contrib.specialagent.AgentRunner;
 import io.opentracing.contrib.specialagent.Logger;
 import io.opentracing.contrib.specialagent.TestUtil;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import io.opentracing.mock.MockSpan;
 import io.opentracing.mock.MockTracer;
 
@@ -80,13 +80,13 @@ public class Jms1Test {
     final Destination destination = session.createQueue("TEST.JMS1.RECEIVE");
 
     final MessageConsumer consumer = session.createConsumer(destination);
-    assertTrue(WrapperProxy.isWrapper(consumer, TracingMessageConsumer.class));
+    assertTrue(WrapperClass.isWrapper(consumer, TracingMessageConsumer.class));
 
     final TextMessage message = session.createTextMessage("Hello world");
 
     final MessageProducer producer = session.createProducer(destination);
     producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
-    assertTrue(WrapperProxy.isWrapper(producer, TracingMessageProducer.class));
+    assertTrue(WrapperClass.isWrapper(producer, TracingMessageProducer.class));
     producer.send(message);
 
     final TextMessage received = (TextMessage)consumer.receive(5000);
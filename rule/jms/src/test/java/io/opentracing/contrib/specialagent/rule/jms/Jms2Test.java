@@ -0,0 +1,329 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent.rule.jms;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.jms.BytesMessage;
+import javax.jms.Destination;
+import javax.jms.JMSConsumer;
+import javax.jms.JMSContext;
+import javax.jms.JMSProducer;
+import javax.jms.JMSRuntimeException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.ObjectMessage;
+import javax.jms.Queue;
+import javax.jms.TextMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.opentracing.contrib.jms.common.TracingMessageUtils;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+
+/**
+ * Tests of {@link TracingJMSProducer} and {@link TracingJMSConsumer}. The
+ * embedded ActiveMQ broker of {@link Jms1Test} does not implement JMS 2, so the
+ * {@link JMSContext}, {@link JMSProducer}, {@link JMSConsumer} and messages
+ * are in-memory fakes, and the test is run in its own Surefire execution with
+ * the JMS 2 API on the classpath.
+ */
+public class Jms2Test {
+  private final MockTracer tracer = new MockTracer();
+  private final LinkedList<Message> queue = new LinkedList<>();
+  private final Destination destination = newDestination("TEST.JMS2");
+  private RuntimeException sendException;
+  private MessageListener listener;
+
+  private JMSProducer producer;
+  private JMSConsumer consumer;
+
+  @Before
+  public void before() {
+    final JMSContext context = newProxy(JMSContext.class, new InvocationHandler() {
+      @Override
+      public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        switch (method.getName()) {
+          case "createTextMessage":
+            return newMessage(TextMessage.class, args == null ? null : args[0]);
+          case "createMapMessage":
+            return newMessage(MapMessage.class, new LinkedHashMap<String,Object>());
+          case "createBytesMessage":
+            return newMessage(BytesMessage.class, null);
+          case "createObjectMessage":
+            return newMessage(ObjectMessage.class, args == null ? null : args[0]);
+          default:
+            return defaultValue(proxy, method, args);
+        }
+      }
+    });
+
+    producer = new TracingJMSProducer(newProxy(JMSProducer.class, new InvocationHandler() {
+      @Override
+      public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        if (!"send".equals(method.getName()))
+          return defaultValue(proxy, method, args);
+
+        if (sendException != null)
+          throw sendException;
+
+        queue.add((Message)args[1]);
+        return proxy;
+      }
+    }), context, tracer);
+
+    consumer = new TracingJMSConsumer(newProxy(JMSConsumer.class, new InvocationHandler() {
+      @Override
+      public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        switch (method.getName()) {
+          case "receive":
+          case "receiveNoWait":
+            return queue.poll();
+          case "setMessageListener":
+            listener = (MessageListener)args[0];
+            return null;
+          case "getMessageListener":
+            return listener;
+          default:
+            return defaultValue(proxy, method, args);
+        }
+      }
+    }), tracer);
+  }
+
+  @Test
+  public void testSendMessage() {
+    final Message message = newMessage(TextMessage.class, "text");
+    assertSame(producer, producer.send(destination, message));
+    assertSame(message, queue.peek());
+
+    final List<MockSpan> spans = tracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals(TracingMessageUtils.OPERATION_NAME_SEND, spans.get(0).operationName());
+    assertEquals(destination.toString(), spans.get(0).tags().get(Tags.MESSAGE_BUS_DESTINATION.getKey()));
+    assertNotNull(TracingMessageUtils.extract(message, tracer));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testSendBodies() {
+    final Map<String,Object> map = new HashMap<>();
+    map.put("key", "value");
+    final byte[] bytes = {1, 2, 3};
+    final Serializable object = new ArrayList<>(Arrays.asList("a", "b"));
+
+    producer.send(destination, "text");
+    producer.send(destination, map);
+    producer.send(destination, bytes);
+    producer.send(destination, object);
+
+    assertEquals(4, queue.size());
+    assertEquals("text", bodyOf(queue.get(0), TextMessage.class));
+    assertEquals(map, bodyOf(queue.get(1), MapMessage.class));
+    assertArrayEquals(bytes, ((List<byte[]>)bodyOf(queue.get(2), BytesMessage.class)).get(0));
+    assertEquals(object, bodyOf(queue.get(3), ObjectMessage.class));
+
+    final List<MockSpan> spans = tracer.finishedSpans();
+    assertEquals(4, spans.size());
+    for (int i = 0; i < spans.size(); ++i) {
+      assertEquals(TracingMessageUtils.OPERATION_NAME_SEND, spans.get(i).operationName());
+      assertEquals(spans.get(i).context().spanId(), ((MockSpan.MockContext)TracingMessageUtils.extract(queue.get(i), tracer)).spanId());
+    }
+  }
+
+  @Test
+  public void testSendError() {
+    sendException = new JMSRuntimeException("failed");
+    try {
+      producer.send(destination, "text");
+      fail("Expected JMSRuntimeException");
+    }
+    catch (final JMSRuntimeException e) {
+      assertSame(sendException, e);
+    }
+
+    final List<MockSpan> spans = tracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals(Boolean.TRUE, spans.get(0).tags().get(Tags.ERROR.getKey()));
+    assertNull(tracer.activeSpan());
+  }
+
+  @Test
+  public void testReceive() {
+    producer.send(destination, "1");
+    producer.send(destination, "2");
+    producer.send(destination, "3");
+    final List<MockSpan> sendSpans = tracer.finishedSpans();
+    tracer.reset();
+
+    assertEquals("1", bodyOf(consumer.receive(), TextMessage.class));
+    assertEquals("2", bodyOf(consumer.receive(1000), TextMessage.class));
+    assertEquals("3", bodyOf(consumer.receiveNoWait(), TextMessage.class));
+    assertNull(consumer.receiveNoWait());
+
+    final List<MockSpan> spans = tracer.finishedSpans();
+    assertEquals(3, spans.size());
+    for (int i = 0; i < spans.size(); ++i) {
+      assertEquals(TracingMessageUtils.OPERATION_NAME_RECEIVE, spans.get(i).operationName());
+      assertEquals(sendSpans.get(i).context().traceId(), spans.get(i).context().traceId());
+    }
+  }
+
+  @Test
+  public void testMessageListener() {
+    final List<Message> received = new ArrayList<>();
+    final MessageListener target = new MessageListener() {
+      @Override
+      public void onMessage(final Message message) {
+        assertNotNull(tracer.activeSpan());
+        received.add(message);
+      }
+    };
+
+    consumer.setMessageListener(target);
+    assertNotSame(target, listener);
+    assertSame(target, consumer.getMessageListener());
+
+    producer.send(destination, "text");
+    final MockSpan sendSpan = tracer.finishedSpans().get(0);
+    tracer.reset();
+
+    final Message message = queue.poll();
+    listener.onMessage(message);
+    assertEquals(Collections.singletonList(message), received);
+
+    final List<MockSpan> spans = tracer.finishedSpans();
+    assertEquals(1, spans.size());
+    assertEquals(sendSpan.context().traceId(), spans.get(0).context().traceId());
+
+    consumer.setMessageListener(null);
+    assertNull(listener);
+    assertNull(consumer.getMessageListener());
+  }
+
+  private static Object bodyOf(final Message message, final Class<? extends Message> type) {
+    assertTrue(type.isInstance(message));
+    return ((FakeMessage)Proxy.getInvocationHandler(message)).body;
+  }
+
+  private static <T>T newProxy(final Class<T> type, final InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(Jms2Test.class.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+
+  private static Destination newDestination(final String name) {
+    return newProxy(Queue.class, new InvocationHandler() {
+      @Override
+      public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        return "getQueueName".equals(method.getName()) ? name : "toString".equals(method.getName()) ? "queue://" + name : defaultValue(proxy, method, args);
+      }
+    });
+  }
+
+  private static Message newMessage(final Class<? extends Message> type, final Object body) {
+    return newProxy(type, new FakeMessage(body));
+  }
+
+  private static Object defaultValue(final Object proxy, final Method method, final Object[] args) {
+    switch (method.getName()) {
+      case "equals":
+        return proxy == args[0];
+      case "hashCode":
+        return System.identityHashCode(proxy);
+      case "toString":
+        return method.getDeclaringClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+    }
+
+    final Class<?> returnType = method.getReturnType();
+    if (returnType == boolean.class)
+      return Boolean.FALSE;
+
+    if (returnType == int.class)
+      return 0;
+
+    if (returnType == long.class)
+      return 0L;
+
+    return returnType.isInstance(proxy) ? proxy : null;
+  }
+
+  /**
+   * A message with properties, and a body that is set by the
+   * {@code setText}, {@code setObject} and {@code writeBytes} methods.
+   */
+  private static final class FakeMessage implements InvocationHandler {
+    private final Map<String,Object> properties = new LinkedHashMap<>();
+    private Object body;
+
+    private FakeMessage(final Object body) {
+      this.body = body;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+      final String name = method.getName();
+      if (name.startsWith("set") && name.endsWith("Property")) {
+        properties.put((String)args[0], args[1]);
+        return null;
+      }
+
+      if (name.startsWith("get") && name.endsWith("Property"))
+        return properties.get(args[0]);
+
+      switch (name) {
+        case "propertyExists":
+          return properties.containsKey(args[0]);
+        case "getPropertyNames":
+          return Collections.enumeration(new ArrayList<>(properties.keySet()));
+        case "setText":
+          body = args[0];
+          return null;
+        case "setObject":
+          if (args.length == 2)
+            ((Map<String,Object>)body).put((String)args[0], args[1]);
+          else
+            body = args[0];
+
+          return null;
+        case "writeBytes":
+          if (body == null)
+            body = new ArrayList<byte[]>();
+
+          ((List<byte[]>)body).add((byte[])args[0]);
+          return null;
+        default:
+          return defaultValue(proxy, method, args);
+      }
+    }
+  }
+}
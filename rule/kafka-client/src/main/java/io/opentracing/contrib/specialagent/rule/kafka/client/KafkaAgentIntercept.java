@@ -15,28 +15,210 @@
 
 package io.opentracing.contrib.specialagent.rule.kafka.client;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
 
+import io.opentracing.References;
 import io.opentracing.Span;
+import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
-import io.opentracing.contrib.common.WrapperProxy;
-import io.opentracing.contrib.kafka.TracingCallback;
 import io.opentracing.contrib.kafka.TracingKafkaUtils;
+import io.opentracing.contrib.specialagent.LocalSpanContext;
+import io.opentracing.contrib.specialagent.SpanLayer;
+import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 
 public class KafkaAgentIntercept {
+  public static final String CONSUMER_MODE = "sa.integration.kafka:client.consumer.mode";
+  public static final String CONSUMER_SAMPLE_RATE = "sa.integration.kafka:client.consumer.sampleRate";
+  public static final String PRODUCER_HEADERS = "sa.integration.kafka:client.producer.headers";
+  static final String BATCH_OPERATION_NAME = "poll";
+  static final String RECORDS_TAG = "kafka.records";
+  static final String PARTITIONS_TAG = "kafka.partitions";
+  static final String BYTES_TAG = "kafka.bytes";
+  static final int PRODUCER_SLOT = LocalSpanContext.slot("java-kafka-producer", SpanLayer.MESSAGING_PRODUCER);
+
+  private static final boolean batchMode = "batch".equals(System.getProperty(CONSUMER_MODE));
+  private static final double sampleRate = parseSampleRate(System.getProperty(CONSUMER_SAMPLE_RATE));
+  private static final boolean binaryHeaders = "binary".equals(System.getProperty(PRODUCER_HEADERS));
+
+  private static double parseSampleRate(final String value) {
+    if (value == null)
+      return 0;
+
+    try {
+      return Math.max(0, Math.min(1, Double.parseDouble(value)));
+    }
+    catch (final NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static boolean isSampled() {
+    return sampleRate >= 1 || sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+  }
+
   public static void onConsumerExit(final Object records) {
-    if (records != null)
-      for (final ConsumerRecord<?,?> record : (ConsumerRecords<?,?>)records)
-        TracingKafkaUtils.buildAndFinishChildSpan(record, GlobalTracer.get());
+    if (records == null)
+      return;
+
+    if (batchMode) {
+      onConsumerBatch((ConsumerRecords<?,?>)records);
+      return;
+    }
+
+    final Tracer tracer = GlobalTracer.get();
+    for (final ConsumerRecord<?,?> record : (ConsumerRecords<?,?>)records) {
+      if (KafkaBinaryHeaders.isBinary(record.headers()))
+        buildAndFinishChildSpan(record, null, KafkaBinaryHeaders.extract(record.headers(), tracer), tracer);
+      else
+        TracingKafkaUtils.buildAndFinishChildSpan(record, tracer);
+    }
+  }
+
+  /**
+   * Creates a single span for the records returned by a call to
+   * {@code poll()}, tagged with the number of records, partitions and bytes.
+   * The headers of the records are extracted only for the records sampled by
+   * the {@link #CONSUMER_SAMPLE_RATE}, which are referenced by the span, and
+   * for which child spans are created.
+   *
+   * @param records The records returned by {@code poll()}.
+   */
+  private static void onConsumerBatch(final ConsumerRecords<?,?> records) {
+    if (records.isEmpty())
+      return;
+
+    final Tracer tracer = GlobalTracer.get();
+    final Tracer.SpanBuilder builder = tracer.buildSpan(BATCH_OPERATION_NAME);
+    final Set<String> topics = new HashSet<>();
+    for (final TopicPartition partition : records.partitions())
+      topics.add(partition.topic());
+
+    if (topics.size() == 1)
+      builder.withTag(Tags.MESSAGE_BUS_DESTINATION, topics.iterator().next());
+
+    long bytes = 0;
+    List<ConsumerRecord<?,?>> sampled = null;
+    List<SpanContext> sampledContexts = null;
+    for (final ConsumerRecord<?,?> record : records) {
+      bytes += Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+      if (isSampled()) {
+        if (sampled == null) {
+          sampled = new ArrayList<>();
+          sampledContexts = new ArrayList<>();
+        }
+
+        final SpanContext spanContext = KafkaBinaryHeaders.extract(record.headers(), tracer);
+        if (spanContext != null)
+          builder.addReference(References.FOLLOWS_FROM, spanContext);
+
+        sampled.add(record);
+        sampledContexts.add(spanContext);
+      }
+    }
+
+    final Span span = withConsumerTags(builder)
+      .withTag(RECORDS_TAG, records.count())
+      .withTag(PARTITIONS_TAG, records.partitions().size())
+      .withTag(BYTES_TAG, bytes)
+      .start();
+
+    if (sampled != null)
+      for (int i = 0; i < sampled.size(); ++i)
+        buildAndFinishChildSpan(sampled.get(i), span, sampledContexts.get(i), tracer);
+
+    span.finish();
+  }
+
+  /**
+   * Creates and finishes the span of the specified consumed record, and
+   * injects its context into the headers of the record, in the format of the
+   * headers in which the record was received.
+   *
+   * @param record The consumed record.
+   * @param parent The parent span, or {@code null} if the span has no parent.
+   * @param producerContext The span context extracted from the headers of the
+   *          record, or {@code null} if there is none.
+   * @param tracer The {@link Tracer}.
+   */
+  private static void buildAndFinishChildSpan(final ConsumerRecord<?,?> record, final Span parent, final SpanContext producerContext, final Tracer tracer) {
+    final Tracer.SpanBuilder builder = tracer.buildSpan(TracingKafkaUtils.FROM_PREFIX + record.topic());
+    if (parent != null)
+      builder.asChildOf(parent);
+
+    if (producerContext != null)
+      builder.addReference(References.FOLLOWS_FROM, producerContext);
+
+    final Span span = withConsumerTags(builder)
+      .withTag(Tags.MESSAGE_BUS_DESTINATION, record.topic())
+      .withTag("partition", record.partition())
+      .withTag("offset", record.offset())
+      .start();
+
+    span.finish();
+    if (KafkaBinaryHeaders.isBinary(record.headers()))
+      KafkaBinaryHeaders.inject(span.context(), record.headers(), tracer);
+    else
+      TracingKafkaUtils.inject(span.context(), record.headers(), tracer);
+  }
+
+  private static Tracer.SpanBuilder withConsumerTags(final Tracer.SpanBuilder builder) {
+    return builder
+      .withTag(Tags.COMPONENT, "java-kafka")
+      .withTag(Tags.PEER_SERVICE, "kafka")
+      .withTag(Tags.SPAN_KIND, Tags.SPAN_KIND_CONSUMER);
   }
 
   public static Object onProducerEnter(final Object record, final Object callback) {
+    if (LocalSpanContext.isSuppressed(PRODUCER_SLOT))
+      return callback;
+
     final Tracer tracer = GlobalTracer.get();
-    final Span span = TracingKafkaUtils.buildAndInjectSpan((ProducerRecord<?,?>)record, tracer);
-    return WrapperProxy.wrap(callback, new TracingCallback((Callback)callback, span, tracer));
+    final Span span = binaryHeaders ? buildAndInjectSpan((ProducerRecord<?,?>)record, tracer) : TracingKafkaUtils.buildAndInjectSpan((ProducerRecord<?,?>)record, tracer);
+    return new KafkaTracingCallback((Callback)callback, span, tracer);
+  }
+
+  /**
+   * Creates the span of the specified record sent by a producer, and injects
+   * its context into the {@link KafkaBinaryHeaders#HEADER} header of the
+   * record.
+   *
+   * @param record The sent record.
+   * @param tracer The {@link Tracer}.
+   * @return The span of the specified record.
+   */
+  private static Span buildAndInjectSpan(final ProducerRecord<?,?> record, final Tracer tracer) {
+    final Tracer.SpanBuilder builder = tracer.buildSpan(TracingKafkaUtils.TO_PREFIX + record.topic())
+      .withTag(Tags.COMPONENT, "java-kafka")
+      .withTag(Tags.PEER_SERVICE, "kafka")
+      .withTag(Tags.SPAN_KIND, Tags.SPAN_KIND_PRODUCER)
+      .withTag(Tags.MESSAGE_BUS_DESTINATION, record.topic());
+
+    if (record.partition() != null)
+      builder.withTag("partition", record.partition());
+
+    final SpanContext parent = KafkaBinaryHeaders.extract(record.headers(), tracer);
+    if (parent != null)
+      builder.asChildOf(parent);
+
+    final Span span = builder.start();
+    try {
+      KafkaBinaryHeaders.inject(span.context(), record.headers(), tracer);
+    }
+    catch (final IllegalStateException e) {
+      // The headers are read-only if the record is being sent a second time
+    }
+
+    return span;
   }
 }
\ No newline at end of file
@@ -45,7 +45,7 @@ public class KafkaAgentRule extends AgentRule {
   }
 
   public static class Consumer {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Return(typing = Typing.DYNAMIC) Object returned) {
       if (isAllowed(className, origin))
         KafkaAgentIntercept.onConsumerExit(returned);
@@ -53,7 +53,7 @@ public class KafkaAgentRule extends AgentRule {
   }
 
   public static class Producer {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object record, @Advice.Argument(value = 1, readOnly = false, typing = Typing.DYNAMIC) Object callback) {
       if (isAllowed(className, origin))
         callback = KafkaAgentIntercept.onProducerEnter(record, callback);
@@ -0,0 +1,78 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.rule.kafka.client;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.contrib.kafka.TracingKafkaUtils;
+import io.opentracing.contrib.specialagent.BinarySpanContext;
+
+/**
+ * Propagation of span contexts in a single binary header of Kafka records.
+ * The span context is encoded in the value of the {@link #HEADER} header with
+ * {@link BinarySpanContext}, so injection adds one header to the record
+ * regardless of the number of entries, and the encoding is independent of the
+ * {@link Tracer}.
+ */
+final class KafkaBinaryHeaders {
+  static final String HEADER = "ot-context-bin";
+
+  /**
+   * Injects the specified span context into the {@link #HEADER} header of the
+   * specified headers, replacing an existing {@link #HEADER} header.
+   *
+   * @param spanContext The span context.
+   * @param headers The headers.
+   * @param tracer The {@link Tracer}.
+   */
+  static void inject(final SpanContext spanContext, final Headers headers, final Tracer tracer) {
+    final byte[] value = BinarySpanContext.encode(spanContext, tracer);
+    headers.remove(HEADER);
+    headers.add(HEADER, value);
+  }
+
+  /**
+   * Returns whether the specified headers have the {@link #HEADER} header.
+   *
+   * @param headers The headers.
+   * @return Whether the specified headers have the {@link #HEADER} header.
+   */
+  static boolean isBinary(final Headers headers) {
+    return headers.lastHeader(HEADER) != null;
+  }
+
+  /**
+   * Returns the span context extracted from the {@link #HEADER} header of the
+   * specified headers, or from the text headers (with
+   * {@link TracingKafkaUtils#extractSpanContext(Headers,Tracer)}) if the
+   * {@link #HEADER} header is absent.
+   *
+   * @param headers The headers.
+   * @param tracer The {@link Tracer}.
+   * @return The extracted span context, or {@code null} if there is none.
+   */
+  static SpanContext extract(final Headers headers, final Tracer tracer) {
+    final Header header = headers.lastHeader(HEADER);
+    if (header == null)
+      return TracingKafkaUtils.extractSpanContext(headers, tracer);
+
+    return BinarySpanContext.decode(header.value(), tracer);
+  }
+}
@@ -0,0 +1,70 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.rule.kafka.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.tag.Tags;
+
+/**
+ * A {@link Callback} that finishes the span of a record sent by a producer
+ * when the send completes, and invokes the callback of the application (if
+ * any) with the span active. This replaces the reflective proxy of the
+ * application's callback, which is only ever invoked as a {@link Callback}.
+ */
+final class KafkaTracingCallback implements Callback {
+  private final Callback callback;
+  private final Span span;
+  private final Tracer tracer;
+
+  KafkaTracingCallback(final Callback callback, final Span span, final Tracer tracer) {
+    this.callback = callback;
+    this.span = span;
+    this.tracer = tracer;
+  }
+
+  @Override
+  public void onCompletion(final RecordMetadata metadata, final Exception exception) {
+    if (exception != null) {
+      Tags.ERROR.set(span, Boolean.TRUE);
+      final Map<String,Object> fields = new HashMap<>();
+      fields.put("event", Tags.ERROR.getKey());
+      fields.put("error.kind", exception.getClass().getName());
+      fields.put("error.object", exception);
+      fields.put("message", exception.getMessage());
+      span.log(fields);
+    }
+
+    try {
+      if (callback != null) {
+        try (final Scope scope = tracer.activateSpan(span)) {
+          callback.onCompletion(metadata, exception);
+        }
+      }
+    }
+    finally {
+      span.finish();
+    }
+  }
+}
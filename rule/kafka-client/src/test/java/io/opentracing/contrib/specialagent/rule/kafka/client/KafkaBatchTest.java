@@ -0,0 +1,100 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent.rule.kafka.client;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.kafka.test.rule.EmbeddedKafkaRule;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import io.opentracing.contrib.specialagent.AgentRunner;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+
+@RunWith(AgentRunner.class)
+@AgentRunner.Config(properties = {KafkaAgentIntercept.CONSUMER_MODE + "=batch", KafkaAgentIntercept.CONSUMER_SAMPLE_RATE + "=1"})
+public class KafkaBatchTest {
+  @ClassRule
+  public static final EmbeddedKafkaRule embeddedKafkaRule = new EmbeddedKafkaRule(1, true, 2, "batch");
+
+  @Before
+  public void before(final MockTracer tracer) {
+    tracer.reset();
+  }
+
+  @Test
+  public void test(final MockTracer tracer) {
+    final int count = 5;
+    try (final Producer<Integer,String> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(embeddedKafkaRule.getEmbeddedKafka()))) {
+      for (int i = 0; i < count; ++i)
+        producer.send(new ProducerRecord<>("batch", i, "test"));
+    }
+
+    final Map<String,Object> consumerProps = KafkaTestUtils.consumerProps("batchConsumer", "false", embeddedKafkaRule.getEmbeddedKafka());
+    consumerProps.put("auto.offset.reset", "earliest");
+    try (final KafkaConsumer<Integer,String> consumer = new KafkaConsumer<>(consumerProps)) {
+      consumer.subscribe(Collections.singletonList("batch"));
+      for (int received = 0; received < count;) {
+        final ConsumerRecords<Integer,String> records = consumer.poll(100);
+        received += records.count();
+      }
+    }
+
+    final List<MockSpan> spans = tracer.finishedSpans();
+    final Set<Long> pollSpanIds = new HashSet<>();
+    int records = 0;
+    for (final MockSpan span : spans) {
+      if (KafkaAgentIntercept.BATCH_OPERATION_NAME.equals(span.operationName())) {
+        pollSpanIds.add(span.context().spanId());
+        assertEquals(Tags.SPAN_KIND_CONSUMER, span.tags().get(Tags.SPAN_KIND.getKey()));
+        assertEquals("batch", span.tags().get(Tags.MESSAGE_BUS_DESTINATION.getKey()));
+        assertTrue(((Number)span.tags().get(KafkaAgentIntercept.BYTES_TAG)).longValue() > 0);
+        records += ((Number)span.tags().get(KafkaAgentIntercept.RECORDS_TAG)).intValue();
+        assertEquals(((Number)span.tags().get(KafkaAgentIntercept.RECORDS_TAG)).intValue(), span.references().size());
+      }
+    }
+
+    assertEquals(count, records);
+    int recordSpans = 0;
+    for (final MockSpan span : spans) {
+      if ("From_batch".equals(span.operationName())) {
+        ++recordSpans;
+        assertTrue(pollSpanIds.contains(span.parentId()));
+      }
+    }
+
+    // Each record has a producer span, and a (sampled) consumer span
+    assertEquals(count, recordSpans);
+    assertEquals(count * 2 + pollSpanIds.size(), spans.size());
+    assertNull(tracer.activeSpan());
+  }
+}
@@ -0,0 +1,73 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.rule.kafka.client;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.Test;
+
+import io.opentracing.SpanContext;
+import io.opentracing.contrib.kafka.TracingKafkaUtils;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+
+public class KafkaBinaryHeadersTest {
+  private final MockTracer tracer = new MockTracer();
+
+  @Test
+  public void testRoundTrip() {
+    final MockSpan span = tracer.buildSpan("test").start();
+    span.setBaggageItem("key", "välue");
+    final Headers headers = new RecordHeaders();
+    KafkaBinaryHeaders.inject(span.context(), headers, tracer);
+    assertTrue(KafkaBinaryHeaders.isBinary(headers));
+    assertEquals(1, headers.toArray().length);
+
+    final SpanContext context = KafkaBinaryHeaders.extract(headers, tracer);
+    assertEquals(span.context().toTraceId(), context.toTraceId());
+    assertEquals(span.context().toSpanId(), context.toSpanId());
+    assertEquals("välue", ((MockSpan.MockContext)context).getBaggageItem("key"));
+
+    // A second injection replaces the header
+    KafkaBinaryHeaders.inject(tracer.buildSpan("second").asChildOf(context).start().context(), headers, tracer);
+    assertEquals(1, headers.toArray().length);
+  }
+
+  @Test
+  public void testTextHeaders() {
+    final MockSpan span = tracer.buildSpan("test").start();
+    final Headers headers = new RecordHeaders();
+    TracingKafkaUtils.inject(span.context(), headers, tracer);
+    assertFalse(KafkaBinaryHeaders.isBinary(headers));
+    assertEquals(span.context().toSpanId(), KafkaBinaryHeaders.extract(headers, tracer).toSpanId());
+  }
+
+  @Test
+  public void testMalformed() {
+    final Headers headers = new RecordHeaders();
+    headers.add(KafkaBinaryHeaders.HEADER, new byte[] {0, 5, 'a'});
+    assertNull(KafkaBinaryHeaders.extract(headers, tracer));
+
+    headers.remove(KafkaBinaryHeaders.HEADER);
+    headers.add(KafkaBinaryHeaders.HEADER, "unknown".getBytes(StandardCharsets.UTF_8));
+    assertNull(KafkaBinaryHeaders.extract(headers, tracer));
+  }
+}
@@ -30,13 +30,14 @@ import io.opentracing.util.GlobalTracer;
 
 public class KafkaStreamsAgentIntercept {
   static final String COMPONENT_NAME = "kafka-streams";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME);
 
   public static void onNextRecordExit(final Object record) {
     if (record == null)
       return;
 
-    if (LocalSpanContext.get(COMPONENT_NAME) != null) {
-      LocalSpanContext.get(COMPONENT_NAME).increment();
+    if (LocalSpanContext.get(SLOT) != null) {
+      LocalSpanContext.get(SLOT).increment();
       return;
     }
 
@@ -57,11 +58,11 @@ public class KafkaStreamsAgentIntercept {
       spanBuilder.asChildOf(parentContext);
 
     final Span span = spanBuilder.start();
-    LocalSpanContext.set(COMPONENT_NAME, span, tracer.activateSpan(span));
+    LocalSpanContext.set(SLOT, span, tracer.activateSpan(span));
   }
 
   public static void onProcessExit(final Throwable thrown) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null || context.decrementAndGet() != 0)
       return;
 
@@ -50,7 +50,7 @@ public class KafkaStreamsAgentRule extends AgentRule {
   }
 
   public static class NextRecord {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Return Object returned) {
       if (isAllowed(className, origin))
         KafkaStreamsAgentIntercept.onNextRecordExit(returned);
@@ -58,7 +58,7 @@ public class KafkaStreamsAgentRule extends AgentRule {
   }
 
   public static class Process {
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
          KafkaStreamsAgentIntercept.onProcessExit(thrown);
@@ -66,7 +66,7 @@ public class KafkaStreamsAgentRule extends AgentRule {
   }
 
   public static class Deserialize {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Return Object returned, final @Advice.Argument(value = 1) Object record) {
       if (isAllowed(className, origin))
         KafkaStreamsAgentIntercept.onDeserializeExit(returned, record);
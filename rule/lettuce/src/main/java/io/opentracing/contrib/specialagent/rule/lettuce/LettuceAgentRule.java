@@ -56,13 +56,13 @@ public class LettuceAgentRule extends AgentRule {
   }
 
   public static class Connect {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 1) Object arg) {
       if (isAllowed(className, origin))
         LettuceAgentIntercept.connectStart(arg);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Return Object returned, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
         LettuceAgentIntercept.connectEnd(returned, thrown);
@@ -70,13 +70,13 @@ public class LettuceAgentRule extends AgentRule {
   }
 
   public static class AsyncCommands {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object arg) {
       if (isAllowed(className, origin))
         LettuceAgentIntercept.dispatchStart(arg);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object arg, final @Advice.Return Object returned, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
        LettuceAgentIntercept.dispatchEnd(arg, returned, thrown);
@@ -84,7 +84,7 @@ public class LettuceAgentRule extends AgentRule {
   }
 
   public static class ReactiveCommandsMono {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object arg, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
       if (isAllowed(className, origin))
         returned = LettuceAgentIntercept.createMonoEnd(arg, returned);
@@ -92,7 +92,7 @@ public class LettuceAgentRule extends AgentRule {
   }
 
   public static class ReactiveCommandsFlux {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object arg, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
       if (isAllowed(className, origin))
         returned = LettuceAgentIntercept.createFluxEnd(arg, returned);
@@ -37,7 +37,7 @@ public class MongoDriverAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Return Object returned) {
     if (isAllowed(className, origin))
       MongoDriverAgentIntercept.exit(returned);
@@ -37,7 +37,7 @@ public class AbstractProcessorChainRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.FieldValue(value = "muleContext") Object muleContext, @Advice.Return(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object interceptors) {
     if (isAllowed(className, origin))
       interceptors = AbstractProcessorChainIntercept.exit(muleContext, interceptors);
@@ -40,7 +40,7 @@ public class EventContextRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
     if (!isAllowed(className, origin))
       return;
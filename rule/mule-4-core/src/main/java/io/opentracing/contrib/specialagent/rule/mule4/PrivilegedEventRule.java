@@ -43,7 +43,7 @@ public class PrivilegedEventRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit(onThrowable = Throwable.class)
+  @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object event) {
     if (!isAllowed(className, origin))
       return;
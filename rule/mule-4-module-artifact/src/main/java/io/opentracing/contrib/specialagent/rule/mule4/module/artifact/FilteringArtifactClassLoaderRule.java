@@ -37,7 +37,7 @@ public class FilteringArtifactClassLoaderRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object resObj, final @Advice.FieldValue(value = "filter") Object filter, final @Advice.FieldValue(value = "artifactClassLoader") Object artifactClassLoader, @Advice.Return(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object returned) {
     if (isAllowed(className, origin))
       returned = FilteringArtifactAgentIntercept.exit(thiz, returned, resObj, filter, artifactClassLoader);
@@ -38,7 +38,7 @@ public class FineGrainedControlClassLoaderRule extends AgentRule {
   }
 
   public static class OnExit {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object resObj, @Advice.Return(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object returned) {
       if (isAllowed(className, origin))
         returned = FineGrainedControlAgentIntercept.exit(thiz, returned, resObj);
@@ -17,12 +17,12 @@ package io.opentracing.contrib.specialagent.rule.neo4j.driver;
 
 import org.neo4j.driver.Driver;
 
-import io.opentracing.contrib.common.WrapperProxy;
 import io.opentracing.contrib.neo4j.TracingDriver;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import io.opentracing.util.GlobalTracer;
 
 public class Neo4jDriverAgentIntercept {
   public static Object exit(final Object returned) {
-    return WrapperProxy.wrap(returned, new TracingDriver((Driver)returned, GlobalTracer.get()));
+    return WrapperClass.wrap(returned, new TracingDriver((Driver)returned, GlobalTracer.get()));
   }
 }
\ No newline at end of file
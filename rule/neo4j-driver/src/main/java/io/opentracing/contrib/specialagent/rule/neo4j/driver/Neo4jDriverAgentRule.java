@@ -38,7 +38,7 @@ public class Neo4jDriverAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
     if (isAllowed(className, origin))
       returned = Neo4jDriverAgentIntercept.exit(returned);
@@ -38,7 +38,7 @@ public class NettyAgentRule extends AgentRule {
   }
 
   public static class ChannelPipelineAdd {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 2, optional = true) Object arg2) {
       if (isAllowed(className, origin))
         NettyAgentIntercept.pipelineAddExit(thiz, arg2);
@@ -15,16 +15,39 @@
 
 package io.opentracing.contrib.specialagent.rule.okhttp;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import io.opentracing.Tracer;
 import io.opentracing.contrib.okhttp3.OkHttpClientSpanDecorator;
 import io.opentracing.contrib.okhttp3.TracingInterceptor;
+import io.opentracing.contrib.specialagent.LocalSpanContext;
+import io.opentracing.contrib.specialagent.SpanLayer;
 import io.opentracing.util.GlobalTracer;
 import okhttp3.Interceptor;
+import okhttp3.Response;
 
 public class OkHttpAgentIntercept {
+  static final String COMPONENT_NAME = "okhttp";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME, SpanLayer.HTTP_CLIENT);
+
+  /**
+   * A {@link TracingInterceptor} that does not create a span when the span of
+   * another HTTP client is in progress on the thread.
+   */
+  static class LayeredTracingInterceptor extends TracingInterceptor {
+    LayeredTracingInterceptor(final Tracer tracer, final List<OkHttpClientSpanDecorator> decorators) {
+      super(tracer, decorators);
+    }
+
+    @Override
+    public Response intercept(final Chain chain) throws IOException {
+      return LocalSpanContext.isSuppressed(SLOT) ? chain.proceed(chain.request()) : super.intercept(chain);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   public static Object exit(final Object returned) {
     final List<Interceptor> interceptors = (List<Interceptor>)returned;
@@ -33,7 +56,7 @@ public class OkHttpAgentIntercept {
         return returned;
 
     final ArrayList<Interceptor> newInterceptors = new ArrayList<>(interceptors);
-    final TracingInterceptor interceptor = new TracingInterceptor(GlobalTracer.get(), Collections.singletonList(OkHttpClientSpanDecorator.STANDARD_TAGS));
+    final TracingInterceptor interceptor = new LayeredTracingInterceptor(GlobalTracer.get(), Collections.singletonList(OkHttpClientSpanDecorator.STANDARD_TAGS));
     newInterceptors.add(0, interceptor);
     return newInterceptors;
   }
@@ -17,7 +17,7 @@ package io.opentracing.contrib.specialagent.rule.playws;
 
 import io.opentracing.Span;
 import io.opentracing.Tracer;
-import io.opentracing.contrib.common.WrapperProxy;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import io.opentracing.propagation.Format.Builtin;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
@@ -40,6 +40,6 @@ public class PlayWSAgentIntercept {
       .start();
 
     tracer.inject(span.context(), Builtin.HTTP_HEADERS, new HttpHeadersInjectAdapter(request.getHeaders()));
-    return WrapperProxy.wrap(asyncHandler, new TracingAsyncHandler(asyncHandler, span));
+    return WrapperClass.wrap(asyncHandler, new TracingAsyncHandler(asyncHandler, span));
   }
 }
\ No newline at end of file
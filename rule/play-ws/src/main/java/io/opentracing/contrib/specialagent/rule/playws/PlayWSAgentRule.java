@@ -38,7 +38,7 @@ public class PlayWSAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object arg0, @Advice.Argument(value = 1, readOnly = false, typing = Typing.DYNAMIC) Object arg1) {
     if (isAllowed(className, origin))
       arg1 = PlayWSAgentIntercept.executeStart(arg0, arg1);
@@ -33,10 +33,11 @@ import scala.util.Try;
 
 public class PlayAgentIntercept {
   static final String COMPONENT_NAME = "play";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME);
 
   public static void applyStart(final Object arg0) {
-    if (LocalSpanContext.get(COMPONENT_NAME) != null) {
-      LocalSpanContext.get(COMPONENT_NAME).increment();
+    if (LocalSpanContext.get(SLOT) != null) {
+      LocalSpanContext.get(SLOT).increment();
       return;
     }
 
@@ -53,12 +54,12 @@ public class PlayAgentIntercept {
       spanBuilder.asChildOf(parent);
 
     final Span span = spanBuilder.start();
-    LocalSpanContext.set(COMPONENT_NAME, span, tracer.activateSpan(span));
+    LocalSpanContext.set(SLOT, span, tracer.activateSpan(span));
   }
 
   @SuppressWarnings("unchecked")
   public static void applyEnd(final Object thiz, final Object returned, final Throwable thrown) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null)
       return;
 
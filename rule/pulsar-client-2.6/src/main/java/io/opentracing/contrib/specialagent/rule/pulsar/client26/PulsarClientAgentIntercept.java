@@ -0,0 +1,294 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent.rule.pulsar.client26;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.MessageId;
+import org.apache.pulsar.client.api.MessageListener;
+import org.apache.pulsar.client.api.Messages;
+import org.apache.pulsar.client.api.Producer;
+import org.apache.pulsar.client.impl.MessageImpl;
+import org.apache.pulsar.common.api.proto.PulsarApi.KeyValue;
+import org.apache.pulsar.common.api.proto.PulsarApi.MessageMetadata;
+
+import io.opentracing.References;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.Tracer.SpanBuilder;
+import io.opentracing.contrib.specialagent.LocalSpanContext;
+import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.propagation.Format.Builtin;
+import io.opentracing.propagation.TextMapAdapter;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.GlobalTracer;
+
+public class PulsarClientAgentIntercept {
+  static final String COMPONENT_NAME = "java-pulsar";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME);
+  public static final String CONSUMER_SAMPLE_RATE = "sa.integration.pulsar:client:2.6.consumer.sampleRate";
+  static final String BATCH_OPERATION_NAME = "batchReceive";
+  static final String MESSAGES_TAG = "pulsar.messages";
+  static final String BYTES_TAG = "pulsar.bytes";
+
+  private static final double sampleRate = parseSampleRate(System.getProperty(CONSUMER_SAMPLE_RATE));
+
+  private static double parseSampleRate(final String value) {
+    if (value == null)
+      return 0;
+
+    try {
+      return Math.max(0, Math.min(1, Double.parseDouble(value)));
+    }
+    catch (final NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static boolean isSampled() {
+    return sampleRate >= 1 || sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+  }
+
+  private static SpanBuilder buildConsumerSpanBuilder(final Tracer tracer, final String operationName, final Consumer<?> consumer) {
+    return tracer
+      .buildSpan(operationName)
+      .withTag(Tags.COMPONENT, COMPONENT_NAME)
+      .withTag(Tags.SPAN_KIND, Tags.SPAN_KIND_CONSUMER)
+      .withTag("topic", consumer.getTopic())
+      .withTag("subscription", consumer.getSubscription())
+      .withTag(Tags.PEER_SERVICE, "pulsar");
+  }
+
+  private static SpanContext extract(final Tracer tracer, final Message<?> message) {
+    return tracer.extract(Builtin.TEXT_MAP, new TextMapAdapter(message.getProperties()));
+  }
+
+  static Span startConsumerSpan(final Consumer<?> consumer, final Message<?> message) {
+    final Tracer tracer = GlobalTracer.get();
+    final SpanContext parentContext = extract(tracer, message);
+    final SpanBuilder spanBuilder = buildConsumerSpanBuilder(tracer, "receive", consumer);
+    if (parentContext != null)
+      spanBuilder.addReference(References.FOLLOWS_FROM, parentContext);
+
+    return spanBuilder.start();
+  }
+
+  private static void buildConsumerSpan(final Consumer<?> consumer, final Message<?> message) {
+    startConsumerSpan(consumer, message).finish();
+  }
+
+  /**
+   * Returns the size of the payload of the specified message, without copying
+   * the payload if the message is a {@link MessageImpl}.
+   *
+   * @param message The message.
+   * @return The size of the payload of the specified message.
+   */
+  private static int getSize(final Message<?> message) {
+    if (message instanceof MessageImpl)
+      return ((MessageImpl<?>)message).getDataBuffer().readableBytes();
+
+    final byte[] data = message.getData();
+    return data == null ? 0 : data.length;
+  }
+
+  /**
+   * Creates a single span for the specified batch of messages, tagged with the
+   * number of messages and bytes. The properties of the messages are
+   * extracted only for the messages sampled by the
+   * {@link #CONSUMER_SAMPLE_RATE}, which are referenced by the span, and for
+   * which child spans are created.
+   *
+   * @param consumer The consumer.
+   * @param messages The batch of messages.
+   */
+  private static void buildBatchSpan(final Consumer<?> consumer, final Messages<?> messages) {
+    if (messages.size() == 0)
+      return;
+
+    final Tracer tracer = GlobalTracer.get();
+    final SpanBuilder spanBuilder = buildConsumerSpanBuilder(tracer, BATCH_OPERATION_NAME, consumer);
+    long bytes = 0;
+    List<SpanContext> sampledContexts = null;
+    for (final Message<?> message : messages) {
+      bytes += getSize(message);
+      if (isSampled()) {
+        if (sampledContexts == null)
+          sampledContexts = new ArrayList<>();
+
+        final SpanContext parentContext = extract(tracer, message);
+        if (parentContext != null)
+          spanBuilder.addReference(References.FOLLOWS_FROM, parentContext);
+
+        sampledContexts.add(parentContext);
+      }
+    }
+
+    final Span span = spanBuilder
+      .withTag(MESSAGES_TAG, messages.size())
+      .withTag(BYTES_TAG, bytes)
+      .start();
+
+    if (sampledContexts != null) {
+      for (final SpanContext parentContext : sampledContexts) {
+        final SpanBuilder childBuilder = buildConsumerSpanBuilder(tracer, "receive", consumer).asChildOf(span);
+        if (parentContext != null)
+          childBuilder.addReference(References.FOLLOWS_FROM, parentContext);
+
+        childBuilder.start().finish();
+      }
+    }
+
+    span.finish();
+  }
+
+  public static void receiveEnd(final Object thiz, final Object returned) {
+    final Message<?> message = (Message<?>)returned;
+    final Consumer<?> consumer = (Consumer<?>)thiz;
+    buildConsumerSpan(consumer, message);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static void receiveAsyncEnd(final Object thiz, final Object returned) {
+    final Consumer<?> consumer = (Consumer<?>)thiz;
+    final CompletableFuture<Message<?>> completableFuture = (CompletableFuture<Message<?>>)returned;
+    // Avoid a dependent stage if the message was already available
+    if (completableFuture.isDone()) {
+      if (!completableFuture.isCompletedExceptionally())
+        buildConsumerSpan(consumer, completableFuture.getNow(null));
+    }
+    else {
+      completableFuture.thenAccept(message -> buildConsumerSpan(consumer, message));
+    }
+  }
+
+  /**
+   * Called on exit of {@code Consumer.batchReceive()}.
+   *
+   * @param thiz The consumer.
+   * @param returned The batch of messages.
+   */
+  public static void batchReceiveEnd(final Object thiz, final Object returned) {
+    if (returned != null)
+      buildBatchSpan((Consumer<?>)thiz, (Messages<?>)returned);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static void batchReceiveAsyncEnd(final Object thiz, final Object returned) {
+    final Consumer<?> consumer = (Consumer<?>)thiz;
+    final CompletableFuture<Messages<?>> completableFuture = (CompletableFuture<Messages<?>>)returned;
+    // Avoid a dependent stage if the batch was already available
+    if (completableFuture.isDone()) {
+      if (!completableFuture.isCompletedExceptionally())
+        buildBatchSpan(consumer, completableFuture.getNow(null));
+    }
+    else {
+      completableFuture.thenAccept(messages -> buildBatchSpan(consumer, messages));
+    }
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public static Object messageListener(final Object listener) {
+    return listener == null || listener instanceof TracingMessageListener ? listener : new TracingMessageListener((MessageListener<?>)listener);
+  }
+
+  public static void internalSendAsyncEnter(final Object thiz, final Object arg) {
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
+    if (context != null) {
+      context.increment();
+      return;
+    }
+
+    final Producer<?> producer = (Producer<?>)thiz;
+    final Tracer tracer = GlobalTracer.get();
+    final Span span = tracer
+      .buildSpan("send")
+      .withTag(Tags.COMPONENT, COMPONENT_NAME)
+      .withTag(Tags.SPAN_KIND, Tags.SPAN_KIND_PRODUCER)
+      .withTag(Tags.MESSAGE_BUS_DESTINATION, producer.getTopic())
+      .withTag(Tags.PEER_SERVICE, "pulsar")
+      .start();
+
+    final MessageMetadata.Builder messageBuilder = ((MessageImpl<?>)arg).getMessageBuilder();
+    tracer.inject(span.context(), Builtin.TEXT_MAP_INJECT, (key, value) -> {
+      final KeyValue.Builder keyValue = KeyValue.newBuilder();
+      messageBuilder.addProperties(keyValue.setKey(key).setValue(value).build());
+      keyValue.recycle();
+    });
+
+    final Scope scope = tracer.activateSpan(span);
+    LocalSpanContext.set(SLOT, span, scope);
+  }
+
+  /**
+   * Called on exit of {@code ProducerBase.internalSendAsync(Message)}. The span
+   * is finished when the returned future completes, without replacing the
+   * future that is returned to the application.
+   *
+   * @param returned The future returned by {@code internalSendAsync}.
+   * @param thrown The {@link Throwable} thrown by {@code internalSendAsync},
+   *          or {@code null} if none was thrown.
+   */
+  @SuppressWarnings("unchecked")
+  public static void internalSendAsyncEnd(final Object returned, final Throwable thrown) {
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
+    if (context == null || context.decrementAndGet() != 0)
+      return;
+
+    context.closeScope();
+    final Span span = context.getSpan();
+    if (thrown != null || returned == null) {
+      if (thrown != null)
+        OpenTracingApiUtil.setErrorTag(span, thrown);
+
+      span.finish();
+      return;
+    }
+
+    final CompletableFuture<MessageId> future = (CompletableFuture<MessageId>)returned;
+    // Avoid a dependent stage if the message was already sent (or failed)
+    if (future.isDone())
+      finish(span, future.isCompletedExceptionally() ? getException(future) : null);
+    else
+      future.whenComplete((messageId, throwable) -> finish(span, throwable));
+  }
+
+  private static Throwable getException(final CompletableFuture<?> future) {
+    try {
+      future.getNow(null);
+      return null;
+    }
+    catch (final CompletionException | CancellationException e) {
+      return e.getCause() != null ? e.getCause() : e;
+    }
+  }
+
+  private static void finish(final Span span, final Throwable throwable) {
+    if (throwable != null)
+      OpenTracingApiUtil.setErrorTag(span, throwable);
+
+    span.finish();
+  }
+}
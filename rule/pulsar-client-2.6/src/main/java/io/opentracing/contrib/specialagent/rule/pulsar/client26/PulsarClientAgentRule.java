@@ -0,0 +1,110 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent.rule.pulsar.client26;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+
+import io.opentracing.contrib.specialagent.AgentRule;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.agent.builder.AgentBuilder.Transformer;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType.Builder;
+import net.bytebuddy.implementation.bytecode.assign.Assigner.Typing;
+import net.bytebuddy.utility.JavaModule;
+
+public class PulsarClientAgentRule extends AgentRule {
+  @Override
+  public AgentBuilder buildAgentChainedGlobal1(final AgentBuilder builder) {
+    return builder
+      .type(hasSuperType(named("org.apache.pulsar.client.impl.ProducerBase")))
+      .transform(new Transformer() {
+        @Override
+        public Builder<?> transform(final Builder<?> builder, final TypeDescription typeDescription, final ClassLoader classLoader, final JavaModule module) {
+          return builder.visit(advice(typeDescription).to(Producer.class).on(named("internalSendAsync").and(takesArguments(1))));
+        }})
+    .type(not(isInterface()).and(hasSuperType(named("org.apache.pulsar.client.api.Consumer"))))
+    .transform(new Transformer() {
+      @Override
+      public Builder<?> transform(final Builder<?> builder, final TypeDescription typeDescription, final ClassLoader classLoader, final JavaModule module) {
+        return builder
+          .visit(advice(typeDescription).to(Consumer.class).on(named("receive")))
+          .visit(advice(typeDescription).to(ConsumerAsync.class).on(named("receiveAsync")))
+          .visit(advice(typeDescription).to(ConsumerBatch.class).on(named("batchReceive").and(takesArguments(0))))
+          .visit(advice(typeDescription).to(ConsumerBatchAsync.class).on(named("batchReceiveAsync").and(takesArguments(0))));
+      }})
+    .type(named("org.apache.pulsar.client.impl.ConsumerBuilderImpl"))
+    .transform(new Transformer() {
+      @Override
+      public Builder<?> transform(final Builder<?> builder, final TypeDescription typeDescription, final ClassLoader classLoader, final JavaModule module) {
+        return builder.visit(advice(typeDescription).to(ConsumerBuilder.class).on(named("messageListener").and(takesArguments(1))));
+      }});
+  }
+
+  public static class Consumer {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Return Object returned) {
+      if (isAllowed(className, origin))
+        PulsarClientAgentIntercept.receiveEnd(thiz, returned);
+    }
+  }
+
+  public static class ConsumerAsync {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Return Object returned) {
+      if (isAllowed(className, origin))
+        PulsarClientAgentIntercept.receiveAsyncEnd(thiz, returned);
+    }
+  }
+
+  public static class ConsumerBatch {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Return Object returned) {
+      if (isAllowed(className, origin))
+        PulsarClientAgentIntercept.batchReceiveEnd(thiz, returned);
+    }
+  }
+
+  public static class ConsumerBatchAsync {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Return Object returned) {
+      if (isAllowed(className, origin))
+        PulsarClientAgentIntercept.batchReceiveAsyncEnd(thiz, returned);
+    }
+  }
+
+  public static class ConsumerBuilder {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object listener) {
+      if (isAllowed(className, origin))
+        listener = PulsarClientAgentIntercept.messageListener(listener);
+    }
+  }
+
+  public static class Producer {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object message) {
+      if (isAllowed(className, origin))
+        PulsarClientAgentIntercept.internalSendAsyncEnter(thiz, message);
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Return Object returned, final @Advice.Thrown Throwable thrown) {
+      if (isAllowed(className, origin))
+        PulsarClientAgentIntercept.internalSendAsyncEnd(returned, thrown);
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.rule.pulsar.client26;
+
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.MessageListener;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.util.GlobalTracer;
+
+/**
+ * A {@link MessageListener} that creates a span for each message received by
+ * the target {@link MessageListener}, which is active while the target
+ * {@link MessageListener} processes the message.
+ *
+ * @param <T> The type of the messages.
+ */
+public class TracingMessageListener<T> implements MessageListener<T> {
+  private static final long serialVersionUID = -2803735120418635402L;
+
+  private final MessageListener<T> listener;
+
+  public TracingMessageListener(final MessageListener<T> listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public void received(final Consumer<T> consumer, final Message<T> message) {
+    final Span span = PulsarClientAgentIntercept.startConsumerSpan(consumer, message);
+    try (final Scope scope = GlobalTracer.get().activateSpan(span)) {
+      listener.received(consumer, message);
+    }
+    catch (final RuntimeException e) {
+      OpenTracingApiUtil.setErrorTag(span, e);
+      throw e;
+    }
+    finally {
+      span.finish();
+    }
+  }
+
+  @Override
+  public void reachedEndOfTopic(final Consumer<T> consumer) {
+    listener.reachedEndOfTopic(consumer);
+  }
+}
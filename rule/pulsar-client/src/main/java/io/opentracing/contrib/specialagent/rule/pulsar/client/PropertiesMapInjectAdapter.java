@@ -1,42 +0,0 @@
-/* Copyright 2020 The OpenTracing Authors
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package io.opentracing.contrib.specialagent.rule.pulsar.client;
-
-import java.util.Iterator;
-import java.util.Map.Entry;
-
-import org.apache.pulsar.common.api.proto.PulsarApi.KeyValue;
-import org.apache.pulsar.common.api.proto.PulsarApi.MessageMetadata.Builder;
-
-import io.opentracing.propagation.TextMap;
-
-public class PropertiesMapInjectAdapter implements TextMap {
-  private final Builder messageBuilder;
-
-  public PropertiesMapInjectAdapter(Builder messageBuilder) {
-    this.messageBuilder = messageBuilder;
-  }
-
-  @Override
-  public Iterator<Entry<String, String>> iterator() {
-    throw new UnsupportedOperationException("iterator should never be used with Tracer.inject()");
-  }
-
-  @Override
-  public void put(final String key, final String value) {
-    messageBuilder.addProperties(KeyValue.newBuilder().setKey(key).setValue(value).build());
-  }
-}
\ No newline at end of file
@@ -15,13 +15,18 @@
 
 package io.opentracing.contrib.specialagent.rule.pulsar.client;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.pulsar.client.api.Consumer;
 import org.apache.pulsar.client.api.Message;
 import org.apache.pulsar.client.api.MessageId;
+import org.apache.pulsar.client.api.MessageListener;
 import org.apache.pulsar.client.api.Producer;
 import org.apache.pulsar.client.impl.MessageImpl;
+import org.apache.pulsar.common.api.proto.PulsarApi.KeyValue;
+import org.apache.pulsar.common.api.proto.PulsarApi.MessageMetadata;
 
 import io.opentracing.References;
 import io.opentracing.Scope;
@@ -38,23 +43,34 @@ import io.opentracing.util.GlobalTracer;
 
 public class PulsarClientAgentIntercept {
   static final String COMPONENT_NAME = "java-pulsar";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME);
 
-  private static void buildConsumerSpan(final Consumer<?> consumer, final Message<?> message) {
-    final Tracer tracer = GlobalTracer.get();
-    final SpanContext parentContext = tracer.extract(Builtin.TEXT_MAP, new TextMapAdapter(message.getProperties()));
-
-    final SpanBuilder spanBuilder = tracer
-      .buildSpan("receive")
+  private static SpanBuilder buildConsumerSpanBuilder(final Tracer tracer, final String operationName, final Consumer<?> consumer) {
+    return tracer
+      .buildSpan(operationName)
       .withTag(Tags.COMPONENT, COMPONENT_NAME)
       .withTag(Tags.SPAN_KIND, Tags.SPAN_KIND_CONSUMER)
       .withTag("topic", consumer.getTopic())
       .withTag("subscription", consumer.getSubscription())
       .withTag(Tags.PEER_SERVICE, "pulsar");
+  }
 
+  private static SpanContext extract(final Tracer tracer, final Message<?> message) {
+    return tracer.extract(Builtin.TEXT_MAP, new TextMapAdapter(message.getProperties()));
+  }
+
+  static Span startConsumerSpan(final Consumer<?> consumer, final Message<?> message) {
+    final Tracer tracer = GlobalTracer.get();
+    final SpanContext parentContext = extract(tracer, message);
+    final SpanBuilder spanBuilder = buildConsumerSpanBuilder(tracer, "receive", consumer);
     if (parentContext != null)
       spanBuilder.addReference(References.FOLLOWS_FROM, parentContext);
 
-    spanBuilder.start().finish();
+    return spanBuilder.start();
+  }
+
+  private static void buildConsumerSpan(final Consumer<?> consumer, final Message<?> message) {
+    startConsumerSpan(consumer, message).finish();
   }
 
   public static void receiveEnd(final Object thiz, final Object returned) {
@@ -66,19 +82,30 @@ public class PulsarClientAgentIntercept {
   @SuppressWarnings("unchecked")
   public static void receiveAsyncEnd(final Object thiz, final Object returned) {
     final Consumer<?> consumer = (Consumer<?>)thiz;
-    CompletableFuture<Message<?>> completableFuture = (CompletableFuture<Message<?>>)returned;
-    completableFuture.thenAccept(message -> buildConsumerSpan(consumer, message));
+    final CompletableFuture<Message<?>> completableFuture = (CompletableFuture<Message<?>>)returned;
+    // Avoid a dependent stage if the message was already available
+    if (completableFuture.isDone()) {
+      if (!completableFuture.isCompletedExceptionally())
+        buildConsumerSpan(consumer, completableFuture.getNow(null));
+    }
+    else {
+      completableFuture.thenAccept(message -> buildConsumerSpan(consumer, message));
+    }
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public static Object messageListener(final Object listener) {
+    return listener == null || listener instanceof TracingMessageListener ? listener : new TracingMessageListener((MessageListener<?>)listener);
   }
 
   public static void internalSendAsyncEnter(final Object thiz, final Object arg) {
-    if (LocalSpanContext.get(COMPONENT_NAME) != null) {
-      LocalSpanContext.get(COMPONENT_NAME).increment();
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
+    if (context != null) {
+      context.increment();
       return;
     }
 
-    final MessageImpl<?> message = (MessageImpl<?>)arg;
     final Producer<?> producer = (Producer<?>)thiz;
-
     final Tracer tracer = GlobalTracer.get();
     final Span span = tracer
       .buildSpan("send")
@@ -88,39 +115,64 @@ public class PulsarClientAgentIntercept {
       .withTag(Tags.PEER_SERVICE, "pulsar")
       .start();
 
-    message.getProperties();
-
-    tracer.inject(span.context(), Builtin.TEXT_MAP, new PropertiesMapInjectAdapter(message.getMessageBuilder()));
+    final MessageMetadata.Builder messageBuilder = ((MessageImpl<?>)arg).getMessageBuilder();
+    tracer.inject(span.context(), Builtin.TEXT_MAP_INJECT, (key, value) -> {
+      final KeyValue.Builder keyValue = KeyValue.newBuilder();
+      messageBuilder.addProperties(keyValue.setKey(key).setValue(value).build());
+      keyValue.recycle();
+    });
 
     final Scope scope = tracer.activateSpan(span);
-    LocalSpanContext.set(COMPONENT_NAME, span, scope);
+    LocalSpanContext.set(SLOT, span, scope);
   }
 
+  /**
+   * Called on exit of {@code ProducerBase.internalSendAsync(Message)}. The span
+   * is finished when the returned future completes, without replacing the
+   * future that is returned to the application.
+   *
+   * @param returned The future returned by {@code internalSendAsync}.
+   * @param thrown The {@link Throwable} thrown by {@code internalSendAsync},
+   *          or {@code null} if none was thrown.
+   */
   @SuppressWarnings("unchecked")
-  public static Object internalSendAsyncEnd(final Object returned, final Throwable thrown) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
-    if (context == null)
-      return returned;
-
-    if (context.decrementAndGet() != 0)
-      return returned;
+  public static void internalSendAsyncEnd(final Object returned, final Throwable thrown) {
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
+    if (context == null || context.decrementAndGet() != 0)
+      return;
 
     context.closeScope();
     final Span span = context.getSpan();
+    if (thrown != null || returned == null) {
+      if (thrown != null)
+        OpenTracingApiUtil.setErrorTag(span, thrown);
 
-    if (thrown != null) {
-      OpenTracingApiUtil.setErrorTag(span, thrown);
       span.finish();
-      return returned;
+      return;
     }
 
-    return ((CompletableFuture<MessageId>)returned).thenApply(messageId -> {
-      span.finish();
-      return messageId;
-    }).exceptionally(throwable -> {
-      OpenTracingApiUtil.setErrorTag(span, throwable);
-      span.finish();
+    final CompletableFuture<MessageId> future = (CompletableFuture<MessageId>)returned;
+    // Avoid a dependent stage if the message was already sent (or failed)
+    if (future.isDone())
+      finish(span, future.isCompletedExceptionally() ? getException(future) : null);
+    else
+      future.whenComplete((messageId, throwable) -> finish(span, throwable));
+  }
+
+  private static Throwable getException(final CompletableFuture<?> future) {
+    try {
+      future.getNow(null);
       return null;
-    });
+    }
+    catch (final CompletionException | CancellationException e) {
+      return e.getCause() != null ? e.getCause() : e;
+    }
+  }
+
+  private static void finish(final Span span, final Throwable throwable) {
+    if (throwable != null)
+      OpenTracingApiUtil.setErrorTag(span, throwable);
+
+    span.finish();
   }
-}
\ No newline at end of file
+}
@@ -43,11 +43,17 @@ public class PulsarClientAgentRule extends AgentRule {
         return builder
           .visit(advice(typeDescription).to(Consumer.class).on(named("receive")))
           .visit(advice(typeDescription).to(ConsumerAsync.class).on(named("receiveAsync")));
+      }})
+    .type(named("org.apache.pulsar.client.impl.ConsumerBuilderImpl"))
+    .transform(new Transformer() {
+      @Override
+      public Builder<?> transform(final Builder<?> builder, final TypeDescription typeDescription, final ClassLoader classLoader, final JavaModule module) {
+        return builder.visit(advice(typeDescription).to(ConsumerBuilder.class).on(named("messageListener").and(takesArguments(1))));
       }});
   }
 
   public static class Consumer {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Return Object returned) {
       if (isAllowed(className, origin))
         PulsarClientAgentIntercept.receiveEnd(thiz, returned);
@@ -55,24 +61,32 @@ public class PulsarClientAgentRule extends AgentRule {
   }
 
   public static class ConsumerAsync {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Return Object returned) {
       if (isAllowed(className, origin))
         PulsarClientAgentIntercept.receiveAsyncEnd(thiz, returned);
     }
   }
 
+  public static class ConsumerBuilder {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object listener) {
+      if (isAllowed(className, origin))
+        listener = PulsarClientAgentIntercept.messageListener(listener);
+    }
+  }
+
   public static class Producer {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object message) {
       if (isAllowed(className, origin))
         PulsarClientAgentIntercept.internalSendAsyncEnter(thiz, message);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
-    public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned, final @Advice.Thrown Throwable thrown) {
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Return Object returned, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
-        returned = PulsarClientAgentIntercept.internalSendAsyncEnd(returned, thrown);
+        PulsarClientAgentIntercept.internalSendAsyncEnd(returned, thrown);
     }
   }
 }
\ No newline at end of file
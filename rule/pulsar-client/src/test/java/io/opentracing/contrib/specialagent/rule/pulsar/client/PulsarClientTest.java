@@ -19,6 +19,7 @@ import static org.junit.Assert.*;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.pulsar.broker.PulsarService;
@@ -122,6 +123,31 @@ public class PulsarClientTest {
     test(tracer, true);
   }
 
+  @Test
+  public void testListener(final MockTracer tracer) throws Exception {
+    if (!isJdkSupported) {
+      logger.warning("jdk" + System.getProperty("java.version") + " is not supported by Pulsar");
+      return;
+    }
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    try (
+      final PulsarClient client = PulsarClient.builder().serviceUrl(pulsarService.getBrokerServiceUrl()).build();
+      final Consumer<byte[]> consumer = client.newConsumer().topic("my-listener-topic").subscriptionName("my-subscription").messageListener((c, message) -> {
+        assertNotNull(tracer.activeSpan());
+        latch.countDown();
+      }).subscribe();
+      final Producer<byte[]> producer = client.newProducer().topic("my-listener-topic").create();
+    ) {
+      producer.send("My message".getBytes());
+      assertTrue(latch.await(15, TimeUnit.SECONDS));
+    }
+
+    final List<MockSpan> spans = tracer.finishedSpans();
+    assertEquals(2, spans.size());
+    assertEquals(spans.get(0).context().traceId(), spans.get(1).context().traceId());
+  }
+
   private static void test(final MockTracer tracer, final boolean async) throws Exception {
     if (!isJdkSupported) {
       logger.warning("jdk" + System.getProperty("java.version") + " is not supported by Pulsar");
@@ -0,0 +1,152 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.rule.rabbitmq.client;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+
+import io.opentracing.Span;
+import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.tag.Tags;
+
+/**
+ * The spans of the messages published on a {@link Channel} in confirm mode that
+ * have not yet been confirmed by the broker, keyed by their publish sequence
+ * number. The spans are finished when the broker acks or nacks the messages,
+ * or with an error when the channel is shut down.
+ */
+final class PublisherConfirms implements ConfirmListener, ShutdownListener {
+  private static final Map<Channel,PublisherConfirms> channelToConfirms = new WeakHashMap<>();
+
+  /**
+   * The channel of the last call to {@link #get(Channel)} on a thread, and its
+   * {@link PublisherConfirms}. A channel is normally published to by a single
+   * thread, so this spares most calls the lock of {@link #channelToConfirms}.
+   */
+  private static final ThreadLocal<LastChannel> lastChannel = new ThreadLocal<>();
+
+  private static final class LastChannel {
+    private final WeakReference<Channel> channel;
+    private final PublisherConfirms confirms;
+
+    private LastChannel(final Channel channel, final PublisherConfirms confirms) {
+      this.channel = new WeakReference<>(channel);
+      this.confirms = confirms;
+    }
+  }
+
+  /**
+   * Returns the {@link PublisherConfirms} of the specified channel, which is
+   * registered as a listener of the channel when this method is first called
+   * for the channel.
+   *
+   * @param channel The channel.
+   * @return The {@link PublisherConfirms} of the specified channel.
+   */
+  static PublisherConfirms get(final Channel channel) {
+    final LastChannel last = lastChannel.get();
+    if (last != null && last.channel.get() == channel)
+      return last.confirms;
+
+    final PublisherConfirms confirms;
+    synchronized (channelToConfirms) {
+      PublisherConfirms existing = channelToConfirms.get(channel);
+      if (existing == null) {
+        channelToConfirms.put(channel, existing = new PublisherConfirms());
+        channel.addConfirmListener(existing);
+        channel.addShutdownListener(existing);
+      }
+
+      confirms = existing;
+    }
+
+    lastChannel.set(new LastChannel(channel, confirms));
+    return confirms;
+  }
+
+  private final ConcurrentNavigableMap<Long,Span> seqNoToSpan = new ConcurrentSkipListMap<>();
+
+  private PublisherConfirms() {
+  }
+
+  void put(final long seqNo, final Span span) {
+    seqNoToSpan.put(seqNo, span);
+  }
+
+  /**
+   * Removes the specified span, if it has not been confirmed.
+   *
+   * @param span The span.
+   * @return Whether the span was removed.
+   */
+  boolean remove(final Span span) {
+    return seqNoToSpan.values().remove(span);
+  }
+
+  private void finish(final long deliveryTag, final boolean multiple, final boolean ack) {
+    if (!multiple) {
+      final Span span = seqNoToSpan.remove(deliveryTag);
+      if (span != null)
+        finish(span, ack);
+
+      return;
+    }
+
+    for (final Map.Entry<Long,Span> entry : seqNoToSpan.headMap(deliveryTag, true).entrySet())
+      if (seqNoToSpan.remove(entry.getKey(), entry.getValue()))
+        finish(entry.getValue(), ack);
+  }
+
+  private static void finish(final Span span, final boolean ack) {
+    if (!ack) {
+      span.setTag(Tags.ERROR, true);
+      span.log(Collections.singletonMap("event", "nack"));
+    }
+
+    span.finish();
+  }
+
+  @Override
+  public void handleAck(final long deliveryTag, final boolean multiple) {
+    finish(deliveryTag, multiple, true);
+  }
+
+  @Override
+  public void handleNack(final long deliveryTag, final boolean multiple) {
+    finish(deliveryTag, multiple, false);
+  }
+
+  @Override
+  public void shutdownCompleted(final ShutdownSignalException cause) {
+    for (final Map.Entry<Long,Span> entry : seqNoToSpan.entrySet()) {
+      final Span span = entry.getValue();
+      if (seqNoToSpan.remove(entry.getKey(), span)) {
+        OpenTracingApiUtil.setErrorTag(span, cause);
+        span.finish();
+      }
+    }
+  }
+}
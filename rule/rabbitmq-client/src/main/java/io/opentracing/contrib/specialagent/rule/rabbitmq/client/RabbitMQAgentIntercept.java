@@ -15,55 +15,127 @@
 
 package io.opentracing.contrib.specialagent.rule.rabbitmq.client;
 
-import static io.opentracing.contrib.rabbitmq.TracingUtils.*;
-
 import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Consumer;
 import com.rabbitmq.client.GetResponse;
 
+import io.opentracing.References;
 import io.opentracing.Scope;
 import io.opentracing.Span;
+import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
-import io.opentracing.contrib.common.WrapperProxy;
 import io.opentracing.contrib.rabbitmq.SpanDecorator;
-import io.opentracing.contrib.rabbitmq.TracingConsumer;
 import io.opentracing.contrib.rabbitmq.TracingUtils;
+import io.opentracing.contrib.specialagent.AssembleUtil;
 import io.opentracing.contrib.specialagent.LocalSpanContext;
 import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 
 public class RabbitMQAgentIntercept {
+  public static final String PRODUCER_HEADERS = "sa.integration.rabbitmq:client.producer.headers";
+  public static final String PRODUCER_CONFIRMS = "sa.integration.rabbitmq:client.producer.confirms";
+  private static final int SLOT = LocalSpanContext.slot(SpanDecorator.COMPONENT_NAME);
+
+  private static final boolean binaryHeaders = "binary".equals(System.getProperty(PRODUCER_HEADERS));
+  private static final boolean confirms = AssembleUtil.isSystemProperty(PRODUCER_CONFIRMS, null);
+
   public static void exitGet(final Object response, final Object queue, final Throwable thrown) {
-    final Span span = TracingUtils.buildChildSpan(((GetResponse)response).getProps(), (String)queue, GlobalTracer.get());
+    if (response == null)
+      return;
+
+    final Span span = buildChildSpan(((GetResponse)response).getProps(), (String)queue, GlobalTracer.get());
     if (thrown != null)
       OpenTracingApiUtil.setErrorTag(span, thrown);
 
     span.finish();
   }
 
-  public static void finish(final Throwable thrown) {
-    final LocalSpanContext context = LocalSpanContext.get(SpanDecorator.COMPONENT_NAME);
+  /**
+   * Returns a new span of a message consumed from the specified queue, which
+   * follows from the span context in the {@link RabbitMQHeaders#HEADER} header
+   * of the message, or in its text headers (with
+   * {@link TracingUtils#buildChildSpan(AMQP.BasicProperties,String,Tracer)}) if
+   * the {@link RabbitMQHeaders#HEADER} header is absent.
+   *
+   * @param properties The properties of the message.
+   * @param queue The queue.
+   * @param tracer The {@link Tracer}.
+   * @return A new span of the consumed message.
+   */
+  static Span buildChildSpan(final AMQP.BasicProperties properties, final String queue, final Tracer tracer) {
+    if (!RabbitMQHeaders.isBinary(properties))
+      return TracingUtils.buildChildSpan(properties, queue, tracer);
+
+    final Tracer.SpanBuilder builder = tracer.buildSpan("receive")
+      .ignoreActiveSpan()
+      .withTag(Tags.COMPONENT, SpanDecorator.COMPONENT_NAME)
+      .withTag(Tags.SPAN_KIND, Tags.SPAN_KIND_CONSUMER)
+      .withTag(Tags.MESSAGE_BUS_DESTINATION, queue);
+
+    final SpanContext parent = RabbitMQHeaders.extract(properties, tracer);
+    if (parent != null)
+      builder.addReference(References.FOLLOWS_FROM, parent);
+
+    return builder.start();
+  }
+
+  /**
+   * Called on exit of {@code basicPublish}. If the channel is in confirm mode
+   * and {@link #PRODUCER_CONFIRMS} is set, the span of the message is finished
+   * by the {@link PublisherConfirms} of the channel when the broker confirms
+   * the message, unless the publish failed.
+   *
+   * @param thiz The channel.
+   * @param thrown The {@link Throwable} thrown by {@code basicPublish}, or
+   *          {@code null} if none was thrown.
+   */
+  public static void finish(final Object thiz, final Throwable thrown) {
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null)
       return;
 
+    final Span span = context.getSpan();
+    if (isConfirmed(thiz)) {
+      context.closeScope();
+      if (thrown != null && PublisherConfirms.get((Channel)thiz).remove(span)) {
+        OpenTracingApiUtil.setErrorTag(span, thrown);
+        span.finish();
+      }
+
+      return;
+    }
+
     if (thrown != null)
-      OpenTracingApiUtil.setErrorTag(context.getSpan(), thrown);
+      OpenTracingApiUtil.setErrorTag(span, thrown);
 
     context.closeAndFinish();
   }
 
-  public static AMQP.BasicProperties enterPublish(final Object exchange, final Object routingKey, final Object props) {
+  private static boolean isConfirmed(final Object channel) {
+    return confirms && channel instanceof Channel && ((Channel)channel).getNextPublishSeqNo() > 0;
+  }
+
+  public static AMQP.BasicProperties enterPublish(final Object thiz, final Object exchange, final Object routingKey, final Object props) {
     final AMQP.BasicProperties properties = (AMQP.BasicProperties)props;
     final Tracer tracer = GlobalTracer.get();
     final Span span = TracingUtils.buildSpan((String)exchange, (String)routingKey, properties, tracer);
 
     final Scope scope = tracer.activateSpan(span);
-    LocalSpanContext.set(SpanDecorator.COMPONENT_NAME, span, scope);
+    LocalSpanContext.set(SLOT, span, scope);
+
+    // The span is registered before the message is published, because the
+    // broker may confirm the message before basicPublish returns
+    if (isConfirmed(thiz)) {
+      final Channel channel = (Channel)thiz;
+      PublisherConfirms.get(channel).put(channel.getNextPublishSeqNo(), span);
+    }
 
-    return inject(properties, span, tracer);
+    return RabbitMQHeaders.inject(properties, span.context(), tracer, binaryHeaders);
   }
 
   public static Object enterConsume(final Object callback, final Object queue) {
-    return WrapperProxy.wrap(callback, new TracingConsumer((Consumer)callback, (String)queue, GlobalTracer.get()));
+    return callback instanceof RabbitMQTracingConsumer ? callback : new RabbitMQTracingConsumer((Consumer)callback, (String)queue);
   }
-}
\ No newline at end of file
+}
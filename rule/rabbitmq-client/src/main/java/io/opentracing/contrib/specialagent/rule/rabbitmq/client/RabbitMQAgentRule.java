@@ -49,7 +49,7 @@ public class RabbitMQAgentRule extends AgentRule {
   }
 
   public static class OnEnterConsume {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object queue, @Advice.Argument(value = 6, readOnly = false, typing = Typing.DYNAMIC) Object callback) {
       if (isAllowed(className, origin))
         callback = RabbitMQAgentIntercept.enterConsume(callback, queue);
@@ -57,23 +57,23 @@ public class RabbitMQAgentRule extends AgentRule {
   }
 
   public static class OnEnterPublish {
-    @Advice.OnMethodEnter
-    public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object exchange, final @Advice.Argument(value = 1) Object routingKey, @Advice.Argument(value = 4, readOnly = false, typing = Typing.DYNAMIC) Object props) {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object exchange, final @Advice.Argument(value = 1) Object routingKey, @Advice.Argument(value = 4, readOnly = false, typing = Typing.DYNAMIC) Object props) {
       if (isAllowed(className, origin))
-        props = RabbitMQAgentIntercept.enterPublish(exchange, routingKey, props);
+        props = RabbitMQAgentIntercept.enterPublish(thiz, exchange, routingKey, props);
     }
   }
 
   public static class OnExitPublish {
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
-    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
-        RabbitMQAgentIntercept.finish(thrown);
+        RabbitMQAgentIntercept.finish(thiz, thrown);
     }
   }
 
   public static class OnExitGet {
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 0) Object queue, final @Advice.Return Object returned) {
       if (isAllowed(className, origin))
         RabbitMQAgentIntercept.exitGet(returned, queue, thrown);
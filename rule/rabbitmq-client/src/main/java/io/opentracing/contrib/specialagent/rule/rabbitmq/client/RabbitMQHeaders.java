@@ -0,0 +1,117 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.rule.rabbitmq.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.LongString;
+
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.contrib.specialagent.BinarySpanContext;
+import io.opentracing.propagation.Format;
+import io.opentracing.propagation.TextMapInject;
+
+/**
+ * Propagation of span contexts in the headers of AMQP messages. Because
+ * {@link AMQP.BasicProperties} is immutable, injection copies the headers once
+ * and creates a single new {@link AMQP.BasicProperties}. In binary format, the
+ * span context is encoded in the value of the {@link #HEADER} header with
+ * {@link BinarySpanContext}, so injection adds one header to the message
+ * regardless of the number of entries.
+ */
+final class RabbitMQHeaders {
+  static final String HEADER = "ot-context-bin";
+
+  /**
+   * Returns a copy of the specified properties with the specified span context
+   * injected into its headers.
+   *
+   * @param properties The properties, or {@code null} if the message has none.
+   * @param spanContext The span context.
+   * @param tracer The {@link Tracer}.
+   * @param binary Whether the span context is injected into the
+   *          {@link #HEADER} header, instead of the text headers of the
+   *          {@link Tracer}.
+   * @return A copy of the specified properties with the specified span
+   *         context injected into its headers.
+   */
+  static AMQP.BasicProperties inject(final AMQP.BasicProperties properties, final SpanContext spanContext, final Tracer tracer, final boolean binary) {
+    final Map<String,Object> source = properties == null ? null : properties.getHeaders();
+    final Map<String,Object> headers = new HashMap<>(source == null ? 8 : (source.size() + 4) * 4 / 3);
+    if (source != null)
+      headers.putAll(source);
+
+    if (binary)
+      headers.put(HEADER, BinarySpanContext.encode(spanContext, tracer));
+    else
+      tracer.inject(spanContext, Format.Builtin.TEXT_MAP_INJECT, new HeadersInjectAdapter(headers));
+
+    if (properties == null)
+      return new AMQP.BasicProperties(null, null, headers, null, null, null, null, null, null, null, null, null, null, null);
+
+    return new AMQP.BasicProperties(properties.getContentType(), properties.getContentEncoding(), headers, properties.getDeliveryMode(), properties.getPriority(), properties.getCorrelationId(), properties.getReplyTo(), properties.getExpiration(), properties.getMessageId(), properties.getTimestamp(), properties.getType(), properties.getUserId(), properties.getAppId(), properties.getClusterId());
+  }
+
+  /**
+   * Returns whether the specified properties have the {@link #HEADER} header.
+   *
+   * @param properties The properties, or {@code null} if the message has none.
+   * @return Whether the specified properties have the {@link #HEADER} header.
+   */
+  static boolean isBinary(final AMQP.BasicProperties properties) {
+    return properties != null && properties.getHeaders() != null && properties.getHeaders().get(HEADER) != null;
+  }
+
+  /**
+   * Returns the span context extracted from the {@link #HEADER} header of the
+   * specified properties.
+   *
+   * @param properties The properties.
+   * @param tracer The {@link Tracer}.
+   * @return The extracted span context, or {@code null} if there is none.
+   */
+  static SpanContext extract(final AMQP.BasicProperties properties, final Tracer tracer) {
+    final Object value = properties.getHeaders().get(HEADER);
+    if (value instanceof byte[])
+      return BinarySpanContext.decode((byte[])value, tracer);
+
+    // The client may return byte array values as LongString
+    if (value instanceof LongString)
+      return BinarySpanContext.decode(((LongString)value).getBytes(), tracer);
+
+    return null;
+  }
+
+  private static final class HeadersInjectAdapter implements TextMapInject {
+    private final Map<String,Object> headers;
+
+    private HeadersInjectAdapter(final Map<String,Object> headers) {
+      this.headers = headers;
+    }
+
+    @Override
+    public void put(final String key, final String value) {
+      headers.put(key, value);
+    }
+  }
+
+  private RabbitMQHeaders() {
+  }
+}
@@ -0,0 +1,91 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.rule.rabbitmq.client;
+
+import java.io.IOException;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.util.GlobalTracer;
+
+/**
+ * A {@link Consumer} that creates a span for each message delivered to the
+ * target {@link Consumer}, which is active while the target {@link Consumer}
+ * handles the delivery.
+ */
+final class RabbitMQTracingConsumer implements Consumer {
+  private final Consumer consumer;
+  private final String queue;
+
+  RabbitMQTracingConsumer(final Consumer consumer, final String queue) {
+    this.consumer = consumer;
+    this.queue = queue;
+  }
+
+  @Override
+  public void handleConsumeOk(final String consumerTag) {
+    consumer.handleConsumeOk(consumerTag);
+  }
+
+  @Override
+  public void handleCancelOk(final String consumerTag) {
+    consumer.handleCancelOk(consumerTag);
+  }
+
+  @Override
+  public void handleCancel(final String consumerTag) throws IOException {
+    consumer.handleCancel(consumerTag);
+  }
+
+  @Override
+  public void handleShutdownSignal(final String consumerTag, final ShutdownSignalException sig) {
+    consumer.handleShutdownSignal(consumerTag, sig);
+  }
+
+  @Override
+  public void handleRecoverOk(final String consumerTag) {
+    consumer.handleRecoverOk(consumerTag);
+  }
+
+  @Override
+  public void handleDelivery(final String consumerTag, final Envelope envelope, final AMQP.BasicProperties properties, final byte[] body) throws IOException {
+    final Tracer tracer = GlobalTracer.get();
+    final Span span = RabbitMQAgentIntercept.buildChildSpan(properties, queue, tracer);
+    try (final Scope scope = tracer.activateSpan(span)) {
+      consumer.handleDelivery(consumerTag, envelope, properties, body);
+    }
+    catch (final IOException | RuntimeException e) {
+      OpenTracingApiUtil.setErrorTag(span, e);
+      throw e;
+    }
+    finally {
+      span.finish();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return consumer.toString();
+  }
+}
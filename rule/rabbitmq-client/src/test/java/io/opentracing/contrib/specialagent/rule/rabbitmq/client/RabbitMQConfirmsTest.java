@@ -0,0 +1,128 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.opentracing.contrib.specialagent.rule.rabbitmq.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+
+import io.opentracing.contrib.specialagent.AgentRunner;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+
+@RunWith(AgentRunner.class)
+@AgentRunner.Config(properties = {RabbitMQAgentIntercept.PRODUCER_HEADERS + "=binary", RabbitMQAgentIntercept.PRODUCER_CONFIRMS + "=true"})
+public class RabbitMQConfirmsTest {
+  private static EmbeddedAMQPBroker embeddedAMQPBroker;
+  private Connection connection;
+  private Channel channel;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    embeddedAMQPBroker = new EmbeddedAMQPBroker();
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    if (embeddedAMQPBroker != null)
+      embeddedAMQPBroker.shutdown();
+  }
+
+  @Before
+  public void before(final MockTracer tracer) throws IOException, TimeoutException {
+    tracer.reset();
+    final ConnectionFactory factory = new ConnectionFactory();
+    factory.setUsername("guest");
+    factory.setPassword("guest");
+    factory.setHost("localhost");
+    factory.setPort(embeddedAMQPBroker.getBrokerPort());
+    connection = factory.newConnection();
+    channel = connection.createChannel();
+  }
+
+  @After
+  public void after() throws IOException, TimeoutException {
+    if (channel != null)
+      channel.close();
+
+    if (connection != null)
+      connection.close();
+  }
+
+  @Test
+  public void testConfirms(final MockTracer tracer) throws Exception {
+    final String exchangeName = "confirmsExchange";
+    final String queueName = "confirmsQueue";
+    final String routingKey = "#";
+
+    channel.exchangeDeclare(exchangeName, "direct", true);
+    channel.queueDeclare(queueName, true, false, false, null);
+    channel.queueBind(queueName, exchangeName, routingKey);
+    channel.confirmSelect();
+
+    channel.basicPublish(exchangeName, routingKey, null, "Hello, world!".getBytes());
+    assertTrue(channel.waitForConfirms(15000));
+    for (int tries = 10; tries > 0 && tracer.finishedSpans().isEmpty(); --tries)
+      TimeUnit.MILLISECONDS.sleep(100L);
+
+    assertEquals(1, tracer.finishedSpans().size());
+    assertNull(tracer.activeSpan());
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    channel.basicConsume(queueName, false, new DefaultConsumer(channel) {
+      @Override
+      public void handleDelivery(final String consumerTag, final Envelope envelope, final AMQP.BasicProperties properties, final byte[] body) throws IOException {
+        assertNotNull(properties.getHeaders().get(RabbitMQHeaders.HEADER));
+        channel.basicAck(envelope.getDeliveryTag(), false);
+        latch.countDown();
+      }
+    });
+
+    assertTrue(latch.await(15, TimeUnit.SECONDS));
+    List<MockSpan> finishedSpans = tracer.finishedSpans();
+    for (int tries = 10; tries > 0 && finishedSpans.size() < 2; --tries) {
+      TimeUnit.SECONDS.sleep(1L);
+      finishedSpans = tracer.finishedSpans();
+    }
+
+    assertEquals(2, finishedSpans.size());
+    final MockSpan producer = finishedSpans.get(0);
+    final MockSpan consumer = finishedSpans.get(1);
+    assertEquals(Tags.SPAN_KIND_CONSUMER, consumer.tags().get(Tags.SPAN_KIND.getKey()));
+    assertEquals(producer.context().traceId(), consumer.context().traceId());
+    assertNull(tracer.activeSpan());
+  }
+}
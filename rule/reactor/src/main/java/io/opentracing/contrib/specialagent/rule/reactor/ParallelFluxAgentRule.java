@@ -36,7 +36,7 @@ public class ParallelFluxAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin) {
     if (isAllowed(className, origin))
       ParallelFluxAgentIntercept.enter();
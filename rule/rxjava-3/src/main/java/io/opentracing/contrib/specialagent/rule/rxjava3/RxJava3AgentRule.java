@@ -50,7 +50,7 @@ public class RxJava3AgentRule extends AgentRule {
 
   public static class OnExit {
     @SuppressWarnings("unused")
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(@Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned, @Advice.Thrown(readOnly = false, typing = Typing.DYNAMIC) Throwable thrown, @Advice.Argument(value = 0, typing = Typing.DYNAMIC) Object onNext) {
       if (thrown instanceof NullPointerException && onNext == null) {
         thrown = null;
@@ -60,7 +60,7 @@ public class RxJava3AgentRule extends AgentRule {
   }
 
   public static class OnEnter1 {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object onNext) {
       if (!isAllowed(className, origin))
         return;
@@ -72,7 +72,7 @@ public class RxJava3AgentRule extends AgentRule {
   }
 
   public static class OnEnter2 {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object onNext, @Advice.Argument(value = 1, readOnly = false, typing = Typing.DYNAMIC) Object onError) {
       if (!isAllowed(className, origin))
         return;
@@ -84,7 +84,7 @@ public class RxJava3AgentRule extends AgentRule {
   }
 
   public static class OnEnter3 {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object onNext, @Advice.Argument(value = 1, readOnly = false, typing = Typing.DYNAMIC) Object onError, @Advice.Argument(value = 2, readOnly = false, typing = Typing.DYNAMIC) Object onComplete) {
       if (!isAllowed(className, origin))
         return;
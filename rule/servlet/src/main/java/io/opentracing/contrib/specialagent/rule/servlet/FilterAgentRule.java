@@ -73,7 +73,7 @@ public class FilterAgentRule extends AgentRule {
   }
 
   public static class ServletInitAdvice {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object servletConfig) {
       if (isAllowed(className, origin))
         ServletAgentIntercept.init(thiz, servletConfig);
@@ -81,13 +81,13 @@ public class FilterAgentRule extends AgentRule {
   }
 
   public static class ServletServiceAdvice {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object request, final @Advice.Argument(value = 1) Object response) {
       if (isAllowed(className, origin))
         ServletAgentIntercept.serviceEnter(thiz, request, response);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object request, final @Advice.Argument(value = 1) Object response, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
         ServletAgentIntercept.serviceExit(request, response, thrown);
@@ -95,7 +95,7 @@ public class FilterAgentRule extends AgentRule {
   }
 
   public static class StatusAdvice {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) int status) {
       if (isAllowed(className, origin))
         FilterAgentIntercept.setStatusCode(thiz, status);
@@ -103,7 +103,7 @@ public class FilterAgentRule extends AgentRule {
   }
 
   public static class ResetAdvice {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
       if (isAllowed(className, origin))
         FilterAgentIntercept.setStatusCode(thiz, 200);
@@ -111,7 +111,7 @@ public class FilterAgentRule extends AgentRule {
   }
 
   public static class SendRedirectAdvice {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
       if (isAllowed(className, origin))
         FilterAgentIntercept.setStatusCode(thiz, 302);
@@ -119,7 +119,7 @@ public class FilterAgentRule extends AgentRule {
   }
 
   public static class FilterInitAdvice {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object filterConfig) {
       if (isAllowed(className, origin))
         FilterAgentIntercept.init(thiz, filterConfig);
@@ -52,7 +52,7 @@ public class ServletContextAgentRule extends AgentRule {
   }
 
   public static class JettyAdvice {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
       if (isAllowed(className, origin))
         filterAdded = JettyAgentIntercept.addFilter(thiz);
@@ -60,7 +60,7 @@ public class ServletContextAgentRule extends AgentRule {
   }
 
   public static class ServletContextAdvice {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
       if (isAllowed(className, origin))
         filterAdded = ServletContextAgentIntercept.addFilter(thiz);
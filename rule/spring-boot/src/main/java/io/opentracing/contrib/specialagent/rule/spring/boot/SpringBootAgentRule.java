@@ -62,7 +62,7 @@ public class SpringBootAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void exit() {
     if (initialized)
       return;
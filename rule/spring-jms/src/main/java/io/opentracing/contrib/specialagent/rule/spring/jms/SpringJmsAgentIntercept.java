@@ -20,23 +20,24 @@ import javax.jms.Message;
 import io.opentracing.References;
 import io.opentracing.Span;
 import io.opentracing.SpanContext;
-import io.opentracing.Tracer;
 import io.opentracing.Tracer.SpanBuilder;
-import io.opentracing.contrib.common.WrapperProxy;
+import io.opentracing.Tracer;
 import io.opentracing.contrib.jms.common.SpanContextContainer;
 import io.opentracing.contrib.jms.common.TracingMessageConsumer;
 import io.opentracing.contrib.jms.common.TracingMessageUtils;
 import io.opentracing.contrib.specialagent.LocalSpanContext;
 import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 
 public class SpringJmsAgentIntercept {
   static final String COMPONENT_NAME = "spring-jms";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME);
 
   public static void onMessageEnter(final Object msg) {
-    if (LocalSpanContext.get(COMPONENT_NAME) != null) {
-      LocalSpanContext.get(COMPONENT_NAME).increment();
+    if (LocalSpanContext.get(SLOT) != null) {
+      LocalSpanContext.get(SLOT).increment();
       return;
     }
 
@@ -57,11 +58,11 @@ public class SpringJmsAgentIntercept {
       builder.addReference(References.FOLLOWS_FROM, spanContext);
 
     final Span span = builder.start();
-    LocalSpanContext.set(COMPONENT_NAME, span, tracer.activateSpan(span));
+    LocalSpanContext.set(SLOT, span, tracer.activateSpan(span));
   }
 
   public static void onMessageExit(final Throwable thrown) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null || context.decrementAndGet() != 0)
       return;
 
@@ -72,7 +73,7 @@ public class SpringJmsAgentIntercept {
   }
 
   public static void onReceiveMessage(final Object consumer, final Object message) {
-    if (!WrapperProxy.isWrapper(consumer, TracingMessageConsumer.class))
+    if (!WrapperClass.isWrapper(consumer, TracingMessageConsumer.class))
       TracingMessageUtils.buildAndFinishChildSpan((Message)message, GlobalTracer.get());
   }
 }
\ No newline at end of file
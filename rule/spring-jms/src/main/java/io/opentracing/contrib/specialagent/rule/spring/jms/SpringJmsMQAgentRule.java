@@ -45,20 +45,20 @@ public class SpringJmsMQAgentRule extends AgentRule {
   }
 
   public static class ReceiveMessage {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0, typing = Typing.DYNAMIC) Object consumer, final @Advice.Return Object message) {
       if (isAllowed(className, origin))
         SpringJmsAgentIntercept.onReceiveMessage(consumer, message);
     }
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object message) {
     if (isAllowed(className, origin))
       SpringJmsAgentIntercept.onMessageEnter(message);
   }
 
-  @Advice.OnMethodExit(onThrowable = Throwable.class)
+  @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
     if (isAllowed(className, origin))
       SpringJmsAgentIntercept.onMessageExit(thrown);
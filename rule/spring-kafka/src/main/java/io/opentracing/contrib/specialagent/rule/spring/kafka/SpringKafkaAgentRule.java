@@ -37,13 +37,13 @@ public class SpringKafkaAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object record) {
     if (isAllowed(className, origin))
       SpringKafkaAgentIntercept.onMessageEnter(record);
   }
 
-  @Advice.OnMethodExit(onThrowable = Throwable.class)
+  @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
     if (isAllowed(className, origin))
       SpringKafkaAgentIntercept.onMessageExit(thrown);
@@ -30,7 +30,9 @@ import io.opentracing.Span;
 import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
 import io.opentracing.Tracer.SpanBuilder;
+import io.opentracing.contrib.specialagent.LocalSpanContext;
 import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.contrib.specialagent.SpanLayer;
 import io.opentracing.propagation.Format;
 import io.opentracing.tag.Tags;
 
@@ -41,6 +43,7 @@ public class OpenTracingChannelInterceptor extends ChannelInterceptorAdapter imp
   private static final Log log = LogFactory.getLog(OpenTracingChannelInterceptor.class);
 
   static final String COMPONENT_NAME = "spring-messaging";
+  static final int PRODUCER_SLOT = LocalSpanContext.slot(COMPONENT_NAME + "-producer", SpanLayer.MESSAGING_PRODUCER);
 
   private final Tracer tracer;
   private final boolean isKafkaBinder;
@@ -98,6 +101,13 @@ public class OpenTracingChannelInterceptor extends ChannelInterceptorAdapter imp
     } else {
       log.trace("Adding 'messageSent' header");
       carrier.put(Headers.MESSAGE_SENT_FROM_CLIENT, "true");
+      // Declare the send in progress, so that the span of the producer of the
+      // binder (such as the Kafka producer) can be suppressed
+      final LocalSpanContext context = LocalSpanContext.get(PRODUCER_SLOT);
+      if (context != null)
+        context.increment();
+      else
+        LocalSpanContext.set(PRODUCER_SLOT, null, null);
     }
 
     tracer.inject(span.context(), Format.Builtin.TEXT_MAP, carrier);
@@ -106,6 +116,10 @@ public class OpenTracingChannelInterceptor extends ChannelInterceptorAdapter imp
 
   @Override
   public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+    final LocalSpanContext context = LocalSpanContext.get(PRODUCER_SLOT);
+    if (context != null && !message.getHeaders().containsKey(Headers.MESSAGE_CONSUMED) && context.decrementAndGet() == 0)
+      context.closeScope();
+
     Scope scope = tracer.scopeManager().active();
     if (scope == null) {
       return;
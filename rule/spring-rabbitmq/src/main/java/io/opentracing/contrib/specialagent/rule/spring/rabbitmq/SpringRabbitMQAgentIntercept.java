@@ -25,24 +25,25 @@ import io.opentracing.References;
 import io.opentracing.Scope;
 import io.opentracing.Span;
 import io.opentracing.SpanContext;
-import io.opentracing.Tracer;
 import io.opentracing.Tracer.SpanBuilder;
-import io.opentracing.contrib.common.WrapperProxy;
+import io.opentracing.Tracer;
 import io.opentracing.contrib.rabbitmq.TracingConsumer;
 import io.opentracing.contrib.rabbitmq.TracingUtils;
 import io.opentracing.contrib.specialagent.AgentRuleUtil;
 import io.opentracing.contrib.specialagent.LocalSpanContext;
 import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import io.opentracing.propagation.Format.Builtin;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 
 public class SpringRabbitMQAgentIntercept {
   static final String COMPONENT_NAME = "spring-rabbitmq";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME);
 
   public static void onMessageEnter(final Object msg) {
-    if (LocalSpanContext.get(COMPONENT_NAME) != null) {
-      LocalSpanContext.get(COMPONENT_NAME).increment();
+    if (LocalSpanContext.get(SLOT) != null) {
+      LocalSpanContext.get(SLOT).increment();
       return;
     }
 
@@ -61,11 +62,11 @@ public class SpringRabbitMQAgentIntercept {
     }
 
     final Span span = builder.start();
-    LocalSpanContext.set(COMPONENT_NAME, span, tracer.activateSpan(span));
+    LocalSpanContext.set(SLOT, span, tracer.activateSpan(span));
   }
 
   public static void onMessageExit(final Throwable thrown) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null || context.decrementAndGet() != 0)
       return;
 
@@ -76,7 +77,7 @@ public class SpringRabbitMQAgentIntercept {
   }
 
   public static void handleDeliveryStart(Object thiz, Object props) {
-    if (WrapperProxy.isWrapper(thiz, TracingConsumer.class))
+    if (WrapperClass.isWrapper(thiz, TracingConsumer.class))
       return;
 
     if (AgentRuleUtil.callerEquals(1, 3, "io.opentracing.contrib.rabbitmq.TracingConsumer.handleDelivery"))
@@ -86,11 +87,11 @@ public class SpringRabbitMQAgentIntercept {
     final Tracer tracer = GlobalTracer.get();
     final Span span = TracingUtils.buildChildSpan(properties, null, tracer);
     final Scope scope = tracer.activateSpan(span);
-    LocalSpanContext.set(COMPONENT_NAME, span, scope);
+    LocalSpanContext.set(SLOT, span, scope);
   }
 
   public static void handleDeliveryEnd(final Throwable thrown) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null)
       return;
 
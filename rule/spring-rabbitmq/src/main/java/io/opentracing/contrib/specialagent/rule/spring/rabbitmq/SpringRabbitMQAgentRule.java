@@ -43,26 +43,26 @@ public class SpringRabbitMQAgentRule extends AgentRule {
   }
 
   public static class Consumer {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 2) Object properties) {
       if (isAllowed(className, origin))
         SpringRabbitMQAgentIntercept.handleDeliveryStart(thiz, properties);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
         SpringRabbitMQAgentIntercept.handleDeliveryEnd(thrown);
     }
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object message) {
     if (isAllowed(className, origin))
       SpringRabbitMQAgentIntercept.onMessageEnter(message);
   }
 
-  @Advice.OnMethodExit(onThrowable = Throwable.class)
+  @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
     if (isAllowed(className, origin))
       SpringRabbitMQAgentIntercept.onMessageExit(thrown);
@@ -38,7 +38,7 @@ public class SpringAsyncAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, readOnly = false, typing = Typing.DYNAMIC) Object arg) {
     if (isAllowed(className, origin))
       arg = SpringSchedulingAgentIntercept.invoke(arg);
@@ -21,14 +21,15 @@ import org.springframework.scheduling.support.ScheduledMethodRunnable;
 import io.opentracing.Scope;
 import io.opentracing.Span;
 import io.opentracing.Tracer;
-import io.opentracing.contrib.common.WrapperProxy;
 import io.opentracing.contrib.specialagent.LocalSpanContext;
 import io.opentracing.contrib.specialagent.OpenTracingApiUtil;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
 
 public class SpringSchedulingAgentIntercept {
   static final String COMPONENT_NAME = "spring-scheduled";
+  static final int SLOT = LocalSpanContext.slot(COMPONENT_NAME);
 
   public static void enter(final Object thiz) {
     final ScheduledMethodRunnable runnable = (ScheduledMethodRunnable)thiz;
@@ -41,11 +42,11 @@ public class SpringSchedulingAgentIntercept {
       .start();
 
     final Scope scope = tracer.activateSpan(span);
-    LocalSpanContext.set(COMPONENT_NAME, span, scope);
+    LocalSpanContext.set(SLOT, span, scope);
   }
 
   public static void exit(final Throwable thrown) {
-    final LocalSpanContext context = LocalSpanContext.get(COMPONENT_NAME);
+    final LocalSpanContext context = LocalSpanContext.get(SLOT);
     if (context == null)
       return;
 
@@ -56,6 +57,6 @@ public class SpringSchedulingAgentIntercept {
   }
 
   public static Object invoke(final Object arg) {
-    return WrapperProxy.wrap(arg, new TracingMethodInvocation((MethodInvocation)arg));
+    return WrapperClass.wrap(arg, new TracingMethodInvocation((MethodInvocation)arg));
   }
 }
\ No newline at end of file
@@ -37,13 +37,13 @@ public class SpringSchedulingAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodEnter
+  @Advice.OnMethodEnter(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
     if (isAllowed(className, origin))
       SpringSchedulingAgentIntercept.enter(thiz);
   }
 
-  @Advice.OnMethodExit(onThrowable = Throwable.class)
+  @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Thrown Throwable thown, final @Advice.Origin String origin) {
     if (isAllowed(className, origin))
       SpringSchedulingAgentIntercept.exit(thown);
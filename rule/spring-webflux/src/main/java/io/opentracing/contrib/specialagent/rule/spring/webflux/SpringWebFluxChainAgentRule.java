@@ -45,7 +45,7 @@ public class SpringWebFluxChainAgentRule extends AgentRule {
   }
 
   public static class Handler {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(typing = Typing.DYNAMIC, value = 0) Object exchange, @Advice.Return(typing = Typing.DYNAMIC, readOnly = false) Object returned) {
       if (isAllowed(className, origin))
         returned = SpringWebFluxAgentIntercept.handle(exchange, returned);
@@ -53,7 +53,7 @@ public class SpringWebFluxChainAgentRule extends AgentRule {
   }
 
   public static class FluxClient {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
       if (isAllowed(className, origin))
         SpringWebFluxAgentIntercept.client(thiz);
@@ -59,7 +59,7 @@ public class SpringWebMvcAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void exit() {
     if (initialized)
       return;
@@ -38,7 +38,7 @@ public class SpringWebRegistryAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(typing = Typing.DYNAMIC, readOnly = false) Object returned) {
     if (isAllowed(className, origin))
       returned = SpringWebMvcAgentIntercept.getInterceptors(returned);
@@ -44,7 +44,7 @@ public class SpringWebSocketAgentRule extends AgentRule {
   }
 
   public static class MessageChannelSend {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) {
       if (isAllowed(className, origin))
         SpringWebSocketAgentIntercept.messageChannelSend(thiz);
@@ -52,13 +52,13 @@ public class SpringWebSocketAgentRule extends AgentRule {
   }
 
   public static class StompSessionSend {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object arg) {
       if (isAllowed(className, origin))
         SpringWebSocketAgentIntercept.sendEnter(arg);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin))
         SpringWebSocketAgentIntercept.sendExit(thrown);
@@ -49,13 +49,13 @@ public class SpymemcachedAgentRule extends AgentRule {
   }
 
   public static class Store {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object storeType, final @Advice.Argument(value = 1) Object key, @Advice.Argument(value = 5, typing = Typing.DYNAMIC, readOnly = false) Object callback) {
       if (isAllowed(className, origin))
         callback = SpymemcachedAgentIntercept.store(storeType, key, callback);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 5) Object callback) {
       if (thrown != null)
         SpymemcachedAgentIntercept.exception(thrown, callback);
@@ -63,13 +63,13 @@ public class SpymemcachedAgentRule extends AgentRule {
   }
 
   public static class Get {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object key, @Advice.Argument(value = 1, typing = Typing.DYNAMIC, readOnly = false) Object callback) {
       if (isAllowed(className, origin))
         callback = SpymemcachedAgentIntercept.get(key, callback);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 1) Object callback) {
       if (thrown != null)
         SpymemcachedAgentIntercept.exception(thrown, callback);
@@ -77,7 +77,7 @@ public class SpymemcachedAgentRule extends AgentRule {
   }
 
   public static class Delete {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 0, typing = Typing.DYNAMIC) Object key, @Advice.Argument(value = 1, typing = Typing.DYNAMIC, readOnly = false) Object callback, @Advice.Argument(value = 2, typing = Typing.DYNAMIC, optional = true, readOnly = false) Object callback2) {
       if (isAllowed(className, origin)) {
         if (callback2 != null) {
@@ -89,7 +89,7 @@ public class SpymemcachedAgentRule extends AgentRule {
       }
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 1) Object callback, final @Advice.Argument(value = 2, optional = true) Object callback2) {
       if (thrown != null) {
         if (callback2 != null)
@@ -101,13 +101,13 @@ public class SpymemcachedAgentRule extends AgentRule {
   }
 
   public static class Flush {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, @Advice.Argument(value = 1, typing = Typing.DYNAMIC, readOnly = false) Object callback) {
       if (isAllowed(className, origin))
         callback = SpymemcachedAgentIntercept.tracingCallback("flush", null, callback);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 1, typing = Typing.DYNAMIC) Object callback) {
       if (thrown != null)
         SpymemcachedAgentIntercept.exception(thrown, callback);
@@ -115,13 +115,13 @@ public class SpymemcachedAgentRule extends AgentRule {
   }
 
   public static class GetAndTouch {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object key, @Advice.Argument(value = 2, typing = Typing.DYNAMIC, readOnly = false) Object callback) {
       if (isAllowed(className, origin))
         callback = SpymemcachedAgentIntercept.getAndTouch(key, callback);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 2) Object callback) {
       if (thrown != null)
         SpymemcachedAgentIntercept.exception(thrown, callback);
@@ -129,13 +129,13 @@ public class SpymemcachedAgentRule extends AgentRule {
   }
 
   public static class Gets {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object key, @Advice.Argument(value = 1, typing = Typing.DYNAMIC, readOnly = false) Object callback) {
       if (isAllowed(className, origin))
         callback = SpymemcachedAgentIntercept.gets(key, callback);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 1) Object callback) {
       if (thrown != null)
         SpymemcachedAgentIntercept.exception(thrown, callback);
@@ -143,13 +143,13 @@ public class SpymemcachedAgentRule extends AgentRule {
   }
 
   public static class Mutate {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 1) Object key, @Advice.Argument(value = 5, typing = Typing.DYNAMIC, readOnly = false) Object callback) {
       if (isAllowed(className, origin))
         callback = SpymemcachedAgentIntercept.tracingCallback("mutate", key, callback);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 5) Object callback) {
       if (thrown != null)
         SpymemcachedAgentIntercept.exception(thrown, callback);
@@ -157,13 +157,13 @@ public class SpymemcachedAgentRule extends AgentRule {
   }
 
   public static class Touch {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object key, @Advice.Argument(value = 2, typing = Typing.DYNAMIC, readOnly = false) Object callback) {
       if (isAllowed(className, origin))
         callback = SpymemcachedAgentIntercept.tracingCallback("touch", key, callback);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 2) Object callback) {
       if (thrown != null)
         SpymemcachedAgentIntercept.exception(thrown, callback);
@@ -171,13 +171,13 @@ public class SpymemcachedAgentRule extends AgentRule {
   }
 
   public static class Cat {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 2) Object key, @Advice.Argument(value = 4, typing = Typing.DYNAMIC, readOnly = false) Object callback) {
       if (isAllowed(className, origin))
         callback = SpymemcachedAgentIntercept.tracingCallback("cat", key, callback);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 4) Object callback) {
       if (thrown != null)
         SpymemcachedAgentIntercept.exception(thrown, callback);
@@ -185,13 +185,13 @@ public class SpymemcachedAgentRule extends AgentRule {
   }
 
   public static class Cas {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 1) Object key, @Advice.Argument(value = 6, typing = Typing.DYNAMIC, readOnly = false) Object callback) {
       if (isAllowed(className, origin))
         callback = SpymemcachedAgentIntercept.cas(key, callback);
     }
 
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @Advice.Thrown Throwable thrown, final @Advice.Argument(value = 6) Object callback) {
       if (thrown != null)
         SpymemcachedAgentIntercept.exception(thrown, callback);
@@ -41,7 +41,7 @@ public class ThreadAgentRule extends AgentRule {
   }
 
   public static class Start {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Thread thiz) {
       if (isAllowed(className, origin))
         ThreadAgentIntercept.start(thiz);
@@ -49,13 +49,13 @@ public class ThreadAgentRule extends AgentRule {
   }
 
   public static class Run {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Thread thiz) {
       if (isAllowed(className, origin))
         ThreadAgentIntercept.runEnter(thiz);
     }
 
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Thread thiz) {
       if (isAllowed(className, origin))
         ThreadAgentIntercept.runExit(thiz);
@@ -63,7 +63,7 @@ public class ThreadAgentRule extends AgentRule {
   }
 
   public static class RunError {
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Thread thiz, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin) && thrown != null)
         ThreadAgentIntercept.runExit(thiz);
@@ -18,7 +18,7 @@ package io.opentracing.contrib.specialagent.rule.thrift;
 import org.apache.thrift.TProcessor;
 
 import io.opentracing.Scope;
-import io.opentracing.contrib.common.WrapperProxy;
+import io.opentracing.contrib.specialagent.WrapperClass;
 import io.opentracing.thrift.DefaultClientSpanDecorator;
 import io.opentracing.thrift.SpanProcessor;
 import io.opentracing.util.GlobalTracer;
@@ -40,6 +40,6 @@ public class ThriftAgentIntercept {
   }
 
   public static Object getProcessor(final Object processor) {
-    return WrapperProxy.wrap(processor, new SpanProcessor((TProcessor)processor));
+    return WrapperClass.wrap(processor, new SpanProcessor((TProcessor)processor));
   }
 }
\ No newline at end of file
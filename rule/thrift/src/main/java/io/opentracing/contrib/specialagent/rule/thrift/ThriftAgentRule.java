@@ -57,7 +57,7 @@ public class ThriftAgentRule extends AgentRule {
 
   public static class AsyncMethodCallback {
     public static class OnComplete {
-      @Advice.OnMethodExit
+      @Advice.OnMethodExit(suppress = Throwable.class)
       public static void exit(final @ClassName String className, final @Advice.Origin String origin) {
         if (isAllowed(className, origin))
           ThriftAgentIntercept.onComplete();
@@ -65,7 +65,7 @@ public class ThriftAgentRule extends AgentRule {
     }
 
     public static class OnError {
-      @Advice.OnMethodExit
+      @Advice.OnMethodExit(suppress = Throwable.class)
       public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Argument(value = 0) Object exception) {
         if (isAllowed(className, origin))
           ThriftAgentIntercept.onError(exception);
@@ -74,7 +74,7 @@ public class ThriftAgentRule extends AgentRule {
   }
 
   public static class Processor {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
       if (isAllowed(className, origin))
         returned = ThriftAgentIntercept.getProcessor(returned);
@@ -82,7 +82,7 @@ public class ThriftAgentRule extends AgentRule {
   }
 
   public static class ProtocolFactory {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, @Advice.Return(readOnly = false, typing = Typing.DYNAMIC) Object returned) {
       if (isAllowed(className, origin))
         returned = ThriftProtocolFactoryAgentIntercept.exit(returned);
@@ -58,7 +58,7 @@ public class ThriftProtocolAgentRule extends AgentRule {
   }
 
   public static class WriteMessageBegin {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz, final @Advice.Argument(value = 0) Object message) {
       if (isAllowed(className, origin))
         ThriftProtocolAgentIntercept.writeMessageBegin(thiz, message);
@@ -66,7 +66,7 @@ public class ThriftProtocolAgentRule extends AgentRule {
   }
 
   public static class WriteMessageEnd {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin) {
       if (isAllowed(className, origin))
         ThriftProtocolAgentIntercept.writeMessageEnd();
@@ -74,7 +74,7 @@ public class ThriftProtocolAgentRule extends AgentRule {
   }
 
   public static class WriteFieldStop {
-    @Advice.OnMethodEnter
+    @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void enter(final @ClassName String className, final @Advice.Origin String origin, final @Advice.This Object thiz) throws Exception {
       if (isAllowed(className, origin))
         ThriftProtocolAgentIntercept.writeFieldStop(thiz);
@@ -82,7 +82,7 @@ public class ThriftProtocolAgentRule extends AgentRule {
   }
 
   public static class ReadMessageBegin {
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Thrown Throwable thrown) {
       if (isAllowed(className, origin) && thrown != null)
         ThriftProtocolAgentIntercept.readMessageBegin(thrown);
@@ -90,7 +90,7 @@ public class ThriftProtocolAgentRule extends AgentRule {
   }
 
   public static class ReadMessageEnd {
-    @Advice.OnMethodExit
+    @Advice.OnMethodExit(suppress = Throwable.class)
     public static void exit(final @ClassName String className, final @Advice.Origin String origin) {
       if (isAllowed(className, origin))
         ThriftProtocolAgentIntercept.readMessageEnd();
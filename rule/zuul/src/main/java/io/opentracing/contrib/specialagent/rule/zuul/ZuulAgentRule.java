@@ -37,7 +37,7 @@ public class ZuulAgentRule extends AgentRule {
         }});
   }
 
-  @Advice.OnMethodExit
+  @Advice.OnMethodExit(suppress = Throwable.class)
   public static void exit(final @ClassName String className, final @Advice.Origin String origin, final @Advice.Return Object returned, final @Advice.Argument(value = 0) Object arg) {
     if (isAllowed(className, origin))
       ZuulAgentIntercept.exit(returned, arg);
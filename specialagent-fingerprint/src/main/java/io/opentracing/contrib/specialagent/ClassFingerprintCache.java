@@ -0,0 +1,156 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread-safe cache of {@link ClassFingerprint} objects that is shared
+ * between compatibility tests of runtimes that share JARs, such as the runtimes
+ * of consecutive versions of a library.
+ * <p>
+ * The fingerprint of a class is computed from the class resource, as well as
+ * the resources of its super classes and interfaces, which may come from
+ * different JARs. Each cached fingerprint therefore records the URL of every
+ * resource that was read to compute it, and is reused for a runtime only if
+ * each of the resources resolves to the same URL in that runtime.
+ */
+public class ClassFingerprintCache {
+  private static final Logger logger = Logger.getLogger(ClassFingerprintCache.class);
+
+  /**
+   * A {@link ClassFingerprint} (or the absence thereof) with the URLs of the
+   * resources from which it was computed.
+   */
+  private static final class Entry {
+    private final Map<String,String> resourceToUrl;
+    private final ClassFingerprint fingerprint;
+
+    private Entry(final Map<String,String> resourceToUrl, final ClassFingerprint fingerprint) {
+      this.resourceToUrl = resourceToUrl;
+      this.fingerprint = fingerprint;
+    }
+
+    private boolean matches(final ClassLoader classLoader) {
+      for (final Map.Entry<String,String> entry : resourceToUrl.entrySet())
+        if (!entry.getValue().equals(String.valueOf(classLoader.getResource(entry.getKey()))))
+          return false;
+
+      return true;
+    }
+  }
+
+  /**
+   * A {@code ClassLoader} that delegates resource lookups to a target
+   * {@code ClassLoader}, recording the URL of each resource that is looked up.
+   */
+  private static final class RecordingClassLoader extends ClassLoader {
+    private final ClassLoader target;
+    private final Map<String,String> resourceToUrl = new LinkedHashMap<>();
+
+    private RecordingClassLoader(final ClassLoader target) {
+      super(null);
+      this.target = target;
+    }
+
+    @Override
+    public URL getResource(final String name) {
+      final URL url = target.getResource(name);
+      resourceToUrl.put(name, String.valueOf(url));
+      return url;
+    }
+
+    @Override
+    public InputStream getResourceAsStream(final String name) {
+      final URL url = getResource(name);
+      try {
+        return url == null ? null : url.openStream();
+      }
+      catch (final IOException e) {
+        return null;
+      }
+    }
+  }
+
+  private final ConcurrentMap<String,List<Entry>> resourceToEntries = new ConcurrentHashMap<>();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  /**
+   * Returns the {@link ClassFingerprint} of the class at the specified resource
+   * path in the specified {@code ClassLoader}, computing it only if a
+   * fingerprint computed from the same resources is not in this cache.
+   *
+   * @param classLoader The {@code ClassLoader} in which the resource path is to
+   *          be found.
+   * @param resourcePath The resource path to fingerprint.
+   * @param verifier The {@link FingerprintVerifier} with which to compute the
+   *          fingerprint if it is not in this cache.
+   * @return A {@code ClassFingerprint} object representing the fingerprint of
+   *         the class at the specified resource path, or {@code null} if the
+   *         class is not found.
+   * @throws IOException If an I/O error has occurred.
+   */
+  ClassFingerprint fingerprint(final ClassLoader classLoader, final String resourcePath, final FingerprintVerifier verifier) throws IOException {
+    List<Entry> entries = resourceToEntries.get(resourcePath);
+    if (entries == null) {
+      final List<Entry> existing = resourceToEntries.putIfAbsent(resourcePath, entries = new CopyOnWriteArrayList<>());
+      if (existing != null)
+        entries = existing;
+    }
+
+    for (final Entry entry : entries) {
+      if (entry.matches(classLoader)) {
+        hits.incrementAndGet();
+        return entry.fingerprint;
+      }
+    }
+
+    misses.incrementAndGet();
+    final RecordingClassLoader recorder = new RecordingClassLoader(classLoader);
+    final ClassFingerprint fingerprint = verifier.fingerprint(recorder, resourcePath);
+    entries.add(new Entry(recorder.resourceToUrl, fingerprint));
+    if (logger.isLoggable(Level.FINEST))
+      logger.finest("ClassFingerprintCache#fingerprint(\"" + resourcePath + "\"): " + recorder.resourceToUrl.keySet());
+
+    return fingerprint;
+  }
+
+  /**
+   * @return The number of lookups that were served from this
+   *         cache.
+   */
+  public int getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return The number of lookups for which the fingerprint had to
+   *         be computed.
+   */
+  public int getMisses() {
+    return misses.get();
+  }
+}
@@ -17,9 +17,12 @@ package io.opentracing.contrib.specialagent;
 
 import java.io.IOException;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 class FingerprintBuilder {
   static boolean debugVisitor = false;
@@ -48,27 +51,35 @@ class FingerprintBuilder {
   }
 
   List<ClassFingerprint> build(final URLClassLoader classLoader, final int depth) throws IOException {
-    final LogSet logs = new LogSet(logger);
-    final Fingerprinter fingerprinter = new Fingerprinter(classLoader, logs, debugVisitor);
-    final Set<String> excludeClassNames = new HashSet<>();
-    AssembleUtil.<Void>forEachClass(classLoader.getURLs(), null, new BiConsumer<String,Void>() {
-      @Override
-      public void accept(final String name, final Void arg) {
-        try {
-          fingerprinter.fingerprint(name);
-          excludeClassNames.add(AssembleUtil.resourceToClassName(name));
-        }
-        catch (final IOException e) {
-          throw new IllegalStateException(e);
+    final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    try {
+      final LogSet logs = new LogSet(logger);
+      final Fingerprinter fingerprinter = new Fingerprinter(classLoader, logs, debugVisitor, executor);
+      final List<String> resourcePaths = new ArrayList<>();
+      AssembleUtil.<Void>forEachClass(classLoader.getURLs(), null, new BiConsumer<String,Void>() {
+        @Override
+        public void accept(final String name, final Void arg) {
+          resourcePaths.add(name);
         }
+      });
+
+      // The classes are read and parsed concurrently, but are visited in order
+      fingerprinter.prefetch(resourcePaths);
+      final Set<String> excludeClassNames = new HashSet<>();
+      for (final String resourcePath : resourcePaths) {
+        fingerprinter.fingerprint(resourcePath);
+        excludeClassNames.add(AssembleUtil.resourceToClassName(resourcePath));
       }
-    });
 
-    debug("Before compass...", logs);
-    fingerprinter.compass(depth);
-    debug("After compass...", logs);
-    logs.purge(excludeClassNames);
-    debug("After purge...", logs);
-    return logs.collate();
+      debug("Before compass...", logs);
+      fingerprinter.compass(depth);
+      debug("After compass...", logs);
+      logs.purge(excludeClassNames);
+      debug("After purge...", logs);
+      return logs.collate();
+    }
+    finally {
+      executor.shutdownNow();
+    }
   }
 }
\ No newline at end of file
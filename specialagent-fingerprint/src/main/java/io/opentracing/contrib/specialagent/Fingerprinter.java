@@ -18,9 +18,16 @@ package io.opentracing.contrib.specialagent;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import org.objectweb.asm.AnnotationVisitor;
@@ -43,6 +50,8 @@ class Fingerprinter extends ClassVisitor {
   private final ClassLoader classLoader;
   private final LogSet logs;
   private final SignatureVisitor signatureVisitor;
+  private final ExecutorService executor;
+  private final Map<String,ClassReader> prefetched = new ConcurrentHashMap<>();
 
   private String superClass;
   private List<String> interfaces;
@@ -51,9 +60,26 @@ class Fingerprinter extends ClassVisitor {
   private boolean filtering = false;
 
   Fingerprinter(final ClassLoader classLoader, final LogSet logs, final boolean debug) {
+    this(classLoader, logs, debug, null);
+  }
+
+  /**
+   * Creates a new {@code Fingerprinter} that reads and parses classes with the
+   * specified {@code ExecutorService} ahead of the (sequential) visiting of the
+   * classes.
+   *
+   * @param classLoader The {@code ClassLoader} in which classes are to be
+   *          found.
+   * @param logs The {@link LogSet} to which the visited classes are logged.
+   * @param debug Whether to log the visited bytecode.
+   * @param executor The {@code ExecutorService} with which classes are to be
+   *          prefetched, or {@code null} to read classes only when visited.
+   */
+  Fingerprinter(final ClassLoader classLoader, final LogSet logs, final boolean debug, final ExecutorService executor) {
     super(Opcodes.ASM5, debug ? new LoggingClassVisitor(Opcodes.ASM5) : null);
     this.classLoader = classLoader;
     this.logs = logs;
+    this.executor = executor;
     this.signatureVisitor = debug ? new LoggingSignatureVisitor(api) {
       @Override
       public void visitClassType(final String name) {
@@ -67,7 +93,64 @@ class Fingerprinter extends ClassVisitor {
     };
   }
 
+  /**
+   * Reads and parses the classes at the specified resource paths concurrently,
+   * so that the subsequent calls to {@link #fingerprint(String)} for the
+   * resource paths only need to visit the classes. The classes are visited in
+   * the order of the calls to {@link #fingerprint(String)}, because the
+   * {@link LogSet} is order-dependent.
+   *
+   * @param resourcePaths The resource paths of the classes to prefetch.
+   * @throws IOException If an I/O error has occurred.
+   */
+  void prefetch(final Collection<String> resourcePaths) throws IOException {
+    if (executor == null || resourcePaths.size() < 2)
+      return;
+
+    final List<Future<?>> futures = new ArrayList<>(resourcePaths.size());
+    for (final String resourcePath : resourcePaths) {
+      if (prefetched.containsKey(resourcePath))
+        continue;
+
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          try (final InputStream in = classLoader.getResourceAsStream(resourcePath)) {
+            if (in != null)
+              prefetched.put(resourcePath, new ClassReader(in));
+          }
+          catch (final IllegalArgumentException e) {
+            // Unsupported class file: left to be reported by #fingerprint(String)
+          }
+
+          return null;
+        }
+      }));
+    }
+
+    try {
+      for (final Future<?> future : futures)
+        future.get();
+    }
+    catch (final ExecutionException e) {
+      if (e.getCause() instanceof IOException)
+        throw (IOException)e.getCause();
+
+      throw new IllegalStateException(e.getCause());
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+  }
+
   boolean fingerprint(final String resourcePath) throws IOException {
+    final ClassReader prefetched = this.prefetched.remove(resourcePath);
+    if (prefetched != null) {
+      prefetched.accept(this, 0);
+      return true;
+    }
+
     try (final InputStream in = classLoader.getResourceAsStream(resourcePath)) {
       new ClassReader(in).accept(this, 0);
       return true;
@@ -141,6 +141,24 @@ public class LibraryFingerprint extends Fingerprint {
    *         the runtime is compatible with this fingerprint.
    */
   public List<FingerprintError> isCompatible(final ClassLoader classLoader) {
+    return isCompatible(classLoader, null);
+  }
+
+  /**
+   * Tests whether the runtime represented by the specified {@code ClassLoader}
+   * is compatible with this fingerprint, reusing the class fingerprints in the
+   * specified {@link ClassFingerprintCache} that were computed from the same
+   * resources in another runtime.
+   *
+   * @param classLoader The {@code ClassLoader} representing the runtime to test
+   *          for compatibility.
+   * @param cache The {@link ClassFingerprintCache}, or {@code null} to compute
+   *          all class fingerprints.
+   * @return A list of {@code FingerprintError} objects representing all
+   *         errors encountered in the compatibility test, or {@code null} if
+   *         the runtime is compatible with this fingerprint.
+   */
+  public List<FingerprintError> isCompatible(final ClassLoader classLoader, final ClassFingerprintCache cache) {
     final List<FingerprintError> errors = new ArrayList<>();
     if (presents != null) {
       for (final String present : presents) {
@@ -162,9 +180,9 @@ public class LibraryFingerprint extends Fingerprint {
     for (int i = 0; i < classes.length; ++i) {
       try {
         final ClassFingerprint expected = classes[i];
-        final ClassFingerprint actual = verifier.fingerprint(classLoader, AssembleUtil.classNameToResource(expected.getName()));
+        final String resourcePath = AssembleUtil.classNameToResource(expected.getName());
+        final ClassFingerprint actual = cache != null ? cache.fingerprint(classLoader, resourcePath, verifier) : verifier.fingerprint(classLoader, resourcePath);
         if (actual == null) {
-          verifier.fingerprint(classLoader, AssembleUtil.classNameToResource(expected.getName()));
           errors.add(new FingerprintError(FingerprintError.Reason.MISSING, expected, null));
         }
         else if (!actual.compatible(expected)) {
@@ -76,6 +76,13 @@ class LogSet {
   boolean compass(final Fingerprinter fingerprinter) throws IOException {
     final int before = map.keySet().size();
     int count = 0;
+    final Set<String> unchecked = new LinkedHashSet<>();
+    for (final Map<Log,Log> logs : map.values())
+      for (final Log log : logs.keySet())
+        if (!log.isResolved() && !checked.contains(log.getClassName()))
+          unchecked.add(AssembleUtil.classNameToResource(log.getClassName()));
+
+    fingerprinter.prefetch(unchecked);
     for (final Map<Log,Log> logs : new ArrayList<>(map.values())) {
       for (final Log log : new ArrayList<>(logs.keySet())) {
         if (!log.isResolved()) {
@@ -0,0 +1,56 @@
+/* Copyright 2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentracing.contrib.specialagent;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Test;
+
+public class ClassFingerprintCacheTest {
+  private static final String RESOURCE = AssembleUtil.classNameToResource(ClassFingerprintCacheTest.class.getName());
+
+  @Test
+  public void testSharedResources() throws IOException {
+    final ClassFingerprintCache cache = new ClassFingerprintCache();
+    final URL classes = ClassFingerprintCacheTest.class.getProtectionDomain().getCodeSource().getLocation();
+    final ClassFingerprint fingerprint = cache.fingerprint(new URLClassLoader(new URL[] {classes}, null), RESOURCE, new FingerprintVerifier());
+    assertNotNull(fingerprint);
+    assertEquals(ClassFingerprintCacheTest.class.getName(), fingerprint.getName());
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    assertSame(fingerprint, cache.fingerprint(new URLClassLoader(new URL[] {classes}, null), RESOURCE, new FingerprintVerifier()));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void testDifferentResources() throws IOException {
+    final ClassFingerprintCache cache = new ClassFingerprintCache();
+    final URL classes = ClassFingerprintCacheTest.class.getProtectionDomain().getCodeSource().getLocation();
+    assertNotNull(cache.fingerprint(new URLClassLoader(new URL[] {classes}, null), RESOURCE, new FingerprintVerifier()));
+    assertNull(cache.fingerprint(new URLClassLoader(new URL[0], null), RESOURCE, new FingerprintVerifier()));
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    assertNull(cache.fingerprint(new URLClassLoader(new URL[0], null), RESOURCE, new FingerprintVerifier()));
+    assertEquals(1, cache.getHits());
+  }
+}
@@ -22,25 +22,37 @@ import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import org.apache.maven.artifact.Artifact;
-import org.apache.maven.artifact.repository.ArtifactRepository;
+import javax.inject.Inject;
+
+import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
-import org.apache.maven.lifecycle.LifecycleExecutionException;
 import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Execute;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
-import org.apache.maven.project.DependencyResolutionException;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.ArtifactTypeRegistry;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResolutionException;
 
 @Mojo(name = "test-compatibility", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresDependencyResolution = ResolutionScope.TEST)
 @Execute(goal = "test-compatibility")
 public final class CompatibilityTestMojo extends MutableMojo {
-  @Parameter(defaultValue="${localRepository}", required=true, readonly=true)
-  private ArtifactRepository localRepository;
+  @Inject
+  private RepositorySystem repositorySystem;
 
   @Parameter(property="skipCompatibilityTests")
   private boolean skipCompatibilityTests = false;
@@ -48,6 +60,9 @@ public final class CompatibilityTestMojo extends MutableMojo {
   @Parameter(property = "failAtEnd")
   private boolean failAtEnd;
 
+  @Parameter(property = "compatibilityThreads")
+  private int compatibilityThreads = Runtime.getRuntime().availableProcessors();
+
   @Parameter
   private String passCompatibility;
 
@@ -73,37 +88,105 @@ public final class CompatibilityTestMojo extends MutableMojo {
     return builder.toString();
   }
 
-  private final List<String> errors = new ArrayList<>();
+  /**
+   * A compatibility test of the fingerprint against the runtime of one set of
+   * dependency versions. The runtime is resolved directly from the repository
+   * system, without modifying the dependencies of the {@code MavenProject}, so
+   * that tests can be run concurrently.
+   */
+  private final class Check implements Callable<List<FingerprintError>> {
+    private final Dependency[] dependencies;
+    private final boolean shouldPass;
+    private final List<URL> classpath = new ArrayList<>();
+
+    private Check(final Dependency[] dependencies, final boolean shouldPass) {
+      this.dependencies = dependencies;
+      this.shouldPass = shouldPass;
+    }
 
-  private void assertCompatibility(final Dependency[] dependencies, final boolean shouldPass) throws DependencyResolutionException, IOException, LifecycleExecutionException, MojoExecutionException {
-    final Dependency[] rollback = replaceDependencies(getProject().getDependencies(), dependencies);
+    @Override
+    public List<FingerprintError> call() throws DependencyResolutionException, IOException {
+      classpath.addAll(resolveClasspath(dependencies));
+      try (final URLClassLoader classLoader = new URLClassLoader(classpath.toArray(new URL[classpath.size()]), null)) {
+        return fingerprint.isCompatible(classLoader, cache);
+      }
+    }
+  }
 
-    getLog().info("|-- " + print(dependencies));
-    resolveDependencies();
+  private final List<String> errors = new ArrayList<>();
+  private final ClassFingerprintCache cache = new ClassFingerprintCache();
+  private LibraryFingerprint fingerprint;
+
+  private List<URL> resolveClasspath(final Dependency[] dependencies) throws DependencyResolutionException, IOException {
+    final RepositorySystemSession repositorySession = getSession().getRepositorySession();
+    final ArtifactTypeRegistry typeRegistry = repositorySession.getArtifactTypeRegistry();
+    final CollectRequest collectRequest = new CollectRequest();
+    for (final Dependency dependency : dependencies)
+      collectRequest.addDependency(RepositoryUtils.toDependency(dependency, typeRegistry));
+
+    final DependencyManagement dependencyManagement = getProject().getDependencyManagement();
+    if (dependencyManagement != null)
+      for (final Dependency dependency : dependencyManagement.getDependencies())
+        collectRequest.addManagedDependency(RepositoryUtils.toDependency(dependency, typeRegistry));
+
+    collectRequest.setRepositories(getProject().getRemoteProjectRepositories());
     final List<URL> classpath = new ArrayList<>();
-    for (final Artifact artifact : getProject().getArtifacts())
-      classpath.add(AssembleUtil.toURL(MavenUtil.getPathOf(localRepository.getBasedir(), artifact)));
+    for (final ArtifactResult result : repositorySystem.resolveDependencies(repositorySession, new DependencyRequest(collectRequest, null)).getArtifactResults())
+      classpath.add(result.getArtifact().getFile().toURI().toURL());
+
+    return classpath;
+  }
 
+  private void assertCompatibility(final Check check, final List<FingerprintError> errors) throws MojoExecutionException {
+    getLog().info("|-- " + print(check.dependencies));
     if (isDebug())
-      getLog().warn(classpath.toString());
-
-    try (final URLClassLoader classLoader = new URLClassLoader(classpath.toArray(new URL[classpath.size()]), null)) {
-      final LibraryFingerprint fingerprint = LibraryFingerprint.fromFile(new File(getProject().getBuild().getOutputDirectory(), UtilConstants.FINGERPRINT_FILE).toURI().toURL());
-      final List<FingerprintError> errors = fingerprint.isCompatible(classLoader);
-      if (errors == null != shouldPass) {
-        final String error = print(dependencies) + " should have " + (errors == null ? "failed" : "passed:\n" + AssembleUtil.toIndentedString(errors));
-        if (failAtEnd)
-          this.errors.add(error);
-        else
-          throw new MojoExecutionException(error + "\nClasspath:\n" + AssembleUtil.toIndentedString(classpath));
-      }
+      getLog().warn(check.classpath.toString());
+
+    if (errors == null != check.shouldPass) {
+      final String error = print(check.dependencies) + " should have " + (errors == null ? "failed" : "passed:\n" + AssembleUtil.toIndentedString(errors));
+      if (failAtEnd)
+        this.errors.add(error);
+      else
+        throw new MojoExecutionException(error + "\nClasspath:\n" + AssembleUtil.toIndentedString(check.classpath));
     }
+  }
+
+  private void assertCompatibility(final List<Check> checks) throws IOException, MojoExecutionException {
+    fingerprint = LibraryFingerprint.fromFile(new File(getProject().getBuild().getOutputDirectory(), UtilConstants.FINGERPRINT_FILE).toURI().toURL());
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(compatibilityThreads, checks.size())));
+    try {
+      final List<Future<List<FingerprintError>>> futures = new ArrayList<>(checks.size());
+      for (final Check check : checks)
+        futures.add(executor.submit(check));
+
+      // Results are reported in the order of the specs, regardless of the order of completion
+      Boolean shouldPass = null;
+      for (int i = 0; i < checks.size(); ++i) {
+        final Check check = checks.get(i);
+        if (shouldPass == null || shouldPass != check.shouldPass)
+          getLog().info("Running " + ((shouldPass = check.shouldPass) ? "PASS" : "FAIL") + " compatibility tests...");
+
+        try {
+          assertCompatibility(check, futures.get(i).get());
+        }
+        catch (final ExecutionException e) {
+          throw new MojoExecutionException(print(check.dependencies) + ": " + e.getCause().getMessage(), e.getCause());
+        }
+        catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new MojoExecutionException(e.getMessage(), e);
+        }
+      }
 
-    rollbackDependencies(getProject().getDependencies(), rollback);
+      if (getLog().isDebugEnabled())
+        getLog().debug("ClassFingerprintCache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+    }
+    finally {
+      executor.shutdownNow();
+    }
   }
 
-  private void assertCompatibility(final List<CompatibilitySpec> compatibilitySpecs, final boolean shouldPass) throws DependencyResolutionException, IOException, LifecycleExecutionException, MojoExecutionException, InvalidVersionSpecificationException {
-    getLog().info("Running " + (shouldPass ? "PASS" : "FAIL") + " compatibility tests...");
+  private void addChecks(final List<CompatibilitySpec> compatibilitySpecs, final boolean shouldPass, final List<Check> checks) throws InvalidVersionSpecificationException, MojoExecutionException {
     for (final CompatibilitySpec compatibilitySpec : compatibilitySpecs) {
       String versionSpec = null;
       int numSpecs = -1;
@@ -136,7 +219,7 @@ public final class CompatibilityTestMojo extends MutableMojo {
         for (int j = 0; j < resolvedVersions.length; ++j)
           dependencies[j] = resolvedVersions[j].get(resolvedVersions[j].size() == numSpecs ? i : 0);
 
-        assertCompatibility(dependencies, shouldPass);
+        checks.add(new Check(dependencies, shouldPass));
       }
     }
   }
@@ -176,19 +259,18 @@ public final class CompatibilityTestMojo extends MutableMojo {
       if (failCompatibility != null)
         fails = shortFormToLongForm(failCompatibility);
 
-      boolean wasRun = false;
-      if (passes != null && (wasRun = true))
-        assertCompatibility(passes, true);
+      final List<Check> checks = new ArrayList<>();
+      if (passes != null)
+        addChecks(passes, true, checks);
 
-      if (fails != null && (wasRun = true))
-        assertCompatibility(fails, false);
+      if (fails != null)
+        addChecks(fails, false, checks);
 
-      if (failAtEnd && errors.size() > 0)
-        throw new MojoExecutionException("Failed compatibility tests:\n" + AssembleUtil.toIndentedString(errors));
+      if (passes != null || fails != null) {
+        assertCompatibility(checks);
+        if (failAtEnd && errors.size() > 0)
+          throw new MojoExecutionException("Failed compatibility tests:\n" + AssembleUtil.toIndentedString(errors));
 
-      if (wasRun) {
-        // Reset the dependencies back to original
-        resolveDependencies();
         return;
       }
 
@@ -196,7 +278,7 @@ public final class CompatibilityTestMojo extends MutableMojo {
       if (fingerprintedDependencies.size() > 0)
         throw new MojoExecutionException("No compatibility tests were run for verions of:\n" + AssembleUtil.toIndentedString(fingerprintedDependencies));
     }
-    catch (final DependencyResolutionException | IOException | InvalidVersionSpecificationException | LifecycleExecutionException e) {
+    catch (final IOException | InvalidVersionSpecificationException e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
   }
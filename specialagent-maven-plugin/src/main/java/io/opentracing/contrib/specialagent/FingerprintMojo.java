@@ -21,12 +21,16 @@ import java.io.RandomAccessFile;
 import java.io.Writer;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.TreeSet;
 
 import javax.inject.Inject;
 
@@ -254,6 +258,99 @@ public final class FingerprintMojo extends TreeMojo {
     }
   }
 
+  private static void update(final MessageDigest digest, final Object value) {
+    digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte)0);
+  }
+
+  private static void updateClasses(final MessageDigest digest, final File dir, final String path) throws IOException {
+    final File[] files = dir.listFiles();
+    if (files == null)
+      return;
+
+    Arrays.sort(files);
+    for (final File file : files) {
+      final String name = path + file.getName();
+      if (file.isDirectory()) {
+        updateClasses(digest, file, name + "/");
+      }
+      else if (name.endsWith(".class")) {
+        update(digest, name);
+        digest.update(Files.readAllBytes(file.toPath()));
+      }
+    }
+  }
+
+  /**
+   * Returns the digest of the inputs of {@code dependencies.tgf} and
+   * {@code fingerprint.bin}: the class files of the Integration Rule, the
+   * coordinates of the resolved dependencies, and the configuration of this
+   * mojo.
+   *
+   * @return The hex encoded digest of the inputs of the fingerprint.
+   * @throws IOException If an I/O error has occurred.
+   */
+  private String digestInputs() throws IOException {
+    final MessageDigest digest = newDigest();
+    update(digest, execution.getMojoDescriptor().getPluginDescriptor().getVersion());
+    update(digest, name);
+    update(digest, presents);
+    update(digest, absents);
+    update(digest, isolatedDependencies);
+    final TreeSet<String> artifacts = new TreeSet<>();
+    for (final Artifact artifact : getProject().getArtifacts()) {
+      final File file = artifact.getFile();
+      artifacts.add(artifact.getId() + ":" + artifact.getScope() + ":" + artifact.isOptional() + (file == null ? "" : ":" + digestFile(file)));
+    }
+
+    update(digest, artifacts);
+    updateClasses(digest, new File(getProject().getBuild().getOutputDirectory()), "");
+    return toHex(digest);
+  }
+
+  /**
+   * Returns a token that changes when the content of the specified artifact
+   * file changes. For a jar, this is its length and last modified time. For a
+   * directory (i.e. {@code target/classes} of a module in the reactor), whose
+   * length and last modified time do not change when the class files in it
+   * change, this is the digest of the class files in it.
+   *
+   * @param file The artifact file.
+   * @return A token that changes when the content of the artifact file
+   *         changes.
+   * @throws IOException If an I/O error has occurred.
+   */
+  private static String digestFile(final File file) throws IOException {
+    if (!file.isDirectory())
+      return file.length() + ":" + file.lastModified();
+
+    final MessageDigest digest = newDigest();
+    updateClasses(digest, file, "");
+    return toHex(digest);
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(final MessageDigest digest) {
+    final StringBuilder builder = new StringBuilder();
+    for (final byte b : digest.digest())
+      builder.append(String.format("%02x", b));
+
+    return builder.toString();
+  }
+
+  private boolean isUpToDate(final File digestFile, final String digest) throws IOException {
+    final File outputDirectory = new File(getProject().getBuild().getOutputDirectory());
+    return digestFile.exists() && new File(outputDirectory, UtilConstants.FINGERPRINT_FILE).exists() && new File(outputDirectory, "dependencies.tgf").exists() && digest.equals(new String(Files.readAllBytes(digestFile.toPath()), StandardCharsets.UTF_8).trim());
+  }
+
   private void createPluginName() throws IOException, MojoExecutionException {
     final String pluginName = "sa.rule.name." + name;
     getLog().info("--> " + pluginName + " <--");
@@ -302,8 +399,19 @@ public final class FingerprintMojo extends TreeMojo {
         }
       }
 
-      createDependenciesTgf();
-      createFingerprintBin();
+      // The fingerprint is regenerated only if its inputs have changed
+      final File digestFile = new File(getProject().getBuild().getDirectory(), "fingerprint.sha256");
+      final String digest = digestInputs();
+      if (isUpToDate(digestFile, digest)) {
+        getLog().info("--> dependencies.tgf, fingerprint.bin <-- (up to date)");
+      }
+      else {
+        Files.deleteIfExists(digestFile.toPath());
+        createDependenciesTgf();
+        createFingerprintBin();
+        Files.write(digestFile.toPath(), digest.getBytes(StandardCharsets.UTF_8));
+      }
+
       createLocalRepoFile();
       createPluginName();
     }
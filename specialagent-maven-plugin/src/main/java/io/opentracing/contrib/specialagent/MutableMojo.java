@@ -73,6 +73,10 @@ public abstract class MutableMojo extends AbstractMojo {
     return project;
   }
 
+  final MavenSession getSession() {
+    return session;
+  }
+
   final boolean isDebug() {
     return debug;
   }